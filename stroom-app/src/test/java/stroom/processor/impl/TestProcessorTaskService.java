@@ -38,6 +38,7 @@ import stroom.test.common.util.test.FileSystemTestUtil;
 import javax.inject.Inject;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -167,6 +168,48 @@ class TestProcessorTaskService extends AbstractCoreIntegrationTest {
         assertThat(processorTaskService.findSummary(criteria).size()).isZero();
     }
 
+    @Test
+    void testAssignTasksWithChangedVersions() {
+        final String feedName = FileSystemTestUtil.getUniqueTestString();
+        final Meta file1 = commonTestScenarioCreator.createSample2LineRawFile(feedName, StreamTypeNames.RAW_EVENTS);
+        final Meta file2 = commonTestScenarioCreator.createSample2LineRawFile(feedName, StreamTypeNames.RAW_EVENTS);
+        final Meta file3 = commonTestScenarioCreator.createSample2LineRawFile(feedName, StreamTypeNames.RAW_EVENTS);
+
+        commonTestScenarioCreator.createBasicTranslateStreamProcessor(feedName);
+        createTasks();
+
+        // Read the tasks as the master does when it queues them.
+        final ProcessorTask queued1 = findTask(file1);
+        final ProcessorTask queued2 = findTask(file2);
+        final ProcessorTask queued3 = findTask(file3);
+
+        // Change two of the tasks elsewhere so the queued copies are stale. The first is still unprocessed.
+        processorTaskDao.changeTaskStatus(findTask(file1), null, TaskStatus.UNPROCESSED, null, null);
+        processorTaskDao.changeTaskStatus(findTask(file2), null, TaskStatus.COMPLETE, null, null);
+
+        final List<ProcessorTask> assigned = processorTaskDao.assignTasks(List.of(queued1, queued2, queued3), "worker1");
+        assertThat(assigned)
+                .extracting(ProcessorTask::getId)
+                .containsExactlyInAnyOrder(queued1.getId(), queued3.getId());
+        assertThat(assigned).allSatisfy(task -> {
+            assertThat(task.getStatus()).isEqualTo(TaskStatus.ASSIGNED);
+            assertThat(task.getNodeName()).isEqualTo("worker1");
+        });
+
+        assertThat(findTask(file1).getStatus()).isEqualTo(TaskStatus.ASSIGNED);
+        assertThat(findTask(file2).getStatus()).isEqualTo(TaskStatus.COMPLETE);
+        assertThat(findTask(file3).getStatus()).isEqualTo(TaskStatus.ASSIGNED);
+
+        // Tasks that have already been assigned must not be taken from the node that has them.
+        assertThat(processorTaskDao.assignTasks(List.of(queued1, queued2, queued3), "worker2")).isEmpty();
+        assertThat(findTask(file1).getNodeName()).isEqualTo("worker1");
+        assertThat(findTask(file3).getNodeName()).isEqualTo("worker1");
+    }
+
+    private ProcessorTask findTask(final Meta meta) {
+        return processorTaskService.find(new ExpressionCriteria(ProcessorTaskExpressionUtil.createWithStream(meta))).getFirst();
+    }
+
     private void createTasks() {
         // Make sure there are no tasks yet.
         processorTaskManager.createTasks(new SimpleTaskContext());
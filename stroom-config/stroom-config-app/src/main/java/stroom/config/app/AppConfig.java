@@ -9,7 +9,9 @@ import stroom.core.benchmark.BenchmarkClusterConfig;
 import stroom.core.db.DbConfig;
 import stroom.core.receive.ProxyAggregationConfig;
 import stroom.core.receive.ReceiveDataConfig;
+import stroom.dashboard.impl.DashboardConfig;
 import stroom.dashboard.impl.datasource.DataSourceUrlConfig;
+import stroom.data.store.impl.fs.FsVolumeConfig;
 import stroom.explorer.impl.db.ExplorerConfig;
 import stroom.importexport.impl.ContentPackImportConfig;
 import stroom.importexport.impl.ExportConfig;
@@ -42,11 +44,13 @@ public class AppConfig implements IsConfig {
     private ClusterConfig clusterConfig;
     private ClusterLockConfig clusterLockConfig;
     private ContentPackImportConfig contentPackImportConfig;
+    private DashboardConfig dashboardConfig;
     private DataConfig dataConfig;
     private DataSourceUrlConfig dataSourceUrlConfig;
     private DbConfig dbConfig;
     private ExplorerConfig explorerConfig;
     private ExportConfig exportConfig;
+    private FsVolumeConfig fsVolumeConfig;
     private IndexConfig indexConfig;
     private IndexDbConfig indexDbConfig;
     private JobSystemConfig jobSystemConfig;
@@ -75,11 +79,13 @@ public class AppConfig implements IsConfig {
         this.clusterConfig = new ClusterConfig();
         this.clusterLockConfig = new ClusterLockConfig();
         this.contentPackImportConfig = new ContentPackImportConfig();
+        this.dashboardConfig = new DashboardConfig();
         this.dataConfig = new DataConfig();
         this.dataSourceUrlConfig = new DataSourceUrlConfig();
         this.dbConfig = new DbConfig();
         this.explorerConfig = new ExplorerConfig();
         this.exportConfig = new ExportConfig();
+        this.fsVolumeConfig = new FsVolumeConfig();
         this.indexConfig = new IndexConfig();
         this.indexDbConfig = new IndexDbConfig();
         this.jobSystemConfig = new JobSystemConfig();
@@ -108,11 +114,13 @@ public class AppConfig implements IsConfig {
               final ClusterConfig clusterConfig,
               final ClusterLockConfig clusterLockConfig,
               final ContentPackImportConfig contentPackImportConfig,
+              final DashboardConfig dashboardConfig,
               final DataConfig dataConfig,
               final DataSourceUrlConfig dataSourceUrlConfig,
               final DbConfig dbConfig,
               final ExplorerConfig explorerConfig,
               final ExportConfig exportConfig,
+              final FsVolumeConfig fsVolumeConfig,
               final IndexConfig indexConfig,
               final IndexDbConfig indexDbConfig,
               final JobSystemConfig jobSystemConfig,
@@ -140,11 +148,13 @@ public class AppConfig implements IsConfig {
         this.clusterConfig = clusterConfig;
         this.clusterLockConfig = clusterLockConfig;
         this.contentPackImportConfig = contentPackImportConfig;
+        this.dashboardConfig = dashboardConfig;
         this.dataConfig = dataConfig;
         this.dataSourceUrlConfig = dataSourceUrlConfig;
         this.dbConfig = dbConfig;
         this.explorerConfig = explorerConfig;
         this.exportConfig = exportConfig;
+        this.fsVolumeConfig = fsVolumeConfig;
         this.indexConfig = indexConfig;
         this.indexDbConfig = indexDbConfig;
         this.jobSystemConfig = jobSystemConfig;
@@ -210,6 +220,7 @@ public class AppConfig implements IsConfig {
 
     public void setContentPackImportConfig(final ContentPackImportConfig contentPackImportConfig) {
         this.contentPackImportConfig = contentPackImportConfig;
+        this.dashboardConfig = dashboardConfig;
     }
 
     @JsonProperty("core")
@@ -222,6 +233,15 @@ public class AppConfig implements IsConfig {
         this.dbConfig = dbConfig;
     }
 
+    @JsonProperty("dashboard")
+    public DashboardConfig getDashboardConfig() {
+        return dashboardConfig;
+    }
+
+    public void setDashboardConfig(final DashboardConfig dashboardConfig) {
+        this.dashboardConfig = dashboardConfig;
+    }
+
     @JsonProperty("data")
     @JsonPropertyDescription("Configuration for the data layer of stroom")
     public DataConfig getDataConfig() {
@@ -259,6 +279,16 @@ public class AppConfig implements IsConfig {
         this.exportConfig = exportConfig;
     }
 
+    @JsonProperty("fsVolumes")
+    @JsonPropertyDescription("Configuration for the file system volumes that hold stream data")
+    public FsVolumeConfig getFsVolumeConfig() {
+        return fsVolumeConfig;
+    }
+
+    public void setFsVolumeConfig(final FsVolumeConfig fsVolumeConfig) {
+        this.fsVolumeConfig = fsVolumeConfig;
+    }
+
     @JsonProperty("index")
     public IndexConfig getIndexConfig() {
         return indexConfig;
@@ -7,9 +7,11 @@ import stroom.core.benchmark.BenchmarkClusterConfig;
 import stroom.core.db.DbConfig;
 import stroom.core.receive.ProxyAggregationConfig;
 import stroom.core.receive.ReceiveDataConfig;
+import stroom.dashboard.impl.DashboardConfig;
 import stroom.dashboard.impl.datasource.DataSourceUrlConfig;
 import stroom.data.retention.impl.DataRetentionConfig;
 import stroom.data.store.impl.fs.DataStoreServiceConfig;
+import stroom.data.store.impl.fs.FsVolumeConfig;
 import stroom.explorer.impl.db.ExplorerConfig;
 import stroom.importexport.impl.ContentPackImportConfig;
 import stroom.importexport.impl.ExportConfig;
@@ -68,6 +70,7 @@ public class AppConfigModule extends AbstractModule {
         bind(ClusterConfig.class).toInstance(appConfig.getClusterConfig());
         bind(ClusterLockConfig.class).toInstance(appConfig.getClusterLockConfig());
         bind(ContentPackImportConfig.class).toInstance(appConfig.getContentPackImportConfig());
+        bind(DashboardConfig.class).toInstance(appConfig.getDashboardConfig());
         bind(DataConfig.class).toInstance(appConfig.getDataConfig());
         bind(DataRetentionConfig.class).toInstance(appConfig.getDataConfig().getDataRetentionConfig());
         bind(DataSourceUrlConfig.class).toInstance(appConfig.getDataSourceUrlConfig());
@@ -76,6 +79,7 @@ public class AppConfigModule extends AbstractModule {
         bind(ExplorerConfig.class).toInstance(appConfig.getExplorerConfig());
         bind(ExportConfig.class).toInstance(appConfig.getExportConfig());
         bind(ExtractionConfig.class).toInstance(appConfig.getSearchConfig().getExtractionConfig());
+        bind(FsVolumeConfig.class).toInstance(appConfig.getFsVolumeConfig());
         bind(HBaseStatisticsConfig.class).toInstance(appConfig.getStatisticsConfig().getHbaseStatisticsConfig());
         bind(HeapHistogramConfig.class).toInstance(appConfig.getNodeConfig().getStatusConfig().getHeapHistogramConfig());
         bind(IndexDbConfig.class).toInstance(appConfig.getIndexDbConfig());
@@ -19,14 +19,24 @@ package stroom.dashboard.shared;
 import stroom.docref.HasDisplayValue;
 
 public enum DownloadSearchResultFileType implements HasDisplayValue {
-    EXCEL("Excel", "xlsx"), CSV("CSV", "csv"), TSV("TSV", "tsv");
+    EXCEL("Excel", "xlsx", false, false),
+    CSV("CSV", "csv", false, false),
+    TSV("TSV", "tsv", false, false),
+    CSV_GZIP("CSV (gzip)", "csv.gz", true, false),
+    TSV_GZIP("TSV (gzip)", "tsv.gz", true, false),
+    CSV_ZIP("CSV (zip)", "csv.zip", false, true),
+    TSV_ZIP("TSV (zip)", "tsv.zip", false, true);
 
     private final String name;
     private final String extension;
+    private final boolean gzip;
+    private final boolean zip;
 
-    DownloadSearchResultFileType(final String name, final String extension) {
+    DownloadSearchResultFileType(final String name, final String extension, final boolean gzip, final boolean zip) {
         this.name = name;
         this.extension = extension;
+        this.gzip = gzip;
+        this.zip = zip;
     }
 
     public String getName() {
@@ -37,6 +47,14 @@ public enum DownloadSearchResultFileType implements HasDisplayValue {
         return extension;
     }
 
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public boolean isZip() {
+        return zip;
+    }
+
     @Override
     public String getDisplayValue() {
         return name;
@@ -24,6 +24,8 @@ public class SearchBusPollAction extends Action<SearchBusPollResult> {
     private static final long serialVersionUID = -6668626615097471925L;
 
     private Map<DashboardQueryKey, SearchRequest> searchActionMap;
+    private Map<DashboardQueryKey, Long> resultVersionMap;
+    private long maxWaitMs;
 
     public SearchBusPollAction() {
         // Default constructor necessary for GWT serialisation.
@@ -33,10 +35,32 @@ public class SearchBusPollAction extends Action<SearchBusPollResult> {
         this.searchActionMap = searchActionMap;
     }
 
+    /**
+     * @param resultVersionMap The version of the last result received for each query. Results that have not changed
+     *                         since that version are not returned.
+     * @param maxWaitMs        How long to wait for results to change before returning if none of the queries have
+     *                         new results, zero to return immediately.
+     */
+    public SearchBusPollAction(final Map<DashboardQueryKey, SearchRequest> searchActionMap,
+                               final Map<DashboardQueryKey, Long> resultVersionMap,
+                               final long maxWaitMs) {
+        this.searchActionMap = searchActionMap;
+        this.resultVersionMap = resultVersionMap;
+        this.maxWaitMs = maxWaitMs;
+    }
+
     public Map<DashboardQueryKey, SearchRequest> getSearchActionMap() {
         return searchActionMap;
     }
 
+    public Map<DashboardQueryKey, Long> getResultVersionMap() {
+        return resultVersionMap;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
     @Override
     public String getTaskName() {
         return "Search Bus Poll";
@@ -25,6 +25,7 @@ public class SearchBusPollResult implements SharedObject {
     private static final long serialVersionUID = -2964122512841756795L;
 
     private Map<DashboardQueryKey, SearchResponse> searchResultMap = new HashMap<>();
+    private Map<DashboardQueryKey, Long> resultVersionMap = new HashMap<>();
 
     public SearchBusPollResult() {
         // Default constructor necessary for GWT serialisation.
@@ -34,7 +35,24 @@ public class SearchBusPollResult implements SharedObject {
         this.searchResultMap = searchResultMap;
     }
 
+    public SearchBusPollResult(final Map<DashboardQueryKey, SearchResponse> searchResultMap,
+                               final Map<DashboardQueryKey, Long> resultVersionMap) {
+        this.searchResultMap = searchResultMap;
+        this.resultVersionMap = resultVersionMap;
+    }
+
+    /**
+     * @return The results for each query that have changed since the version the client last received. Queries
+     * with unchanged results are not included.
+     */
     public Map<DashboardQueryKey, SearchResponse> getSearchResultMap() {
         return searchResultMap;
     }
+
+    /**
+     * @return The version of each result in the result map that the client should send back with the next poll.
+     */
+    public Map<DashboardQueryKey, Long> getResultVersionMap() {
+        return resultVersionMap;
+    }
 }
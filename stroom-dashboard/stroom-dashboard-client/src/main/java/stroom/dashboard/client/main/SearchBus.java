@@ -38,11 +38,15 @@ public class SearchBus {
     private static final int ONE_SECOND = 1000;
     private static final int DEFAULT_POLL_INTERVAL = ONE_SECOND;
     private static final int QUICK_POLL_INTERVAL = 10;
+    // How long the server can hold a poll open waiting for new results. The server may limit this further.
+    private static final int LONG_POLL_WAIT = ONE_SECOND;
 
     private final ClientDispatchAsync dispatcher;
     private final RestService restService;
 
     private final Map<DashboardQueryKey, SearchModel> activeSearchMap = new HashMap<>();
+    // The version of the last result received for each query so that unchanged results aren't sent again.
+    private final Map<DashboardQueryKey, Long> resultVersionMap = new HashMap<>();
     private final Timer pollingTimer;
     private int delayMillis = DEFAULT_POLL_INTERVAL;
     private boolean forcePoll;
@@ -66,6 +70,7 @@ public class SearchBus {
 
     private void reset() {
         activeSearchMap.clear();
+        resultVersionMap.clear();
         delayMillis = DEFAULT_POLL_INTERVAL;
         forcePoll = false;
         polling = false;
@@ -78,6 +83,7 @@ public class SearchBus {
 
     public void remove(final DashboardQueryKey queryKey) {
         activeSearchMap.remove(queryKey);
+        resultVersionMap.remove(queryKey);
     }
 
     public void poll() {
@@ -109,9 +115,27 @@ public class SearchBus {
             searchActionMap.put(queryKey, searchAction);
         }
 
-        final SearchBusPollAction action = new SearchBusPollAction(searchActionMap);
+        // Only send versions for queries that are still active.
+        final Map<DashboardQueryKey, Long> versionMap = new HashMap<>();
+        for (final DashboardQueryKey queryKey : searchActionMap.keySet()) {
+            final Long version = resultVersionMap.get(queryKey);
+            if (version != null) {
+                versionMap.put(queryKey, version);
+            }
+        }
+
+        final long pollStartTime = System.currentTimeMillis();
+        final SearchBusPollAction action = new SearchBusPollAction(searchActionMap, versionMap, LONG_POLL_WAIT);
         dispatcher.exec(action, false).onSuccess(result -> {
             try {
+                if (result.getResultVersionMap() != null) {
+                    for (final Entry<DashboardQueryKey, Long> entry : result.getResultVersionMap().entrySet()) {
+                        if (activeSearchMap.containsKey(entry.getKey())) {
+                            resultVersionMap.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+
                 final Map<DashboardQueryKey, SearchResponse> searchResultMap = result.getSearchResultMap();
                 for (final Entry<DashboardQueryKey, SearchResponse> entry : searchResultMap.entrySet()) {
                     final DashboardQueryKey queryKey = entry.getKey();
@@ -124,8 +148,10 @@ public class SearchBus {
 
                 polling = false;
 
-                // Remember and reset delay.
-                final int delay = delayMillis;
+                // Remember and reset delay. The server may have already spent some of the delay waiting for new
+                // results so only wait for what is left.
+                final int elapsed = (int) (System.currentTimeMillis() - pollStartTime);
+                final int delay = Math.max(QUICK_POLL_INTERVAL, delayMillis - elapsed);
                 delayMillis = DEFAULT_POLL_INTERVAL;
 
                 if (forcePoll || activeSearchMap.size() > 0) {
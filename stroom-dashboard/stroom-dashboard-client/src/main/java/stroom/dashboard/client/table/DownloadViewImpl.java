@@ -51,6 +51,10 @@ public class DownloadViewImpl extends ViewImpl implements DownloadView {
         fileType.addItem(DownloadSearchResultFileType.EXCEL);
         fileType.addItem(DownloadSearchResultFileType.CSV);
         fileType.addItem(DownloadSearchResultFileType.TSV);
+        fileType.addItem(DownloadSearchResultFileType.CSV_GZIP);
+        fileType.addItem(DownloadSearchResultFileType.TSV_GZIP);
+        fileType.addItem(DownloadSearchResultFileType.CSV_ZIP);
+        fileType.addItem(DownloadSearchResultFileType.TSV_ZIP);
 
         fileType.setSelectedItem(DownloadSearchResultFileType.EXCEL);
     }
@@ -73,16 +73,20 @@ class ActiveQueries {
         return activeQueries.get(queryKey);
     }
 
-    ActiveQuery addNewQuery(final DashboardQueryKey queryKey, final DocRef docRef) {
+    /**
+     * Add an active query for the key unless there already is one.
+     *
+     * @return The new active query or null if there was already an active query for the key.
+     */
+    ActiveQuery addQueryIfAbsent(final DashboardQueryKey queryKey, final DocRef docRef) {
         final UserToken userToken = securityContext.getUserToken();
         if (userToken == null) {
             throw new RuntimeException("No user is currently logged in");
         }
         final ActiveQuery activeQuery = new ActiveQuery(docRef, userToken);
-        final ActiveQuery existing = activeQueries.put(queryKey, activeQuery);
+        final ActiveQuery existing = activeQueries.putIfAbsent(queryKey, activeQuery);
         if (existing != null) {
-            throw new RuntimeException(
-                    "Existing active query found in active query map for '" + queryKey.toString() + "'");
+            return null;
         }
         return activeQuery;
     }
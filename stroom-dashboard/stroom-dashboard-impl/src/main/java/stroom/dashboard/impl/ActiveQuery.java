@@ -16,14 +16,28 @@
 
 package stroom.dashboard.impl;
 
+import stroom.dashboard.shared.SearchRequest;
+import stroom.dashboard.shared.SearchResponse;
 import stroom.docref.DocRef;
 import stroom.security.shared.UserToken;
 
 class ActiveQuery {
+    /**
+     * Results are fetched at least this often, even when nothing has changed, so that the search keeps
+     * seeing the query as in use.
+     */
+    private static final long MAX_UNFETCHED_MS = 10000;
+
     private final DocRef docRef;
     private final UserToken userToken;
     private final long creationTime;
 
+    private SearchRequest lastRequest;
+    private Long lastChangeCount;
+    private long lastFetchTimeMs;
+    private SearchResponse lastResponse;
+    private long resultVersion;
+
     ActiveQuery(final DocRef docRef, final UserToken userToken) {
         this.docRef = docRef;
         this.userToken = userToken;
@@ -42,6 +56,49 @@ class ActiveQuery {
         return creationTime;
     }
 
+    /**
+     * Record the latest response for this query. The result version is incremented whenever the
+     * response is different to the previous one so that clients that already have the current
+     * version don't need to be sent it again.
+     *
+     * @param request     The request the response was created for.
+     * @param changeCount The change count of the search before the response was created, or null if
+     *                    the search doesn't report changes.
+     * @return The version of the supplied response.
+     */
+    synchronized long updateResponse(final SearchRequest request,
+                                     final Long changeCount,
+                                     final SearchResponse response) {
+        lastRequest = request;
+        lastChangeCount = changeCount;
+        lastFetchTimeMs = System.currentTimeMillis();
+        if (lastResponse == null || !lastResponse.equals(response)) {
+            lastResponse = response;
+            resultVersion++;
+        }
+        return resultVersion;
+    }
+
+    /**
+     * @return True if the client already has the latest response, the request is the same and the
+     * search has not changed since, so there is no need to fetch the results again.
+     */
+    synchronized boolean isUnchanged(final SearchRequest request,
+                                     final Long changeCount,
+                                     final Long clientResultVersion) {
+        return lastResponse != null
+                && changeCount != null
+                && changeCount.equals(lastChangeCount)
+                && clientResultVersion != null
+                && clientResultVersion == resultVersion
+                && request.equals(lastRequest)
+                && System.currentTimeMillis() - lastFetchTimeMs < MAX_UNFETCHED_MS;
+    }
+
+    synchronized boolean isComplete() {
+        return lastResponse != null && lastResponse.isComplete();
+    }
+
     @Override
     public String toString() {
         return "ActiveQuery{" +
@@ -0,0 +1,28 @@
+package stroom.dashboard.impl;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import stroom.util.shared.IsConfig;
+
+import javax.inject.Singleton;
+
+@Singleton
+public class DashboardConfig implements IsConfig {
+    private long maxSearchPollWaitMs = 1000;
+
+    @JsonPropertyDescription("The longest time in milliseconds that a dashboard search poll will wait for new " +
+            "results before returning. Each waiting poll holds a request thread. Set to 0 to always return immediately.")
+    public long getMaxSearchPollWaitMs() {
+        return maxSearchPollWaitMs;
+    }
+
+    public void setMaxSearchPollWaitMs(final long maxSearchPollWaitMs) {
+        this.maxSearchPollWaitMs = maxSearchPollWaitMs;
+    }
+
+    @Override
+    public String toString() {
+        return "DashboardConfig{" +
+                "maxSearchPollWaitMs=" + maxSearchPollWaitMs +
+                '}';
+    }
+}
@@ -16,6 +16,8 @@
 
 package stroom.dashboard.impl;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import stroom.dashboard.impl.datasource.DataSourceProvider;
 import stroom.dashboard.impl.datasource.DataSourceProviderRegistry;
 import stroom.dashboard.impl.download.DelimitedTarget;
@@ -30,28 +32,52 @@ import stroom.dashboard.shared.Search;
 import stroom.dashboard.shared.TableResultRequest;
 import stroom.docref.DocRef;
 import stroom.query.api.v2.Result;
+import stroom.query.api.v2.ResultRequest.Fetch;
 import stroom.query.api.v2.Row;
 import stroom.resource.api.ResourceStore;
 import stroom.security.api.SecurityContext;
 import stroom.security.shared.PermissionNames;
 import stroom.task.api.AbstractTaskHandler;
+import stroom.task.api.TaskContext;
 import stroom.util.EntityServiceExceptionUtil;
 import stroom.util.shared.EntityServiceException;
+import stroom.util.shared.Message;
 import stroom.util.shared.ResourceGeneration;
 import stroom.util.shared.ResourceKey;
+import stroom.util.shared.Severity;
 
 import javax.inject.Inject;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * Downloads the results of a table. Rows are fetched from the result store a page at a time and
+ * written straight to the output file so that the size of a download is not limited by how many
+ * rows can be held in memory at once.
+ * <p>
+ * The rows come from the query's result store, so a download is capped at the number of rows the
+ * store keeps (see {@code search.storeSize} and the table's max results). The query is not re-run
+ * without these limits. The download dialog tells the user this. Each page is a separate read of the
+ * store. If the search is still running the store can change between pages, so rows may be missed or
+ * repeated. The user is warned when this might have happened.
+ */
 class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchResultsAction, ResourceGeneration> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownloadSearchResultsHandler.class);
+
     private static final Pattern NON_BASIC_CHARS = Pattern.compile("[^A-Za-z0-9-_ ]");
     private static final Pattern MULTIPLE_SPACE = Pattern.compile(" +");
+    private static final int PAGE_SIZE = 10000;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     private final ResourceStore resourceStore;
     private final SearchEventLog searchEventLog;
@@ -59,6 +85,7 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
     private final DataSourceProviderRegistry searchDataSourceProviderRegistry;
     private final SearchRequestMapper searchRequestMapper;
     private final SecurityContext securityContext;
+    private final TaskContext taskContext;
 
     @Inject
     DownloadSearchResultsHandler(final ResourceStore resourceStore,
@@ -66,21 +93,23 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
                                  final ActiveQueriesManager activeQueriesManager,
                                  final DataSourceProviderRegistry searchDataSourceProviderRegistry,
                                  final SearchRequestMapper searchRequestMapper,
-                                 final SecurityContext securityContext) {
+                                 final SecurityContext securityContext,
+                                 final TaskContext taskContext) {
         this.resourceStore = resourceStore;
         this.searchEventLog = searchEventLog;
         this.activeQueriesManager = activeQueriesManager;
         this.searchDataSourceProviderRegistry = searchDataSourceProviderRegistry;
         this.searchRequestMapper = searchRequestMapper;
         this.securityContext = securityContext;
+        this.taskContext = taskContext;
     }
 
     @Override
     public ResourceGeneration exec(final DownloadSearchResultsAction action) {
         return securityContext.secureResult(PermissionNames.DOWNLOAD_SEARCH_RESULTS_PERMISSION, () -> {
-            ResourceKey resourceKey;
+            ResourceKey resourceKey = null;
+            final List<Message> messages = new ArrayList<>();
 
-            final DashboardQueryKey queryKey = action.getQueryKey();
             final stroom.dashboard.shared.SearchRequest searchRequest = action.getSearchRequest();
             final Search search = searchRequest.getSearch();
 
@@ -108,30 +137,17 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
                         .orElseThrow(() ->
                                 new RuntimeException("No search provider found for '" + dataSourceRef.getType() + "' data source"));
 
-                stroom.query.api.v2.SearchRequest mappedRequest = searchRequestMapper.mapRequest(queryKey, searchRequest);
-                stroom.query.api.v2.SearchResponse searchResponse = dataSourceProvider.search(mappedRequest);
-
-                if (searchResponse == null || searchResponse.getResults() == null) {
-                    throw new EntityServiceException("No results can be found");
-                }
-
-                Result result = null;
-                for (final Result res : searchResponse.getResults()) {
-                    if (res.getComponentId().equals(action.getComponentId())) {
-                        result = res;
-                        break;
-                    }
-                }
-
-                if (result == null) {
-                    throw new EntityServiceException("No result for component can be found");
+                final ComponentResultRequest componentResultRequest = searchRequest.getComponentResultRequests().get(action.getComponentId());
+                if (componentResultRequest == null) {
+                    throw new EntityServiceException("No component result request found");
                 }
 
-                if (!(result instanceof stroom.query.api.v2.TableResult)) {
-                    throw new EntityServiceException("Result is not a table");
+                if (!(componentResultRequest instanceof TableResultRequest)) {
+                    throw new EntityServiceException("Component result request is not a table");
                 }
 
-                final stroom.query.api.v2.TableResult tableResult = (stroom.query.api.v2.TableResult) result;
+                final TableResultRequest tableResultRequest = (TableResultRequest) componentResultRequest;
+                final List<stroom.dashboard.shared.Field> fields = tableResultRequest.getTableSettings().getFields();
 
                 // Import file.
                 String fileName = action.getQueryKey().toString();
@@ -142,43 +158,50 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
                 resourceKey = resourceStore.createTempFile(fileName);
                 final Path file = resourceStore.getTempFile(resourceKey);
 
-                final ComponentResultRequest componentResultRequest = searchRequest.getComponentResultRequests().get(action.getComponentId());
-                if (componentResultRequest == null) {
-                    throw new EntityServiceException("No component result request found");
-                }
-
-                if (!(componentResultRequest instanceof TableResultRequest)) {
-                    throw new EntityServiceException("Component result request is not a table");
+                final boolean complete = download(dataSourceProvider, action, tableResultRequest, fields, fileName, file);
+                if (!complete) {
+                    messages.add(new Message(Severity.WARNING, "The search had not completed when the results were " +
+                            "downloaded so the download may not contain all results"));
                 }
 
-                final TableResultRequest tableResultRequest = (TableResultRequest) componentResultRequest;
-                final List<stroom.dashboard.shared.Field> fields = tableResultRequest.getTableSettings().getFields();
-                final List<Row> rows = tableResult.getRows();
-
-                download(fields, rows, file, action.getFileType(), action.isSample(), action.getPercent());
-
                 searchEventLog.downloadResults(search.getDataSourceRef(), search.getExpression(), search.getQueryInfo());
             } catch (final RuntimeException e) {
+                // Don't leave a partial download behind.
+                if (resourceKey != null) {
+                    resourceStore.deleteTempFile(resourceKey);
+                }
                 searchEventLog.downloadResults(search.getDataSourceRef(), search.getExpression(), search.getQueryInfo(), e);
                 throw EntityServiceExceptionUtil.create(e);
             }
 
-            return new ResourceGeneration(resourceKey, new ArrayList<>());
+            return new ResourceGeneration(resourceKey, messages);
         });
     }
 
-    private void download(final List<stroom.dashboard.shared.Field> fields, final List<Row> rows, final Path file,
-                          final DownloadSearchResultFileType fileType, final boolean sample, final int percent) {
-        try {
-            final OutputStream outputStream = Files.newOutputStream(file);
+    /**
+     * @return True if the search was complete when the last page of results was read.
+     */
+    private boolean download(final DataSourceProvider dataSourceProvider,
+                             final DownloadSearchResultsAction action,
+                             final TableResultRequest tableResultRequest,
+                             final List<stroom.dashboard.shared.Field> fields,
+                             final String fileName,
+                             final Path file) {
+        final DownloadSearchResultFileType fileType = action.getFileType();
+        try (final OutputStream fileOutputStream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+             final OutputStream outputStream = createOutputStream(fileType, fileName, fileOutputStream)) {
             SearchResultWriter.Target target = null;
 
             // Write delimited file.
             switch (fileType) {
                 case CSV:
+                case CSV_GZIP:
+                case CSV_ZIP:
                     target = new DelimitedTarget(outputStream, ",");
                     break;
                 case TSV:
+                case TSV_GZIP:
+                case TSV_ZIP:
                     target = new DelimitedTarget(outputStream, "\t");
                     break;
                 case EXCEL:
@@ -186,12 +209,109 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
                     break;
             }
 
-            final SampleGenerator sampleGenerator = new SampleGenerator(sample, percent);
-            final SearchResultWriter searchResultWriter = new SearchResultWriter(fields, rows, sampleGenerator);
-            searchResultWriter.write(target);
+            final SampleGenerator sampleGenerator = new SampleGenerator(action.isSample(), action.getPercent());
+            final SearchResultWriter searchResultWriter = new SearchResultWriter(fields, sampleGenerator, target);
+            searchResultWriter.start();
 
+            // Page through the result store writing each page of rows as we go.
+            int offset = 0;
+            boolean complete = false;
+            boolean more = true;
+            while (more) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new EntityServiceException("Download of search results was terminated");
+                }
+
+                final stroom.query.api.v2.SearchResponse searchResponse = search(dataSourceProvider, action, tableResultRequest, offset);
+                complete = searchResponse.isComplete();
+                final stroom.query.api.v2.TableResult tableResult = getTableResult(action, searchResponse);
+                final List<Row> rows = tableResult.getRows();
+                if (rows == null || rows.size() == 0) {
+                    more = false;
+                } else {
+                    searchResultWriter.write(rows);
+                    offset += rows.size();
+
+                    final Integer totalResults = tableResult.getTotalResults();
+                    more = rows.size() == PAGE_SIZE && (totalResults == null || offset < totalResults);
+                    taskContext.info("Written " + searchResultWriter.getRowCount() + " rows (" + offset + " of " + totalResults + " read)");
+                }
+            }
+
+            searchResultWriter.end();
+            LOGGER.debug("Downloaded {} rows to {}", searchResultWriter.getRowCount(), file);
+
+            return complete;
         } catch (final IOException e) {
             throw EntityServiceExceptionUtil.create(e);
         }
     }
+
+    /**
+     * Compress the output if the file type needs it. Zip files contain a single entry named after the
+     * download without the zip extension.
+     */
+    private OutputStream createOutputStream(final DownloadSearchResultFileType fileType,
+                                            final String fileName,
+                                            final OutputStream outputStream) throws IOException {
+        if (fileType.isGzip()) {
+            return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+        if (fileType.isZip()) {
+            final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+            zipOutputStream.putNextEntry(new ZipEntry(fileName.substring(0, fileName.length() - ".zip".length())));
+            return zipOutputStream;
+        }
+        return outputStream;
+    }
+
+    /**
+     * Get a single page of the table results from the result store for the query.
+     */
+    private stroom.query.api.v2.SearchResponse search(final DataSourceProvider dataSourceProvider,
+                                                      final DownloadSearchResultsAction action,
+                                                      final TableResultRequest tableResultRequest,
+                                                      final int offset) {
+        final TableResultRequest pageRequest = new TableResultRequest(offset, PAGE_SIZE);
+        pageRequest.setTableSettings(tableResultRequest.getTableSettings());
+        pageRequest.setOpenGroups(tableResultRequest.getOpenGroups());
+        pageRequest.setFetch(Fetch.ALL);
+
+        final stroom.dashboard.shared.SearchRequest searchRequest = action.getSearchRequest();
+        final stroom.dashboard.shared.SearchRequest pageSearchRequest = new stroom.dashboard.shared.SearchRequest(
+                searchRequest.getSearch(),
+                Collections.singletonMap(action.getComponentId(), pageRequest),
+                searchRequest.getDateTimeLocale());
+
+        final DashboardQueryKey queryKey = action.getQueryKey();
+        final stroom.query.api.v2.SearchRequest mappedRequest = searchRequestMapper.mapRequest(queryKey, pageSearchRequest);
+        final stroom.query.api.v2.SearchResponse searchResponse = dataSourceProvider.search(mappedRequest);
+
+        if (searchResponse == null || searchResponse.getResults() == null) {
+            throw new EntityServiceException("No results can be found");
+        }
+
+        return searchResponse;
+    }
+
+    private stroom.query.api.v2.TableResult getTableResult(final DownloadSearchResultsAction action,
+                                                           final stroom.query.api.v2.SearchResponse searchResponse) {
+        Result result = null;
+        for (final Result res : searchResponse.getResults()) {
+            if (res.getComponentId().equals(action.getComponentId())) {
+                result = res;
+                break;
+            }
+        }
+
+        if (result == null) {
+            throw new EntityServiceException("No result for component can be found");
+        }
+
+        if (!(result instanceof stroom.query.api.v2.TableResult)) {
+            throw new EntityServiceException("Result is not a table");
+        }
+
+        return (stroom.query.api.v2.TableResult) result;
+    }
 }
@@ -31,6 +31,8 @@ import stroom.dashboard.shared.StoredQuery;
 import stroom.docref.DocRef;
 import stroom.query.api.v2.Param;
 import stroom.query.api.v2.Query;
+import stroom.query.api.v2.QueryKey;
+import stroom.search.api.SearchResultChanges;
 import stroom.security.api.SecurityContext;
 import stroom.storedquery.api.StoredQueryService;
 import stroom.task.api.AbstractTaskHandler;
@@ -52,6 +54,8 @@ class SearchBusPollActionHandler extends AbstractTaskHandler<SearchBusPollAction
     private final ActiveQueriesManager activeQueriesManager;
     private final SearchRequestMapper searchRequestMapper;
     private final SecurityContext securityContext;
+    private final DashboardConfig dashboardConfig;
+    private final SearchResultChanges searchResultChanges;
 
     @Inject
     SearchBusPollActionHandler(final StoredQueryService queryService,
@@ -59,13 +63,17 @@ class SearchBusPollActionHandler extends AbstractTaskHandler<SearchBusPollAction
                                final DataSourceProviderRegistry searchDataSourceProviderRegistry,
                                final ActiveQueriesManager activeQueriesManager,
                                final SearchRequestMapper searchRequestMapper,
-                               final SecurityContext securityContext) {
+                               final SecurityContext securityContext,
+                               final DashboardConfig dashboardConfig,
+                               final SearchResultChanges searchResultChanges) {
         this.queryService = queryService;
         this.searchEventLog = searchEventLog;
         this.searchDataSourceProviderRegistry = searchDataSourceProviderRegistry;
         this.activeQueriesManager = activeQueriesManager;
         this.searchRequestMapper = searchRequestMapper;
         this.securityContext = securityContext;
+        this.dashboardConfig = dashboardConfig;
+        this.searchResultChanges = searchResultChanges;
     }
 
     @Override
@@ -88,6 +96,7 @@ class SearchBusPollActionHandler extends AbstractTaskHandler<SearchBusPollAction
                 final String searchSessionId = action.getUserToken() + "_" + action.getApplicationInstanceId();
                 final ActiveQueries activeQueries = activeQueriesManager.get(searchSessionId);
                 final Map<DashboardQueryKey, SearchResponse> searchResultMap = new HashMap<>();
+                final Map<DashboardQueryKey, Long> resultVersionMap = new HashMap<>();
 
 //            // Fix query keys so they have session and user info.
 //            for (final Entry<DashboardQueryKey, SearchRequest> entry : action.getSearchActionMap().entrySet()) {
@@ -99,21 +108,73 @@ class SearchBusPollActionHandler extends AbstractTaskHandler<SearchBusPollAction
                 // Kill off any queries that are no longer required by the UI.
                 activeQueries.destroyUnusedQueries(action.getSearchActionMap().keySet());
 
-                // Get query results for every active query.
-                for (final Entry<DashboardQueryKey, SearchRequest> entry : action.getSearchActionMap().entrySet()) {
-                    final DashboardQueryKey queryKey = entry.getKey();
-
-                    final SearchRequest searchRequest = entry.getValue();
+                // If none of the queries have new results then wait up to the requested time for some to arrive.
+                // Each waiting poll holds a request thread so the wait is limited by config.
+                final long maxWaitMs = Math.max(0, Math.min(action.getMaxWaitMs(), dashboardConfig.getMaxSearchPollWaitMs()));
+                final long waitUntil = System.currentTimeMillis() + maxWaitMs;
+                while (true) {
+                    // The change counts of incomplete searches that the client already has the latest results for.
+                    final Map<QueryKey, Long> waitChangeCounts = new HashMap<>();
+
+                    // Get query results for every active query.
+                    for (final Entry<DashboardQueryKey, SearchRequest> entry : action.getSearchActionMap().entrySet()) {
+                        final DashboardQueryKey queryKey = entry.getKey();
+
+                        final SearchRequest searchRequest = entry.getValue();
+
+                        if (searchRequest != null && searchRequest.getSearch() != null) {
+                            // Get the change count before fetching results so that any results that arrive while we
+                            // fetch will be seen as a change.
+                            final QueryKey resultQueryKey = new QueryKey(queryKey.getUuid());
+                            final Long changeCount = searchResultChanges.getChangeCount(resultQueryKey);
+                            final Long lastResultVersion = getLastResultVersion(action, queryKey);
+
+                            final ActiveQuery existingQuery = activeQueries.getExistingQuery(queryKey);
+                            if (existingQuery != null && existingQuery.isUnchanged(searchRequest, changeCount, lastResultVersion)) {
+                                // The client already has the latest results so don't fetch and map them again.
+                                if (!existingQuery.isComplete()) {
+                                    waitChangeCounts.put(resultQueryKey, changeCount);
+                                }
+                            } else {
+                                final SearchResponse searchResponse = processRequest(activeQueries, queryKey, searchRequest);
+                                if (searchResponse != null) {
+                                    final ActiveQuery activeQuery = activeQueries.getExistingQuery(queryKey);
+                                    if (activeQuery == null) {
+                                        searchResultMap.put(queryKey, searchResponse);
+                                    } else {
+                                        // Only return the response if the client doesn't already have it.
+                                        final long resultVersion = activeQuery.updateResponse(searchRequest, changeCount, searchResponse);
+                                        if (lastResultVersion == null || lastResultVersion != resultVersion) {
+                                            searchResultMap.put(queryKey, searchResponse);
+                                            resultVersionMap.put(queryKey, resultVersion);
+                                        } else if (!searchResponse.isComplete() && changeCount != null) {
+                                            waitChangeCounts.put(resultQueryKey, changeCount);
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
 
-                    if (searchRequest != null && searchRequest.getSearch() != null) {
-                        final SearchResponse searchResponse = processRequest(activeQueries, queryKey, searchRequest);
-                        if (searchResponse != null) {
-                            searchResultMap.put(queryKey, searchResponse);
+                    // Wait for the search to signal that new results have arrived, rather than fetching results again,
+                    // and then only fetch the results of the queries that have changed. Searches that can't signal
+                    // changes are not waited for.
+                    final long remaining = waitUntil - System.currentTimeMillis();
+                    if (!searchResultMap.isEmpty() || waitChangeCounts.isEmpty() || remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        if (!searchResultChanges.awaitChange(waitChangeCounts, remaining)) {
+                            break;
                         }
+                    } catch (final InterruptedException e) {
+                        // Continue to interrupt this thread.
+                        Thread.currentThread().interrupt();
+                        break;
                     }
                 }
 
-                return new SearchBusPollResult(searchResultMap);
+                return new SearchBusPollResult(searchResultMap, resultVersionMap);
             });
         });
     }
@@ -125,24 +186,19 @@ class SearchBusPollActionHandler extends AbstractTaskHandler<SearchBusPollAction
         final Search search = searchRequest.getSearch();
 
         try {
-            synchronized (SearchBusPollActionHandler.class) {
-                // Make sure we have active queries for all current UI queries.
-                // Note: This also ensures that the active query cache is kept alive
-                // for all open UI components.
-                final ActiveQuery activeQuery = activeQueries.getExistingQuery(queryKey);
-
-                // If the query doesn't have an active query for this query key then
-                // this is new.
-                if (activeQuery == null) {
-                    newSearch = true;
-
-                    // Store the new active query for this query.
-                    activeQueries.addNewQuery(queryKey, search.getDataSourceRef());
-
-                    // Add this search to the history so the user can get back to this
-                    // search again.
-                    storeSearchHistory(queryKey, search);
-                }
+            // Make sure we have active queries for all current UI queries.
+            // Note: This also ensures that the active query cache is kept alive
+            // for all open UI components.
+            final ActiveQuery activeQuery = activeQueries.getExistingQuery(queryKey);
+
+            // If the query doesn't have an active query for this query key then
+            // this is new. Only one concurrent poll for the same key will add it.
+            if (activeQuery == null && activeQueries.addQueryIfAbsent(queryKey, search.getDataSourceRef()) != null) {
+                newSearch = true;
+
+                // Add this search to the history so the user can get back to this
+                // search again.
+                storeSearchHistory(queryKey, search);
             }
 
             // Perform the search or update results.
@@ -185,6 +241,13 @@ class SearchBusPollActionHandler extends AbstractTaskHandler<SearchBusPollAction
         return result;
     }
 
+    private Long getLastResultVersion(final SearchBusPollAction action, final DashboardQueryKey queryKey) {
+        if (action.getResultVersionMap() == null) {
+            return null;
+        }
+        return action.getResultVersionMap().get(queryKey);
+    }
+
     private void storeSearchHistory(final DashboardQueryKey queryKey, final Search search) {
         // We only want to record search history for user initiated searches.
         if (search.isStoreHistory()) {
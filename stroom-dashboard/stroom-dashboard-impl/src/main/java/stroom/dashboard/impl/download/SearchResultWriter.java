@@ -23,45 +23,36 @@ import stroom.query.api.v2.Row;
 import java.io.IOException;
 import java.util.List;
 
+/**
+ * Writes search result rows to a {@link Target}. Rows can be written a page at a time so that
+ * large result sets do not need to be held in memory.
+ */
 public class SearchResultWriter {
     private final List<Field> fields;
-    private final List<Row> rows;
     private final SampleGenerator sampleGenerator;
+    private final Target target;
+    private long rowCount;
 
     public SearchResultWriter(final List<Field> fields,
-                              final List<Row> rows,
-                              final SampleGenerator sampleGenerator) {
+                              final SampleGenerator sampleGenerator,
+                              final Target target) {
         this.fields = fields;
-        this.rows = rows;
         this.sampleGenerator = sampleGenerator;
+        this.target = target;
     }
 
-    public void write(final Target target) throws IOException {
-        // Start writing.
+    /**
+     * Start writing and write the headings.
+     */
+    public void start() throws IOException {
         target.start();
-
-        // Write heading.
-        writeHeadings(fields, target);
-
-        // Write content.
-        writeContent(rows, fields, sampleGenerator, target);
-
-        // End writing.
-        target.end();
-    }
-
-    private void writeHeadings(final List<Field> fields, final Target target) throws IOException {
-        target.startLine();
-        for (final Field field : fields) {
-            if (field.isVisible()) {
-                target.writeHeading(field, field.getName());
-            }
-        }
-        target.endLine();
+        writeHeadings();
     }
 
-    private void writeContent(final List<Row> rows, final List<Field> fields,
-                              final SampleGenerator sampleGenerator, final Target target) throws IOException {
+    /**
+     * Write the next page of rows.
+     */
+    public void write(final List<Row> rows) throws IOException {
         for (final Row row : rows) {
             if (row.getDepth() == 0) {
                 if (sampleGenerator.includeResult()) {
@@ -74,11 +65,33 @@ public class SearchResultWriter {
                         }
                     }
                     target.endLine();
+                    rowCount++;
                 }
             }
         }
     }
 
+    public void end() throws IOException {
+        target.end();
+    }
+
+    /**
+     * @return The number of rows that have been written, excluding the headings.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void writeHeadings() throws IOException {
+        target.startLine();
+        for (final Field field : fields) {
+            if (field.isVisible()) {
+                target.writeHeading(field, field.getName());
+            }
+        }
+        target.endLine();
+    }
+
     public interface Target {
         void start() throws IOException;
 
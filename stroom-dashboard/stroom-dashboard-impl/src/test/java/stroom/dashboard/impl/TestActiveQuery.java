@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.dashboard.impl;
+
+import org.junit.jupiter.api.Test;
+import stroom.dashboard.shared.SearchRequest;
+import stroom.dashboard.shared.SearchResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestActiveQuery {
+    @Test
+    void testResultVersion() {
+        final ActiveQuery activeQuery = new ActiveQuery(null, null);
+
+        final long first = activeQuery.updateResponse(null, null, createResponse("result1", false));
+        assertThat(activeQuery.updateResponse(null, null, createResponse("result1", false))).isEqualTo(first);
+
+        final long second = activeQuery.updateResponse(null, null, createResponse("result2", false));
+        assertThat(second).isGreaterThan(first);
+
+        final long third = activeQuery.updateResponse(null, null, createResponse("result2", true));
+        assertThat(third).isGreaterThan(second);
+    }
+
+    @Test
+    void testUnchanged() {
+        final ActiveQuery activeQuery = new ActiveQuery(null, null);
+        final SearchRequest request = SearchRequestTestData.dashboardSearchRequest();
+
+        final long version = activeQuery.updateResponse(request, 1L, createResponse("result1", false));
+        assertThat(activeQuery.isUnchanged(request, 1L, version)).isTrue();
+
+        // The search has new results.
+        assertThat(activeQuery.isUnchanged(request, 2L, version)).isFalse();
+        // The client doesn't have the latest response.
+        assertThat(activeQuery.isUnchanged(request, 1L, null)).isFalse();
+        assertThat(activeQuery.isUnchanged(request, 1L, version - 1)).isFalse();
+        // The client wants something different.
+        assertThat(activeQuery.isUnchanged(new SearchRequest(), 1L, version)).isFalse();
+        // The search doesn't report changes.
+        activeQuery.updateResponse(request, null, createResponse("result1", false));
+        assertThat(activeQuery.isUnchanged(request, null, version)).isFalse();
+    }
+
+    private SearchResponse createResponse(final String result, final boolean complete) {
+        final SearchResponse searchResponse = new SearchResponse();
+        searchResponse.addResult("table-1234", result);
+        searchResponse.setComplete(complete);
+        return searchResponse;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.dashboard.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import stroom.dashboard.impl.datasource.DataSourceProvider;
+import stroom.dashboard.impl.datasource.DataSourceProviderRegistry;
+import stroom.dashboard.impl.logging.SearchEventLog;
+import stroom.dashboard.shared.DashboardQueryKey;
+import stroom.dashboard.shared.DownloadSearchResultFileType;
+import stroom.dashboard.shared.DownloadSearchResultsAction;
+import stroom.query.api.v2.OffsetRange;
+import stroom.query.api.v2.Row;
+import stroom.query.api.v2.SearchRequest;
+import stroom.query.api.v2.SearchResponse;
+import stroom.query.api.v2.TableResult;
+import stroom.resource.api.ResourceStore;
+import stroom.security.api.SecurityContext;
+import stroom.task.api.TaskContext;
+import stroom.util.shared.EntityServiceException;
+import stroom.util.shared.ResourceGeneration;
+import stroom.util.shared.ResourceKey;
+import stroom.util.shared.Severity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TestDownloadSearchResultsHandler {
+    private static final String COMPONENT_ID = "componentSettingsMapKey";
+    private static final DashboardQueryKey QUERY_KEY = DashboardQueryKey.create("queryKeyUuid", "0", "queryId-1");
+
+    @Mock
+    private ResourceStore resourceStore;
+    @Mock
+    private SearchEventLog searchEventLog;
+    @Mock
+    private ActiveQueriesManager activeQueriesManager;
+    @Mock
+    private ActiveQueries activeQueries;
+    @Mock
+    private DataSourceProviderRegistry dataSourceProviderRegistry;
+    @Mock
+    private DataSourceProvider dataSourceProvider;
+    @Mock
+    private SecurityContext securityContext;
+    @Mock
+    private TaskContext taskContext;
+
+    private final ResourceKey resourceKey = new ResourceKey("test", "test");
+    private Path file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        file = Files.createTempDirectory("stroom").resolve("download");
+
+        when(securityContext.secureResult(anyString(), any())).thenAnswer(invocation ->
+                ((Supplier<?>) invocation.getArgument(1)).get());
+        when(activeQueriesManager.get(anyString())).thenReturn(activeQueries);
+        when(activeQueries.getExistingQuery(any())).thenReturn(new ActiveQuery(null, null));
+        when(dataSourceProviderRegistry.getDataSourceProvider(any())).thenReturn(Optional.of(dataSourceProvider));
+        when(resourceStore.createTempFile(anyString())).thenReturn(resourceKey);
+        when(resourceStore.getTempFile(resourceKey)).thenReturn(file);
+    }
+
+    @Test
+    void testDownloadPages() throws IOException {
+        final List<Row> rows = createRows(25000);
+        when(dataSourceProvider.search(any())).thenAnswer(invocation ->
+                getPage(invocation.getArgument(0), rows));
+
+        final ResourceGeneration resourceGeneration = createHandler().exec(createAction(DownloadSearchResultFileType.CSV));
+
+        assertThat(resourceGeneration.getResourceKey()).isEqualTo(resourceKey);
+        assertThat(resourceGeneration.getMessageList()).isEmpty();
+        final List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(rows.size() + 1);
+        assertThat(lines.get(1)).contains("a0");
+        assertThat(lines.get(lines.size() - 1)).contains("a24999");
+
+        // 10,000 rows per page.
+        verify(dataSourceProvider, times(3)).search(any());
+        verify(resourceStore, never()).deleteTempFile(any());
+    }
+
+    @Test
+    void testDownloadGzip() throws IOException {
+        final List<Row> rows = createRows(10);
+        when(dataSourceProvider.search(any())).thenAnswer(invocation ->
+                getPage(invocation.getArgument(0), rows));
+
+        createHandler().exec(createAction(DownloadSearchResultFileType.CSV_GZIP));
+
+        try (final InputStream inputStream = new GZIPInputStream(Files.newInputStream(file));
+             final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            final List<String> lines = reader.lines().collect(Collectors.toList());
+            assertThat(lines).hasSize(rows.size() + 1);
+            assertThat(lines.get(lines.size() - 1)).contains("a9");
+        }
+    }
+
+    @Test
+    void testDownloadZip() throws IOException {
+        final List<Row> rows = createRows(10);
+        when(dataSourceProvider.search(any())).thenAnswer(invocation ->
+                getPage(invocation.getArgument(0), rows));
+
+        createHandler().exec(createAction(DownloadSearchResultFileType.TSV_ZIP));
+
+        try (final ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(file))) {
+            final ZipEntry entry = zipInputStream.getNextEntry();
+            assertThat(entry.getName()).endsWith(".tsv");
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(zipInputStream, StandardCharsets.UTF_8));
+            final List<String> lines = reader.lines().collect(Collectors.toList());
+            assertThat(lines).hasSize(rows.size() + 1);
+            assertThat(lines.get(lines.size() - 1)).contains("a9").contains("\t");
+        }
+    }
+
+    @Test
+    void testIncompleteSearchWarned() {
+        final List<Row> rows = createRows(10);
+        when(dataSourceProvider.search(any())).thenAnswer(invocation ->
+                getPage(invocation.getArgument(0), rows, false));
+
+        final ResourceGeneration resourceGeneration = createHandler().exec(createAction(DownloadSearchResultFileType.CSV));
+
+        assertThat(resourceGeneration.getMessageList()).hasSize(1);
+        assertThat(resourceGeneration.getMessageList().get(0).getSeverity()).isEqualTo(Severity.WARNING);
+    }
+
+    @Test
+    void testDeleteTempFileOnFailure() {
+        // The first page is written before the second fails.
+        final List<Row> rows = createRows(15000);
+        when(dataSourceProvider.search(any()))
+                .thenAnswer(invocation -> getPage(invocation.getArgument(0), rows))
+                .thenReturn(new SearchResponse(null, null, null, false));
+
+        assertThatThrownBy(() -> createHandler().exec(createAction(DownloadSearchResultFileType.CSV)))
+                .isInstanceOf(EntityServiceException.class);
+
+        verify(resourceStore).deleteTempFile(resourceKey);
+        verify(searchEventLog).downloadResults(any(), any(), any(), any());
+    }
+
+    private DownloadSearchResultsHandler createHandler() {
+        return new DownloadSearchResultsHandler(
+                resourceStore,
+                searchEventLog,
+                activeQueriesManager,
+                dataSourceProviderRegistry,
+                new SearchRequestMapper(null),
+                securityContext,
+                taskContext);
+    }
+
+    private DownloadSearchResultsAction createAction(final DownloadSearchResultFileType fileType) {
+        return new DownloadSearchResultsAction(
+                QUERY_KEY,
+                SearchRequestTestData.dashboardSearchRequest(),
+                COMPONENT_ID,
+                fileType,
+                false,
+                100,
+                "en-gb");
+    }
+
+    private List<Row> createRows(final int count) {
+        final List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(null, Arrays.asList("a" + i, "b" + i), 0));
+        }
+        return rows;
+    }
+
+    private SearchResponse getPage(final SearchRequest searchRequest, final List<Row> rows) {
+        return getPage(searchRequest, rows, true);
+    }
+
+    private SearchResponse getPage(final SearchRequest searchRequest, final List<Row> rows, final boolean complete) {
+        final OffsetRange range = searchRequest.getResultRequests().get(0).getRequestedRange();
+        final int from = Math.min(range.getOffset().intValue(), rows.size());
+        final int to = Math.min(from + range.getLength().intValue(), rows.size());
+        final TableResult tableResult = new TableResult(COMPONENT_ID, rows.subList(from, to),
+                new OffsetRange(from, to - from), rows.size(), null);
+        return new SearchResponse(null, Collections.singletonList(tableResult), null, complete);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.dashboard.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import stroom.dashboard.impl.datasource.DataSourceProvider;
+import stroom.dashboard.impl.datasource.DataSourceProviderRegistry;
+import stroom.dashboard.impl.logging.SearchEventLog;
+import stroom.dashboard.shared.DashboardQueryKey;
+import stroom.dashboard.shared.SearchBusPollAction;
+import stroom.dashboard.shared.SearchBusPollResult;
+import stroom.dashboard.shared.SearchRequest;
+import stroom.query.api.v2.OffsetRange;
+import stroom.query.api.v2.QueryKey;
+import stroom.query.api.v2.Row;
+import stroom.query.api.v2.SearchResponse;
+import stroom.query.api.v2.TableResult;
+import stroom.search.api.SearchResultChanges;
+import stroom.security.api.SecurityContext;
+import stroom.security.shared.UserToken;
+import stroom.storedquery.api.StoredQueryService;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TestSearchBusPollActionHandler {
+    private static final String COMPONENT_ID = "componentSettingsMapKey";
+    private static final DashboardQueryKey QUERY_KEY = DashboardQueryKey.create("queryKeyUuid", "0", "queryId-1");
+
+    @Mock
+    private StoredQueryService storedQueryService;
+    @Mock
+    private SearchEventLog searchEventLog;
+    @Mock
+    private DataSourceProviderRegistry dataSourceProviderRegistry;
+    @Mock
+    private DataSourceProvider dataSourceProvider;
+    @Mock
+    private ActiveQueriesManager activeQueriesManager;
+    @Mock
+    private SecurityContext securityContext;
+
+    private final DashboardConfig dashboardConfig = new DashboardConfig();
+    private final TestSearchResultChanges searchResultChanges = new TestSearchResultChanges();
+    private final SearchRequest searchRequest = SearchRequestTestData.dashboardSearchRequest();
+
+    @BeforeEach
+    void setup() {
+        when(securityContext.secureResult(any())).thenAnswer(invocation ->
+                ((Supplier<?>) invocation.getArgument(0)).get());
+        when(securityContext.useAsReadResult(any())).thenAnswer(invocation ->
+                ((Supplier<?>) invocation.getArgument(0)).get());
+        when(securityContext.getUserToken()).thenReturn(new UserToken("user", "test", null));
+        when(dataSourceProviderRegistry.getDataSourceProvider(any())).thenReturn(Optional.of(dataSourceProvider));
+        when(activeQueriesManager.get(anyString())).thenReturn(new ActiveQueries(dataSourceProviderRegistry, securityContext));
+    }
+
+    @Test
+    void testOnlyChangedResultsReturned() {
+        when(dataSourceProvider.search(any())).thenReturn(createResponse("a", false));
+        final SearchBusPollActionHandler handler = createHandler();
+
+        // The first poll gets the full result.
+        final SearchBusPollResult first = handler.exec(createAction(null, 0));
+        assertThat(first.getSearchResultMap()).containsOnlyKeys(QUERY_KEY);
+        final Long firstVersion = first.getResultVersionMap().get(QUERY_KEY);
+        assertThat(firstVersion).isNotNull();
+
+        // Nothing has changed so nothing is sent and the results aren't fetched again.
+        final SearchBusPollResult second = handler.exec(createAction(firstVersion, 0));
+        assertThat(second.getSearchResultMap()).isEmpty();
+        verify(dataSourceProvider, times(1)).search(any());
+
+        // A client that doesn't send its version always gets the result.
+        assertThat(handler.exec(createAction(null, 0)).getSearchResultMap()).containsOnlyKeys(QUERY_KEY);
+
+        // The results change so the new result is sent with a new version.
+        when(dataSourceProvider.search(any())).thenReturn(createResponse("b", true));
+        searchResultChanges.change();
+        final SearchBusPollResult third = handler.exec(createAction(firstVersion, 0));
+        assertThat(third.getSearchResultMap()).containsOnlyKeys(QUERY_KEY);
+        assertThat(third.getSearchResultMap().get(QUERY_KEY).isComplete()).isTrue();
+        assertThat(third.getResultVersionMap().get(QUERY_KEY)).isGreaterThan(firstVersion);
+    }
+
+    @Test
+    void testLongPollWaitsForChange() throws Exception {
+        when(dataSourceProvider.search(any())).thenReturn(createResponse("a", false));
+        final SearchBusPollActionHandler handler = createHandler();
+        final Long version = handler.exec(createAction(null, 0)).getResultVersionMap().get(QUERY_KEY);
+
+        // New results arrive while the poll is waiting.
+        final CompletableFuture<Void> change = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            when(dataSourceProvider.search(any())).thenReturn(createResponse("b", false));
+            searchResultChanges.change();
+        });
+
+        // The poll waits for the change rather than returning empty, and only fetches the results again once they
+        // have changed.
+        final SearchBusPollResult result = handler.exec(createAction(version, 10000));
+        change.get(10, TimeUnit.SECONDS);
+        assertThat(result.getSearchResultMap()).containsOnlyKeys(QUERY_KEY);
+        verify(dataSourceProvider, times(2)).search(any());
+    }
+
+    @Test
+    void testLongPollLimitedByConfig() {
+        when(dataSourceProvider.search(any())).thenReturn(createResponse("a", false));
+        final SearchBusPollActionHandler handler = createHandler();
+        final Long version = handler.exec(createAction(null, 0)).getResultVersionMap().get(QUERY_KEY);
+
+        // Long polling is turned off so the poll returns straight away with nothing new.
+        dashboardConfig.setMaxSearchPollWaitMs(0);
+        long startTime = System.currentTimeMillis();
+        assertThat(handler.exec(createAction(version, 60000)).getSearchResultMap()).isEmpty();
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(30000);
+
+        // Limit the wait. Nothing changes so the results are never fetched again.
+        dashboardConfig.setMaxSearchPollWaitMs(500);
+        startTime = System.currentTimeMillis();
+        assertThat(handler.exec(createAction(version, 60000)).getSearchResultMap()).isEmpty();
+        assertThat(System.currentTimeMillis() - startTime).isBetween(400L, 30000L);
+        verify(dataSourceProvider, times(1)).search(any());
+    }
+
+    @Test
+    void testSearchWithoutChangesNotWaitedFor() {
+        // The data source doesn't report changes so each poll fetches the results and doesn't wait.
+        searchResultChanges.setEnabled(false);
+        when(dataSourceProvider.search(any())).thenReturn(createResponse("a", false));
+        final SearchBusPollActionHandler handler = createHandler();
+        final Long version = handler.exec(createAction(null, 0)).getResultVersionMap().get(QUERY_KEY);
+
+        final long startTime = System.currentTimeMillis();
+        assertThat(handler.exec(createAction(version, 10000)).getSearchResultMap()).isEmpty();
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(5000);
+        verify(dataSourceProvider, times(2)).search(any());
+    }
+
+    private SearchBusPollActionHandler createHandler() {
+        return new SearchBusPollActionHandler(
+                storedQueryService,
+                searchEventLog,
+                dataSourceProviderRegistry,
+                activeQueriesManager,
+                new SearchRequestMapper(null),
+                securityContext,
+                dashboardConfig,
+                searchResultChanges);
+    }
+
+    private SearchBusPollAction createAction(final Long resultVersion, final long maxWaitMs) {
+        final Map<DashboardQueryKey, Long> resultVersionMap = resultVersion == null
+                ? null
+                : Collections.singletonMap(QUERY_KEY, resultVersion);
+        return new SearchBusPollAction(
+                Collections.singletonMap(QUERY_KEY, searchRequest),
+                resultVersionMap,
+                maxWaitMs);
+    }
+
+    private SearchResponse createResponse(final String value, final boolean complete) {
+        final List<Row> rows = Collections.singletonList(new Row(null, Arrays.asList(value, value), 0));
+        final TableResult tableResult = new TableResult(COMPONENT_ID, rows, new OffsetRange(0, 1), 1, null);
+        return new SearchResponse(null, Collections.singletonList(tableResult), null, complete);
+    }
+
+    /**
+     * Stands in for a search that signals whenever its results change.
+     */
+    private static class TestSearchResultChanges implements SearchResultChanges {
+        private long changeCount;
+        private boolean enabled = true;
+
+        synchronized void change() {
+            changeCount++;
+            notifyAll();
+        }
+
+        synchronized void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        @Override
+        public synchronized Long getChangeCount(final QueryKey queryKey) {
+            return enabled ? changeCount : null;
+        }
+
+        @Override
+        public synchronized boolean awaitChange(final Map<QueryKey, Long> changeCounts, final long timeoutMs)
+                throws InterruptedException {
+            final long waitUntil = System.currentTimeMillis() + timeoutMs;
+            while (changeCounts.values().stream().allMatch(count -> count == changeCount)) {
+                final long remaining = waitUntil - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+    }
+}
@@ -100,6 +100,9 @@ class BenchmarkIO {
         final Path bgzipIdxFile2 = dir.resolve("test2.idx");
         final Path bgzipDatFile3 = dir.resolve("test3.dat.bgzip");
         final Path bgzipIdxFile3 = dir.resolve("test4.idx");
+        final Path blz4File = dir.resolve("test.blz4");
+        final Path blz4DatFile = dir.resolve("test5.dat.blz4");
+        final Path blz4IdxFile = dir.resolve("test5.idx.blz4");
 
         Files.createDirectories(dir);
 
@@ -110,6 +113,8 @@ class BenchmarkIO {
         doTest(bgzipDatFile1b, bgzipIdxFile1b, data, StreamType.BGZIP_SEG_COMPRESS);
         doTest(bgzipDatFile2, bgzipIdxFile2, data, StreamType.RAW_SEG_TEXT);
         doTest(bgzipDatFile3, bgzipIdxFile3, data, StreamType.RAW_SEG_XML);
+        doTest(blz4File, null, data, StreamType.BLZ4);
+        doTest(blz4DatFile, blz4IdxFile, data, StreamType.BLZ4_SEG_COMPRESS);
 
         Files.delete(rawFile);
         Files.delete(gzipFile);
@@ -122,6 +127,9 @@ class BenchmarkIO {
         Files.delete(bgzipIdxFile2);
         Files.delete(bgzipDatFile3);
         Files.delete(bgzipIdxFile3);
+        Files.delete(blz4File);
+        Files.delete(blz4DatFile);
+        Files.delete(blz4IdxFile);
     }
 
     private void doTest(final Path file1, final Path file2, final byte[] data, final StreamType streamType) throws IOException {
@@ -146,6 +154,14 @@ class BenchmarkIO {
             case BGZIP_SEG_COMPRESS:
                 os = new RASegmentOutputStream(new BlockGZIPOutputFile(file1), () -> new BlockGZIPOutputFile(file2));
                 break;
+            case BLZ4:
+                os = new BlockGZIPOutputFile(file1, BlockGZIPConstants.DEFAULT_BLOCK_SIZE, BlockCodec.LZ4);
+                break;
+            case BLZ4_SEG_COMPRESS:
+                os = new RASegmentOutputStream(
+                        new BlockGZIPOutputFile(file1, BlockGZIPConstants.DEFAULT_BLOCK_SIZE, BlockCodec.LZ4),
+                        () -> new BlockGZIPOutputFile(file2, BlockGZIPConstants.DEFAULT_BLOCK_SIZE, BlockCodec.LZ4));
+                break;
             default:
                 throw new IllegalArgumentException("Unexpected stream type: " + streamType);
         }
@@ -214,6 +230,12 @@ class BenchmarkIO {
             case BGZIP_SEG_COMPRESS:
                 is = new RASegmentInputStream(new BlockGZIPInputFile(file1),  new BlockGZIPInputFile(file2));
                 break;
+            case BLZ4:
+                is = new BlockGZIPInputFile(file1);
+                break;
+            case BLZ4_SEG_COMPRESS:
+                is = new RASegmentInputStream(new BlockGZIPInputFile(file1), new BlockGZIPInputFile(file2));
+                break;
             case RAW_SEG_TEXT:
                 is = new RASegmentInputStream(new BlockGZIPInputFile(file1), new UncompressedInputStream(file2, false));
                 break;
@@ -280,6 +302,6 @@ class BenchmarkIO {
     }
 
     private enum StreamType {
-        PLAIN, GZIP, BGZIP, BGZIP_SEG, BGZIP_SEG_COMPRESS, RAW_SEG_TEXT, RAW_SEG_XML
+        PLAIN, GZIP, BGZIP, BGZIP_SEG, BGZIP_SEG_COMPRESS, RAW_SEG_TEXT, RAW_SEG_XML, BLZ4, BLZ4_SEG_COMPRESS
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz77support.Parameters;
+import stroom.util.io.StreamUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compression used for the blocks of a block compressed file. Each codec has its own file
+ * identifier so that a reader can tell from the header how to decompress the blocks, the rest of
+ * the file layout is the same for all codecs.
+ *
+ * @see BlockGZIPConstants
+ */
+enum BlockCodec {
+    /**
+     * The original block GZIP format.
+     */
+    GZIP(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER) {
+        @Override
+        OutputStream compress(final OutputStream outputStream) throws IOException {
+            return new GZIPOutputStream(outputStream);
+        }
+
+        @Override
+        InputStream decompress(final InputStream inputStream) throws IOException {
+            return new GZIPInputStream(inputStream);
+        }
+    },
+    /**
+     * Raw LZ4 blocks. These compress less well than GZIP but are much quicker to decompress so
+     * suit data that is read often.
+     */
+    LZ4("BLZ4".getBytes(StreamUtil.DEFAULT_CHARSET)) {
+        private final Parameters parameters = BlockLZ4CompressorOutputStream.createParameterBuilder()
+                .tunedForSpeed()
+                .build();
+
+        @Override
+        OutputStream compress(final OutputStream outputStream) throws IOException {
+            return new BlockLZ4CompressorOutputStream(outputStream, parameters);
+        }
+
+        @Override
+        InputStream decompress(final InputStream inputStream) throws IOException {
+            return new BlockLZ4CompressorInputStream(inputStream);
+        }
+    };
+
+    private final byte[] identifier;
+
+    BlockCodec(final byte[] identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * @return The identifier written at the start of files that use this codec.
+     */
+    byte[] getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Create a stream that compresses a block into an in memory buffer. Closing the stream
+     * finishes the block.
+     */
+    abstract OutputStream compress(OutputStream outputStream) throws IOException;
+
+    /**
+     * Create a stream that decompresses a single block.
+     */
+    abstract InputStream decompress(InputStream inputStream) throws IOException;
+
+    /**
+     * @return The codec with the supplied file identifier or null if the identifier is not known.
+     */
+    static BlockCodec fromIdentifier(final byte[] identifier) {
+        for (final BlockCodec codec : values()) {
+            if (Arrays.equals(codec.identifier, identifier)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
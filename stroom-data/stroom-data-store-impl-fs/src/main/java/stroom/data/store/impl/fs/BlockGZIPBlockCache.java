@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import stroom.cache.api.CacheManager;
+import stroom.cache.api.CacheUtil;
+import stroom.util.shared.Clearable;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds inflated blocks of block GZIP files so that random reads that jump back into the same
+ * blocks, e.g. search extraction and the data viewer, do not have to inflate them again. The cache
+ * is shared by all readers on a node and is bounded by the total size of the blocks it holds.
+ * <p>
+ * Stream files are never changed once written so blocks are keyed by the file path along with the
+ * file length from the block GZIP header in case a file is replaced.
+ */
+@Singleton
+class BlockGZIPBlockCache implements Clearable {
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final Cache<Key, InflatedBlock> cache;
+    private final boolean enabled;
+
+    @Inject
+    BlockGZIPBlockCache(final CacheManager cacheManager, final FsVolumeConfig volumeConfig) {
+        enabled = volumeConfig.getBlockCacheSizeMb() > 0;
+        final CacheBuilder<Key, InflatedBlock> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(0, volumeConfig.getBlockCacheSizeMb()) * BYTES_PER_MB)
+                .weigher((Key key, InflatedBlock block) -> block.getData().length)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .recordStats();
+        cache = cacheBuilder.build();
+        cacheManager.registerCache("Block GZIP Block Cache", cacheBuilder, cache);
+    }
+
+    /**
+     * @return False if the cache has been configured with no space so readers should not use it.
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get an inflated block, inflating it with the supplied loader if it is not in the cache.
+     */
+    InflatedBlock get(final Path file,
+                      final long fileLength,
+                      final long blockNumber,
+                      final Callable<InflatedBlock> loader) throws IOException {
+        try {
+            return cache.get(new Key(file, fileLength, blockNumber), loader);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void clear() {
+        CacheUtil.clear(cache);
+    }
+
+    /**
+     * An inflated block along with the length of the compressed block in the file.
+     */
+    static class InflatedBlock {
+        private final byte[] data;
+        private final long rawLength;
+
+        InflatedBlock(final byte[] data, final long rawLength) {
+            this.data = data;
+            this.rawLength = rawLength;
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return The length of the block in the file including its marker and size.
+         */
+        long getRawLength() {
+            return rawLength;
+        }
+    }
+
+    private static class Key {
+        private final Path file;
+        private final long fileLength;
+        private final long blockNumber;
+        private final int hashCode;
+
+        Key(final Path file, final long fileLength, final long blockNumber) {
+            this.file = file;
+            this.fileLength = fileLength;
+            this.blockNumber = blockNumber;
+            this.hashCode = Objects.hash(file, fileLength, blockNumber);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return fileLength == key.fileLength &&
+                    blockNumber == key.blockNumber &&
+                    Objects.equals(file, key.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
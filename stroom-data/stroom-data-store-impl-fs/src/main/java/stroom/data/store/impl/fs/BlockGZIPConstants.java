@@ -25,6 +25,11 @@ import stroom.util.io.StreamUtil;
  * Data Length] [Index Position] [EOF Position] [Magic Marker] [Block Size]
  * [Block Data] [Magic Marker] [Block Size] [Block Data] ... [Magic Marker] <-
  * (Index Position) [Un-Compressed Index Data] [EOF] <- (EOF)
+ * <p>
+ * Files whose blocks are compressed with a codec other than GZIP have the same
+ * layout but start with the identifier of that codec instead of 'BGZ1'.
+ *
+ * @see BlockCodec
  */
 final class BlockGZIPConstants {
     /**
@@ -25,7 +25,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.LongBuffer;
-import java.util.zip.GZIPInputStream;
 
 /**
  * @see BlockGZIPConstants
@@ -34,9 +33,9 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
     // Use to help track non-closed streams
     private final StreamCloser streamCloser = new BasicStreamCloser();
     /**
-     * Pointer to the current GZIPstream
+     * Pointer to the current GZIPstream (or the inflated block if it came from a cache)
      */
-    GZIPInputStream currentStream;
+    InputStream currentStream;
     /**
      * We read data into a buffer (rather than hit the RA file)
      */
@@ -53,6 +52,10 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
     long idxStart;
     long dataLength;
     protected long eof;
+    /**
+     * How the blocks are compressed
+     */
+    private BlockCodec codec;
     /**
      * When using seek etc we check the index.
      */
@@ -94,7 +97,7 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
     /**
      * @return for our inner classes
      */
-    private int getCurrentBlockRawGzipSize() {
+    int getCurrentBlockRawGzipSize() {
         return (int) currentBlockRawGzipSize;
     }
 
@@ -199,11 +202,16 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
      */
     private void readHeaderMarker() throws IOException {
         fillFromRawStreamBuffer(headerMarkerRawBuffer);
-        if (!checkEqualBuffer(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER, headerMarkerRawBuffer)) {
+        codec = BlockCodec.fromIdentifier(headerMarkerRawBuffer);
+        if (codec == null) {
             throw new IOException("Does not look like a Block GZIP V1 Stream");
         }
     }
 
+    BlockCodec getCodec() {
+        return codec;
+    }
+
     /**
      * Read 1 byte of uncompressed data.
      */
@@ -256,7 +264,7 @@ abstract class BlockGZIPInput extends InputStream implements SeekableInputStream
         readMagicMarker();
         currentBlockRawGzipSize = readLong();
 
-        currentStream = new GZIPInputStream(new GzipInputStreamAdaptor());
+        currentStream = codec.decompress(new GzipInputStreamAdaptor());
         streamCloser.add(currentStream);
     }
 
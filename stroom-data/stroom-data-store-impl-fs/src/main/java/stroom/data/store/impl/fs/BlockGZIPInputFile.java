@@ -19,6 +19,8 @@ package stroom.data.store.impl.fs;
 import stroom.util.io.BasicStreamCloser;
 import stroom.util.io.StreamCloser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
@@ -39,12 +41,23 @@ class BlockGZIPInputFile extends BlockGZIPInput {
 
     private final StreamCloser streamCloser = new BasicStreamCloser();
 
+    // Cache of inflated blocks used when seeking
+    private final BlockGZIPBlockCache blockCache;
+
     /**
      * Constructor to open a Block GZIP File.
      */
     BlockGZIPInputFile(final Path bgz) throws IOException {
+        this(bgz, (BlockGZIPBlockCache) null);
+    }
+
+    /**
+     * Constructor to open a Block GZIP File that gets blocks it seeks to from a cache.
+     */
+    BlockGZIPInputFile(final Path bgz, final BlockGZIPBlockCache blockCache) throws IOException {
         this.raFile = FileChannel.open(bgz, StandardOpenOption.READ);
         this.file = bgz;
+        this.blockCache = blockCache;
 
         raFile.position(0);
         init();
@@ -60,6 +73,7 @@ class BlockGZIPInputFile extends BlockGZIPInput {
         super(rawBufferSize);
         this.raFile = FileChannel.open(bgz, StandardOpenOption.READ);
         this.file = bgz;
+        this.blockCache = null;
 
         raFile.position(0);
         init();
@@ -124,9 +138,7 @@ class BlockGZIPInputFile extends BlockGZIPInput {
             raFile.position(idxStart + BlockGZIPConstants.LONG_BYTES + (newBlockNumber * BlockGZIPConstants.LONG_BYTES));
             currentRawStreamBuffer = createBufferedInputStream(true);
             final long seekPos = readLong();
-            raFile.position(seekPos);
-            currentRawStreamBuffer = createBufferedInputStream(true);
-            startGzipBlock();
+            startBlock(newBlockNumber, seekPos);
             currentStream.skip(newBlockOffset);
         } else {
             // Start a BGZIP block
@@ -142,6 +154,42 @@ class BlockGZIPInputFile extends BlockGZIPInput {
         return n;
     }
 
+    /**
+     * Start reading a block that we have sought to.
+     */
+    private void startBlock(final long blockNumber, final long seekPos) throws IOException {
+        if (blockCache == null) {
+            raFile.position(seekPos);
+            currentRawStreamBuffer = createBufferedInputStream(true);
+            startGzipBlock();
+
+        } else {
+            final BlockGZIPBlockCache.InflatedBlock block = blockCache.get(file, eof, blockNumber, () ->
+                    inflateBlock(seekPos));
+
+            // Leave the file at the start of the next block so that reading can carry on from there.
+            raFile.position(seekPos + block.getRawLength());
+            currentRawStreamBuffer = createBufferedInputStream(true);
+            currentStream = new ByteArrayInputStream(block.getData());
+        }
+    }
+
+    private BlockGZIPBlockCache.InflatedBlock inflateBlock(final long seekPos) throws IOException {
+        raFile.position(seekPos);
+        currentRawStreamBuffer = createBufferedInputStream(true);
+        startGzipBlock();
+        final long rawLength = BlockGZIPConstants.MAGIC_MARKER.length + BlockGZIPConstants.LONG_BYTES +
+                getCurrentBlockRawGzipSize();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(blockSize);
+        final byte[] buffer = new byte[FileSystemUtil.STREAM_BUFFER_SIZE];
+        int len;
+        while ((len = currentStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, len);
+        }
+        return new BlockGZIPBlockCache.InflatedBlock(outputStream.toByteArray(), rawLength);
+    }
+
     /**
      * Mark this stream so we can go back to this position.
      */
@@ -203,9 +251,7 @@ class BlockGZIPInputFile extends BlockGZIPInput {
             raFile.position(idxStart + BlockGZIPConstants.LONG_BYTES + (blockNumber * BlockGZIPConstants.LONG_BYTES));
             currentRawStreamBuffer = createBufferedInputStream(true);
             final long seekPos = readLong();
-            raFile.position(seekPos);
-            currentRawStreamBuffer = createBufferedInputStream(true);
-            startGzipBlock();
+            startBlock(blockNumber, seekPos);
             currentStream.skip(blockOffset);
 
             position = newPosition;
@@ -29,7 +29,7 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.Executor;
 
 /**
  * @see BlockGZIPConstants
@@ -50,9 +50,14 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
     private final BlockByteArrayOutputStream indexBuffer;
     // Use to help track non-closed streams
     private final StreamCloser streamCloser = new BasicStreamCloser();
-    // The stream - we hold a buffer onto it as well
-    private BufferedOutputStream currentStreamBuffer;
-    private GZIPOutputStream currentStreamGzip;
+    // How blocks are compressed
+    private final BlockCodec codec;
+    // Compresses blocks in parallel if set
+    private final ParallelBlockCompressor parallelBlockCompressor;
+    // The stream - we hold a buffer onto the compressing stream
+    private OutputStream currentStreamBuffer;
+    // The uncompressed block when compressing in parallel
+    private BlockByteArrayOutputStream currentBlock;
     // The block size we are using
     private int blockSize;
     // The current 'logical' uncompressed data item we have written
@@ -74,7 +79,40 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
      * @see BlockGZIPConstants
      */
     BlockGZIPOutputFile(final Path file, final int blockSize) throws IOException {
+        this(file, blockSize, BlockCodec.GZIP);
+    }
+
+    /**
+     * Compress blocks with a codec other than GZIP.
+     *
+     * @see BlockCodec
+     */
+    BlockGZIPOutputFile(final Path file, final int blockSize, final BlockCodec codec) throws IOException {
+        this(file, blockSize, codec, null);
+    }
+
+    /**
+     * Compress blocks on the supplied executor, several at a time. The file produced is identical
+     * to one compressed on the writing thread.
+     *
+     * @param maxBlocksInFlight The maximum number of blocks to hold in memory while they are compressed.
+     * @see BlockGZIPConstants
+     */
+    BlockGZIPOutputFile(final Path file,
+                        final int blockSize,
+                        final BlockCodec codec,
+                        final Executor executor,
+                        final int maxBlocksInFlight) throws IOException {
+        this(file, blockSize, codec, new ParallelBlockCompressor(executor, maxBlocksInFlight, blockSize, codec));
+    }
+
+    private BlockGZIPOutputFile(final Path file,
+                                final int blockSize,
+                                final BlockCodec codec,
+                                final ParallelBlockCompressor parallelBlockCompressor) throws IOException {
         this.blockSize = blockSize;
+        this.codec = codec;
+        this.parallelBlockCompressor = parallelBlockCompressor;
         this.mainBuffer = new BlockByteArrayOutputStream();
         this.indexBuffer = new BlockByteArrayOutputStream();
 
@@ -90,7 +128,7 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
         this.raFile = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
 
         // Write a marker
-        mainBuffer.write(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER);
+        mainBuffer.write(codec.getIdentifier());
         // At the start of the block file write the block size an empty place
         // for the index offset and the marker
         // we
@@ -134,9 +172,15 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
     private void endGzipBlock() throws IOException {
         blockCount++;
 
-        currentStreamBuffer.flush();
-        currentStreamGzip.flush();
-        currentStreamGzip.finish();
+        if (parallelBlockCompressor != null) {
+            parallelBlockCompressor.endBlock(currentBlock, this::writeCompressedBlock);
+            currentBlock = null;
+            currentStreamBuffer = null;
+            return;
+        }
+
+        // Closing the stream finishes the compressed block
+        currentStreamBuffer.close();
 
         // Block Compressed size is size of stream less magic marker less block
         // size header (2 longs)
@@ -146,13 +190,29 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
         flushMainBuffer();
 
         currentStreamBuffer = null;
-        currentStreamGzip = null;
+    }
+
+    /**
+     * Write a block that has been compressed in parallel.
+     */
+    private void writeCompressedBlock(final BlockByteArrayOutputStream block) throws IOException {
+        // Record the index
+        indexBuffer.writeLong(raFile.position());
+
+        raFile.write(ByteBuffer.wrap(block.getRawBuffer(), 0, block.size()));
     }
 
     private void startGzipBlock() throws IOException {
         // At what point to we start a new block
         currentBlockEndPos = (blockCount + 1) * blockSize;
 
+        if (parallelBlockCompressor != null) {
+            // Collect the uncompressed block so it can be compressed in the background.
+            currentBlock = parallelBlockCompressor.startBlock();
+            currentStreamBuffer = currentBlock;
+            return;
+        }
+
         // Record the start Pos
         final long currentRawBlockStartPos = raFile.position();
 
@@ -165,9 +225,8 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
         // Write some bytes for the long we will do later
         mainBuffer.writeLong(0);
 
-        // Connect a new GZIP stream
-        currentStreamGzip = new GZIPOutputStream(mainBuffer);
-        currentStreamBuffer = new BufferedOutputStream(currentStreamGzip, FileSystemUtil.STREAM_BUFFER_SIZE);
+        // Connect a new compressing stream
+        currentStreamBuffer = new BufferedOutputStream(codec.compress(mainBuffer), FileSystemUtil.STREAM_BUFFER_SIZE);
     }
 
     @Override
@@ -233,6 +292,11 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
                     endGzipBlock();
                 }
 
+                if (parallelBlockCompressor != null) {
+                    // Write the blocks that are still being compressed
+                    parallelBlockCompressor.finish(this::writeCompressedBlock);
+                }
+
                 // Record where we are going to start writing the index
                 final long idxStart = raFile.position();
 
@@ -244,7 +308,7 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
 
                 // Seek back to the start to write the above stats.
                 // Write the Index Post back in the header
-                raFile.position(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length + BlockGZIPConstants.LONG_BYTES);
+                raFile.position(codec.getIdentifier().length + BlockGZIPConstants.LONG_BYTES);
                 // Write the uncompressed stream size
 
                 mainBuffer.reset();
@@ -267,6 +331,9 @@ class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
             }
         } finally {
             try {
+                if (parallelBlockCompressor != null) {
+                    parallelBlockCompressor.cancel();
+                }
                 streamCloser.close();
             } finally {
                 super.close();
@@ -28,7 +28,10 @@ public class FsDataStoreModule extends AbstractModule {
         bind(DataStoreMaintenanceService.class).to(FsDataStoreMaintenanceService.class);
         bind(Store.class).to(FsStore.class);
 
-        GuiceUtil.buildMultiBinder(binder(), Clearable.class).addBinding(FsVolumeService.class);
+        GuiceUtil.buildMultiBinder(binder(), Clearable.class)
+                .addBinding(FsVolumeService.class)
+                .addBinding(BlockGZIPBlockCache.class)
+                .addBinding(SegmentIndexCache.class);
     }
 
     @Override
@@ -20,6 +20,9 @@ import com.google.inject.Inject;
 import stroom.data.shared.StreamTypeNames;
 import stroom.data.store.impl.fs.DataVolumeDao.DataVolume;
 import stroom.meta.shared.Meta;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.shared.ThreadPool;
+import stroom.task.shared.ThreadPoolImpl;
 import stroom.util.date.DateUtil;
 import stroom.util.io.FileUtil;
 
@@ -52,12 +55,21 @@ class FsPathHelper {
 
     private final FsFeedPathDao fileSystemFeedPaths;
     private final FsTypePathDao fileSystemTypePaths;
+    private final FsVolumeConfig volumeConfig;
+    private final ExecutorProvider executorProvider;
+    private final BlockGZIPBlockCache blockCache;
 
     @Inject
     FsPathHelper(final FsFeedPathDao fileSystemFeedPaths,
-                 final FsTypePathDao fileSystemTypePaths) {
+                 final FsTypePathDao fileSystemTypePaths,
+                 final FsVolumeConfig volumeConfig,
+                 final ExecutorProvider executorProvider,
+                 final BlockGZIPBlockCache blockCache) {
         this.fileSystemFeedPaths = fileSystemFeedPaths;
         this.fileSystemTypePaths = fileSystemTypePaths;
+        this.volumeConfig = volumeConfig;
+        this.executorProvider = executorProvider;
+        this.blockCache = blockCache;
     }
 
     private String createFilePathBase(final String rootPath, final Meta meta, final String streamTypeName) {
@@ -78,6 +90,9 @@ class FsPathHelper {
             throw new IllegalArgumentException("Must Have a non-null stream type");
         }
         if (FileStoreType.bgz.equals(getFileStoreType(streamTypeName))) {
+            if (blockCache != null && blockCache.isEnabled()) {
+                return new BlockGZIPInputFile(file, blockCache);
+            }
             return new BlockGZIPInputFile(file);
         }
         return new UncompressedInputStream(file, isStreamTypeLazy(streamTypeName));
@@ -111,7 +126,7 @@ class FsPathHelper {
         OutputStream outputStream = null;
         if (FileStoreType.bgz.equals(getFileStoreType(streamTypeName))) {
             try {
-                outputStream = new BlockGZIPOutputFile(file);
+                outputStream = createBlockGZIPOutputFile(streamTypeName, file);
             } catch (IOException e) {
                 ioEx = e;
             }
@@ -128,6 +143,32 @@ class FsPathHelper {
         return outputStream;
     }
 
+    private OutputStream createBlockGZIPOutputFile(final String streamTypeName, final Path file) throws IOException {
+        BlockCodec codec = BlockCodec.GZIP;
+        if (volumeConfig.getLz4CompressionStreamTypes() != null &&
+                volumeConfig.getLz4CompressionStreamTypes().contains(streamTypeName)) {
+            codec = BlockCodec.LZ4;
+        }
+
+        final int compressionThreads = volumeConfig.getCompressionThreads();
+        if (compressionThreads > 0 &&
+                volumeConfig.getParallelCompressionStreamTypes() != null &&
+                volumeConfig.getParallelCompressionStreamTypes().contains(streamTypeName)) {
+            // Compress several blocks at once on a pool shared by all streams.
+            final ThreadPool threadPool = new ThreadPoolImpl(
+                    "Block GZIP Compression",
+                    5,
+                    0,
+                    compressionThreads);
+            return new BlockGZIPOutputFile(file,
+                    BlockGZIPConstants.DEFAULT_BLOCK_SIZE,
+                    codec,
+                    executorProvider.getExecutor(threadPool),
+                    compressionThreads);
+        }
+        return new BlockGZIPOutputFile(file, BlockGZIPConstants.DEFAULT_BLOCK_SIZE, codec);
+    }
+
     /**
      * Create a child file for a parent.
      */
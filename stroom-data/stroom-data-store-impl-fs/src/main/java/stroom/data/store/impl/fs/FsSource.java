@@ -42,6 +42,7 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
     private static final Logger LOGGER = LoggerFactory.getLogger(FsSource.class);
 
     private final FsPathHelper fileSystemStreamPathHelper;
+    private final SegmentIndexCache segmentIndexCache;
     private final Map<String, FsSource> childMap = new HashMap<>();
     private final HashMap<String, SegmentInputStreamProvider> inputStreamMap = new HashMap<>(10);
     private final String rootPath;
@@ -56,10 +57,12 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
     private Long count;
 
     private FsSource(final FsPathHelper fileSystemStreamPathHelper,
+                     final SegmentIndexCache segmentIndexCache,
                      final Meta meta,
                      final String rootPath,
                      final String streamType) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        this.segmentIndexCache = segmentIndexCache;
         this.meta = meta;
         this.rootPath = rootPath;
         this.parent = null;
@@ -73,6 +76,7 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
                      final String streamType,
                      final Path file) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        this.segmentIndexCache = parent.segmentIndexCache;
         this.meta = parent.meta;
         this.rootPath = parent.rootPath;
         this.parent = parent;
@@ -87,10 +91,11 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
      * @return A new file system source.
      */
     static FsSource create(final FsPathHelper fileSystemStreamPathHelper,
+                           final SegmentIndexCache segmentIndexCache,
                            final Meta meta,
                            final String rootPath,
                            final String streamType) {
-        return new FsSource(fileSystemStreamPathHelper, meta, rootPath, streamType);
+        return new FsSource(fileSystemStreamPathHelper, segmentIndexCache, meta, rootPath, streamType);
     }
 
     private void validate() {
@@ -176,9 +181,13 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
     @Override
     public long count() {
         if (count == null) {
-            final InputStream data = getInputStream();
-            final InputStream boundaryIndex = getChildInputStream(InternalStreamTypeNames.BOUNDARY_INDEX);
-            count = new RASegmentInputStream(data, boundaryIndex).count();
+            try {
+                final InputStream data = getInputStream();
+                final SegmentIndex boundaryIndex = getChildSegmentIndex(InternalStreamTypeNames.BOUNDARY_INDEX);
+                count = new RASegmentInputStream(data, boundaryIndex).count();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
         return count;
     }
@@ -252,6 +261,21 @@ final class FsSource implements InternalSource, SegmentInputStreamProviderFactor
         return null;
     }
 
+    @Override
+    public SegmentIndex getChildSegmentIndex(final String type) throws IOException {
+        final FsSource childSource = (FsSource) getChild(type);
+        if (childSource == null) {
+            return null;
+        }
+
+        // Indexes of unlocked streams will not change so they can be shared.
+        if (segmentIndexCache != null && segmentIndexCache.isEnabled() && meta != null && Status.UNLOCKED.equals(meta.getStatus())) {
+            return segmentIndexCache.get(meta.getId(), childSource.getFile(),
+                    () -> SegmentIndex.read(childSource.getInputStream()));
+        }
+        return SegmentIndex.read(childSource.getInputStream());
+    }
+
     /////////////////////////////////
     // END INTERNAL SOURCE
     /////////////////////////////////
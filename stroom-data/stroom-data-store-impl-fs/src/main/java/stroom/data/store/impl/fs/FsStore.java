@@ -52,16 +52,19 @@ class FsStore implements Store {
     private static final Logger LOGGER = LoggerFactory.getLogger(FsStore.class);
 
     private final FsPathHelper fileSystemStreamPathHelper;
+    private final SegmentIndexCache segmentIndexCache;
     private final MetaService metaService;
     private final FsVolumeService volumeService;
     private final DataVolumeService dataVolumeService;
 
     @Inject
     FsStore(final FsPathHelper fileSystemStreamPathHelper,
+            final SegmentIndexCache segmentIndexCache,
             final MetaService metaService,
             final FsVolumeService volumeService,
             final DataVolumeService dataVolumeService) {
         this.fileSystemStreamPathHelper = fileSystemStreamPathHelper;
+        this.segmentIndexCache = segmentIndexCache;
         this.metaService = metaService;
         this.volumeService = volumeService;
         this.dataVolumeService = dataVolumeService;
@@ -240,7 +243,7 @@ class FsStore implements Store {
 //                LOGGER.warn(message);
 //                throw new DataException(message);
 //            }
-            streamSource = FsSource.create(fileSystemStreamPathHelper, meta, dataVolume.getVolumePath(), meta.getTypeName());
+            streamSource = FsSource.create(fileSystemStreamPathHelper, segmentIndexCache, meta, dataVolume.getVolumePath(), meta.getTypeName());
         }
 
         return streamSource;
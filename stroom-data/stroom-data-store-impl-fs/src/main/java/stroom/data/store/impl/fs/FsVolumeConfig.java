@@ -1,10 +1,13 @@
 package stroom.data.store.impl.fs;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import stroom.data.shared.StreamTypeNames;
 import stroom.util.config.annotations.RequiresRestart;
 import stroom.util.shared.IsConfig;
 
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
 
 @Singleton
 public class FsVolumeConfig implements IsConfig {
@@ -12,6 +15,11 @@ public class FsVolumeConfig implements IsConfig {
 //    private boolean preferLocalVolumes;
     private String volumeSelector = "RoundRobin";
     private boolean createDefaultOnStart = true;
+    private int compressionThreads = 0;
+    private int blockCacheSizeMb = 0;
+    private int segmentIndexCacheSizeMb = 64;
+    private List<String> parallelCompressionStreamTypes = new ArrayList<>(List.of(StreamTypeNames.RAW_EVENTS, StreamTypeNames.EVENTS));
+    private List<String> lz4CompressionStreamTypes = new ArrayList<>();
 
 //    @JsonPropertyDescription("Set to determine how many volume locations will be used to store a single stream")
 //    public int getResilientReplicationCount() {
@@ -55,11 +63,72 @@ public class FsVolumeConfig implements IsConfig {
         this.createDefaultOnStart = createDefaultOnStart;
     }
 
+    @RequiresRestart(RequiresRestart.RestartScope.SYSTEM)
+    @JsonPropertyDescription("The number of threads used to compress block GZIP streams in parallel. Each stream " +
+            "compresses up to this many blocks at once. Set to 0 to compress blocks on the writing thread")
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    public void setCompressionThreads(final int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+    }
+
+    @JsonPropertyDescription("The stream types that are compressed in parallel when compressionThreads is greater " +
+            "than 0")
+    public List<String> getParallelCompressionStreamTypes() {
+        return parallelCompressionStreamTypes;
+    }
+
+    public void setParallelCompressionStreamTypes(final List<String> parallelCompressionStreamTypes) {
+        this.parallelCompressionStreamTypes = parallelCompressionStreamTypes;
+    }
+
+    @JsonPropertyDescription("The stream types, including child stream types such as 'Context', that are " +
+            "written with LZ4 rather than GZIP block compression. LZ4 streams are larger but quicker to write and " +
+            "read so suit data that is searched often. Existing streams are read whatever they were written with")
+    public List<String> getLz4CompressionStreamTypes() {
+        return lz4CompressionStreamTypes;
+    }
+
+    public void setLz4CompressionStreamTypes(final List<String> lz4CompressionStreamTypes) {
+        this.lz4CompressionStreamTypes = lz4CompressionStreamTypes;
+    }
+
+    @RequiresRestart(RequiresRestart.RestartScope.SYSTEM)
+    @JsonPropertyDescription("The maximum size in MB of inflated block GZIP blocks to keep in memory for random " +
+            "reads, e.g. search extraction and the data viewer. The cache is disabled when this is 0, which is " +
+            "the default")
+    public int getBlockCacheSizeMb() {
+        return blockCacheSizeMb;
+    }
+
+    public void setBlockCacheSizeMb(final int blockCacheSizeMb) {
+        this.blockCacheSizeMb = blockCacheSizeMb;
+    }
+
+    @RequiresRestart(RequiresRestart.RestartScope.SYSTEM)
+    @JsonPropertyDescription("The maximum size in MB of the boundary and segment indexes of unlocked streams to " +
+            "keep in memory so that extracting several records from a stream only reads its index once. Set to 0 " +
+            "to disable the cache")
+    public int getSegmentIndexCacheSizeMb() {
+        return segmentIndexCacheSizeMb;
+    }
+
+    public void setSegmentIndexCacheSizeMb(final int segmentIndexCacheSizeMb) {
+        this.segmentIndexCacheSizeMb = segmentIndexCacheSizeMb;
+    }
+
     @Override
     public String toString() {
         return "VolumeConfig{" +
                 "volumeSelector='" + volumeSelector + '\'' +
                 ", createDefaultOnStart=" + createDefaultOnStart +
+                ", compressionThreads=" + compressionThreads +
+                ", parallelCompressionStreamTypes=" + parallelCompressionStreamTypes +
+                ", lz4CompressionStreamTypes=" + lz4CompressionStreamTypes +
+                ", blockCacheSizeMb=" + blockCacheSizeMb +
+                ", segmentIndexCacheSizeMb=" + segmentIndexCacheSizeMb +
                 '}';
     }
 }
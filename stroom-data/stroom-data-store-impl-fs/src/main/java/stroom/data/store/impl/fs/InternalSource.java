@@ -2,10 +2,24 @@ package stroom.data.store.impl.fs;
 
 import stroom.data.store.api.Source;
 
+import java.io.IOException;
 import java.io.InputStream;
 
 public interface InternalSource extends Source {
     InputStream getInputStream();
 
     InputStream getChildInputStream(String type);
+
+    /**
+     * Get the offsets held in a child index stream, e.g. the boundary or segment index.
+     *
+     * @return The index or null if there is no child stream of the requested type.
+     */
+    default SegmentIndex getChildSegmentIndex(final String type) throws IOException {
+        final InputStream inputStream = getChildInputStream(type);
+        if (inputStream == null) {
+            return null;
+        }
+        return SegmentIndex.read(inputStream);
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Compresses the blocks of a block GZIP file on an executor so that several blocks can be
+ * compressed at once. Each block is compressed independently so compressing them separately
+ * produces exactly the same bytes as compressing them one after another. Compressed blocks are
+ * handed back to the writer in the order they were written and only a limited number of blocks
+ * are held in memory at once, so the writer blocks when compression cannot keep up.
+ *
+ * @see BlockGZIPConstants
+ */
+class ParallelBlockCompressor {
+    private final Executor executor;
+    private final int maxBlocksInFlight;
+    private final int blockSize;
+    private final BlockCodec codec;
+    private final Deque<CompletableFuture<BlockByteArrayOutputStream>> inFlight = new ArrayDeque<>();
+    private final Queue<BlockByteArrayOutputStream> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    ParallelBlockCompressor(final Executor executor,
+                            final int maxBlocksInFlight,
+                            final int blockSize,
+                            final BlockCodec codec) {
+        this.executor = executor;
+        this.maxBlocksInFlight = Math.max(1, maxBlocksInFlight);
+        this.blockSize = blockSize;
+        this.codec = codec;
+    }
+
+    /**
+     * @return A buffer to write the uncompressed data for the next block to.
+     */
+    BlockByteArrayOutputStream startBlock() {
+        final BlockByteArrayOutputStream buffer = freeBuffers.poll();
+        if (buffer != null) {
+            buffer.reset();
+            return buffer;
+        }
+        return new BlockByteArrayOutputStream(blockSize);
+    }
+
+    /**
+     * Compress a block in the background, writing out any blocks that are complete.
+     *
+     * @param buffer The buffer returned by {@link #startBlock()} containing the uncompressed data.
+     * @param writer Writes compressed blocks in order.
+     */
+    void endBlock(final BlockByteArrayOutputStream buffer, final BlockWriter writer) throws IOException {
+        inFlight.add(CompletableFuture.supplyAsync(() -> {
+            try {
+                return compress(buffer, codec);
+            } finally {
+                freeBuffers.add(buffer);
+            }
+        }, executor));
+
+        while (inFlight.size() >= maxBlocksInFlight) {
+            writeNext(writer);
+        }
+    }
+
+    /**
+     * Wait for all blocks to be compressed and write them.
+     */
+    void finish(final BlockWriter writer) throws IOException {
+        while (inFlight.size() > 0) {
+            writeNext(writer);
+        }
+    }
+
+    /**
+     * Abandon any blocks that have not been written.
+     */
+    void cancel() {
+        inFlight.forEach(future -> future.cancel(false));
+        inFlight.clear();
+    }
+
+    private void writeNext(final BlockWriter writer) throws IOException {
+        final CompletableFuture<BlockByteArrayOutputStream> future = inFlight.poll();
+        final BlockByteArrayOutputStream block;
+        try {
+            block = future.join();
+        } catch (final CompletionException e) {
+            cancel();
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        writer.write(block);
+    }
+
+    /**
+     * Compress a block in exactly the same way as {@link BlockGZIPOutputFile}, i.e. a magic
+     * marker, the compressed size and then the compressed data.
+     */
+    static BlockByteArrayOutputStream compress(final BlockByteArrayOutputStream uncompressed, final BlockCodec codec) {
+        try {
+            final BlockByteArrayOutputStream block = new BlockByteArrayOutputStream(uncompressed.size() / 2 + 64);
+            block.write(BlockGZIPConstants.MAGIC_MARKER);
+            block.writeLong(0);
+            try (final OutputStream outputStream = codec.compress(block)) {
+                outputStream.write(uncompressed.getRawBuffer(), 0, uncompressed.size());
+            }
+
+            // Block compressed size is size of stream less magic marker less block size header.
+            final long rawBlockSize = block.size() - BlockGZIPConstants.LONG_BYTES - BlockGZIPConstants.LONG_BYTES;
+            block.overwriteLongAtOffset(BlockGZIPConstants.LONG_BYTES, rawBlockSize);
+            return block;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    interface BlockWriter {
+        /**
+         * Write a compressed block, including its marker and size, to the end of the file.
+         */
+        void write(BlockByteArrayOutputStream block) throws IOException;
+    }
+}
@@ -21,6 +21,7 @@ import stroom.util.io.SeekableInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 
 /**
  * Wrapper for a nested input stream.
@@ -30,6 +31,7 @@ import java.io.InputStream;
 class RANestedInputStream extends NestedInputStream {
     private final InputStream data;
     private final InputStream indexInputStream;
+    private SegmentIndex segmentIndex;
     private long currentEntry = -1;
     private boolean currentEntryClosed = true;
     private boolean closed = false;
@@ -84,7 +86,7 @@ class RANestedInputStream extends NestedInputStream {
         // Record the entry we are going to open and create an input stream for
         // the entry.
         currentEntry = entryNo;
-        segmentInputStream = new RASegmentInputStream(data, indexInputStream);
+        segmentInputStream = new RASegmentInputStream(data, getSegmentIndex());
 
         // If this stream has segments, include the requested segment
         // otherwise we will use the whole stream.
@@ -114,13 +116,27 @@ class RANestedInputStream extends NestedInputStream {
     private long getSegmentCount() {
         if (segmentCount == null) {
             if (segmentInputStream == null) {
-                segmentInputStream = new RASegmentInputStream(data, indexInputStream);
+                try {
+                    segmentInputStream = new RASegmentInputStream(data, getSegmentIndex());
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
             }
             segmentCount = segmentInputStream.count();
         }
         return segmentCount;
     }
 
+    /**
+     * Read the index once rather than for every entry.
+     */
+    private SegmentIndex getSegmentIndex() throws IOException {
+        if (segmentIndex == null) {
+            segmentIndex = SegmentIndex.read(indexInputStream);
+        }
+        return segmentIndex;
+    }
+
     private void checkNotClosed() throws IOException {
         if (closed) {
             throw new IOException("Stream has been closed and no more entries allowed");
@@ -20,13 +20,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.data.store.api.SegmentInputStream;
 import stroom.util.io.SeekableInputStream;
-import stroom.util.io.StreamUtil;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
-import java.nio.ByteBuffer;
-import java.nio.LongBuffer;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
@@ -38,15 +35,17 @@ import java.util.TreeSet;
  * Also new handles working within a windows on the underlying data. With this
  * mode the segments are logical (i.e. they start at 0 regardless of the
  * window).
+ * <p>
+ * The index is read into memory when the stream is created so finding the
+ * byte range of a segment never has to go back to the index stream.
  */
 public class RASegmentInputStream extends SegmentInputStream {
     private static final Logger LOGGER = LoggerFactory.getLogger(RASegmentInputStream.class);
-    private static final int INT8 = 8;
-    private final byte[] eightBytes = new byte[INT8];
     private final byte[] singleByte = new byte[1];
-    private final LongBuffer longBuffer = ByteBuffer.wrap(eightBytes).asLongBuffer();
     private InputStream data;
     private InputStream indexInputStream;
+    private SegmentIndex segmentIndex;
+    private long lastOffset;
     private Set<Long> included;
     private Iterator<Long> includedIterator;
     private Set<Long> excluded;
@@ -77,6 +76,7 @@ public class RASegmentInputStream extends SegmentInputStream {
         try {
             this.data = data;
             this.indexInputStream = indexInputStream;
+            this.segmentIndex = SegmentIndex.read(indexInputStream);
 
             initWindow(0, ((SeekableInputStream) data).getSize());
         } catch (final IOException e) {
@@ -91,6 +91,36 @@ public class RASegmentInputStream extends SegmentInputStream {
         try {
             this.data = data;
             this.indexInputStream = indexInputStream;
+            this.segmentIndex = SegmentIndex.read(indexInputStream);
+
+            initWindow(byteStart, byteEnd);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create a segment input stream using an index that has already been read.
+     * The index will not be closed when this stream is closed.
+     */
+    RASegmentInputStream(final InputStream data, final SegmentIndex segmentIndex) {
+        try {
+            this.data = data;
+            this.segmentIndex = segmentIndex;
+
+            initWindow(0, ((SeekableInputStream) data).getSize());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    RASegmentInputStream(final InputStream data,
+                         final SegmentIndex segmentIndex,
+                         final long byteStart,
+                         final long byteEnd) {
+        try {
+            this.data = data;
+            this.segmentIndex = segmentIndex;
 
             initWindow(byteStart, byteEnd);
         } catch (final IOException e) {
@@ -103,7 +133,7 @@ public class RASegmentInputStream extends SegmentInputStream {
     }
 
     private void initWindow(final long byteStart, final long byteEnd) throws IOException {
-        totalSegmentCount = (((SeekableInputStream) indexInputStream).getSize() / INT8) + 1;
+        totalSegmentCount = segmentIndex.size() + 1;
 
         // If the window starts at 0 we start at segment 0 otherwise we need to
         // look at which segment includes byteStart
@@ -220,7 +250,7 @@ public class RASegmentInputStream extends SegmentInputStream {
      */
     @Override
     public int available() throws IOException {
-        if (data == null || indexInputStream == null) {
+        if (data == null || segmentIndex == null) {
             throw new IOException("Stream closed");
         }
 
@@ -256,6 +286,7 @@ public class RASegmentInputStream extends SegmentInputStream {
 
         data = null;
         indexInputStream = null;
+        segmentIndex = null;
 
         super.close();
     }
@@ -357,7 +388,7 @@ public class RASegmentInputStream extends SegmentInputStream {
 
         int totalBytesRead = 0;
 
-        if (data == null || indexInputStream == null) {
+        if (data == null || segmentIndex == null) {
             throw new IOException("Stream closed");
         }
 
@@ -554,18 +585,21 @@ public class RASegmentInputStream extends SegmentInputStream {
      * @param pos The index position.
      * @return The byte offset in the data file.
      */
-    private long getOffset(final long pos) throws IOException {
+    private long getOffset(final long pos) {
         final long seekPos = pos + windowSegmentStart;
         if (seekPos == -1) {
             // Implies start of file
             return 0;
         }
+        if (seekPos >= segmentIndex.size()) {
+            // Reading past the end of the index stream used to leave the last
+            // offset that was read in the buffer and the segment searches
+            // depend on getting that value back.
+            return lastOffset;
+        }
 
-        ((SeekableInputStream) indexInputStream).seek((seekPos) * INT8);
-
-        StreamUtil.eagerRead(indexInputStream, eightBytes);
-        longBuffer.rewind();
-        return longBuffer.get();
+        lastOffset = segmentIndex.get(seekPos);
+        return lastOffset;
     }
 
     /**
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import stroom.util.io.SeekableInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The byte offsets held in a boundary or segment index stream. An index stream is a sequence of
+ * longs, each one being the byte offset in the data where a segment ends, so the whole index is
+ * read into memory once rather than seeking into the index stream for every offset that is needed.
+ */
+public class SegmentIndex {
+    private static final int INT8 = 8;
+    private static final int BUFFER_SIZE = INT8 * 1024;
+
+    private final long[] offsets;
+
+    SegmentIndex(final long[] offsets) {
+        this.offsets = offsets;
+    }
+
+    /**
+     * Read all of the offsets from an index stream.
+     */
+    public static SegmentIndex read(final InputStream indexInputStream) throws IOException {
+        final SeekableInputStream seekableInputStream = (SeekableInputStream) indexInputStream;
+        final long count = seekableInputStream.getSize() / INT8;
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("Index contains too many segments (" + count + ")");
+        }
+
+        final long[] offsets = new long[(int) count];
+        if (count > 0) {
+            seekableInputStream.seek(0);
+
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            int pos = 0;
+            while (pos < offsets.length) {
+                final int len = (int) Math.min(BUFFER_SIZE, (long) (offsets.length - pos) * INT8);
+                int off = 0;
+                while (off < len) {
+                    final int read = indexInputStream.read(buffer, off, len - off);
+                    if (read == -1) {
+                        throw new IOException("Unexpected end of index after " + pos + " of " + count + " segments");
+                    }
+                    off += read;
+                }
+                byteBuffer.rewind();
+                byteBuffer.asLongBuffer().get(offsets, pos, len / INT8);
+                pos += len / INT8;
+            }
+        }
+        return new SegmentIndex(offsets);
+    }
+
+    /**
+     * @return The number of offsets in the index, i.e. one less than the number of segments.
+     */
+    long size() {
+        return offsets.length;
+    }
+
+    /**
+     * @return The byte offset in the data at the end of the specified segment.
+     */
+    long get(final long pos) {
+        return offsets[(int) pos];
+    }
+
+    /**
+     * @return The approximate number of bytes of heap used by this index.
+     */
+    long getMemorySize() {
+        return (long) offsets.length * INT8;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import stroom.cache.api.CacheManager;
+import stroom.cache.api.CacheUtil;
+import stroom.util.shared.Clearable;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the boundary and segment indexes of recently read streams so that extracting several
+ * records from the same stream, e.g. when extracting search results, only reads each index once.
+ * Only indexes of unlocked streams are cached as they will not change.
+ */
+@Singleton
+class SegmentIndexCache implements Clearable {
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final Cache<Key, SegmentIndex> cache;
+    private final boolean enabled;
+
+    @Inject
+    SegmentIndexCache(final CacheManager cacheManager, final FsVolumeConfig volumeConfig) {
+        enabled = volumeConfig.getSegmentIndexCacheSizeMb() > 0;
+        final CacheBuilder<Key, SegmentIndex> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(0, volumeConfig.getSegmentIndexCacheSizeMb()) * BYTES_PER_MB)
+                .weigher((Key key, SegmentIndex segmentIndex) -> (int) Math.min(Integer.MAX_VALUE, segmentIndex.getMemorySize()))
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .recordStats();
+        cache = cacheBuilder.build();
+        cacheManager.registerCache("Segment Index Cache", cacheBuilder, cache);
+    }
+
+    /**
+     * @return False if the cache has been configured with no space so indexes should be read directly.
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the index held in an index file of a stream, reading it with the supplied loader if it
+     * is not in the cache.
+     */
+    SegmentIndex get(final long metaId,
+                     final Path indexFile,
+                     final Callable<SegmentIndex> loader) throws IOException {
+        try {
+            return cache.get(new Key(metaId, indexFile), loader);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void clear() {
+        CacheUtil.clear(cache);
+    }
+
+    private static class Key {
+        private final long metaId;
+        private final Path indexFile;
+        private final int hashCode;
+
+        Key(final long metaId, final Path indexFile) {
+            this.metaId = metaId;
+            this.indexFile = indexFile;
+            this.hashCode = Objects.hash(metaId, indexFile);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return metaId == key.metaId &&
+                    Objects.equals(indexFile, key.indexFile);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -20,8 +20,9 @@ public class SegmentInputStreamProvider {
 //        private final SegmentInputStream inputStream;
 
     private InputStream data;
-    private InputStream boundaryIndex;
-    private InputStream segmentIndex;
+    private SegmentIndex boundaryIndex;
+    private SegmentIndex segmentIndex;
+    private boolean segmentIndexRead;
 
 //        private Long segmentCount = null;
 
@@ -37,8 +38,8 @@ public class SegmentInputStreamProvider {
 
     public SegmentInputStream get(final long index) {
         try {
-            final InputStream boundaryIndex = getBoundaryIndex();
-            final InputStream segmentIndex = getSegmentIndex();
+            final SegmentIndex boundaryIndex = getBoundaryIndex();
+            final SegmentIndex segmentIndex = getSegmentIndex();
 
             final RASegmentInputStream segmentInputStream = new RASegmentInputStream(getData(), boundaryIndex);
 
@@ -77,14 +78,9 @@ public class SegmentInputStreamProvider {
     }
 
     void close() {
-        if (boundaryIndex != null) {
-            tryClose(boundaryIndex);
-            boundaryIndex = null;
-        }
-        if (segmentIndex != null) {
-            tryClose(segmentIndex);
-            segmentIndex = null;
-        }
+        boundaryIndex = null;
+        segmentIndex = null;
+        segmentIndexRead = false;
         if (data != null) {
             tryClose(data);
             data = null;
@@ -120,16 +116,18 @@ public class SegmentInputStreamProvider {
         return data;
     }
 
-    private InputStream getBoundaryIndex() {
+    private SegmentIndex getBoundaryIndex() throws IOException {
         if (boundaryIndex == null) {
-            boundaryIndex = source.getChildInputStream(InternalStreamTypeNames.BOUNDARY_INDEX);
+            boundaryIndex = source.getChildSegmentIndex(InternalStreamTypeNames.BOUNDARY_INDEX);
         }
         return boundaryIndex;
     }
 
-    private InputStream getSegmentIndex() {
-        if (segmentIndex == null) {
-            segmentIndex = source.getChildInputStream(InternalStreamTypeNames.SEGMENT_INDEX);
+    private SegmentIndex getSegmentIndex() throws IOException {
+        // Not all streams have a segment index so remember if we have already looked for one.
+        if (!segmentIndexRead) {
+            segmentIndex = source.getChildSegmentIndex(InternalStreamTypeNames.SEGMENT_INDEX);
+            segmentIndexRead = true;
         }
         return segmentIndex;
     }
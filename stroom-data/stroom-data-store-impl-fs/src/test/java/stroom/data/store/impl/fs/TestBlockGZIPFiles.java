@@ -18,6 +18,7 @@ package stroom.data.store.impl.fs;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import stroom.cache.api.CacheManager;
 import stroom.test.common.util.test.TempDir;
 import stroom.test.common.util.test.TempDirExtension;
 import stroom.util.io.FileUtil;
@@ -25,13 +26,22 @@ import stroom.util.io.StreamUtil;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 @ExtendWith(TempDirExtension.class)
 class TestBlockGZIPFiles {
@@ -125,6 +135,167 @@ class TestBlockGZIPFiles {
 
     }
 
+    @Test
+    void testSeekingWithBlockCache() throws IOException {
+        final Path file = tempDir.resolve("test.bgz");
+        try (final BlockGZIPOutputFile outStream = new BlockGZIPOutputFile(file, 10)) {
+            for (byte i = 0; i < 105; i++) {
+                outStream.write(i);
+            }
+        }
+
+        final FsVolumeConfig volumeConfig = new FsVolumeConfig();
+        volumeConfig.setBlockCacheSizeMb(1);
+        final BlockGZIPBlockCache blockCache = new BlockGZIPBlockCache(mock(CacheManager.class), volumeConfig);
+        assertThat(blockCache.isEnabled()).isTrue();
+
+        // The second pass reads the blocks from the cache.
+        for (int pass = 0; pass < 2; pass++) {
+            try (final BlockGZIPInputFile inStream = new BlockGZIPInputFile(file, blockCache)) {
+                inStream.seek(55);
+                assertThat(inStream.read()).isEqualTo(55);
+                inStream.seek(12);
+                assertThat(inStream.read()).isEqualTo(12);
+
+                // Read on from a cached block into the next one.
+                inStream.seek(18);
+                final byte[] buffer = new byte[5];
+                assertThat(inStream.read(buffer, 0, 2)).isEqualTo(2);
+                assertThat(inStream.read(buffer, 2, 3)).isEqualTo(3);
+                assertThat(buffer).containsExactly(18, 19, 20, 21, 22);
+
+                inStream.seek(103);
+                assertThat(inStream.read()).isEqualTo(103);
+                assertThat(inStream.read()).isEqualTo(104);
+                assertThat(inStream.read()).isEqualTo(-1);
+            }
+        }
+    }
+
+    @Test
+    void testParallelCompressionIsIdentical() throws IOException {
+        final byte[] data = new byte[25500];
+        final Random random = new Random(1234);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+
+        final Path serialFile = tempDir.resolve("serial.bgz");
+        try (final OutputStream outStream = new BlockGZIPOutputFile(serialFile, 1000)) {
+            outStream.write(data);
+        }
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final Path parallelFile = tempDir.resolve("parallel.bgz");
+        try (final OutputStream outStream = new BlockGZIPOutputFile(parallelFile, 1000, BlockCodec.GZIP, executorService, 4)) {
+            // Write in odd sized chunks so that writes span blocks.
+            for (int offset = 0; offset < data.length; offset += 333) {
+                outStream.write(data, offset, Math.min(333, data.length - offset));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        assertThat(Files.readAllBytes(parallelFile)).isEqualTo(Files.readAllBytes(serialFile));
+
+        try (final InputStream inStream = new BlockGZIPInputFile(parallelFile)) {
+            assertThat(StreamUtil.streamToBuffer(inStream, false).toByteArray()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void testLz4Codec() throws IOException {
+        final byte[] data = new byte[25500];
+        final Random random = new Random(1234);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+
+        final Path file = tempDir.resolve("test.bgz");
+        try (final OutputStream outStream = new BlockGZIPOutputFile(file, 1000, BlockCodec.LZ4)) {
+            outStream.write(data);
+        }
+
+        try (final BlockGZIPInputFile inStream = new BlockGZIPInputFile(file)) {
+            assertThat(inStream.getCodec()).isEqualTo(BlockCodec.LZ4);
+            assertThat(StreamUtil.streamToBuffer(inStream, false).toByteArray()).isEqualTo(data);
+
+            // Seek back into an earlier block.
+            inStream.seek(12345);
+            assertThat(inStream.read()).isEqualTo(data[12345]);
+        }
+
+        // Blocks compressed in parallel must be readable too.
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final Path parallelFile = tempDir.resolve("parallel.bgz");
+        try (final OutputStream outStream = new BlockGZIPOutputFile(parallelFile, 1000, BlockCodec.LZ4, executorService, 4)) {
+            outStream.write(data);
+        } finally {
+            executorService.shutdown();
+        }
+        assertThat(Files.readAllBytes(parallelFile)).isEqualTo(Files.readAllBytes(file));
+    }
+
+    @Test
+    void testReadLegacyBgz1File() throws IOException {
+        final byte[] data = new byte[2500];
+        final Random random = new Random(1234);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+
+        // Lay the file out by hand the way block GZIP files were written before the codec was configurable
+        // so this keeps passing whatever the writer does.
+        final int blockSize = 1000;
+        final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        final DataOutputStream indexOut = new DataOutputStream(index);
+        indexOut.write(BlockGZIPConstants.MAGIC_MARKER);
+
+        final ByteArrayOutputStream file = new ByteArrayOutputStream();
+        final DataOutputStream fileOut = new DataOutputStream(file);
+        fileOut.write("BGZ1".getBytes(StandardCharsets.UTF_8));
+        fileOut.writeLong(blockSize);
+        fileOut.writeLong(data.length);
+        // Index and EOF positions are patched in below.
+        fileOut.writeLong(0);
+        fileOut.writeLong(0);
+
+        for (int offset = 0; offset < data.length; offset += blockSize) {
+            final ByteArrayOutputStream block = new ByteArrayOutputStream();
+            try (final GZIPOutputStream gzipOut = new GZIPOutputStream(block)) {
+                gzipOut.write(data, offset, Math.min(blockSize, data.length - offset));
+            }
+            indexOut.writeLong(fileOut.size());
+            fileOut.write(BlockGZIPConstants.MAGIC_MARKER);
+            fileOut.writeLong(block.size());
+            block.writeTo(fileOut);
+        }
+        final long indexPos = fileOut.size();
+        index.writeTo(fileOut);
+        final long eof = fileOut.size();
+
+        final ByteBuffer bytes = ByteBuffer.wrap(file.toByteArray());
+        bytes.putLong(4 + BlockGZIPConstants.LONG_BYTES * 2, indexPos);
+        bytes.putLong(4 + BlockGZIPConstants.LONG_BYTES * 3, eof);
+        final Path legacyFile = tempDir.resolve("legacy.bgz");
+        Files.write(legacyFile, bytes.array());
+
+        try (final BlockGZIPInputFile inStream = new BlockGZIPInputFile(legacyFile)) {
+            assertThat(inStream.getCodec()).isEqualTo(BlockCodec.GZIP);
+            assertThat(StreamUtil.streamToBuffer(inStream, false).toByteArray()).isEqualTo(data);
+
+            inStream.seek(1234);
+            assertThat(inStream.read()).isEqualTo(data[1234]);
+        }
+
+        // The current writer must still produce exactly the same file for GZIP.
+        final Path newFile = tempDir.resolve("new.bgz");
+        try (final OutputStream outStream = new BlockGZIPOutputFile(newFile, blockSize)) {
+            outStream.write(data);
+        }
+        assertThat(Files.readAllBytes(newFile)).isEqualTo(bytes.array());
+    }
+
     private void testWriteAndRead(final int blockSize, final int fileSize) throws IOException {
         final Path file = Files.createTempFile(tempDir, "test", ".bgz");
         FileUtil.deleteFile(file);
@@ -97,7 +97,7 @@ class TestFileSystemUtil {
         final FsFeedPathDao fileSystemFeedPaths = mock(FsFeedPathDao.class);
         when(fileSystemFeedPaths.getOrCreatePath(any())).thenReturn("1");
 
-        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths());
+        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths(), new FsVolumeConfig(), null, null);
 
         final Path rootFile = fileSystemStreamPathHelper.getRootPath(buildTestVolume().getPath(), meta, StreamTypeNames.EVENTS);
 
@@ -116,7 +116,7 @@ class TestFileSystemUtil {
         final FsFeedPathDao fileSystemFeedPaths = mock(FsFeedPathDao.class);
         when(fileSystemFeedPaths.getOrCreatePath(any())).thenReturn("1");
 
-        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths());
+        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths(), new FsVolumeConfig(), null, null);
 
         final Path rootFile = fileSystemStreamPathHelper.getRootPath(buildTestVolume().getPath(), meta,
                 StreamTypeNames.RAW_EVENTS);
@@ -270,7 +270,7 @@ class TestFileSystemUtil {
         final FsFeedPathDao fileSystemFeedPaths = mock(FsFeedPathDao.class);
         when(fileSystemFeedPaths.getOrCreatePath(any())).thenReturn("2");
 
-        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths());
+        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths(), new FsVolumeConfig(), null, null);
 
         assertThat(fileSystemStreamPathHelper.getDirectory(meta, StreamTypeNames.EVENTS)).isEqualTo("EVENTS/2008/11/18/100");
         assertThat(fileSystemStreamPathHelper.getBaseName(meta)).isEqualTo("2=100100");
@@ -287,7 +287,7 @@ class TestFileSystemUtil {
         final FsFeedPathDao fileSystemFeedPaths = mock(FsFeedPathDao.class);
         when(fileSystemFeedPaths.getOrCreatePath(any())).thenReturn("2");
 
-        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths());
+        final FsPathHelper fileSystemStreamPathHelper = new FsPathHelper(fileSystemFeedPaths, new MockFsTypePaths(), new FsVolumeConfig(), null, null);
 
         assertThat(fileSystemStreamPathHelper.getDirectory(meta, StreamTypeNames.EVENTS)).isEqualTo("EVENTS/2008/11/18/001/100");
         assertThat(fileSystemStreamPathHelper.getBaseName(meta)).isEqualTo("2=001100100");
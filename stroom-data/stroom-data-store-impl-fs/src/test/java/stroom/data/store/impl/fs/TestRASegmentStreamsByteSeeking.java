@@ -98,4 +98,41 @@ class TestRASegmentStreamsByteSeeking {
         assertThat(StreamUtil.streamToString(is)).isEqualTo("LINE ONE\nLINE");
         is.close();
     }
+
+    @Test
+    void testSharedSegmentIndex(@TempDir Path tempDir) throws IOException {
+        try (SegmentOutputStream os = new RASegmentOutputStream(new BlockGZIPOutputFile(tempDir.resolve("test.dat")),
+                () -> new BlockGZIPOutputFile(tempDir.resolve("test.idx")))) {
+            os.write("LINE ONE\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+            os.addSegment();
+            os.write("LINE TWO\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+            os.addSegment();
+            os.addSegment();
+            os.write("LINE FOUR\n".getBytes(StreamUtil.DEFAULT_CHARSET));
+
+            os.flush();
+        }
+
+        final SegmentIndex segmentIndex;
+        try (final BlockGZIPInputFile indexInputStream = new BlockGZIPInputFile(tempDir.resolve("test.idx"))) {
+            segmentIndex = SegmentIndex.read(indexInputStream);
+        }
+        assertThat(segmentIndex.size()).isEqualTo(3);
+
+        // The same index can be used by many streams once the index stream has been closed.
+        RASegmentInputStream is = new RASegmentInputStream(new BlockGZIPInputFile(tempDir.resolve("test.dat")),
+                segmentIndex);
+        assertThat(is.count()).isEqualTo(4);
+        assertThat(is.byteOffset(2)).isEqualTo(18);
+        assertThat(is.byteOffset(3)).isEqualTo(18);
+        assertThat(is.segmentAtByteOffset(18)).isEqualTo(2);
+        is.include(3);
+        assertThat(StreamUtil.streamToString(is)).isEqualTo("LINE FOUR\n");
+        is.close();
+
+        is = new RASegmentInputStream(new BlockGZIPInputFile(tempDir.resolve("test.dat")),
+                segmentIndex, 9, 18);
+        assertThat(StreamUtil.streamToString(is)).isEqualTo("LINE TWO\n");
+        is.close();
+    }
 }
@@ -46,7 +46,7 @@ public class StreamProgressMonitor {
         return totalBytes;
     }
 
-    public void progress(int thisBytes) throws IOException {
+    public void progress(long thisBytes) throws IOException {
         totalBytes += thisBytes;
         long timeNow = System.currentTimeMillis();
 
@@ -94,6 +94,21 @@ public class StroomZipFile implements Closeable {
         return null;
     }
 
+    /**
+     * Get the zip entry for a file so that the stored compression method, CRC and sizes can be
+     * used when copying the entry to another zip without inflating it.
+     */
+    public ZipArchiveEntry getZipArchiveEntry(String baseName, StroomZipFileType fileType) throws IOException {
+        return getEntry(baseName, fileType);
+    }
+
+    /**
+     * Get the still compressed bytes of an entry as they are stored in the zip file.
+     */
+    public InputStream getRawInputStream(ZipArchiveEntry entry) throws IOException {
+        return getZipFile().getRawInputStream(entry);
+    }
+
     public long getSize(String baseName, StroomZipFileType fileType) throws IOException {
         final ZipArchiveEntry entry = getEntry(baseName, fileType);
         if (entry != null) {
@@ -30,6 +30,7 @@ import stroom.index.shared.IndexShardKey;
 import stroom.node.shared.Node;
 import stroom.util.concurrent.SimpleExecutor;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -86,6 +87,37 @@ class TestIndexShardPoolImpl {
         assertThat(size >= 20 && size <= 22).as("Expected 20 to 22 but was " + size).isTrue();
     }
 
+    @Test
+    void testBatchRollsOverFullShards() {
+        final IndexField indexField = IndexField.createField("test");
+        final List<IndexField> indexFields = IndexFields.createStreamIndexFields();
+        indexFields.add(indexField);
+
+        final IndexShardService mockIndexShardService = new MockIndexShardService(indexShardsCreated, indexShardId);
+        final MockIndexShardWriterCache indexShardWriterCache = new MockIndexShardWriterCache(mockIndexShardService, 10);
+        final Indexer indexer = new IndexerImpl(indexShardWriterCache, null);
+        indexShardsCreated.set(0);
+
+        final IndexDoc index = new IndexDoc();
+        index.setUuid("uuid");
+        index.setName("index");
+        index.setFields(indexFields);
+        index.setMaxDocsPerShard(10);
+        final IndexShardKey indexShardKey = IndexShardKeyUtil.createTestKey(index);
+
+        final List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final Document document = new Document();
+            document.add(FieldFactory.create(indexField, "test" + i));
+            documents.add(document);
+        }
+        indexer.addDocuments(indexShardKey, documents);
+
+        // Two shards should have been filled and the remaining documents added to a third.
+        assertThat(indexShardsCreated.get()).isEqualTo(3);
+        assertThat(indexShardWriterCache.getWriterByShardKey(indexShardKey).getDocumentCount()).isEqualTo(5);
+    }
+
     private void doTest(final int threadSize, final int jobSize, final int numberOfIndexes,
                         final int shardsPerPartition, final int maxDocumentsPerIndexShard) throws InterruptedException {
         final IndexField indexField = IndexField.createField("test");
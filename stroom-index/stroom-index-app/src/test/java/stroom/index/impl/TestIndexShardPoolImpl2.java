@@ -53,6 +53,12 @@ class TestIndexShardPoolImpl2 extends StroomUnitTest {
                                         final Document document) {
 
                 }
+
+                @Override
+                public void addDocuments(final IndexShardKey key,
+                                         final List<Document> documents) {
+
+                }
             };
 
             final IndexDoc index = new IndexDoc();
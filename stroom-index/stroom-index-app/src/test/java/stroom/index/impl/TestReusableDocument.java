@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.index.impl;
+
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.index.IndexableField;
+import org.junit.jupiter.api.Test;
+import stroom.index.shared.IndexField;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestReusableDocument {
+    @Test
+    void testFieldsAreReused() {
+        final IndexField textField = IndexField.createField("Text");
+        final IndexField idField = IndexField.createIdField("Id");
+        final FieldType textFieldType = FieldTypeFactory.create(textField);
+        final FieldType idFieldType = FieldTypeFactory.create(idField);
+
+        final ReusableDocument reusableDocument = new ReusableDocument();
+        reusableDocument.add(textField, textFieldType, "first");
+        reusableDocument.add(textField, textFieldType, "second");
+        reusableDocument.add(idField, idFieldType, 1L);
+
+        assertThat(reusableDocument.getDocument().getFields()).hasSize(3);
+        final IndexableField firstText = reusableDocument.getDocument().getFields().get(0);
+        final IndexableField secondText = reusableDocument.getDocument().getFields().get(1);
+        final IndexableField id = reusableDocument.getDocument().getFields().get(2);
+        assertThat(firstText.stringValue()).isEqualTo("first");
+        assertThat(secondText.stringValue()).isEqualTo("second");
+        assertThat(id.numericValue().longValue()).isEqualTo(1L);
+
+        // The next record only has one text value so only the first text field should be reused.
+        reusableDocument.clear();
+        reusableDocument.add(idField, idFieldType, 2L);
+        reusableDocument.add(textField, textFieldType, "third");
+
+        assertThat(reusableDocument.getDocument().getFields()).containsExactly(id, firstText);
+        assertThat(id.numericValue().longValue()).isEqualTo(2L);
+        assertThat(firstText.stringValue()).isEqualTo("third");
+        assertThat(firstText.fieldType()).isSameAs(textFieldType);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.impl.shard;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import stroom.dashboard.expression.v1.Val;
+import stroom.dashboard.expression.v1.ValString;
+import stroom.index.impl.FieldFactory;
+import stroom.index.shared.AnalyzerType;
+import stroom.index.shared.IndexField;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+
+import java.io.IOException;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compares hits/sec for the old per doc id queue and full document load against
+// the blocked doc id queue and field selective stored field loading.
+// Tests are performance comparison only so are intended for manual runs only.
+@Disabled
+class TestIndexShardSearchPerformance {
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(TestIndexShardSearchPerformance.class);
+
+    private static final int DOC_COUNT = 500_000;
+    private static final int FIELD_COUNT = 40;
+    private static final int QUEUE_SIZE = 1_000_000;
+    private static final int BLOCK_SIZE = 1_000;
+    private static final int RUNS = 5;
+    private static final String[] FIELD_NAMES = {"StreamId", "EventId", "Field1", "Field2", "Field3"};
+
+    private static final IndexField[] STORED_FIELDS = new IndexField[FIELD_COUNT + 1];
+
+    static {
+        for (int i = 1; i <= FIELD_COUNT; i++) {
+            STORED_FIELDS[i] = IndexField.createField("Field" + i, AnalyzerType.ALPHA_NUMERIC, false, true, true, false);
+        }
+    }
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @BeforeEach
+    void setup() throws IOException {
+        directory = new RAMDirectory();
+        try (final IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            for (int i = 0; i < DOC_COUNT; i++) {
+                final Document document = new Document();
+                document.add(FieldFactory.create(IndexField.createIdField("StreamId"), i / 1000));
+                document.add(FieldFactory.create(IndexField.createIdField("EventId"), i % 1000));
+                for (int j = 1; j <= FIELD_COUNT; j++) {
+                    document.add(FieldFactory.create(STORED_FIELDS[j], "value " + i + " of field " + j));
+                }
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @AfterEach
+    void teardown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Test
+    void testHitsPerSecond() throws Exception {
+        final IndexSearcher searcher = new IndexSearcher(reader);
+
+        for (int run = 1; run <= RUNS; run++) {
+            final long before = time("before", () -> searchPerDocId(searcher));
+            final long after = time("after", () -> searchBlocked(searcher));
+            assertThat(after).isEqualTo(before);
+        }
+    }
+
+    private long time(final String name, final Search search) throws Exception {
+        final long start = System.nanoTime();
+        final long count = search.run();
+        final long elapsedNanos = System.nanoTime() - start;
+        final long hitsPerSecond = (long) (count / (elapsedNanos / 1_000_000_000D));
+        LOGGER.info(() -> name + ": " + count + " hits in " + (elapsedNanos / 1_000_000) + "ms (" + hitsPerSecond + " hits/sec)");
+        return count;
+    }
+
+    /**
+     * The original approach of queuing each doc id as an optional and loading the whole document for each hit.
+     */
+    private long searchPerDocId(final IndexSearcher searcher) throws Exception {
+        final LinkedBlockingQueue<OptionalInt> docIdStore = new LinkedBlockingQueue<>(QUEUE_SIZE);
+        final CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                searcher.search(new MatchAllDocsQuery(), new SimpleCollector() {
+                    private int docBase;
+
+                    @Override
+                    protected void doSetNextReader(final LeafReaderContext context) {
+                        docBase = context.docBase;
+                    }
+
+                    @Override
+                    public void collect(final int doc) {
+                        try {
+                            docIdStore.put(OptionalInt.of(docBase + doc));
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(e.getMessage(), e);
+                        }
+                    }
+
+                    @Override
+                    public boolean needsScores() {
+                        return false;
+                    }
+                });
+                docIdStore.put(OptionalInt.empty());
+            } catch (final IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        long count = 0;
+        OptionalInt optDocId = docIdStore.take();
+        while (optDocId.isPresent()) {
+            final Document document = searcher.doc(optDocId.getAsInt());
+            final Val[] values = new Val[FIELD_NAMES.length];
+            for (int i = 0; i < FIELD_NAMES.length; i++) {
+                final IndexableField indexableField = document.getField(FIELD_NAMES[i]);
+                if (indexableField != null) {
+                    values[i] = ValString.create(indexableField.stringValue().trim());
+                }
+            }
+            count++;
+            optDocId = docIdStore.take();
+        }
+        future.join();
+        return count;
+    }
+
+    /**
+     * The blocked approach used by {@link IndexShardSearchTaskHandler}.
+     */
+    private long searchBlocked(final IndexSearcher searcher) throws Exception {
+        final LinkedBlockingQueue<int[]> docIdStore = new LinkedBlockingQueue<>(QUEUE_SIZE / BLOCK_SIZE);
+        final IndexShardHitCollector collector = new IndexShardHitCollector(docIdStore, new AtomicLong(), BLOCK_SIZE);
+        final CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+            try {
+                searcher.search(new MatchAllDocsQuery(), collector);
+            } catch (final IOException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            } finally {
+                collector.complete();
+            }
+        });
+
+        final StoredFieldLoader storedFieldLoader = new StoredFieldLoader(FIELD_NAMES);
+        long count = 0;
+        int[] docIds = docIdStore.take();
+        while (docIds.length > 0) {
+            for (final int docId : docIds) {
+                storedFieldLoader.reset();
+                searcher.doc(docId, storedFieldLoader);
+                assertThat(storedFieldLoader.getValues()).isNotNull();
+                count++;
+            }
+            docIds = docIdStore.take();
+        }
+        future.join();
+        return count;
+    }
+
+    private interface Search {
+        long run() throws Exception;
+    }
+}
@@ -17,15 +17,32 @@
 package stroom.index.impl;
 
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.LongField;
 import stroom.index.shared.IndexField;
 
 public class FieldFactory {
     public static LongField create(final IndexField indexField, final long initialValue) {
-        return new LongField(indexField.getFieldName(), initialValue, FieldTypeFactory.create(indexField));
+        return create(indexField, FieldTypeFactory.create(indexField), initialValue);
     }
 
     public static Field create(final IndexField indexField, final String initialValue) {
-        return new Field(indexField.getFieldName(), initialValue, FieldTypeFactory.create(indexField));
+        return create(indexField, FieldTypeFactory.create(indexField), initialValue);
+    }
+
+    /**
+     * Create a field using a field type that has already been created for the index field with
+     * {@link FieldTypeFactory#create(IndexField)} so that it can be shared between fields.
+     */
+    public static LongField create(final IndexField indexField, final FieldType fieldType, final long initialValue) {
+        return new LongField(indexField.getFieldName(), initialValue, fieldType);
+    }
+
+    /**
+     * Create a field using a field type that has already been created for the index field with
+     * {@link FieldTypeFactory#create(IndexField)} so that it can be shared between fields.
+     */
+    public static Field create(final IndexField indexField, final FieldType fieldType, final String initialValue) {
+        return new Field(indexField.getFieldName(), initialValue, fieldType);
     }
 }
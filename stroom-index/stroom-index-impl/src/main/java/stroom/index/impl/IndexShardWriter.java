@@ -23,6 +23,7 @@ import stroom.index.shared.IndexException;
 import stroom.index.shared.IndexShardKey;
 
 import java.io.IOException;
+import java.util.List;
 
 public interface IndexShardWriter {
     IndexShardKey getIndexShardKey();
@@ -31,6 +32,14 @@ public interface IndexShardWriter {
 
     void addDocument(Document document) throws IOException, IndexException, AlreadyClosedException;
 
+    /**
+     * Add as many of the supplied documents as the shard has room for.
+     *
+     * @return The number of documents added from the start of the list. This is always greater than zero as a
+     * {@link ShardFullException} is thrown if the shard has no room.
+     */
+    int addDocuments(List<Document> documents) throws IOException, IndexException, AlreadyClosedException;
+
     void flush();
 
     void close();
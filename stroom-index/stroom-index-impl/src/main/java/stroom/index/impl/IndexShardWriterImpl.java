@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -228,6 +229,49 @@ public class IndexShardWriterImpl implements IndexShardWriter {
         }
     }
 
+    @Override
+    public int addDocuments(final List<Document> documents) throws IOException, IndexException, AlreadyClosedException {
+        adding.incrementAndGet();
+        try {
+            // Reserve space in the shard for as many of the documents as will fit.
+            int reserved;
+            while (true) {
+                final int current = documentCount.get();
+                if (current >= maxDocumentCount) {
+                    throw new ShardFullException("Shard is full");
+                }
+                reserved = Math.min(documents.size(), maxDocumentCount - current);
+                if (documentCount.compareAndSet(current, current + reserved)) {
+                    break;
+                }
+            }
+
+            try {
+                final long now = System.currentTimeMillis();
+                this.lastUsedTime = now;
+                if (reserved == documents.size()) {
+                    indexWriter.addDocuments(documents);
+                } else {
+                    indexWriter.addDocuments(documents.subList(0, reserved));
+                }
+                final long duration = System.currentTimeMillis() - now;
+                if (duration > 1000) {
+                    final int count = reserved;
+                    LAMBDA_LOGGER.warn(() -> "addDocuments() - took " + ModelStringUtil.formatDurationString(duration) + " to add " + count + " documents " + toString());
+                }
+
+            } catch (final IOException | RuntimeException e) {
+                documentCount.addAndGet(-reserved);
+                throw e;
+            }
+
+            return reserved;
+
+        } finally {
+            adding.decrementAndGet();
+        }
+    }
+
     @Override
     public void updateIndexStructure(final IndexStructure indexStructure) {
         this.maxDocumentCount = indexStructure.getIndex().getMaxDocsPerShard();
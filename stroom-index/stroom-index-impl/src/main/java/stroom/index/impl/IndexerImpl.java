@@ -27,6 +27,8 @@ import stroom.util.logging.LambdaLoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -52,31 +54,42 @@ public class IndexerImpl implements Indexer {
     @Override
     public void addDocument(final IndexShardKey indexShardKey, final Document document) {
         if (document != null) {
-            // Try and add the document silently without locking.
-            boolean success = false;
+            addDocuments(indexShardKey, Collections.singletonList(document));
+        }
+    }
+
+    @Override
+    public void addDocuments(final IndexShardKey indexShardKey, final List<Document> documents) {
+        if (documents != null && documents.size() > 0) {
+            // The number of documents from the start of the list that have been added so far.
+            int added = 0;
+
+            // Try and add the documents silently without locking.
             try {
                 final IndexShardWriter indexShardWriter = indexShardWriterCache.getWriterByShardKey(indexShardKey);
-                indexShardWriter.addDocument(document);
-                success = true;
+                added += indexShardWriter.addDocuments(documents);
             } catch (final IOException | RuntimeException e) {
                 LOGGER.trace(e::getMessage, e);
             }
 
             // Attempt a few more times under lock.
-            for (int attempt = 0; !success && attempt < MAX_ATTEMPTS; attempt++) {
+            for (int attempt = 0; added < documents.size() && attempt < MAX_ATTEMPTS; attempt++) {
                 // If we failed then try under lock to make sure we get a new writer.
                 final Lock lock = keyLocks.getLockForKey(indexShardKey);
                 lock.lock();
                 try {
                     // Ask the cache for the current one (it might have been changed by another thread) and try again.
                     final IndexShardWriter indexShardWriter = indexShardWriterCache.getWriterByShardKey(indexShardKey);
-                    success = addDocument(indexShardWriter, document);
+                    final int count = addDocuments(indexShardWriter, documents.subList(added, documents.size()));
 
-                    if (!success) {
+                    if (count == 0) {
                         LOGGER.info(() -> "Closing key{" + indexShardKey + "} writer{" + indexShardWriter + "}");
 
                         // Close the writer.
                         indexShardWriterCache.close(indexShardWriter);
+                    } else {
+                        // The shard may have filled before all of the documents were added so carry on with the rest.
+                        added += count;
                     }
 
                 } catch (final RuntimeException e) {
@@ -92,24 +105,31 @@ public class IndexerImpl implements Indexer {
             }
 
             // One final try that will throw an index exception if needed.
-            if (!success) {
+            if (added < documents.size()) {
                 try {
                     final IndexShardWriter indexShardWriter = indexShardWriterCache.getWriterByShardKey(indexShardKey);
-                    indexShardWriter.addDocument(document);
+                    added += indexShardWriter.addDocuments(documents.subList(added, documents.size()));
                 } catch (final IndexException e) {
                     throw e;
                 } catch (final IOException | RuntimeException e) {
                     throw new IndexException(e.getMessage(), e);
                 }
+
+                if (added < documents.size()) {
+                    throw new IndexException("Unable to add " + (documents.size() - added) + " of " +
+                            documents.size() + " documents to " + indexShardKey);
+                }
             }
         }
     }
 
-    private boolean addDocument(final IndexShardWriter indexShardWriter, final Document document) {
-        boolean success = false;
+    /**
+     * @return The number of documents added or zero if the writer could not accept any.
+     */
+    private int addDocuments(final IndexShardWriter indexShardWriter, final List<Document> documents) {
+        int count = 0;
         try {
-            indexShardWriter.addDocument(document);
-            success = true;
+            count = indexShardWriter.addDocuments(documents);
         } catch (final ShardFullException e) {
             LOGGER.debug(e::getMessage, e);
 
@@ -127,6 +147,6 @@ public class IndexerImpl implements Indexer {
             }
         }
 
-        return success;
+        return count;
     }
 }
\ No newline at end of file
@@ -17,7 +17,7 @@
 package stroom.index.impl;
 
 import org.apache.lucene.document.Document;
-import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.Attributes;
@@ -46,6 +46,10 @@ import stroom.util.date.DateUtil;
 import stroom.util.shared.Severity;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The index filter... takes the index XML and builds the LUCENE documents
@@ -69,7 +73,12 @@ class IndexingFilter extends AbstractXMLFilter {
     private IndexFieldsMap indexFieldsMap;
     private DocRef indexRef;
     private IndexShardKey indexShardKey;
-    private Document document;
+    private ReusableDocument document;
+    private final List<Document> currentDocuments = new ArrayList<>();
+    // Field types and documents are reused for every record to avoid creating new objects for every value.
+    private final Map<String, FieldType> fieldTypes = new HashMap<>();
+    private final List<ReusableDocument> documentPool = new ArrayList<>();
+    private int batchSize = 100;
 
     private int fieldsIndexed = 0;
 
@@ -107,6 +116,11 @@ class IndexingFilter extends AbstractXMLFilter {
             }
 
             final IndexDoc index = indexStructure.getIndex();
+            if (indexFieldsMap != indexStructure.getIndexFieldsMap()) {
+                // The index fields have changed so we can't reuse fields created for the old ones.
+                fieldTypes.clear();
+                documentPool.clear();
+            }
             indexFieldsMap = indexStructure.getIndexFieldsMap();
 
             // Create a key to create shards with.
@@ -123,6 +137,16 @@ class IndexingFilter extends AbstractXMLFilter {
         }
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            // Add last docs.
+            addDocuments();
+        } finally {
+            super.endProcessing();
+        }
+    }
+
     /**
      * Sets the locator to use when reporting errors.
      *
@@ -159,8 +183,8 @@ class IndexingFilter extends AbstractXMLFilter {
                 }
             }
         } else if (RECORD.equals(localName)) {
-            // Create a document to store fields in.
-            document = new Document();
+            // Get a document to store fields in.
+            document = nextDocument();
         }
 
         super.startElement(uri, localName, qName, atts);
@@ -189,37 +213,67 @@ class IndexingFilter extends AbstractXMLFilter {
         // Write the document if we have dropped out of the record element and
         // have indexed some fields.
         if (fieldsIndexed > 0) {
+            currentDocuments.add(document.getDocument());
+
+            if (currentDocuments.size() >= batchSize) {
+                addDocuments();
+            }
+        }
+    }
+
+    /**
+     * Get a document for the next record. Each document in the current batch has its own reusable
+     * document and these are reused once the batch has been added to the index.
+     */
+    private ReusableDocument nextDocument() {
+        final int position = currentDocuments.size();
+        if (position == documentPool.size()) {
+            documentPool.add(new ReusableDocument());
+        }
+        final ReusableDocument reusableDocument = documentPool.get(position);
+        reusableDocument.clear();
+        return reusableDocument;
+    }
+
+    private void addDocuments() {
+        if (currentDocuments.size() > 0) {
             try {
-                indexer.addDocument(indexShardKey, document);
+                indexer.addDocuments(indexShardKey, currentDocuments);
             } catch (final RuntimeException e) {
                 log(Severity.FATAL_ERROR, e.getMessage(), e);
                 // Terminate processing as this is a fatal error.
                 throw new LoggedException(e.getMessage(), e);
+            } finally {
+                currentDocuments.clear();
             }
         }
     }
 
     private void processIndexContent(final IndexField indexField, final String value) {
         try {
-            Field field = null;
+            final FieldType fieldType = getFieldType(indexField);
+            boolean added = false;
 
             if (indexField.getFieldType().isNumeric()) {
                 final long val = Long.parseLong(value);
-                field = FieldFactory.create(indexField, val);
+                document.add(indexField, fieldType, val);
+                added = true;
 
             } else if (IndexFieldType.DATE_FIELD.equals(indexField.getFieldType())) {
                 try {
                     final long val = DateUtil.parseUnknownString(value);
-                    field = FieldFactory.create(indexField, val);
+                    document.add(indexField, fieldType, val);
+                    added = true;
                 } catch (final RuntimeException e) {
                     LOGGER.trace(e.getMessage(), e);
                 }
             } else {
-                field = FieldFactory.create(indexField, value);
+                document.add(indexField, fieldType, value);
+                added = true;
             }
 
-            // Add the current field to the document if it is not null.
-            if (field != null) {
+            // Count the current field if it was added to the document.
+            if (added) {
                 // Output some debug.
                 if (LOGGER.isDebugEnabled()) {
                     debugBuffer.append("processIndexContent() - Adding to index indexName=");
@@ -236,19 +290,36 @@ class IndexingFilter extends AbstractXMLFilter {
                 }
 
                 fieldsIndexed++;
-                document.add(field);
             }
         } catch (final RuntimeException e) {
             log(Severity.ERROR, e.getMessage(), e);
         }
     }
 
+    private FieldType getFieldType(final IndexField indexField) {
+        FieldType fieldType = fieldTypes.get(indexField.getFieldName());
+        if (fieldType == null) {
+            // Field types are frozen when created so can be shared by all fields for the index field.
+            fieldType = FieldTypeFactory.create(indexField);
+            fieldTypes.put(indexField.getFieldName(), fieldType);
+        }
+        return fieldType;
+    }
+
     @PipelineProperty(description = "The index to send records to.", displayPriority = 1)
     @PipelinePropertyDocRef(types = IndexDoc.DOCUMENT_TYPE)
     public void setIndex(final DocRef indexRef) {
         this.indexRef = indexRef;
     }
 
+    @PipelineProperty(
+            description = "How many documents to add to the index in a single batch.",
+            defaultValue = "100",
+            displayPriority = 2)
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
     private void log(final Severity severity, final String message, final Exception e) {
         errorReceiverProxy.log(severity, locationFactory.create(locator), getElementId(), message, e);
     }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.index.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import stroom.index.shared.IndexField;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Lucene document along with the fields that have been added to it that can be reused for
+ * each record. Lucene has finished with the field values once a document has been added to an
+ * index so the same field instances can be given new values for the next record rather than
+ * creating new ones.
+ */
+class ReusableDocument {
+    private final Document document = new Document();
+    private final Map<String, Fields> fieldsByName = new HashMap<>();
+    private final List<Fields> usedFields = new ArrayList<>();
+
+    /**
+     * Remove all fields from the document so that it can be used for the next record.
+     */
+    void clear() {
+        document.getFields().clear();
+        for (final Fields fields : usedFields) {
+            fields.used = 0;
+        }
+        usedFields.clear();
+    }
+
+    void add(final IndexField indexField, final FieldType fieldType, final long value) {
+        final Fields fields = getFields(indexField);
+        final Field field;
+        if (fields.used < fields.list.size()) {
+            field = fields.list.get(fields.used);
+            field.setLongValue(value);
+        } else {
+            field = FieldFactory.create(indexField, fieldType, value);
+            fields.list.add(field);
+        }
+        fields.used++;
+        document.add(field);
+    }
+
+    void add(final IndexField indexField, final FieldType fieldType, final String value) {
+        final Fields fields = getFields(indexField);
+        final Field field;
+        if (fields.used < fields.list.size()) {
+            field = fields.list.get(fields.used);
+            field.setStringValue(value);
+        } else {
+            field = FieldFactory.create(indexField, fieldType, value);
+            fields.list.add(field);
+        }
+        fields.used++;
+        document.add(field);
+    }
+
+    Document getDocument() {
+        return document;
+    }
+
+    private Fields getFields(final IndexField indexField) {
+        Fields fields = fieldsByName.get(indexField.getFieldName());
+        if (fields == null) {
+            fields = new Fields();
+            fieldsByName.put(indexField.getFieldName(), fields);
+        }
+        if (fields.used == 0) {
+            usedFields.add(fields);
+        }
+        return fields;
+    }
+
+    /**
+     * The fields created for a single index field. There can be more than one as a record can
+     * contain several values for the same field.
+     */
+    private static class Fields {
+        private final List<Field> list = new ArrayList<>(1);
+        private int used;
+    }
+}
@@ -17,6 +17,8 @@
 package stroom.index.mock;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexableField;
 import stroom.index.impl.IndexShardWriter;
@@ -59,10 +61,10 @@ public class MockIndexShardWriter implements IndexShardWriter {
                 throw new IndexException("Shard is full");
             }
 
-            // Create a new document and copy the fields.
+            // Create a new document and copy the fields as the indexing filter reuses them for later records.
             final Document doc = new Document();
             for (final IndexableField field : document.getFields()) {
-                doc.add(field);
+                doc.add(copy(field));
             }
             documents.add(doc);
 
@@ -72,6 +74,31 @@ public class MockIndexShardWriter implements IndexShardWriter {
         }
     }
 
+    @Override
+    public int addDocuments(final List<Document> documents) {
+        int count = 0;
+        for (final Document document : documents) {
+            if (count > 0 && documentCount.get() >= maxDocumentCount) {
+                break;
+            }
+            addDocument(document);
+            count++;
+        }
+        return count;
+    }
+
+    private IndexableField copy(final IndexableField field) {
+        if (field instanceof Field) {
+            final Field original = (Field) field;
+            if (original.numericValue() != null) {
+                return new LongField(original.name(), original.numericValue().longValue(), original.fieldType());
+            } else if (original.stringValue() != null) {
+                return new Field(original.name(), original.stringValue(), original.fieldType());
+            }
+        }
+        return field;
+    }
+
     public List<Document> getDocuments() {
         return documents;
     }
@@ -25,6 +25,7 @@ import stroom.index.shared.IndexShardKey;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.List;
 
 public class MockIndexer implements Indexer {
     private final IndexShardWriterCache indexShardWriterCache;
@@ -47,4 +48,11 @@ public class MockIndexer implements Indexer {
             throw new UncheckedIOException(e);
         }
     }
+
+    @Override
+    public void addDocuments(final IndexShardKey key, final List<Document> documents) {
+        for (final Document document : documents) {
+            addDocument(key, document);
+        }
+    }
 }
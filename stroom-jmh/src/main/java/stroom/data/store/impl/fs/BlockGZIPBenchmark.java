@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import stroom.jmh.BenchmarkData;
+import stroom.util.io.FileUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write, sequential read and random seek throughput of the block GZIP format
+ * used for all stream store data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlockGZIPBenchmark {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int SEEK_READ_LENGTH = 1024;
+
+    @Param({"100000"})
+    private int recordCount;
+
+    @Param({"1000000"})
+    private int blockSize;
+
+    private Path dir;
+    private byte[] data;
+    private Path readFile;
+    private Path writeFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("stroom-jmh");
+        data = BenchmarkData.createXmlEvents(recordCount);
+
+        readFile = dir.resolve("read.bgz");
+        writeFile = dir.resolve("write.bgz");
+        try (final OutputStream outputStream = new BlockGZIPOutputFile(readFile, blockSize)) {
+            outputStream.write(data);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtil.deleteDir(dir);
+    }
+
+    @Benchmark
+    public long writeOutputFile() throws IOException {
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(writeFile, blockSize)) {
+            outputStream.write(data);
+            return outputStream.getSize();
+        }
+    }
+
+    @Benchmark
+    public long writeOutputStream() throws IOException {
+        try (final BlockGZipOutputStream outputStream =
+                     new BlockGZipOutputStream(new LockingFileOutputStream(writeFile, false), blockSize)) {
+            outputStream.write(data);
+            return outputStream.getSize();
+        }
+    }
+
+    @Benchmark
+    public long readSequential() throws IOException {
+        long total = 0;
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (final BlockGZIPInputFile inputStream = new BlockGZIPInputFile(readFile)) {
+            int len;
+            while ((len = inputStream.read(buffer)) != -1) {
+                total += len;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void readRandomSeek(final Blackhole blackhole) throws IOException {
+        final byte[] buffer = new byte[SEEK_READ_LENGTH];
+        final long pos = ThreadLocalRandom.current().nextLong(data.length - SEEK_READ_LENGTH);
+        try (final BlockGZIPInputFile inputStream = new BlockGZIPInputFile(readFile)) {
+            inputStream.seek(pos);
+            blackhole.consume(inputStream.read(buffer));
+        }
+        blackhole.consume(buffer);
+    }
+}
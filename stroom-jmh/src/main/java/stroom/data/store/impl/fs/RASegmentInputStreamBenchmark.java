@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.data.store.impl.fs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import stroom.util.io.FileUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of opening a segmented block GZIP stream and reading a single segment
+ * from it, e.g. when stepping or extracting search results for one record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RASegmentInputStreamBenchmark {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    @Param({"1000", "100000"})
+    private int segmentCount;
+
+    private Path dir;
+    private Path dataFile;
+    private Path indexFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("stroom-jmh");
+        dataFile = dir.resolve("data.bgz");
+        indexFile = dir.resolve("data.seg.dat");
+
+        try (final RASegmentOutputStream outputStream = new RASegmentOutputStream(
+                new BlockGZIPOutputFile(dataFile),
+                () -> new LockingFileOutputStream(indexFile, false))) {
+            for (int i = 0; i < segmentCount; i++) {
+                final String record = "<Event><Id>" + i + "</Id><User>user" + (i % 100) + "</User></Event>\n";
+                outputStream.write(record.getBytes(StandardCharsets.UTF_8));
+                outputStream.addSegment();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtil.deleteDir(dir);
+    }
+
+    @Benchmark
+    public long readRandomSegment() throws IOException {
+        final long segment = ThreadLocalRandom.current().nextLong(segmentCount);
+        return readSegments(segment, 1);
+    }
+
+    @Benchmark
+    public long readLastSegment() throws IOException {
+        return readSegments(segmentCount - 1, 1);
+    }
+
+    @Benchmark
+    public long readSegmentRange() throws IOException {
+        final int rangeSize = Math.min(100, segmentCount);
+        final long first = ThreadLocalRandom.current().nextLong(segmentCount - rangeSize + 1);
+        return readSegments(first, rangeSize);
+    }
+
+    private long readSegments(final long first, final int count) throws IOException {
+        long total = 0;
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (final RASegmentInputStream inputStream = new RASegmentInputStream(
+                new BlockGZIPInputFile(dataFile),
+                new UncompressedInputStream(indexFile, false))) {
+            for (long segment = first; segment < first + count; segment++) {
+                inputStream.include(segment);
+            }
+
+            int len;
+            while ((len = inputStream.read(buffer)) != -1) {
+                total += len;
+            }
+        }
+        return total;
+    }
+}
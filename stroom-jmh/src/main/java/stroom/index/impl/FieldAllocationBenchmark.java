@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.index.impl;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FieldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import stroom.index.shared.AnalyzerType;
+import stroom.index.shared.IndexField;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating new Lucene documents, fields and field types for every record with reusing
+ * them in the way {@link IndexingFilter} does. Run with the GC profiler to see the allocation rate
+ * of each approach, e.g.
+ * <pre>
+ * ./gradlew :stroom-jmh:jmh -PjmhArgs="FieldAllocationBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FieldAllocationBenchmark {
+    private static final int RECORD_COUNT = 100;
+
+    @Param({"30"})
+    private int fieldCount;
+
+    private IndexField[] indexFields;
+    private FieldType[] fieldTypes;
+    private String[][] textValues;
+    private long[][] numericValues;
+    private ReusableDocument reusableDocument;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        indexFields = new IndexField[fieldCount];
+        fieldTypes = new FieldType[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            // Make every third field numeric as is typical for event data.
+            if (i % 3 == 0) {
+                indexFields[i] = IndexField.createNumericField("Field" + i);
+            } else {
+                indexFields[i] = IndexField.createField("Field" + i, AnalyzerType.KEYWORD);
+            }
+            fieldTypes[i] = FieldTypeFactory.create(indexFields[i]);
+        }
+
+        // Create the values up front so that only the document creation is measured.
+        textValues = new String[RECORD_COUNT][fieldCount];
+        numericValues = new long[RECORD_COUNT][fieldCount];
+        for (int record = 0; record < RECORD_COUNT; record++) {
+            for (int i = 0; i < fieldCount; i++) {
+                textValues[record][i] = "value" + record + "_" + i;
+                numericValues[record][i] = record * fieldCount + i;
+            }
+        }
+
+        reusableDocument = new ReusableDocument();
+    }
+
+    @Benchmark
+    public void newFields(final Blackhole blackhole) {
+        for (int record = 0; record < RECORD_COUNT; record++) {
+            final Document document = new Document();
+            for (int i = 0; i < fieldCount; i++) {
+                final IndexField indexField = indexFields[i];
+                if (indexField.getFieldType().isNumeric()) {
+                    document.add(FieldFactory.create(indexField, numericValues[record][i]));
+                } else {
+                    document.add(FieldFactory.create(indexField, textValues[record][i]));
+                }
+            }
+            blackhole.consume(document);
+        }
+    }
+
+    @Benchmark
+    public void reusedFields(final Blackhole blackhole) {
+        for (int record = 0; record < RECORD_COUNT; record++) {
+            reusableDocument.clear();
+            for (int i = 0; i < fieldCount; i++) {
+                final IndexField indexField = indexFields[i];
+                if (indexField.getFieldType().isNumeric()) {
+                    reusableDocument.add(indexField, fieldTypes[i], numericValues[record][i]);
+                } else {
+                    reusableDocument.add(indexField, fieldTypes[i], textValues[record][i]);
+                }
+            }
+            blackhole.consume(reusableDocument.getDocument());
+        }
+    }
+}
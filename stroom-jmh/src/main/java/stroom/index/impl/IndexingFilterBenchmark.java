@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.index.impl;
+
+import org.apache.lucene.document.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stroom.docref.DocRef;
+import stroom.index.shared.AnalyzerType;
+import stroom.index.shared.IndexDoc;
+import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexFieldsMap;
+import stroom.index.shared.IndexShardKey;
+import stroom.jmh.BenchmarkData;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.FatalErrorReceiver;
+import stroom.pipeline.state.MetaHolder;
+import stroom.pipeline.util.ProcessorUtil;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning `records:2` XML into Lucene documents in the indexing filter.
+ * The documents are discarded rather than written to a shard so that only the
+ * parsing and field creation is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexingFilterBenchmark {
+    @Param({"10000"})
+    private int recordCount;
+
+    private byte[] input;
+    private DocRef indexRef;
+    private IndexStructureCache indexStructureCache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        input = BenchmarkData.createIndexRecords(recordCount);
+
+        final List<IndexField> indexFields = new ArrayList<>();
+        indexFields.add(IndexField.createDateField("EventTime"));
+        indexFields.add(IndexField.createField("UserId", AnalyzerType.KEYWORD));
+        indexFields.add(IndexField.createField("Action", AnalyzerType.KEYWORD));
+        indexFields.add(IndexField.createNumericField("Size"));
+        indexFields.add(IndexField.createField("Message", AnalyzerType.ALPHA_NUMERIC, false, true, true, true));
+
+        final IndexDoc index = new IndexDoc();
+        index.setUuid("benchmark-index");
+        index.setName("Benchmark Index");
+        index.setFields(indexFields);
+        indexRef = new DocRef(IndexDoc.DOCUMENT_TYPE, index.getUuid(), index.getName());
+
+        final IndexStructure indexStructure = new IndexStructure(index, indexFields, new IndexFieldsMap(indexFields));
+        indexStructureCache = new IndexStructureCache() {
+            @Override
+            public IndexStructure get(final DocRef key) {
+                return indexStructure;
+            }
+
+            @Override
+            public void remove(final DocRef key) {
+            }
+        };
+    }
+
+    @Benchmark
+    public int buildDocuments() {
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+        final CountingIndexer indexer = new CountingIndexer();
+
+        final IndexingFilter indexingFilter = new IndexingFilter(new MetaHolder(),
+                locationFactory,
+                indexer,
+                errorReceiverProxy,
+                indexStructureCache);
+        indexingFilter.setIndex(indexRef);
+
+        ProcessorUtil.processXml(new ByteArrayInputStream(input), errorReceiverProxy, indexingFilter, locationFactory);
+        return indexer.fieldCount;
+    }
+
+    private static class CountingIndexer implements Indexer {
+        private int fieldCount;
+
+        @Override
+        public void addDocument(final IndexShardKey key, final Document document) {
+            fieldCount += document.getFields().size();
+        }
+
+        @Override
+        public void addDocuments(final IndexShardKey key, final List<Document> documents) {
+            for (final Document document : documents) {
+                addDocument(key, document);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.jmh;
+
+import stroom.test.common.util.test.data.XsltPerformanceData;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates the synthetic input used by the benchmarks so that they can be run
+ * without any external data or services.
+ */
+public final class BenchmarkData {
+    private BenchmarkData() {
+        // Utility class.
+    }
+
+    /**
+     * @return A single XML document containing the requested number of simple event records. This is the same input
+     * that is used by the XSLT performance test in stroom-pipeline.
+     */
+    public static byte[] createXmlEvents(final int recordCount) {
+        return XsltPerformanceData.createEvents(recordCount);
+    }
+
+    /**
+     * @return CSV data with a heading line followed by the requested number of records.
+     */
+    public static byte[] createCsv(final int recordCount) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("Time,Action,User,File\n");
+        for (int i = 1; i <= recordCount; i++) {
+            sb.append("01/01/2009:00:00:01");
+            sb.append(i);
+            sb.append(",OPEN");
+            sb.append(i % 10);
+            sb.append(",user");
+            sb.append(i % 100);
+            sb.append(",D:\\TranslationKit\\example\\VerySimple\\OpenFileEvents");
+            sb.append(i);
+            sb.append(".txt\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Records in the `records:2` form consumed by the indexing filter.
+     */
+    public static byte[] createIndexRecords(final int recordCount) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.1\" encoding=\"UTF-8\"?>\n");
+        sb.append("<records xmlns=\"records:2\">\n");
+        for (int i = 0; i < recordCount; i++) {
+            sb.append("<record>");
+            appendData(sb, "EventTime", "2019-01-01T00:00:00.000Z");
+            appendData(sb, "UserId", "user" + (i % 100));
+            appendData(sb, "Action", "action" + (i % 10));
+            appendData(sb, "Size", Integer.toString(i));
+            appendData(sb, "Message", "A message for event " + i + " that will be tokenised");
+            sb.append("</record>\n");
+        }
+        sb.append("</records>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendData(final StringBuilder sb, final String name, final String value) {
+        sb.append("<data name=\"");
+        sb.append(name);
+        sb.append("\" value=\"");
+        sb.append(value);
+        sb.append("\"/>");
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XsltExecutable;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import stroom.docref.DocRef;
+import stroom.jmh.BenchmarkData;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.cache.PoolItem;
+import stroom.pipeline.cache.PoolKey;
+import stroom.pipeline.cache.StoredXsltExecutable;
+import stroom.pipeline.cache.XsltPool;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.FatalErrorReceiver;
+import stroom.pipeline.errorhandler.StoredErrorReceiver;
+import stroom.pipeline.shared.XsltDoc;
+import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.util.ProcessorUtil;
+import stroom.pipeline.writer.PathCreator;
+import stroom.pipeline.xslt.XsltStore;
+import stroom.test.common.util.test.data.XsltPerformanceData;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per record XSLT transformation cost when a split filter feeds the XSLT filter
+ * one record per document, as it does in most translation pipelines. Uses the
+ * same input and XSLT as TestXsltFilterPerformance in stroom-pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XsltFilterBenchmark {
+    @Param({"10000"})
+    private int recordCount;
+
+    /**
+     * 0 transforms the whole input as one document, 1 transforms each record separately.
+     */
+    @Param({"0", "1"})
+    private int splitDepth;
+
+    private byte[] input;
+    private XsltDoc xsltDoc;
+    private XsltStore xsltStore;
+    private XsltPool xsltPool;
+
+    @Setup(Level.Trial)
+    public void setup() throws SaxonApiException {
+        input = BenchmarkData.createXmlEvents(recordCount);
+
+        xsltDoc = new XsltDoc();
+        xsltDoc.setUuid("benchmark-xslt");
+        xsltDoc.setName("Benchmark XSLT");
+        xsltDoc.setData(XsltPerformanceData.XSLT);
+
+        xsltStore = Mockito.mock(XsltStore.class);
+        Mockito.when(xsltStore.readDocument(Mockito.any())).thenReturn(xsltDoc);
+
+        final XsltExecutable xsltExecutable = new Processor(false)
+                .newXsltCompiler()
+                .compile(new StreamSource(new StringReader(XsltPerformanceData.XSLT)));
+        final StoredXsltExecutable storedXsltExecutable =
+                new StoredXsltExecutable(xsltExecutable, null, new StoredErrorReceiver());
+        xsltPool = Mockito.mock(XsltPool.class);
+        Mockito.when(xsltPool.borrowTemplate(Mockito.any(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenReturn(new PoolItem<>(new PoolKey<>(xsltDoc), storedXsltExecutable));
+    }
+
+    @Benchmark
+    public int transform() {
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+
+        final SplitFilter splitFilter = new SplitFilter();
+        splitFilter.setSplitDepth(splitDepth);
+        splitFilter.setSplitCount(1);
+
+        final XsltFilter xsltFilter = new XsltFilter(xsltPool,
+                errorReceiverProxy,
+                xsltStore,
+                new XsltConfig(),
+                locationFactory,
+                new PipelineContext(),
+                Mockito.mock(PathCreator.class));
+        xsltFilter.setXslt(new DocRef(XsltDoc.DOCUMENT_TYPE, xsltDoc.getUuid(), xsltDoc.getName()));
+
+        final CountingFilter countingFilter = new CountingFilter();
+        splitFilter.setTarget(xsltFilter);
+        xsltFilter.setTarget(countingFilter);
+
+        ProcessorUtil.processXml(new ByteArrayInputStream(input), errorReceiverProxy, splitFilter, locationFactory);
+        return countingFilter.elementCount;
+    }
+
+    private static class CountingFilter extends AbstractXMLFilter {
+        private int elementCount;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            elementCount++;
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+}
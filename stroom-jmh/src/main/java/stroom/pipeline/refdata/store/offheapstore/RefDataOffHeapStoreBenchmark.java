@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.refdata.store.offheapstore;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import stroom.cache.api.CacheManager;
+import stroom.cache.impl.CacheManagerImpl;
+import stroom.pipeline.refdata.store.MapDefinition;
+import stroom.pipeline.refdata.store.RefDataStore;
+import stroom.pipeline.refdata.store.RefDataStoreConfig;
+import stroom.pipeline.refdata.store.RefDataStoreFactory;
+import stroom.pipeline.refdata.store.RefDataStoreModule;
+import stroom.pipeline.refdata.store.RefDataValue;
+import stroom.pipeline.refdata.store.RefStreamDefinition;
+import stroom.pipeline.refdata.store.StringValue;
+import stroom.util.ByteSizeUnit;
+import stroom.util.io.FileUtil;
+import stroom.util.pipeline.scope.PipelineScopeModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key/value lookups against a populated LMDB backed reference data store, as
+ * performed by the XSLT lookup() function for every record being translated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RefDataOffHeapStoreBenchmark {
+    private static final int COMMIT_INTERVAL = 10_000;
+
+    @Param({"100000"})
+    private int entryCount;
+
+    // "0" measures LMDB itself, otherwise lookups are served from the on-heap lookup cache once warm
+    @Param({"0", "32M"})
+    private String maxLookupCacheSize;
+
+    private Path dir;
+    private RefDataStore refDataStore;
+    private MapDefinition mapDefinition;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("stroom-jmh");
+
+        final RefDataStoreConfig refDataStoreConfig = new RefDataStoreConfig();
+        refDataStoreConfig.setLocalDir(dir.toAbsolutePath().toString());
+        refDataStoreConfig.setMaxStoreSize(Long.toString(ByteSizeUnit.MEBIBYTE.longBytes(500)));
+        refDataStoreConfig.setMaxLookupCacheSize(maxLookupCacheSize);
+
+        final Injector injector = Guice.createInjector(
+                new AbstractModule() {
+                    @Override
+                    protected void configure() {
+                        bind(RefDataStoreConfig.class).toInstance(refDataStoreConfig);
+                        bind(CacheManager.class).to(CacheManagerImpl.class);
+                        install(new RefDataStoreModule());
+                        install(new PipelineScopeModule());
+                    }
+                });
+        refDataStore = injector.getInstance(RefDataStoreFactory.class).getOffHeapStore();
+
+        final RefStreamDefinition refStreamDefinition = new RefStreamDefinition(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                1);
+        mapDefinition = new MapDefinition(refStreamDefinition, "benchmarkMap");
+
+        refDataStore.doWithLoaderUnlessComplete(refStreamDefinition, System.currentTimeMillis(), refDataLoader -> {
+            refDataLoader.setCommitInterval(COMMIT_INTERVAL);
+            refDataLoader.initialise(false);
+            for (int i = 0; i < entryCount; i++) {
+                refDataLoader.put(mapDefinition, "key" + i, StringValue.of("value" + i));
+            }
+            refDataLoader.completeProcessing();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtil.deleteDir(dir);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<RefDataValue> getValueSingleThread() {
+        return getRandomValue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<RefDataValue> getValueFourThreads() {
+        return getRandomValue();
+    }
+
+    @Benchmark
+    public Optional<RefDataValue> getValueMissingKey() {
+        return refDataStore.getValue(mapDefinition, "missing" + ThreadLocalRandom.current().nextInt(entryCount));
+    }
+
+    private Optional<RefDataValue> getRandomValue() {
+        return refDataStore.getValue(mapDefinition, "key" + ThreadLocalRandom.current().nextInt(entryCount));
+    }
+}
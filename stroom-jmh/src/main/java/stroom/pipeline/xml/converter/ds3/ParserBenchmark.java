@@ -0,0 +1,229 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.xml.converter.ds3;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import stroom.docref.DocRef;
+import stroom.jmh.BenchmarkData;
+import stroom.pipeline.DefaultLocationFactory;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.cache.ParserFactoryPool;
+import stroom.pipeline.cache.PoolItem;
+import stroom.pipeline.cache.PoolKey;
+import stroom.pipeline.cache.SchemaKey;
+import stroom.pipeline.cache.SchemaLoaderImpl;
+import stroom.pipeline.cache.SchemaPool;
+import stroom.pipeline.cache.StoredParserFactory;
+import stroom.pipeline.cache.StoredSchema;
+import stroom.pipeline.errorhandler.ErrorHandlerAdaptor;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.FatalErrorReceiver;
+import stroom.pipeline.errorhandler.StoredErrorReceiver;
+import stroom.pipeline.factory.Processor;
+import stroom.pipeline.factory.SimpleProcessorFactory;
+import stroom.pipeline.filter.AbstractXMLFilter;
+import stroom.pipeline.filter.SchemaFilter;
+import stroom.pipeline.parser.AbstractParser;
+import stroom.pipeline.parser.CombinedParser;
+import stroom.pipeline.parser.DSParser;
+import stroom.pipeline.shared.TextConverterDoc;
+import stroom.pipeline.shared.TextConverterDoc.TextConverterType;
+import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.textconverter.TextConverterStore;
+import stroom.pipeline.xmlschema.XmlSchemaCache;
+import stroom.pipeline.xmlschema.XmlSchemaStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the data splitter when converting CSV to XML, through both the
+ * {@link DSParser} and the {@link CombinedParser}. The combined parser reading
+ * plain XML is included as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String DATA_SPLITTER = "" +
+            "<?xml version=\"1.1\" encoding=\"UTF-8\"?>\n" +
+            "<dataSplitter xmlns=\"data-splitter:3\" " +
+            "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
+            "xsi:schemaLocation=\"data-splitter:3 file://data-splitter-v3.0.1.xsd\" " +
+            "version=\"3.0\" ignoreErrors=\"false\">\n" +
+            "  <split delimiter=\"\\n\" maxMatch=\"1\">\n" +
+            "    <group>\n" +
+            "      <split delimiter=\",\" containerStart=\"&#34;\" containerEnd=\"&#34;\">\n" +
+            "        <var id=\"heading\" />\n" +
+            "      </split>\n" +
+            "    </group>\n" +
+            "  </split>\n" +
+            "  <split delimiter=\"\\n\">\n" +
+            "    <group>\n" +
+            "      <split delimiter=\",\">\n" +
+            "        <data name=\"$heading$1\" value=\"$1\" />\n" +
+            "      </split>\n" +
+            "    </group>\n" +
+            "  </split>\n" +
+            "</dataSplitter>";
+
+    @Param({"10000"})
+    private int recordCount;
+
+    private byte[] csv;
+    private byte[] xml;
+    private TextConverterDoc textConverterDoc;
+    private TextConverterStore textConverterStore;
+    private ParserFactoryPool parserFactoryPool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        csv = BenchmarkData.createCsv(recordCount);
+        xml = BenchmarkData.createXmlEvents(recordCount);
+
+        textConverterDoc = new TextConverterDoc();
+        textConverterDoc.setUuid("benchmark-text-converter");
+        textConverterDoc.setName("Benchmark Text Converter");
+        textConverterDoc.setConverterType(TextConverterType.DATA_SPLITTER);
+        textConverterDoc.setData(DATA_SPLITTER);
+
+        textConverterStore = Mockito.mock(TextConverterStore.class);
+        Mockito.when(textConverterStore.readDocument(Mockito.any())).thenReturn(textConverterDoc);
+
+        final StoredParserFactory storedParserFactory = createParserFactory();
+        parserFactoryPool = new ParserFactoryPool() {
+            @Override
+            public PoolItem<StoredParserFactory> borrowObject(final TextConverterDoc key, final boolean usePool) {
+                return new PoolItem<>(new PoolKey<>(key), storedParserFactory);
+            }
+
+            @Override
+            public void returnObject(final PoolItem<StoredParserFactory> poolItem, final boolean usePool) {
+            }
+        };
+    }
+
+    @Benchmark
+    public int dsParser() {
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+        final DSParser parser = new DSParser(errorReceiverProxy, locationFactory, parserFactoryPool, textConverterStore);
+        parser.setTextConverter(getTextConverterRef());
+        return process(parser, csv, errorReceiverProxy);
+    }
+
+    @Benchmark
+    public int combinedParserDataSplitter() {
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+        final CombinedParser parser = new CombinedParser(errorReceiverProxy, locationFactory, parserFactoryPool,
+                textConverterStore);
+        parser.setType(TextConverterType.DATA_SPLITTER.getDisplayValue());
+        parser.setTextConverter(getTextConverterRef());
+        return process(parser, csv, errorReceiverProxy);
+    }
+
+    @Benchmark
+    public int combinedParserXml() {
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+        final CombinedParser parser = new CombinedParser(errorReceiverProxy, locationFactory, parserFactoryPool,
+                textConverterStore);
+        parser.setType("XML");
+        return process(parser, xml, errorReceiverProxy);
+    }
+
+    private int process(final AbstractParser parser, final byte[] input, final ErrorReceiverProxy errorReceiverProxy) {
+        final CountingFilter countingFilter = new CountingFilter();
+        parser.setTarget(countingFilter);
+        parser.setInputStream(new ByteArrayInputStream(input), null);
+
+        final Processor processor = new SimpleProcessorFactory(errorReceiverProxy).create(parser.createProcessors());
+        parser.startProcessing();
+        parser.startStream();
+        processor.process();
+        parser.endStream();
+        parser.endProcessing();
+
+        return countingFilter.elementCount;
+    }
+
+    private DocRef getTextConverterRef() {
+        return new DocRef(TextConverterDoc.DOCUMENT_TYPE, textConverterDoc.getUuid(), textConverterDoc.getName());
+    }
+
+    private StoredParserFactory createParserFactory() {
+        // There are no schemas in the store so the data splitter configuration is not validated.
+        final XmlSchemaCache xmlSchemaCache = new XmlSchemaCache(Mockito.mock(XmlSchemaStore.class));
+        final SchemaLoaderImpl schemaLoader = new SchemaLoaderImpl(xmlSchemaCache);
+        final SchemaPool schemaPool = new SchemaPool() {
+            @Override
+            public PoolItem<StoredSchema> borrowObject(final SchemaKey key, final boolean usePool) {
+                return new PoolItem<>(new PoolKey<>(key), schemaLoader.load(key.getSchemaLanguage(), key.getData(),
+                        key.getFindXMLSchemaCriteria()));
+            }
+
+            @Override
+            public void returnObject(final PoolItem<StoredSchema> poolItem, final boolean usePool) {
+            }
+        };
+
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final SchemaFilter schemaFilter = new SchemaFilter(schemaPool, xmlSchemaCache, errorReceiverProxy,
+                new LocationFactoryProxy(), new PipelineContext());
+
+        final StoredErrorReceiver storedErrorReceiver = new StoredErrorReceiver();
+        final DS3ParserFactory parserFactory = new DS3ParserFactory(schemaFilter);
+        parserFactory.configure(new StringReader(DATA_SPLITTER), new ErrorHandlerAdaptor(getClass().getSimpleName(),
+                new DefaultLocationFactory(), storedErrorReceiver));
+
+        if (storedErrorReceiver.getTotalErrors() > 0) {
+            throw new IllegalStateException("Unable to configure data splitter: " + storedErrorReceiver);
+        }
+
+        return new StoredParserFactory(parserFactory, storedErrorReceiver);
+    }
+
+    private static class CountingFilter extends AbstractXMLFilter {
+        private int elementCount;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            elementCount++;
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.statistics.impl.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stroom.statistics.impl.sql.exception.StatisticsEventValidationException;
+import stroom.statistics.impl.sql.rollup.RolledUpStatisticEvent;
+import stroom.statistics.impl.sql.shared.StatisticField;
+import stroom.statistics.impl.sql.shared.StatisticRollUpType;
+import stroom.statistics.impl.sql.shared.StatisticStoreDoc;
+import stroom.statistics.impl.sql.shared.StatisticsDataSourceData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of aggregating rolled up statistic events in memory before they are
+ * flushed to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SQLStatisticAggregateMapBenchmark {
+    private static final String STAT_NAME = "BenchmarkStat";
+    private static final long PRECISION_MS = 1_000L;
+    private static final String[] TAG_NAMES = {"colour", "state", "user"};
+
+    @Param({"100000"})
+    private int eventCount;
+
+    /**
+     * The number of distinct values for each tag, which controls how many events
+     * end up aggregated into the same key.
+     */
+    @Param({"10", "1000"})
+    private int tagCardinality;
+
+    private List<RolledUpStatisticEvent> countEvents;
+    private List<RolledUpStatisticEvent> valueEvents;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final StatisticStoreDoc statisticStoreDoc = buildStatisticStoreDoc();
+        final long startMs = System.currentTimeMillis();
+
+        countEvents = new ArrayList<>(eventCount);
+        valueEvents = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            final long timeMs = startMs + (i * 10L);
+            final List<StatisticTag> tags = buildTags(i);
+            countEvents.add(SQLStatisticEventStore.generateTagRollUps(
+                    StatisticEvent.createCount(timeMs, STAT_NAME, tags, 1L), statisticStoreDoc));
+            valueEvents.add(SQLStatisticEventStore.generateTagRollUps(
+                    StatisticEvent.createValue(timeMs, STAT_NAME, tags, i % 100), statisticStoreDoc));
+        }
+    }
+
+    @Benchmark
+    public int aggregateCounts() throws StatisticsEventValidationException {
+        return aggregate(countEvents).size();
+    }
+
+    @Benchmark
+    public int aggregateValues() throws StatisticsEventValidationException {
+        return aggregate(valueEvents).size();
+    }
+
+    @Benchmark
+    public int mergeMaps() throws StatisticsEventValidationException {
+        final SQLStatisticAggregateMap countMap = aggregate(countEvents);
+        final SQLStatisticAggregateMap valueMap = aggregate(valueEvents);
+        countMap.add(valueMap);
+        return countMap.size();
+    }
+
+    private SQLStatisticAggregateMap aggregate(final List<RolledUpStatisticEvent> events)
+            throws StatisticsEventValidationException {
+        final SQLStatisticAggregateMap aggregateMap = new SQLStatisticAggregateMap();
+        for (final RolledUpStatisticEvent event : events) {
+            aggregateMap.addRolledUpEvent(event, PRECISION_MS);
+        }
+        return aggregateMap;
+    }
+
+    private List<StatisticTag> buildTags(final int i) {
+        final List<StatisticTag> tags = new ArrayList<>(TAG_NAMES.length);
+        for (int j = 0; j < TAG_NAMES.length; j++) {
+            tags.add(new StatisticTag(TAG_NAMES[j], TAG_NAMES[j] + ((i + j) % tagCardinality)));
+        }
+        return tags;
+    }
+
+    private StatisticStoreDoc buildStatisticStoreDoc() {
+        final List<StatisticField> fields = new ArrayList<>();
+        for (final String tagName : TAG_NAMES) {
+            fields.add(new StatisticField(tagName));
+        }
+
+        final StatisticsDataSourceData statisticsDataSourceData = new StatisticsDataSourceData();
+        statisticsDataSourceData.setStatisticFields(fields);
+
+        final StatisticStoreDoc statisticStoreDoc = new StatisticStoreDoc();
+        statisticStoreDoc.setConfig(statisticsDataSourceData);
+        statisticStoreDoc.setRollUpType(StatisticRollUpType.ALL);
+        return statisticStoreDoc;
+    }
+}
@@ -38,14 +38,18 @@ public abstract class AbstractDocPool<K extends Doc, V> extends AbstractPoolCach
 
     @Override
     public PoolItem<V> borrowObject(final K key, final boolean usePool) {
-        if (!documentPermissionCache.hasDocumentPermission(key.getType(), key.getUuid(), DocumentPermissionNames.USE)) {
-            throw new PermissionException(securityContext.getUserId(), "You do not have permission to use " + key);
-        }
+        checkUsePermission(key);
 
         // Get the item from the pool.
         return super.internalBorrowObject(key, usePool);
     }
 
+    protected void checkUsePermission(final K key) {
+        if (!documentPermissionCache.hasDocumentPermission(key.getType(), key.getUuid(), DocumentPermissionNames.USE)) {
+            throw new PermissionException(securityContext.getUserId(), "You do not have permission to use " + key);
+        }
+    }
+
     @Override
     public void returnObject(final PoolItem<V> poolItem, final boolean usePool) {
         super.internalReturnObject(poolItem, usePool);
@@ -54,10 +58,11 @@ public abstract class AbstractDocPool<K extends Doc, V> extends AbstractPoolCach
     @Override
     @SuppressWarnings("unchecked")
     protected V internalCreateValue(final Object key) {
-        return securityContext.asProcessingUserResult(() -> {
-            final K doc = (K) key;
-            return createValue(doc);
-        });
+        return createValueAsProcessingUser((K) key);
+    }
+
+    protected V createValueAsProcessingUser(final K key) {
+        return securityContext.asProcessingUserResult(() -> createValue(key));
     }
 
     protected abstract V createValue(final K key);
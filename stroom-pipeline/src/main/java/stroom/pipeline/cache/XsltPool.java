@@ -16,15 +16,14 @@
 
 package stroom.pipeline.cache;
 
-import stroom.pipeline.LocationFactory;
-import stroom.pipeline.errorhandler.ErrorReceiver;
 import stroom.pipeline.shared.XsltDoc;
-import stroom.pipeline.shared.data.PipelineReference;
-
-import java.util.List;
 
 public interface XsltPool extends Pool<XsltDoc, StoredXsltExecutable> {
-    PoolItem<StoredXsltExecutable> borrowConfiguredTemplate(
-            XsltDoc k, ErrorReceiver errorReceiver, LocationFactory locationFactory,
-            List<PipelineReference> pipelineReferences, boolean usePool);
+    /**
+     * Borrow compiled XSLT. The executable may be shared with other transformations so Stroom extension
+     * functions must be bound to each transformer using the function library of the returned item.
+     *
+     * @param lineNumbering True if line numbers of the source document should be available to the transformation.
+     */
+    PoolItem<StoredXsltExecutable> borrowTemplate(XsltDoc k, boolean lineNumbering, boolean usePool);
 }
@@ -16,6 +16,9 @@
 
 package stroom.pipeline.cache;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import net.sf.saxon.s9api.Processor;
 import net.sf.saxon.s9api.SaxonApiException;
 import net.sf.saxon.s9api.XsltCompiler;
@@ -23,13 +26,13 @@ import net.sf.saxon.s9api.XsltExecutable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.cache.api.CacheManager;
+import stroom.cache.api.CacheUtil;
 import stroom.pipeline.DefaultLocationFactory;
 import stroom.pipeline.LocationFactory;
 import stroom.pipeline.errorhandler.ErrorListenerAdaptor;
-import stroom.pipeline.errorhandler.ErrorReceiver;
 import stroom.pipeline.errorhandler.StoredErrorReceiver;
+import stroom.pipeline.filter.XsltConfig;
 import stroom.pipeline.shared.XsltDoc;
-import stroom.pipeline.shared.data.PipelineReference;
 import stroom.pipeline.xsltfunctions.StroomXsltFunctionLibrary;
 import stroom.security.api.DocumentPermissionCache;
 import stroom.security.api.SecurityContext;
@@ -42,48 +45,92 @@ import javax.inject.Singleton;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.URIResolver;
 import javax.xml.transform.stream.StreamSource;
-import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 class XsltPoolImpl extends AbstractDocPool<XsltDoc, StoredXsltExecutable> implements XsltPool {
     private static final Logger LOGGER = LoggerFactory.getLogger(XsltPoolImpl.class);
 
+    private static final int MAX_SHARED_CACHE_ENTRIES = 1000;
+
     private final URIResolver uriResolver;
     private final Provider<StroomXsltFunctionLibrary> stroomXsltFunctionLibraryProvider;
+    private final XsltConfig xsltConfig;
+    private final LoadingCache<SharedKey, PoolItem<StoredXsltExecutable>> sharedCache;
 
     @Inject
+    @SuppressWarnings("unchecked")
     XsltPoolImpl(final CacheManager cacheManager,
                  final DocumentPermissionCache documentPermissionCache,
                  final SecurityContext securityContext,
                  final URIResolver uriResolver,
-                 final Provider<StroomXsltFunctionLibrary> stroomXsltFunctionLibraryProvider) {
+                 final Provider<StroomXsltFunctionLibrary> stroomXsltFunctionLibraryProvider,
+                 final XsltConfig xsltConfig) {
         super(cacheManager, "XSLT Pool", documentPermissionCache, securityContext);
         this.uriResolver = uriResolver;
         this.stroomXsltFunctionLibraryProvider = stroomXsltFunctionLibraryProvider;
+        this.xsltConfig = xsltConfig;
+
+        // Compiled stylesheets are immutable so when sharing is enabled a single compiled stylesheet is held for
+        // each version of an XSLT and used by all threads.
+        final CacheLoader<SharedKey, PoolItem<StoredXsltExecutable>> cacheLoader = CacheLoader.from(k -> {
+            final StoredXsltExecutable storedXsltExecutable = createValueAsProcessingUser(k.xsltDoc);
+            setLineNumbering(storedXsltExecutable, k.lineNumbering);
+            return new PoolItem<>(new PoolKey<>(k), storedXsltExecutable);
+        });
+        final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(MAX_SHARED_CACHE_ENTRIES)
+                .expireAfterAccess(10, TimeUnit.MINUTES);
+        sharedCache = cacheBuilder.build(cacheLoader);
+        cacheManager.registerCache("XSLT Shared Executable Cache", cacheBuilder, sharedCache);
     }
 
     @Override
-    public PoolItem<StoredXsltExecutable> borrowConfiguredTemplate(final XsltDoc k, final ErrorReceiver errorReceiver, final LocationFactory locationFactory, final List<PipelineReference> pipelineReferences, final boolean usePool) {
-        // Get the item from the pool.
-        final PoolItem<StoredXsltExecutable> poolItem = super.borrowObject(k, usePool);
-
-        // Configure the item.
-        if (poolItem != null && poolItem.getValue() != null && poolItem.getValue().getFunctionLibrary() != null) {
-            poolItem.getValue().getFunctionLibrary().configure(errorReceiver, locationFactory,
-                    pipelineReferences);
+    public PoolItem<StoredXsltExecutable> borrowTemplate(final XsltDoc k, final boolean lineNumbering, final boolean usePool) {
+        if (usePool && xsltConfig.isShareCompiledXslt()) {
+            checkUsePermission(k);
+            // The configuration of a shared executable must not change once other threads can see it so line
+            // numbering is fixed when it is compiled.
+            return borrowSharedObject(new SharedKey(k, lineNumbering));
         }
 
+        // Get the item from the pool. Nobody else is using it so it can be set up for this borrower.
+        final PoolItem<StoredXsltExecutable> poolItem = super.borrowObject(k, usePool);
+        if (poolItem != null) {
+            setLineNumbering(poolItem.getValue(), lineNumbering);
+        }
         return poolItem;
     }
 
+    private void setLineNumbering(final StoredXsltExecutable storedXsltExecutable, final boolean lineNumbering) {
+        if (storedXsltExecutable != null && storedXsltExecutable.getXsltExecutable() != null) {
+            storedXsltExecutable.getXsltExecutable().getUnderlyingCompiledStylesheet().getConfiguration()
+                    .setLineNumbering(lineNumbering);
+        }
+    }
+
     @Override
     public void returnObject(final PoolItem<StoredXsltExecutable> poolItem, final boolean usePool) {
-        // Reset all references to function library classes to release memory.
-        if (poolItem != null && poolItem.getValue() != null && poolItem.getValue().getFunctionLibrary() != null) {
-            poolItem.getValue().getFunctionLibrary().reset();
+        // Shared items are never handed out exclusively so there is nothing to return to the pool.
+        if (poolItem == null || !(poolItem.getKey().getKey() instanceof SharedKey)) {
+            super.returnObject(poolItem, usePool);
+        }
+    }
+
+    private PoolItem<StoredXsltExecutable> borrowSharedObject(final SharedKey key) {
+        try {
+            return sharedCache.getUnchecked(key);
+        } catch (final RuntimeException e) {
+            LOGGER.debug(e.getMessage(), e);
+            throw new RuntimeException(e.getMessage(), e);
         }
+    }
 
-        super.returnObject(poolItem, usePool);
+    @Override
+    public void clear() {
+        super.clear();
+        CacheUtil.clear(sharedCache);
     }
 
     @Override
@@ -120,4 +167,47 @@ class XsltPoolImpl extends AbstractDocPool<XsltDoc, StoredXsltExecutable> implem
 
         return new StoredXsltExecutable(xsltExecutable, functionLibrary, errorReceiver);
     }
+
+    /**
+     * Identifies a distinct compilation of a version of an XSLT. The content hash is included so that
+     * changed XSLT content is never served from a stale compilation even if the document version is unchanged.
+     */
+    private static class SharedKey {
+        private final XsltDoc xsltDoc;
+        private final String uuid;
+        private final String version;
+        private final int contentHash;
+        private final boolean lineNumbering;
+        private final int hashCode;
+
+        SharedKey(final XsltDoc xsltDoc, final boolean lineNumbering) {
+            this.xsltDoc = xsltDoc;
+            this.uuid = xsltDoc.getUuid();
+            this.version = xsltDoc.getVersion();
+            this.contentHash = xsltDoc.getData() == null ? 0 : xsltDoc.getData().hashCode();
+            this.lineNumbering = lineNumbering;
+            this.hashCode = Objects.hash(uuid, version, contentHash, lineNumbering);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final SharedKey sharedKey = (SharedKey) o;
+            return contentHash == sharedKey.contentHash &&
+                    lineNumbering == sharedKey.lineNumbering &&
+                    Objects.equals(uuid, sharedKey.uuid) &&
+                    Objects.equals(version, sharedKey.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return xsltDoc.toString();
+        }
+    }
 }
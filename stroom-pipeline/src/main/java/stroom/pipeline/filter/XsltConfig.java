@@ -10,6 +10,7 @@ public class XsltConfig implements IsConfig {
     private static final int DEFAULT_MAX_ELEMENTS = 1000000;
 
     private int maxElements = DEFAULT_MAX_ELEMENTS;
+    private boolean shareCompiledXslt;
 
     @JsonPropertyDescription("The maximum number of elements that the XSLT filter will expect to receive before it errors. This protects Stroom from ruinning out of memory in cases where an appropriate XML splitter has not been used in a pipeline.")
     public int getMaxElements() {
@@ -20,10 +21,20 @@ public class XsltConfig implements IsConfig {
         this.maxElements = maxElements;
     }
 
+    @JsonPropertyDescription("If true, each version of an XSLT is compiled once and the compiled stylesheet is shared by all pipeline threads rather than being compiled separately for each thread that uses it.")
+    public boolean isShareCompiledXslt() {
+        return shareCompiledXslt;
+    }
+
+    public void setShareCompiledXslt(final boolean shareCompiledXslt) {
+        this.shareCompiledXslt = shareCompiledXslt;
+    }
+
     @Override
     public String toString() {
         return "XsltConfig{" +
                 "maxElements=" + maxElements +
+                ", shareCompiledXslt=" + shareCompiledXslt +
                 '}';
     }
 }
@@ -50,6 +50,7 @@ import stroom.pipeline.shared.data.PipelineReference;
 import stroom.pipeline.state.PipelineContext;
 import stroom.pipeline.writer.PathCreator;
 import stroom.pipeline.xslt.XsltStore;
+import stroom.pipeline.xsltfunctions.StroomXsltFunctionLibrary;
 import stroom.util.CharBuffer;
 import stroom.util.shared.Location;
 import stroom.util.shared.Severity;
@@ -93,6 +94,9 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
      */
     private PoolItem<StoredXsltExecutable> poolItem;
     private XsltExecutable xsltExecutable;
+    private StroomXsltFunctionLibrary functionLibrary;
+    private ErrorReceiver errorReceiver;
+    private TransformerImpl transformer;
     private TransformerHandler handler;
     private Locator locator;
     private boolean xsltRequired = false;
@@ -211,15 +215,14 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                 // XSLT for it.
                 if (xslt.getData() != null && xslt.getData().trim().length() > 0) {
                     // Get compiled XSLT from the pool.
-                    final ErrorReceiver errorReceiver = new ErrorReceiverIdDecorator(getElementId(),
-                            errorReceiverProxy);
-                    poolItem = xsltPool.borrowConfiguredTemplate(xslt, errorReceiver,
-                            locationFactory, pipelineReferences, usePool);
+                    errorReceiver = new ErrorReceiverIdDecorator(getElementId(), errorReceiverProxy);
+                    poolItem = xsltPool.borrowTemplate(xslt, !pipelineContext.isStepping(), usePool);
                     final StoredXsltExecutable storedXsltExecutable = poolItem.getValue();
                     // Get the errors.
                     final StoredErrorReceiver storedErrors = storedXsltExecutable.getErrorReceiver();
                     // Get the XSLT executable.
                     xsltExecutable = storedXsltExecutable.getXsltExecutable();
+                    functionLibrary = storedXsltExecutable.getFunctionLibrary();
 
                     if (storedErrors.getTotalErrors() > 0) {
                         // Replay any exceptions that were created when
@@ -238,6 +241,13 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                         final String msg = sb.toString();
                         throw new ProcessException(msg);
                     }
+
+                    // Make sure the executable points at the local error handler. A shared executable is used by
+                    // other threads so their transformers are given the error listener instead.
+                    if (!usePool || !xsltConfig.isShareCompiledXslt()) {
+                        final Configuration configuration = xsltExecutable.getUnderlyingCompiledStylesheet().getConfiguration();
+                        configuration.setErrorListener(errorListener);
+                    }
                 }
             }
 
@@ -260,6 +270,8 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     @Override
     public void endProcessing() {
         try {
+            transformer = null;
+            functionLibrary = null;
             if (poolItem != null) {
                 xsltPool.returnObject(poolItem, usePool);
                 poolItem = null;
@@ -292,17 +304,8 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     public void startDocument() throws SAXException {
         try {
             if (xsltExecutable != null) {
-                // Make sure the executable points at the local error handler.
-                final Configuration configuration = xsltExecutable.getUnderlyingCompiledStylesheet().getConfiguration();
-                configuration.setErrorListener(errorListener);
-                configuration.setLineNumbering(!pipelineContext.isStepping());
-
                 // Create a handler to receive all SAX events.
-                final TemplatesImpl templates = new TemplatesImpl(xsltExecutable);
-                final TransformerImpl transformer = (TransformerImpl) templates.newTransformer();
-                transformer.setErrorListener(errorListener);
-
-                handler = transformer.newTransformerHandler();
+                handler = getTransformer().newTransformerHandler();
                 handler.setResult(new SAXResult(getFilter()));
                 if (locator != null) {
                     handler.setDocumentLocator(locator);
@@ -314,6 +317,8 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
             }
 
         } catch (final TransformerConfigurationException | RuntimeException e) {
+            // Don't reuse a transformer that may have been left in a bad state.
+            transformer = null;
             final Throwable throwable = unwrapException(e);
 
             errorReceiverProxy.log(Severity.FATAL_ERROR, getLocation(throwable), getElementId(), throwable.toString(), throwable);
@@ -335,6 +340,8 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
             try {
                 handler.endDocument();
             } catch (final RuntimeException e) {
+                // Don't reuse a transformer that may have been left in a bad state.
+                transformer = null;
                 try {
                     final Throwable throwable = unwrapException(e);
 
@@ -358,6 +365,31 @@ public class XsltFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         }
     }
 
+    /**
+     * Gets a transformer for the current document. Creating a transformer is expensive compared to transforming a
+     * small document, e.g. a single record from a split filter, so the transformer is created once per filter and
+     * reset before each subsequent document.
+     */
+    private TransformerImpl getTransformer() throws TransformerConfigurationException {
+        if (transformer == null) {
+            final TemplatesImpl templates = new TemplatesImpl(xsltExecutable);
+            transformer = (TransformerImpl) templates.newTransformer();
+
+            // The XSLT executable may be shared so the extension functions are bound to this transformer alone.
+            if (functionLibrary != null) {
+                functionLibrary.configure(transformer.getUnderlyingController(), errorReceiver, locationFactory,
+                        pipelineReferences);
+            }
+        } else {
+            // Clear any state left over from the previous document, e.g. documents loaded with document().
+            transformer.reset();
+        }
+
+        // Reset restores the default error listener so always set ours.
+        transformer.setErrorListener(errorListener);
+        return transformer;
+    }
+
     private Location getLocation(final Throwable e) {
         if (e instanceof TransformerException) {
             return locationFactory.create(((TransformerException) e).getLocator());
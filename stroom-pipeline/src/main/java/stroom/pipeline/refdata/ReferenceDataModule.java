@@ -18,6 +18,7 @@ package stroom.pipeline.refdata;
 
 import stroom.pipeline.factory.PipelineElementModule;
 import stroom.pipeline.refdata.store.RefDataStoreModule;
+import stroom.pipeline.refdata.store.offheapstore.RefDataLookupCache;
 import stroom.task.api.TaskHandlerBinder;
 import stroom.util.guice.GuiceUtil;
 import stroom.util.shared.Clearable;
@@ -30,7 +31,9 @@ public class ReferenceDataModule extends PipelineElementModule {
         bind(ReferenceDataLoader.class).to(ReferenceDataLoaderImpl.class);
         bind(ContextDataLoader.class).to(ContextDataLoaderImpl.class);
 
-        GuiceUtil.buildMultiBinder(binder(), Clearable.class).addBinding(EffectiveStreamCache.class);
+        GuiceUtil.buildMultiBinder(binder(), Clearable.class)
+                .addBinding(EffectiveStreamCache.class)
+                .addBinding(RefDataLookupCache.class);
 
         TaskHandlerBinder.create(binder())
                 .bind(ContextDataLoadTask.class, ContextDataLoadTaskHandler.class)
@@ -21,6 +21,7 @@ public class RefDataStoreConfig implements IsConfig {
     private String purgeAge = "30d";
     private int valueBufferCapacity = VALUE_BUFFER_CAPACITY_DEFAULT_VALUE;
     private boolean isReadAheadEnabled = true;
+    private String maxLookupCacheSize = "32M";
 
     @RequiresRestart(RequiresRestart.RestartScope.SYSTEM)
     @JsonPropertyDescription("The full directory path to use for storing the reference data store. It MUST be on " +
@@ -111,6 +112,23 @@ public class RefDataStoreConfig implements IsConfig {
         this.isReadAheadEnabled = isReadAheadEnabled;
     }
 
+    @RequiresRestart(RequiresRestart.RestartScope.SYSTEM)
+    @JsonPropertyDescription("The maximum size in bytes of the on-heap cache of recent lookups against the off " +
+            "heap store, including lookups that found nothing. Lookups against small, frequently used maps are " +
+            "then served without opening a transaction. Set to 0 to disable the cache.")
+    public String getMaxLookupCacheSize() {
+        return maxLookupCacheSize;
+    }
+
+    @JsonIgnore
+    public long getMaxLookupCacheSizeBytes() {
+        return ModelStringUtil.parseIECByteSizeString(maxLookupCacheSize);
+    }
+
+    public void setMaxLookupCacheSize(final String maxLookupCacheSize) {
+        this.maxLookupCacheSize = maxLookupCacheSize;
+    }
+
     @Override
     public String toString() {
         return "RefDataStoreConfig{" +
@@ -121,6 +139,7 @@ public class RefDataStoreConfig implements IsConfig {
                 ", purgeAge='" + purgeAge + '\'' +
                 ", valueBufferCapacity=" + valueBufferCapacity +
                 ", isReadAheadEnabled=" + isReadAheadEnabled +
+                ", maxLookupCacheSize='" + maxLookupCacheSize + '\'' +
                 '}';
     }
 }
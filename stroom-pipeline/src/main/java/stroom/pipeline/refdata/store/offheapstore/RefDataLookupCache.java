@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline.refdata.store.offheapstore;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.cache.api.CacheManager;
+import stroom.cache.api.CacheUtil;
+import stroom.pipeline.refdata.store.MapDefinition;
+import stroom.pipeline.refdata.store.RefDataStoreConfig;
+import stroom.pipeline.refdata.store.RefStreamDefinition;
+import stroom.util.shared.Clearable;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A short lived on-heap cache of the results of lookups against the {@link RefDataOffHeapStore}, keyed on
+ * {@link MapDefinition} and key. Lookups that find nothing are also held so repeated misses are just as cheap.
+ * The value bytes are copied out of LMDB so entries can be used outside of a transaction. Entries for a
+ * {@link RefStreamDefinition} are invalidated whenever its data is loaded or purged.
+ * <p>
+ * Removing entries does not stop a lookup that is already in flight from adding a value read before the
+ * load or purge. Each entry therefore records the generation of its {@link RefStreamDefinition} at the time
+ * the lookup started, and entries from an older generation are treated as misses.
+ */
+@Singleton
+public class RefDataLookupCache implements Clearable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefDataLookupCache.class);
+
+    // Rough allowance for the key, value and map entry objects on top of the key and value bytes
+    private static final int ENTRY_OVERHEAD_BYTES = 100;
+    // Generations are striped by hash so memory stays bounded. A collision just invalidates a few extra entries.
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Key, Entry> cache;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final boolean enabled;
+
+    @Inject
+    RefDataLookupCache(final CacheManager cacheManager,
+                       final RefDataStoreConfig refDataStoreConfig) {
+        final Long maxSizeBytes = refDataStoreConfig.getMaxLookupCacheSizeBytes();
+        final long maxWeight = maxSizeBytes == null ? 0 : Math.max(0, maxSizeBytes);
+        enabled = maxWeight > 0;
+
+        final CacheBuilder<Key, Entry> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, Entry entry) -> key.getWeight() + entry.value.getWeight())
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats();
+        cache = cacheBuilder.build();
+        cacheManager.registerCache("Reference Data - Lookup Cache", cacheBuilder, cache);
+    }
+
+    /**
+     * @return False if the cache has been configured with no space so lookups should go straight to the store.
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the result of a lookup, performing it with the supplied loader if it is not in the cache.
+     */
+    CachedValue get(final MapDefinition mapDefinition,
+                    final String key,
+                    final Callable<CachedValue> loader) {
+        final int stripe = getStripe(mapDefinition.getRefStreamDefinition());
+        final Key cacheKey = new Key(mapDefinition, key);
+        try {
+            // Read the generation before the lookup so a load or purge that overlaps it makes the result stale.
+            final long generation = generations.get(stripe);
+            final Entry entry = cache.get(cacheKey, () -> new Entry(loader.call(), generation));
+            if (entry.generation == generations.get(stripe)) {
+                return entry.value;
+            }
+
+            // Stale, so drop it and go to the store. The next lookup will cache the current value.
+            LOGGER.debug("Discarding stale lookup of {} in {}", key, mapDefinition);
+            cache.asMap().remove(cacheKey, entry);
+            return loader.call();
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Remove all entries for the passed {@link RefStreamDefinition}, e.g. when its data has been
+     * loaded or purged.
+     */
+    void invalidate(final RefStreamDefinition refStreamDefinition) {
+        if (enabled) {
+            LOGGER.debug("Invalidating lookups for {}", refStreamDefinition);
+            generations.incrementAndGet(getStripe(refStreamDefinition));
+            cache.asMap().keySet().removeIf(key ->
+                    refStreamDefinition.equals(key.mapDefinition.getRefStreamDefinition()));
+        }
+    }
+
+    private static int getStripe(final RefStreamDefinition refStreamDefinition) {
+        return Math.floorMod(Objects.hashCode(refStreamDefinition), GENERATION_STRIPES);
+    }
+
+    @Override
+    public void clear() {
+        CacheUtil.clear(cache);
+    }
+
+    private static class Entry {
+        private final CachedValue value;
+        private final long generation;
+
+        Entry(final CachedValue value, final long generation) {
+            this.value = value;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * The result of a lookup, either a copy of the value bytes along with their type or {@link #NOT_FOUND}.
+     */
+    static class CachedValue {
+        static final CachedValue NOT_FOUND = new CachedValue(-1, null);
+
+        private final int typeId;
+        private final byte[] bytes;
+
+        private CachedValue(final int typeId, final byte[] bytes) {
+            this.typeId = typeId;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Copy the remaining bytes of the passed buffer so they can be held after the transaction is closed.
+         */
+        static CachedValue copyOf(final TypedByteBuffer typedByteBuffer) {
+            final ByteBuffer byteBuffer = typedByteBuffer.getByteBuffer().duplicate();
+            final byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(bytes);
+            return new CachedValue(typedByteBuffer.getTypeId(), bytes);
+        }
+
+        boolean isFound() {
+            return bytes != null;
+        }
+
+        /**
+         * @return A new read only buffer over the value bytes so that each caller has its own position.
+         */
+        TypedByteBuffer getTypedByteBuffer() {
+            return new TypedByteBuffer(typeId, ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+        }
+
+        private int getWeight() {
+            return bytes == null ? 0 : bytes.length;
+        }
+    }
+
+    private static class Key {
+        private final MapDefinition mapDefinition;
+        private final String key;
+        private final int hashCode;
+
+        Key(final MapDefinition mapDefinition, final String key) {
+            this.mapDefinition = mapDefinition;
+            this.key = key;
+            this.hashCode = Objects.hash(mapDefinition, key);
+        }
+
+        private int getWeight() {
+            return ENTRY_OVERHEAD_BYTES + key.length() * 2;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key that = (Key) o;
+            return Objects.equals(mapDefinition, that.mapDefinition) &&
+                    Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
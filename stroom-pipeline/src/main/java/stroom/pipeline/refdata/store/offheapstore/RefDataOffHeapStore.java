@@ -48,6 +48,7 @@ import stroom.pipeline.refdata.store.offheapstore.databases.ValueStoreMetaDb;
 import stroom.pipeline.refdata.store.offheapstore.lmdb.LmdbDb;
 import stroom.pipeline.refdata.store.offheapstore.lmdb.LmdbUtils;
 import stroom.pipeline.refdata.store.offheapstore.serdes.RefDataProcessingInfoSerde;
+import stroom.pipeline.refdata.store.offheapstore.serdes.RefDataValueSerdeFactory;
 import stroom.pipeline.refdata.util.ByteBufferPool;
 import stroom.pipeline.refdata.util.ByteBufferUtils;
 import stroom.pipeline.refdata.util.PooledByteBuffer;
@@ -118,6 +119,8 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
     private final Striped<Lock> refStreamDefStripedReentrantLock;
 
     private final ByteBufferPool byteBufferPool;
+    private final RefDataLookupCache lookupCache;
+    private final RefDataValueSerdeFactory refDataValueSerdeFactory;
 
     @Inject
     RefDataOffHeapStore(
@@ -129,7 +132,9 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
             final RangeStoreDb.Factory rangeStoreDbFactory,
             final MapUidForwardDb.Factory mapUidForwardDbFactory,
             final MapUidReverseDb.Factory mapUidReverseDbFactory,
-            final ProcessingInfoDb.Factory processingInfoDbFactory) {
+            final ProcessingInfoDb.Factory processingInfoDbFactory,
+            final RefDataLookupCache lookupCache,
+            final RefDataValueSerdeFactory refDataValueSerdeFactory) {
 
         this.refDataStoreConfig = refDataStoreConfig;
         this.dbDir = getStoreDir();
@@ -163,6 +168,8 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         this.mapDefinitionUIDStore = new MapDefinitionUIDStore(lmdbEnvironment, mapUidForwardDb, mapUidReverseDb);
 
         this.byteBufferPool = byteBufferPool;
+        this.lookupCache = lookupCache;
+        this.refDataValueSerdeFactory = refDataValueSerdeFactory;
 
         this.refStreamDefStripedReentrantLock = Striped.lazyWeakLock(100);
     }
@@ -259,6 +266,18 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
     public Optional<RefDataValue> getValue(final MapDefinition mapDefinition,
                                            final String key) {
 
+        if (lookupCache.isEnabled()) {
+            final RefDataLookupCache.CachedValue cachedValue = getCachedValue(mapDefinition, key);
+            final Optional<RefDataValue> optionalRefDataValue = Optional.of(cachedValue)
+                    .filter(RefDataLookupCache.CachedValue::isFound)
+                    .map(RefDataLookupCache.CachedValue::getTypedByteBuffer)
+                    .map(typedByteBuffer -> refDataValueSerdeFactory.deserialize(
+                            typedByteBuffer.getByteBuffer(), typedByteBuffer.getTypeId()));
+
+            LOGGER.trace("getValue({}, {}) - {} (cached)", mapDefinition, key, optionalRefDataValue);
+            return optionalRefDataValue;
+        }
+
         // Use the mapDef to get a mapUid, then use the mapUid and key
         // to do a lookup in the keyValue or rangeValue stores. The resulting
         // value store key buffer can then be used to get the actual value.
@@ -294,8 +313,8 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
                                                   final String key) {
         LOGGER.trace("getValueStoreKey({}, {})", mapDefinition, key);
 
-        // TODO we could could consider a short lived on-heap cache for this as it
-        // will be hit MANY times for the same entry
+        // This will be hit MANY times for the same entry so getValue and consumeValueBytes
+        // go through the RefDataLookupCache when it is enabled
         final Optional<UID> optMapUid = mapDefinitionUIDStore.get(readTxn, mapDefinition);
 
         Optional<ByteBuffer> optValueStoreKeyBuffer;
@@ -353,6 +372,16 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         // The consumer gets only the value, not the type or ref count and has to understand how
         // to interpret the bytes in the buffer
 
+        if (lookupCache.isEnabled()) {
+            final RefDataLookupCache.CachedValue cachedValue = getCachedValue(mapDefinition, key);
+            if (cachedValue.isFound()) {
+                valueBytesConsumer.accept(cachedValue.getTypedByteBuffer());
+            }
+
+            LOGGER.trace("consumeValueBytes({}, {}) - {} (cached)", mapDefinition, key, cachedValue.isFound());
+            return cachedValue.isFound();
+        }
+
         try (PooledByteBuffer valueStoreKeyPooledBufferClone = valueStore.getPooledKeyBuffer()) {
             boolean wasValueFound = LmdbUtils.getWithReadTxn(lmdbEnvironment, txn ->
                     getValueStoreKey(txn, mapDefinition, key)
@@ -376,6 +405,43 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         }
     }
 
+    /**
+     * Get the result of a lookup from the {@link RefDataLookupCache}, copying the value out of the
+     * store if it is not already cached.
+     */
+    private RefDataLookupCache.CachedValue getCachedValue(final MapDefinition mapDefinition,
+                                                         final String key) {
+        return lookupCache.get(mapDefinition, key, () -> {
+            try (PooledByteBuffer valueStoreKeyPooledBufferClone = valueStore.getPooledKeyBuffer()) {
+                return LmdbUtils.getWithReadTxn(lmdbEnvironment, readTxn ->
+                        getValueStoreKey(readTxn, mapDefinition, key)
+                                .flatMap(valueStoreKeyBuffer -> {
+                                    // we are going to use the valueStoreKeyBuffer as a key in multiple
+                                    // get() calls so need to clone it first.
+                                    ByteBuffer valueStoreKeyBufferClone = valueStoreKeyPooledBufferClone.getByteBuffer();
+                                    ByteBufferUtils.copy(valueStoreKeyBuffer, valueStoreKeyBufferClone);
+                                    return Optional.of(valueStoreKeyBufferClone);
+                                })
+                                .flatMap(valueStoreKeyBuf ->
+                                        valueStore.getTypedValueBuffer(readTxn, valueStoreKeyBuf))
+                                .map(RefDataLookupCache.CachedValue::copyOf)
+                                .orElse(RefDataLookupCache.CachedValue.NOT_FOUND));
+            }
+        });
+    }
+
+    @Override
+    public boolean doWithLoaderUnlessComplete(final RefStreamDefinition refStreamDefinition,
+                                              final long effectiveTimeMs,
+                                              final Consumer<RefDataLoader> work) {
+        try {
+            return super.doWithLoaderUnlessComplete(refStreamDefinition, effectiveTimeMs, work);
+        } finally {
+            // lookups made before the data was loaded will have been cached as not found
+            lookupCache.invalidate(refStreamDefinition);
+        }
+    }
+
     @Override
     public void purgeOldData() {
         purgeOldData(System.currentTimeMillis());
@@ -432,6 +498,7 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
              final PooledByteBufferPair procInfoPooledBufferPair = processingInfoDb.getPooledBufferPair()) {
 
             final AtomicReference<ByteBuffer> currRefStreamDefBufRef = new AtomicReference<>();
+            final AtomicReference<RefStreamDefinition> purgedRefStreamDefRef = new AtomicReference<>();
             final ByteBuffer accessTimeThresholdBuf = accessTimeThresholdPooledBuf.getByteBuffer();
 
             Predicate<ByteBuffer> accessTimePredicate = processingInfoBuffer ->
@@ -528,9 +595,15 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
 
                                 LOGGER.info("Completed purge of refStreamDefinition {} {}",
                                         refStreamDefinition, refDataProcessingInfo);
+                                purgedRefStreamDefRef.set(refStreamDefinition);
                                 return true;
                             }
                         });
+
+                        if (wasFound) {
+                            // the purge has been committed so drop any cached lookups for it
+                            lookupCache.invalidate(purgedRefStreamDefRef.get());
+                        }
                         wasMatchFound.set(wasFound);
                     });
                 } else {
@@ -16,14 +16,24 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.sf.saxon.Controller;
 import net.sf.saxon.expr.XPathContext;
 import net.sf.saxon.lib.ExtensionFunctionCall;
 import net.sf.saxon.om.Sequence;
 import net.sf.saxon.trans.XPathException;
 
+/**
+ * The proxy is compiled into the stylesheet so it may be shared by many transformations at once, even on the same
+ * thread. The configured function call is therefore held against the {@link Controller} of each transformation
+ * rather than on the proxy. Controllers are weakly referenced so calls are released with their transformer.
+ */
 class ExtensionFunctionCallProxy extends ExtensionFunctionCall {
     private final String functionName;
-    private transient StroomExtensionFunctionCall functionCall;
+    private final Cache<Controller, StroomExtensionFunctionCall> functionCalls = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
 
     ExtensionFunctionCallProxy(final String functionName) {
         this.functionName = functionName;
@@ -31,10 +41,14 @@ class ExtensionFunctionCallProxy extends ExtensionFunctionCall {
 
     @Override
     public Sequence call(final XPathContext context, final Sequence[] arguments) throws XPathException {
+        final StroomExtensionFunctionCall functionCall = functionCalls.getIfPresent(context.getController());
+        if (functionCall == null) {
+            throw new XPathException("Function " + functionName + "() has not been configured for this transformation");
+        }
         return functionCall.call(functionName, context, arguments);
     }
 
-    void setFunctionCall(final StroomExtensionFunctionCall functionCall) {
-        this.functionCall = functionCall;
+    void setFunctionCall(final Controller controller, final StroomExtensionFunctionCall functionCall) {
+        functionCalls.put(controller, functionCall);
     }
 }
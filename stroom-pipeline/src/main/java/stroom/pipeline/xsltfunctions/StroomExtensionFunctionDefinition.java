@@ -16,6 +16,7 @@
 
 package stroom.pipeline.xsltfunctions;
 
+import net.sf.saxon.Controller;
 import net.sf.saxon.lib.ExtensionFunctionCall;
 import net.sf.saxon.lib.ExtensionFunctionDefinition;
 import net.sf.saxon.om.StructuredQName;
@@ -88,19 +89,14 @@ class StroomExtensionFunctionDefinition<T extends StroomExtensionFunctionCall> e
         return proxy;
     }
 
-    void configure(final ErrorReceiver errorReceiver,
+    void configure(final Controller controller,
+                   final ErrorReceiver errorReceiver,
                    final LocationFactory locationFactory,
                    final List<PipelineReference> pipelineReferences) {
         if (proxy != null) {
             final StroomExtensionFunctionCall functionCall = functionCallProvider.get();
             functionCall.configure(errorReceiver, locationFactory, pipelineReferences);
-            proxy.setFunctionCall(functionCall);
-        }
-    }
-
-    void reset() {
-        if (proxy != null) {
-            proxy.setFunctionCall(null);
+            proxy.setFunctionCall(controller, functionCall);
         }
     }
 }
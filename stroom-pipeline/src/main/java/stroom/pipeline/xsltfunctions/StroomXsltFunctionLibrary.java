@@ -17,6 +17,7 @@
 package stroom.pipeline.xsltfunctions;
 
 import net.sf.saxon.Configuration;
+import net.sf.saxon.Controller;
 import stroom.pipeline.LocationFactory;
 import stroom.pipeline.errorhandler.ErrorReceiver;
 import stroom.pipeline.shared.data.PipelineReference;
@@ -37,13 +38,15 @@ public class StroomXsltFunctionLibrary {
         functionDefinitions.forEach(config::registerExtensionFunction);
     }
 
-    public void configure(final ErrorReceiver errorReceiver,
+    /**
+     * Bind newly configured function calls to the transformation run by the passed controller. The calls are
+     * released when the controller is.
+     */
+    public void configure(final Controller controller,
+                          final ErrorReceiver errorReceiver,
                           final LocationFactory locationFactory,
                           final List<PipelineReference> pipelineReferences) {
-        functionDefinitions.forEach(def -> def.configure(errorReceiver, locationFactory, pipelineReferences));
-    }
-
-    public void reset() {
-        functionDefinitions.forEach(StroomExtensionFunctionDefinition::reset);
+        functionDefinitions.forEach(def ->
+                def.configure(controller, errorReceiver, locationFactory, pipelineReferences));
     }
 }
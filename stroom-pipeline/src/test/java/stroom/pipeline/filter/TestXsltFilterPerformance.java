@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XsltExecutable;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import stroom.docref.DocRef;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.cache.PoolItem;
+import stroom.pipeline.cache.PoolKey;
+import stroom.pipeline.cache.StoredXsltExecutable;
+import stroom.pipeline.cache.XsltPool;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.FatalErrorReceiver;
+import stroom.pipeline.errorhandler.StoredErrorReceiver;
+import stroom.pipeline.shared.XsltDoc;
+import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.util.ProcessorUtil;
+import stroom.pipeline.writer.PathCreator;
+import stroom.pipeline.xslt.XsltStore;
+import stroom.test.common.util.test.data.XsltPerformanceData;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// tests are performance comparison only so are intended for manual runs only
+
+/**
+ * Measures the cost of transforming each record of a split feed as a separate document. The baseline is the same
+ * input transformed as a single document in the same run, so the result doesn't depend on the machine it is run on.
+ * The same input and XSLT are used by XsltFilterBenchmark in stroom-jmh.
+ */
+@Disabled
+class TestXsltFilterPerformance {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestXsltFilterPerformance.class);
+
+    private static final int RECORD_COUNT = 200_000;
+    private static final int ITERATIONS = 5;
+    // Splitting used to create a new transformer for every record which made it many times slower than the baseline.
+    private static final double MAX_SPLIT_SLOWDOWN = 3;
+
+    @Test
+    void testSplitRecordsPerSecond() throws SaxonApiException {
+        final byte[] input = XsltPerformanceData.createEvents(RECORD_COUNT);
+        final XsltExecutable xsltExecutable = new Processor(false)
+                .newXsltCompiler()
+                .compile(new StreamSource(new StringReader(XsltPerformanceData.XSLT)));
+
+        long bestWholeNs = Long.MAX_VALUE;
+        long bestSplitNs = Long.MAX_VALUE;
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long wholeNs = time(input, xsltExecutable, 0);
+            final long splitNs = time(input, xsltExecutable, 1);
+            bestWholeNs = Math.min(bestWholeNs, wholeNs);
+            bestSplitNs = Math.min(bestSplitNs, splitNs);
+
+            LOGGER.info("Iteration {}: transformed {} records as one document at {} records/sec and split at {} records/sec",
+                    i,
+                    RECORD_COUNT,
+                    recordsPerSecond(wholeNs),
+                    recordsPerSecond(splitNs));
+        }
+
+        final double slowdown = (double) bestSplitNs / bestWholeNs;
+        LOGGER.info("Best of {}: one document {} records/sec, split {} records/sec, split is {} times slower",
+                ITERATIONS,
+                recordsPerSecond(bestWholeNs),
+                recordsPerSecond(bestSplitNs),
+                String.format("%.2f", slowdown));
+        assertThat(slowdown).isLessThan(MAX_SPLIT_SLOWDOWN);
+    }
+
+    private long time(final byte[] input, final XsltExecutable xsltExecutable, final int splitDepth) {
+        final CountingFilter countingFilter = new CountingFilter();
+        final long start = System.nanoTime();
+        process(input, xsltExecutable, splitDepth, countingFilter);
+        final long elapsedNs = System.nanoTime() - start;
+
+        assertThat(countingFilter.count).isEqualTo(RECORD_COUNT);
+        return elapsedNs;
+    }
+
+    private long recordsPerSecond(final long elapsedNs) {
+        return (long) (RECORD_COUNT / (elapsedNs / 1_000_000_000D));
+    }
+
+    private void process(final byte[] input,
+                         final XsltExecutable xsltExecutable,
+                         final int splitDepth,
+                         final XMLFilter target) {
+        final XsltDoc xsltDoc = new XsltDoc();
+        xsltDoc.setUuid("test-xslt");
+        xsltDoc.setName("Test XSLT");
+        xsltDoc.setData(XsltPerformanceData.XSLT);
+
+        final XsltStore xsltStore = Mockito.mock(XsltStore.class);
+        Mockito.when(xsltStore.readDocument(Mockito.any())).thenReturn(xsltDoc);
+
+        final StoredXsltExecutable storedXsltExecutable =
+                new StoredXsltExecutable(xsltExecutable, null, new StoredErrorReceiver());
+        final XsltPool xsltPool = Mockito.mock(XsltPool.class);
+        Mockito.when(xsltPool.borrowTemplate(Mockito.any(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenReturn(new PoolItem<>(new PoolKey<>(xsltDoc), storedXsltExecutable));
+
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+
+        final SplitFilter splitFilter = new SplitFilter();
+        splitFilter.setSplitDepth(splitDepth);
+        splitFilter.setSplitCount(1);
+
+        final XsltFilter xsltFilter = new XsltFilter(xsltPool,
+                errorReceiverProxy,
+                xsltStore,
+                new XsltConfig(),
+                locationFactory,
+                new PipelineContext(),
+                Mockito.mock(PathCreator.class));
+        xsltFilter.setXslt(new DocRef(XsltDoc.DOCUMENT_TYPE, xsltDoc.getUuid(), xsltDoc.getName()));
+
+        splitFilter.setTarget(xsltFilter);
+        xsltFilter.setTarget(target);
+
+        ProcessorUtil.processXml(new ByteArrayInputStream(input), errorReceiverProxy, splitFilter, locationFactory);
+    }
+
+    private static class CountingFilter extends AbstractXMLFilter {
+        private int count;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+                throws SAXException {
+            if ("Event".equals(localName)) {
+                count++;
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.google.inject.Injector;
 import org.junit.jupiter.api.BeforeEach;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import stroom.cache.api.CacheManager;
+import stroom.cache.impl.CacheManagerImpl;
 import stroom.pipeline.refdata.store.offheapstore.databases.AbstractLmdbDbTest;
 import stroom.util.ByteSizeUnit;
 import stroom.util.pipeline.scope.PipelineScopeModule;
@@ -59,6 +61,7 @@ public abstract class AbstractRefDataOffHeapStoreTest extends AbstractLmdbDbTest
                     @Override
                     protected void configure() {
                         bind(RefDataStoreConfig.class).toInstance(refDataStoreConfig);
+                        bind(CacheManager.class).to(CacheManagerImpl.class);
                         install(new RefDataStoreModule());
                         install(new PipelineScopeModule());
                     }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline.refdata.store.offheapstore;
+
+import org.junit.jupiter.api.Test;
+import stroom.cache.api.CacheManager;
+import stroom.pipeline.refdata.store.MapDefinition;
+import stroom.pipeline.refdata.store.RefDataStoreConfig;
+import stroom.pipeline.refdata.store.RefStreamDefinition;
+import stroom.pipeline.refdata.store.offheapstore.RefDataLookupCache.CachedValue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TestRefDataLookupCache {
+    private final RefStreamDefinition refStreamDefinition1 = new RefStreamDefinition("pipe", "1", 1L);
+    private final RefStreamDefinition refStreamDefinition2 = new RefStreamDefinition("pipe", "1", 2L);
+    private final MapDefinition mapDefinition1 = new MapDefinition(refStreamDefinition1, "map");
+    private final MapDefinition mapDefinition2 = new MapDefinition(refStreamDefinition2, "map");
+
+    @Test
+    void testHitsAndInvalidate() {
+        final RefDataLookupCache cache = new RefDataLookupCache(mock(CacheManager.class), new RefDataStoreConfig());
+        final AtomicInteger loadCount = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(getString(cache.get(mapDefinition1, "key", () -> {
+                loadCount.incrementAndGet();
+                return value("value1");
+            }))).isEqualTo("value1");
+            assertThat(cache.get(mapDefinition2, "key", () -> {
+                loadCount.incrementAndGet();
+                return CachedValue.NOT_FOUND;
+            }).isFound()).isFalse();
+        }
+        assertThat(loadCount.get()).isEqualTo(2);
+
+        // Only the invalidated stream is looked up again
+        cache.invalidate(refStreamDefinition1);
+        cache.get(mapDefinition1, "key", () -> {
+            loadCount.incrementAndGet();
+            return value("value1");
+        });
+        cache.get(mapDefinition2, "key", () -> {
+            loadCount.incrementAndGet();
+            return CachedValue.NOT_FOUND;
+        });
+        assertThat(loadCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    void testInvalidateDuringLookup() throws Exception {
+        final RefDataLookupCache cache = new RefDataLookupCache(mock(CacheManager.class), new RefDataStoreConfig());
+        final CountDownLatch lookupStarted = new CountDownLatch(1);
+        final CountDownLatch invalidated = new CountDownLatch(1);
+
+        // A lookup that reads the store before a load completes, then finishes after the load invalidates
+        final CompletableFuture<CachedValue> lookup = CompletableFuture.supplyAsync(() ->
+                cache.get(mapDefinition1, "key", () -> {
+                    lookupStarted.countDown();
+                    invalidated.await(10, TimeUnit.SECONDS);
+                    return CachedValue.NOT_FOUND;
+                }));
+        assertThat(lookupStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        cache.invalidate(refStreamDefinition1);
+        invalidated.countDown();
+        assertThat(lookup.get(10, TimeUnit.SECONDS).isFound()).isFalse();
+
+        // The miss from before the load must not be served
+        assertThat(getString(cache.get(mapDefinition1, "key", () -> value("loaded")))).isEqualTo("loaded");
+    }
+
+    @Test
+    void testDisabled() {
+        final RefDataStoreConfig refDataStoreConfig = new RefDataStoreConfig();
+        refDataStoreConfig.setMaxLookupCacheSize("0");
+        final RefDataLookupCache cache = new RefDataLookupCache(mock(CacheManager.class), refDataStoreConfig);
+
+        assertThat(cache.isEnabled()).isFalse();
+    }
+
+    private static CachedValue value(final String value) {
+        return CachedValue.copyOf(new TypedByteBuffer(1, ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static String getString(final CachedValue cachedValue) {
+        return StandardCharsets.UTF_8.decode(cachedValue.getTypedByteBuffer().getByteBuffer()).toString();
+    }
+}
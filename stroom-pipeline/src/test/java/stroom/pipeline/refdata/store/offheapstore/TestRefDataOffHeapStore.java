@@ -27,6 +27,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import stroom.cache.api.CacheManager;
+import stroom.cache.impl.CacheManagerImpl;
 import stroom.pipeline.refdata.store.MapDefinition;
 import stroom.pipeline.refdata.store.ProcessingState;
 import stroom.pipeline.refdata.store.RefDataLoader;
@@ -121,6 +123,7 @@ class TestRefDataOffHeapStore extends AbstractLmdbDbTest {
                     @Override
                     protected void configure() {
                         bind(RefDataStoreConfig.class).toInstance(refDataStoreConfig);
+                        bind(CacheManager.class).to(CacheManagerImpl.class);
                         install(new RefDataStoreModule());
                         install(new PipelineScopeModule());
                     }
@@ -594,6 +597,44 @@ class TestRefDataOffHeapStore extends AbstractLmdbDbTest {
 
     }
 
+    @Test
+    void testLookupCache() {
+        final RefStreamDefinition refStreamDefinition = buildUniqueRefStreamDefinition();
+        final MapDefinition mapDefinition = new MapDefinition(refStreamDefinition, "map1");
+        final String key = "myKey";
+        final StringValue value = StringValue.of("myValue");
+
+        // a cached miss from before the load must not hide the loaded value
+        assertThat(refDataStore.getValue(mapDefinition, key)).isEmpty();
+
+        refDataStore.doWithLoaderUnlessComplete(refStreamDefinition, System.currentTimeMillis(), loader -> {
+            loader.initialise(false);
+            loader.put(mapDefinition, key, value);
+            loader.completeProcessing();
+        });
+
+        // repeat the lookups so later ones come from the cache
+        for (int i = 0; i < 3; i++) {
+            assertThat((StringValue) refDataStore.getValue(mapDefinition, key).get()).isEqualTo(value);
+
+            final AtomicReference<String> foundValue = new AtomicReference<>();
+            boolean wasFound = refDataStore.consumeValueBytes(mapDefinition, key, typedByteBuffer ->
+                    foundValue.set(StandardCharsets.UTF_8.decode(typedByteBuffer.getByteBuffer()).toString()));
+            assertThat(wasFound).isTrue();
+            assertThat(foundValue.get()).isEqualTo(value.getValue());
+
+            assertThat(refDataStore.getValue(mapDefinition, "unknownKey")).isEmpty();
+        }
+
+        setPurgeAgeProperty("0ms");
+        refDataStore.purgeOldData();
+
+        // the purged value must not still be served from the cache
+        assertThat(refDataStore.getValue(mapDefinition, key)).isEmpty();
+        assertThat(refDataStore.consumeValueBytes(mapDefinition, key, typedByteBuffer -> {
+        })).isFalse();
+    }
+
     @Test
     void testPurgeOldData_deReferenceValues() {
 
@@ -28,6 +28,8 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import stroom.cache.api.CacheManager;
+import stroom.cache.impl.CacheManagerImpl;
 import stroom.pipeline.refdata.store.MapDefinition;
 import stroom.pipeline.refdata.store.ProcessingState;
 import stroom.pipeline.refdata.store.RefDataLoader;
@@ -99,6 +101,7 @@ class TestRefDataOnHeapStore {
                     @Override
                     protected void configure() {
                         bind(RefDataStoreConfig.class).toInstance(refDataStoreConfig);
+                        bind(CacheManager.class).to(CacheManagerImpl.class);
                         install(new RefDataStoreModule());
                     }
                 });
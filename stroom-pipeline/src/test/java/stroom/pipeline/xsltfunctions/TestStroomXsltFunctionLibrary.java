@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.xsltfunctions;
+
+import net.sf.saxon.expr.XPathContext;
+import net.sf.saxon.om.Sequence;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XsltExecutable;
+import net.sf.saxon.value.SequenceType;
+import net.sf.saxon.value.StringValue;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import stroom.docref.DocRef;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.cache.PoolItem;
+import stroom.pipeline.cache.PoolKey;
+import stroom.pipeline.cache.StoredXsltExecutable;
+import stroom.pipeline.cache.XsltPool;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.FatalErrorReceiver;
+import stroom.pipeline.errorhandler.StoredErrorReceiver;
+import stroom.pipeline.filter.AbstractXMLFilter;
+import stroom.pipeline.filter.XsltConfig;
+import stroom.pipeline.filter.XsltFilter;
+import stroom.pipeline.shared.XsltDoc;
+import stroom.pipeline.shared.data.PipelineReference;
+import stroom.pipeline.state.PipelineContext;
+import stroom.pipeline.util.ProcessorUtil;
+import stroom.pipeline.writer.PathCreator;
+import stroom.pipeline.xslt.XsltStore;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestStroomXsltFunctionLibrary {
+    // Copies the input and adds the element name the function was configured with
+    private static final String XSLT = "" +
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" " +
+            "xmlns:stroom=\"stroom\">\n" +
+            "  <xsl:template match=\"/Elements\">\n" +
+            "    <Elements>\n" +
+            "      <xsl:copy-of select=\"Element\"/>\n" +
+            "      <Element><xsl:value-of select=\"stroom:test-element()\"/></Element>\n" +
+            "    </Elements>\n" +
+            "  </xsl:template>\n" +
+            "</xsl:stylesheet>";
+
+    @Test
+    void testTwoFiltersShareXsltOnOneThread() throws SaxonApiException {
+        final StroomXsltFunctionLibrary functionLibrary = new StroomXsltFunctionLibrary(Collections.singleton(
+                new StroomExtensionFunctionDefinition<TestElement>("test-element", 0, 0, new SequenceType[]{},
+                        SequenceType.SINGLE_STRING, TestElement::new)));
+        final Processor processor = new Processor(false);
+        functionLibrary.init(processor.getUnderlyingConfiguration());
+        final XsltExecutable xsltExecutable = processor.newXsltCompiler()
+                .compile(new StreamSource(new StringReader(XSLT)));
+
+        final XsltDoc xsltDoc = new XsltDoc();
+        xsltDoc.setUuid("test-xslt");
+        xsltDoc.setName("Test XSLT");
+        xsltDoc.setData(XSLT);
+        final XsltStore xsltStore = Mockito.mock(XsltStore.class);
+        Mockito.when(xsltStore.readDocument(Mockito.any())).thenReturn(xsltDoc);
+
+        // Both filters are given the same executable, as they would be if compiled XSLT is shared
+        final StoredXsltExecutable storedXsltExecutable =
+                new StoredXsltExecutable(xsltExecutable, functionLibrary, new StoredErrorReceiver());
+        final XsltPool xsltPool = Mockito.mock(XsltPool.class);
+        Mockito.when(xsltPool.borrowTemplate(Mockito.any(), Mockito.anyBoolean(), Mockito.anyBoolean()))
+                .thenReturn(new PoolItem<>(new PoolKey<>(xsltDoc), storedXsltExecutable));
+
+        final ErrorReceiverProxy errorReceiverProxy = new ErrorReceiverProxy(new FatalErrorReceiver());
+        final LocationFactoryProxy locationFactory = new LocationFactoryProxy();
+        final XsltFilter filter1 = createFilter(xsltPool, xsltStore, xsltDoc, errorReceiverProxy, locationFactory, "a");
+        final XsltFilter filter2 = createFilter(xsltPool, xsltStore, xsltDoc, errorReceiverProxy, locationFactory, "b");
+        final ElementCollector elementCollector = new ElementCollector();
+        filter1.setTarget(filter2);
+        filter2.setTarget(elementCollector);
+
+        // Each filter borrows the executable before either transforms anything so each must use its own binding
+        for (int i = 0; i < 2; i++) {
+            ProcessorUtil.processXml(
+                    new ByteArrayInputStream("<Elements/>".getBytes(StandardCharsets.UTF_8)),
+                    errorReceiverProxy,
+                    filter1,
+                    locationFactory);
+
+            assertThat(elementCollector.elements).containsExactly("a", "b");
+            elementCollector.elements.clear();
+        }
+    }
+
+    private XsltFilter createFilter(final XsltPool xsltPool,
+                                    final XsltStore xsltStore,
+                                    final XsltDoc xsltDoc,
+                                    final ErrorReceiverProxy errorReceiverProxy,
+                                    final LocationFactoryProxy locationFactory,
+                                    final String element) {
+        final XsltFilter xsltFilter = new XsltFilter(xsltPool,
+                errorReceiverProxy,
+                xsltStore,
+                new XsltConfig(),
+                locationFactory,
+                new PipelineContext(),
+                Mockito.mock(PathCreator.class));
+        xsltFilter.setXslt(new DocRef(XsltDoc.DOCUMENT_TYPE, xsltDoc.getUuid(), xsltDoc.getName()));
+        xsltFilter.setPipelineReference(new PipelineReference(element, null, null, null, null));
+        return xsltFilter;
+    }
+
+    private static class TestElement extends StroomExtensionFunctionCall {
+        @Override
+        Sequence call(final String functionName, final XPathContext context, final Sequence[] arguments) {
+            return StringValue.makeStringValue(getPipelineReferences().get(0).getElement());
+        }
+    }
+
+    private static class ElementCollector extends AbstractXMLFilter {
+        private final List<String> elements = new ArrayList<>();
+        private StringBuilder content;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+                                 final Attributes atts) throws SAXException {
+            if ("Element".equals(localName)) {
+                content = new StringBuilder();
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if ("Element".equals(localName)) {
+                elements.add(content.toString());
+                content = null;
+            }
+            super.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (content != null) {
+                content.append(ch, start, length);
+            }
+            super.characters(ch, start, length);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.jooq.Field;
 import org.jooq.OrderField;
 import org.jooq.Record;
 import org.jooq.Result;
+import org.jooq.Row2;
 import org.jooq.impl.DSL;
 import stroom.cluster.lock.api.ClusterLockService;
 import stroom.dashboard.expression.v1.Val;
@@ -1055,6 +1056,87 @@ class ProcessorTaskDaoImpl implements ProcessorTaskDao {
         });
     }
 
+    @Override
+    public List<ProcessorTask> assignTasks(final List<ProcessorTask> processorTasks,
+                                           final String nodeName) {
+        if (processorTasks == null || processorTasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final Integer nodeId = processorNodeCache.getOrCreate(nodeName);
+
+        // Do everything within a single transaction.
+        return JooqUtil.transactionResult(connectionProvider, context -> {
+            LOGGER.debug(LambdaLogUtil.message("assignTasks() - Assigning {} tasks to node={}", processorTasks.size(), nodeName));
+            final long now = System.currentTimeMillis();
+
+            final List<Row2<Long, Integer>> expected = new ArrayList<>(processorTasks.size());
+            final List<Row2<Long, Integer>> updated = new ArrayList<>(processorTasks.size());
+            for (final ProcessorTask processorTask : processorTasks) {
+                if (processorTask.getVersion() != null) {
+                    expected.add(DSL.row(processorTask.getId(), processorTask.getVersion()));
+                    updated.add(DSL.row(processorTask.getId(), processorTask.getVersion() + 1));
+                }
+            }
+
+            // Only assign tasks that haven't changed since we read them.
+            final int count = context
+                    .update(PROCESSOR_TASK)
+                    .set(PROCESSOR_TASK.VERSION, PROCESSOR_TASK.VERSION.plus(1))
+                    .set(PROCESSOR_TASK.STATUS, TaskStatus.ASSIGNED.getPrimitiveValue())
+                    .set(PROCESSOR_TASK.STATUS_TIME_MS, now)
+                    .set(PROCESSOR_TASK.START_TIME_MS, (Long) null)
+                    .set(PROCESSOR_TASK.END_TIME_MS, (Long) null)
+                    .set(PROCESSOR_TASK.FK_PROCESSOR_NODE_ID, nodeId)
+                    .where(DSL.row(PROCESSOR_TASK.ID, PROCESSOR_TASK.VERSION).in(expected))
+                    .and(PROCESSOR_TASK.STATUS.eq(TaskStatus.UNPROCESSED.getPrimitiveValue()))
+                    .execute();
+
+            // Select back the ids of the tasks that we won.
+            final Set<Long> assignedIds;
+            if (count == expected.size()) {
+                assignedIds = null;
+            } else if (count == 0) {
+                assignedIds = Collections.emptySet();
+            } else {
+                assignedIds = context
+                        .select(PROCESSOR_TASK.ID)
+                        .from(PROCESSOR_TASK)
+                        .where(DSL.row(PROCESSOR_TASK.ID, PROCESSOR_TASK.VERSION).in(updated))
+                        .and(PROCESSOR_TASK.STATUS.eq(TaskStatus.ASSIGNED.getPrimitiveValue()))
+                        .and(PROCESSOR_TASK.STATUS_TIME_MS.eq(now))
+                        .and(PROCESSOR_TASK.FK_PROCESSOR_NODE_ID.eq(nodeId))
+                        .fetchSet(PROCESSOR_TASK.ID);
+            }
+            LOGGER.debug(LambdaLogUtil.message("assignTasks() - Assigned {} of {} tasks to node={} with a single update", count, processorTasks.size(), nodeName));
+
+            final List<ProcessorTask> result = new ArrayList<>(processorTasks.size());
+            for (final ProcessorTask processorTask : processorTasks) {
+                if (processorTask.getVersion() != null && (assignedIds == null || assignedIds.contains(processorTask.getId()))) {
+                    modify(processorTask, nodeName, TaskStatus.ASSIGNED, now, null, null);
+                    processorTask.setVersion(processorTask.getVersion() + 1);
+                    result.add(processorTask);
+
+                } else {
+                    // The task has changed since it was queued. Assign it as the old per task update did if it is
+                    // still waiting to be processed, otherwise it is no longer ours to assign.
+                    final ProcessorTask loaded = fetch(context, processorTask).orElse(null);
+                    if (loaded != null && TaskStatus.UNPROCESSED.equals(loaded.getStatus())) {
+                        try {
+                            modify(loaded, nodeName, TaskStatus.ASSIGNED, now, null, null);
+                            result.add(update(context, loaded));
+                        } catch (final RuntimeException e) {
+                            LOGGER.warn(LambdaLogUtil.message("assignTasks() - Failed to assign changed task {}", processorTask), e);
+                        }
+                    } else {
+                        LOGGER.debug(LambdaLogUtil.message("assignTasks() - Task is no longer unprocessed {}", loaded));
+                    }
+                }
+            }
+            return result;
+        });
+    }
+
     private void modify(final ProcessorTask processorTask,
                         final String nodeName,
                         final TaskStatus status,
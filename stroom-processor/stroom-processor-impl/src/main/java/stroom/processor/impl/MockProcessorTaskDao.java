@@ -19,6 +19,7 @@ import stroom.util.shared.Clearable;
 import javax.inject.Singleton;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -125,6 +126,17 @@ public class MockProcessorTaskDao implements ProcessorTaskDao, Clearable {
         return processorTask;
     }
 
+    @Override
+    public List<ProcessorTask> assignTasks(final List<ProcessorTask> processorTasks, final String nodeName) {
+        // Like the real DAO only tasks that are still unprocessed can be assigned.
+        return processorTasks
+                .stream()
+                .filter(processorTask -> TaskStatus.UNPROCESSED.equals(processorTask.getStatus()))
+                .map(processorTask -> changeTaskStatus(processorTask, nodeName, TaskStatus.ASSIGNED, null, null))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public BaseResultList<ProcessorTask> find(final ExpressionCriteria criteria) {
         final List<ProcessorTask> list = dao
@@ -12,6 +12,7 @@ import stroom.processor.shared.ProcessorTaskSummary;
 import stroom.processor.shared.TaskStatus;
 import stroom.util.shared.BaseResultList;
 
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -50,6 +51,18 @@ public interface ProcessorTaskDao {
                                          Long startTime,
                                          Long endTime);
 
+    /**
+     * Assign a batch of tasks to a node with a single update. The update only applies to tasks that are still
+     * unprocessed and whose version has not changed since they were read. Any task that has changed is reloaded
+     * and assigned on its own if it is still unprocessed, otherwise it is left alone.
+     *
+     * @param processorTasks The tasks to assign.
+     * @param nodeName       The node to assign the tasks to.
+     * @return The tasks that were assigned to the node.
+     */
+    List<ProcessorTask> assignTasks(List<ProcessorTask> processorTasks,
+                                    String nodeName);
+
     BaseResultList<ProcessorTask> find(final ExpressionCriteria criteria);
 
     BaseResultList<ProcessorTaskSummary> findSummary(final ExpressionCriteria criteria);
@@ -207,31 +207,39 @@ class ProcessorTaskManagerImpl implements ProcessorTaskManager {
                 if (filters != null && filters.size() > 0) {
                     assignedStreamTasks = new ArrayList<>(count);
 
-                    int index = 0;
-                    while (assignedStreamTasks.size() < count && index < filters.size()) {
-                        final ProcessorFilter filter = filters.get(index);
-
-                        // Get the queue for this filter.
-                        final StreamTaskQueue queue = queueMap.get(filter);
-                        if (queue != null) {
-                            // Add as many tasks as we can for this filter.
-                            ProcessorTask streamTask = queue.poll();
-                            while (streamTask != null) {
-                                final ProcessorTask assigned = processorTaskDao.changeTaskStatus(streamTask, nodeName,
-                                        TaskStatus.ASSIGNED, null, null);
-                                if (assigned != null) {
-                                    assignedStreamTasks.add(assigned);
-                                }
+                    final long startTime = System.currentTimeMillis();
+                    int batchCount = 0;
+
+                    // Take tasks from the queues in filter priority order and assign them with a single update.
+                    // Tasks that are no longer unprocessed can't be assigned so keep going until we have enough
+                    // or the queues are empty.
+                    List<ProcessorTask> batch = pollTasks(filters, count);
+                    while (batch.size() > 0) {
+                        final List<ProcessorTask> assigned = processorTaskDao.assignTasks(batch, nodeName);
+                        assignedStreamTasks.addAll(assigned);
+                        batchCount++;
+
+                        if (assigned.size() < batch.size()) {
+                            final Set<Long> assignedIds = assigned.stream()
+                                    .map(ProcessorTask::getId)
+                                    .collect(Collectors.toSet());
+                            final List<ProcessorTask> unassigned = batch.stream()
+                                    .filter(task -> !assignedIds.contains(task.getId()))
+                                    .collect(Collectors.toList());
+                            LOGGER.debug("assignTasks() - Unable to assign {} changed tasks to {}", unassigned.size(), nodeName);
+                            taskStatusTraceLog.unassignedTasks(ProcessorTaskManagerImpl.class, unassigned, nodeName);
+                        }
 
-                                if (assignedStreamTasks.size() < count) {
-                                    streamTask = queue.poll();
-                                } else {
-                                    streamTask = null;
-                                }
-                            }
+                        final int remaining = count - assignedStreamTasks.size();
+                        if (remaining > 0) {
+                            batch = pollTasks(filters, remaining);
+                        } else {
+                            batch = Collections.emptyList();
                         }
+                    }
 
-                        index++;
+                    if (batchCount > 0) {
+                        writeAssignmentStatistics(nodeName, assignedStreamTasks.size(), System.currentTimeMillis() - startTime);
                     }
                 }
             }
@@ -248,6 +256,57 @@ class ProcessorTaskManagerImpl implements ProcessorTaskManager {
         return assignedStreamTasks;
     }
 
+    private List<ProcessorTask> pollTasks(final List<ProcessorFilter> filters, final int count) {
+        final List<ProcessorTask> tasks = new ArrayList<>(count);
+
+        int index = 0;
+        while (tasks.size() < count && index < filters.size()) {
+            final ProcessorFilter filter = filters.get(index);
+
+            // Get the queue for this filter.
+            final StreamTaskQueue queue = queueMap.get(filter);
+            if (queue != null) {
+                // Add as many tasks as we can for this filter.
+                ProcessorTask streamTask = queue.poll();
+                while (streamTask != null) {
+                    tasks.add(streamTask);
+
+                    if (tasks.size() < count) {
+                        streamTask = queue.poll();
+                    } else {
+                        streamTask = null;
+                    }
+                }
+            }
+
+            index++;
+        }
+
+        return tasks;
+    }
+
+    private void writeAssignmentStatistics(final String nodeName, final int assignedCount, final long durationMs) {
+        try {
+            final InternalStatisticsReceiver internalStatisticsReceiver = internalStatisticsReceiverProvider.get();
+            if (internalStatisticsReceiver != null) {
+                final long now = System.currentTimeMillis();
+                internalStatisticsReceiver.putEvents(List.of(
+                        InternalStatisticEvent.createValueStat(
+                                InternalStatisticKey.STREAM_TASK_ASSIGNMENT,
+                                now,
+                                Map.of("Node", nodeName, "Type", "Batch Size"),
+                                assignedCount),
+                        InternalStatisticEvent.createValueStat(
+                                InternalStatisticKey.STREAM_TASK_ASSIGNMENT,
+                                now,
+                                Map.of("Node", nodeName, "Type", "Latency ms"),
+                                durationMs)));
+            }
+        } catch (final RuntimeException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void abandonTasks(final String nodeName, final List<ProcessorTask> tasks) {
         // Output some trace logging so we can see where tasks go.
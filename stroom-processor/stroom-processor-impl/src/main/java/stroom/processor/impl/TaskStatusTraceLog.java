@@ -50,6 +50,19 @@ class TaskStatusTraceLog {
         }
     }
 
+    void unassignedTasks(final Class<?> clazz, final List<ProcessorTask> streamTasks, final String nodeName) {
+        if (LOGGER.isTraceEnabled() && streamTasks.size() > 0) {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Master could not assign ");
+            sb.append(streamTasks.size());
+            sb.append(" changed stream tasks to worker ");
+            sb.append(nodeName);
+            appendStreamTaskList(sb, streamTasks);
+            appendClass(sb, clazz);
+            LOGGER.trace(sb.toString());
+        }
+    }
+
     void abandonTasks(final Class<?> clazz, final List<ProcessorTask> streamTasks, final String nodeName) {
         if (LOGGER.isTraceEnabled() && streamTasks.size() > 0) {
             final StringBuilder sb = new StringBuilder();
@@ -1,27 +1,36 @@
 package stroom.proxy.app.handler;
 
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.data.zip.StroomZipEntry;
 import stroom.meta.api.AttributeMapUtil;
 import stroom.meta.shared.AttributeMap;
 import stroom.meta.shared.StandardHeaderArguments;
+import stroom.proxy.repo.RawEntryStreamHandler;
 import stroom.proxy.repo.StreamHandler;
 import stroom.receive.common.StroomStreamException;
 
 import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Map.Entry;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Handler class that forwards the request to a URL.
+ * <p>
+ * Entries from repository files are copied to the outgoing zip still compressed as the content is
+ * not changed when forwarding. Only entries passed as data, e.g. those being received directly, are
+ * compressed as they are written. The size of these isn't known up front and the connection can't be
+ * seeked back to fix up the local header so they are always written with Zip64 extra fields, otherwise
+ * an entry over 4GiB would fail.
  */
-class ForwardStreamHandler implements StreamHandler {
+class ForwardStreamHandler implements StreamHandler, RawEntryStreamHandler {
     private static Logger LOGGER = LoggerFactory.getLogger(ForwardStreamHandler.class);
     private static final Logger SEND_LOG = LoggerFactory.getLogger("send");
 
@@ -35,7 +44,7 @@ class ForwardStreamHandler implements StreamHandler {
     private final Integer forwardChunkSize;
 
     private HttpURLConnection connection = null;
-    private ZipOutputStream zipOutputStream;
+    private ZipArchiveOutputStream zipOutputStream;
     private long startTimeMs;
     private long bytesSent = 0;
 
@@ -100,7 +109,7 @@ class ForwardStreamHandler implements StreamHandler {
             connection.setChunkedStreamingMode(forwardChunkSize);
         }
         connection.connect();
-        zipOutputStream = new ZipOutputStream(connection.getOutputStream());
+        zipOutputStream = new ZipArchiveOutputStream(connection.getOutputStream());
     }
 
     @Override
@@ -128,12 +137,35 @@ class ForwardStreamHandler implements StreamHandler {
     @Override
     public void handleEntryStart(final StroomZipEntry stroomZipEntry) throws IOException {
         // First call we set up if we are going to do chunked streaming
-        zipOutputStream.putNextEntry(new ZipEntry(stroomZipEntry.getFullName()));
+        zipOutputStream.setUseZip64(Zip64Mode.Always);
+        zipOutputStream.putArchiveEntry(new ZipArchiveEntry(stroomZipEntry.getFullName()));
     }
 
     @Override
     public void handleEntryEnd() throws IOException {
-        zipOutputStream.closeEntry();
+        zipOutputStream.closeArchiveEntry();
+    }
+
+    /**
+     * Copy an entry that is already compressed without inflating and deflating it again. The
+     * stored CRC and sizes are written with the entry.
+     */
+    @Override
+    public void handleRawEntry(final StroomZipEntry stroomZipEntry,
+                               final ZipArchiveEntry sourceEntry,
+                               final InputStream rawInputStream) throws IOException {
+        final ZipArchiveEntry zipArchiveEntry = new ZipArchiveEntry(stroomZipEntry.getFullName());
+        zipArchiveEntry.setMethod(sourceEntry.getMethod());
+        zipArchiveEntry.setCrc(sourceEntry.getCrc());
+        zipArchiveEntry.setSize(sourceEntry.getSize());
+        zipArchiveEntry.setCompressedSize(sourceEntry.getCompressedSize());
+        zipArchiveEntry.setTime(sourceEntry.getTime());
+        // The sizes are known so only use Zip64 if the entry needs it.
+        zipOutputStream.setUseZip64(Zip64Mode.AsNeeded);
+        zipOutputStream.addRawArchiveEntry(zipArchiveEntry, rawInputStream);
+
+        bytesSent += sourceEntry.getSize();
+        delay();
     }
 
     /**
@@ -143,9 +175,13 @@ class ForwardStreamHandler implements StreamHandler {
     public void handleEntryData(final byte[] buffer, final int off, final int length) throws IOException {
         bytesSent += length;
         zipOutputStream.write(buffer, off, length);
+        delay();
+    }
+
+    private void delay() {
         if (forwardDelayMs != null) {
             try {
-                LOGGER.debug("handleEntryData() - adding delay {}", forwardDelayMs);
+                LOGGER.debug("delay() - adding delay {}", forwardDelayMs);
                 Thread.sleep(forwardDelayMs);
             } catch (final InterruptedException e) {
                 LOGGER.error(e.getMessage(), e);
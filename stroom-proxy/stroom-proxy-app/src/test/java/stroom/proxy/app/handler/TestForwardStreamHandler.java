@@ -0,0 +1,137 @@
+package stroom.proxy.app.handler;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import stroom.data.zip.StreamProgressMonitor;
+import stroom.data.zip.StroomZipEntry;
+import stroom.data.zip.StroomZipFileType;
+import stroom.data.zip.StroomZipOutputStreamImpl;
+import stroom.meta.shared.AttributeMap;
+import stroom.meta.shared.StandardHeaderArguments;
+import stroom.proxy.repo.ProxyFileHandler;
+import stroom.util.io.StreamUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestForwardStreamHandler {
+    private static final String DATA = "SOME_DATA SOME_DATA SOME_DATA SOME_DATA";
+    private static final String META = "Feed:TEST_FEED";
+
+    private final List<byte[]> requests = Collections.synchronizedList(new ArrayList<>());
+    private HttpServer httpServer;
+
+    @BeforeEach
+    void startSink() throws IOException {
+        // A local endpoint that accepts every post and keeps the body.
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/datafeed", exchange -> {
+            try (final InputStream inputStream = exchange.getRequestBody()) {
+                requests.add(StreamUtil.streamToBytes(inputStream));
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.start();
+    }
+
+    @AfterEach
+    void stopSink() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    void testForwardRepositoryFile() throws IOException {
+        final Path file = Files.createTempDirectory("stroom").resolve("test.zip");
+        try (final StroomZipOutputStreamImpl out = new StroomZipOutputStreamImpl(file)) {
+            addEntry(out, new StroomZipEntry(null, "file", StroomZipFileType.Meta), META);
+            addEntry(out, new StroomZipEntry(null, "file", StroomZipFileType.Data), DATA);
+        }
+
+        // Entries from the repository are copied to the forward request still compressed.
+        final ForwardStreamHandler forwardStreamHandler = createHandler();
+        forwardStreamHandler.handleHeader();
+        new ProxyFileHandler(() -> new byte[1024]).processFeedFile(
+                Collections.singletonList(forwardStreamHandler), file, new StreamProgressMonitor("test"), 1);
+        forwardStreamHandler.handleFooter();
+
+        assertThat(requests).hasSize(1);
+        final Map<String, String> entries = readZip(requests.get(0));
+        assertThat(entries).containsOnlyKeys("001.meta", "001.dat");
+        assertThat(entries.get("001.meta")).isEqualTo(META);
+        assertThat(entries.get("001.dat")).isEqualTo(DATA);
+    }
+
+    @Test
+    void testForwardStreamedEntries() throws IOException {
+        final ForwardStreamHandler forwardStreamHandler = createHandler();
+        forwardStreamHandler.handleHeader();
+        streamEntry(forwardStreamHandler, new StroomZipEntry(null, "001", StroomZipFileType.Meta), META);
+        streamEntry(forwardStreamHandler, new StroomZipEntry(null, "001", StroomZipFileType.Data), DATA);
+        forwardStreamHandler.handleFooter();
+
+        assertThat(requests).hasSize(1);
+        final Map<String, String> entries = readZip(requests.get(0));
+        assertThat(entries).containsOnlyKeys("001.meta", "001.dat");
+        assertThat(entries.get("001.meta")).isEqualTo(META);
+        assertThat(entries.get("001.dat")).isEqualTo(DATA);
+    }
+
+    private ForwardStreamHandler createHandler() {
+        final ForwardDestinationConfig forwardDestinationConfig = new ForwardDestinationConfig();
+        forwardDestinationConfig.setForwardUrl("http://localhost:" + httpServer.getAddress().getPort() + "/datafeed");
+        forwardDestinationConfig.setForwardChunkSize(1024);
+
+        final ForwardStreamHandler forwardStreamHandler = new ForwardStreamHandler(
+                new LogStream(null), forwardDestinationConfig, null, "test");
+        final AttributeMap attributeMap = new AttributeMap();
+        attributeMap.put(StandardHeaderArguments.FEED, "TEST_FEED");
+        forwardStreamHandler.setAttributeMap(attributeMap);
+        return forwardStreamHandler;
+    }
+
+    private void addEntry(final StroomZipOutputStreamImpl stroomZipOutputStream,
+                          final StroomZipEntry entry,
+                          final String data) throws IOException {
+        try (final OutputStream outputStream = stroomZipOutputStream.addEntry(entry.getFullName())) {
+            outputStream.write(data.getBytes(StreamUtil.DEFAULT_CHARSET));
+        }
+    }
+
+    private void streamEntry(final ForwardStreamHandler forwardStreamHandler,
+                             final StroomZipEntry entry,
+                             final String data) throws IOException {
+        final byte[] bytes = data.getBytes(StreamUtil.DEFAULT_CHARSET);
+        forwardStreamHandler.handleEntryStart(entry);
+        forwardStreamHandler.handleEntryData(bytes, 0, bytes.length);
+        forwardStreamHandler.handleEntryEnd();
+    }
+
+    private Map<String, String> readZip(final byte[] bytes) throws IOException {
+        // Read the request in the same way as stroom receives it.
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try (final ZipArchiveInputStream zipArchiveInputStream = new ZipArchiveInputStream(new ByteArrayInputStream(bytes))) {
+            ZipArchiveEntry entry;
+            while ((entry = zipArchiveInputStream.getNextZipEntry()) != null) {
+                entries.put(entry.getName(), StreamUtil.streamToString(zipArchiveInputStream, false));
+            }
+        }
+        return entries;
+    }
+}
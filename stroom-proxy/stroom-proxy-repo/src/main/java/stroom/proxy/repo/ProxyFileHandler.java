@@ -16,6 +16,7 @@
 
 package stroom.proxy.repo;
 
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.data.zip.StreamProgressMonitor;
@@ -122,8 +123,53 @@ public final class ProxyFileHandler {
                            final String sourceName, final StreamProgressMonitor streamProgress,
                            final StroomZipEntry targetEntry)
             throws IOException {
-        final InputStream inputStream = stroomZipFile.getInputStream(sourceName, targetEntry.getStroomZipFileType());
-        sendEntry(requestHandlerList, inputStream, streamProgress, targetEntry);
+        if (canSendRawEntries(requestHandlerList)) {
+            // The content is not being changed so copy the compressed entry rather than inflating it.
+            final ZipArchiveEntry sourceEntry = stroomZipFile.getZipArchiveEntry(sourceName, targetEntry.getStroomZipFileType());
+            if (sourceEntry != null) {
+                sendRawEntry(requestHandlerList, stroomZipFile, sourceEntry, streamProgress, targetEntry);
+            }
+        } else {
+            final InputStream inputStream = stroomZipFile.getInputStream(sourceName, targetEntry.getStroomZipFileType());
+            sendEntry(requestHandlerList, inputStream, streamProgress, targetEntry);
+        }
+    }
+
+    private boolean canSendRawEntries(final List<? extends StroomStreamHandler> stroomStreamHandlerList) {
+        if (stroomStreamHandlerList.size() == 0) {
+            return false;
+        }
+        for (final StroomStreamHandler stroomStreamHandler : stroomStreamHandlerList) {
+            if (!(stroomStreamHandler instanceof RawEntryStreamHandler)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void sendRawEntry(final List<? extends StroomStreamHandler> stroomStreamHandlerList,
+                              final StroomZipFile stroomZipFile,
+                              final ZipArchiveEntry sourceEntry,
+                              final StreamProgressMonitor streamProgress,
+                              final StroomZipEntry targetEntry)
+            throws IOException {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("sendRawEntry() - " + targetEntry);
+        }
+        for (final StroomStreamHandler stroomStreamHandler : stroomStreamHandlerList) {
+            // Each handler needs to read the raw data from the start.
+            try (final InputStream rawInputStream = stroomZipFile.getRawInputStream(sourceEntry)) {
+                ((RawEntryStreamHandler) stroomStreamHandler).handleRawEntry(targetEntry, sourceEntry, rawInputStream);
+            }
+        }
+        // Report the uncompressed size so progress means the same as when entries are inflated.
+        streamProgress.progress(sourceEntry.getSize());
+
+        if (sourceEntry.getSize() == 0) {
+            LOGGER.warn("sendRawEntry() - " + targetEntry + " IS BLANK");
+        }
+        LOGGER.debug("sendRawEntry() - {} size is {}, compressed size is {}",
+                targetEntry, sourceEntry.getSize(), sourceEntry.getCompressedSize());
     }
 
     private void sendEntry(final List<? extends StroomStreamHandler> stroomStreamHandlerList, final InputStream inputStream,
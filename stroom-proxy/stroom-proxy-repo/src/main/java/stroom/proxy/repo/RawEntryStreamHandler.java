@@ -0,0 +1,26 @@
+package stroom.proxy.repo;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import stroom.data.zip.StroomZipEntry;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream handler that can accept zip entries that are still compressed. When every handler a
+ * repository file is sent to can accept raw entries the entries are copied byte for byte rather
+ * than being inflated so that each handler can deflate them again.
+ */
+public interface RawEntryStreamHandler {
+    /**
+     * Handle a complete entry.
+     *
+     * @param stroomZipEntry  The entry to write.
+     * @param sourceEntry     The entry as stored in the source zip, giving the compression method,
+     *                        CRC and sizes of the raw data.
+     * @param rawInputStream  The compressed bytes of the source entry.
+     */
+    void handleRawEntry(StroomZipEntry stroomZipEntry,
+                        ZipArchiveEntry sourceEntry,
+                        InputStream rawInputStream) throws IOException;
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.proxy.repo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.util.io.FileUtil;
+import stroom.util.io.StreamUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An append only journal of the zip files that have been completed in a repository. The
+ * repository processor reads new entries from the journal so that it does not have to walk the
+ * whole repository to find files to process.
+ * <p>
+ * The journal is held in a directory in the root of the repository. Entries are appended to
+ * numbered segment files and a checkpoint file records how far the processor has read along with
+ * any files that could not be processed and need to be tried again. Segments before the
+ * checkpoint are deleted once they have been read.
+ * <p>
+ * A repository with no journal is processed by walking the directory tree. If the repository was
+ * not closed cleanly, or the journal is created for a repository that already contains files, a
+ * rebuild marker is written so that the processor walks the tree once before relying on the
+ * journal again.
+ */
+class RepositoryJournal {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RepositoryJournal.class);
+
+    static final String JOURNAL_DIR = ".journal";
+    private static final String SEGMENT_EXTENSION = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String OPEN_MARKER = "open";
+    private static final String REBUILD_MARKER = "rebuild";
+    private static final int MAX_SEGMENT_ENTRIES = 10000;
+    private static final char NEW_LINE = '\n';
+
+    private final Path rootDir;
+    private final Path journalDir;
+
+    private long segment;
+    private int segmentEntries;
+
+    RepositoryJournal(final Path rootDir) {
+        this.rootDir = rootDir;
+        this.journalDir = rootDir.resolve(JOURNAL_DIR);
+    }
+
+    static boolean exists(final Path rootDir) {
+        return Files.isDirectory(rootDir.resolve(JOURNAL_DIR));
+    }
+
+    static boolean isJournalDir(final Path dir) {
+        return JOURNAL_DIR.equals(dir.getFileName().toString());
+    }
+
+    /**
+     * Open the journal for writing.
+     */
+    synchronized void open() {
+        try {
+            if (!Files.isDirectory(journalDir)) {
+                // The repository may already contain files that are not in the journal.
+                Files.createDirectories(journalDir);
+                createMarker(REBUILD_MARKER);
+            } else {
+                recover();
+            }
+            createMarker(OPEN_MARKER);
+
+            // Always start a new segment so that earlier segments are never appended to again.
+            segment = getSegments().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+            segmentEntries = 0;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * If the journal was left open by a writer that did not close it then some completed files
+     * may be missing from it so request a rebuild.
+     */
+    synchronized void recover() {
+        try {
+            final Path openMarker = journalDir.resolve(OPEN_MARKER);
+            if (Files.exists(openMarker)) {
+                LOGGER.warn("Repository journal {} was not closed cleanly, the repository will be scanned",
+                        FileUtil.getCanonicalPath(journalDir));
+                createMarker(REBUILD_MARKER);
+                Files.delete(openMarker);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record that a zip file has been completed.
+     */
+    synchronized void add(final Path file) {
+        final String relativePath = rootDir.relativize(file).toString().replace('\\', '/');
+        try {
+            if (segmentEntries >= MAX_SEGMENT_ENTRIES) {
+                segment++;
+                segmentEntries = 0;
+            }
+
+            if (!Files.isDirectory(journalDir)) {
+                // The journal was removed when the repository was empty.
+                createMarker(OPEN_MARKER);
+            }
+            Files.write(getSegmentFile(segment),
+                    (relativePath + NEW_LINE).getBytes(StreamUtil.DEFAULT_CHARSET),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            segmentEntries++;
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error("Unable to add {} to repository journal, the repository will be scanned", relativePath, e);
+            try {
+                createMarker(REBUILD_MARKER);
+            } catch (final IOException e2) {
+                LOGGER.error(e2.getMessage(), e2);
+            }
+        }
+    }
+
+    /**
+     * Close the journal once all files have been written.
+     */
+    synchronized void close() {
+        try {
+            Files.deleteIfExists(journalDir.resolve(OPEN_MARKER));
+        } catch (final IOException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
+    boolean isRebuildRequired() {
+        return Files.exists(journalDir.resolve(REBUILD_MARKER));
+    }
+
+    void rebuildComplete() {
+        try {
+            Files.deleteIfExists(journalDir.resolve(REBUILD_MARKER));
+        } catch (final IOException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Remove the journal once the repository contains no other files. A repository without a
+     * journal is processed by walking the directory tree.
+     */
+    void delete() {
+        if (Files.isDirectory(journalDir)) {
+            FileUtil.deleteDir(journalDir);
+        }
+    }
+
+    Checkpoint readCheckpoint() {
+        final Path checkpointFile = journalDir.resolve(CHECKPOINT_FILE);
+        if (Files.isRegularFile(checkpointFile)) {
+            try {
+                final List<String> lines = Files.readAllLines(checkpointFile, StreamUtil.DEFAULT_CHARSET);
+                if (lines.size() > 0) {
+                    final String[] parts = lines.get(0).split(" ");
+                    final Checkpoint checkpoint = new Checkpoint(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                    for (int i = 1; i < lines.size(); i++) {
+                        if (lines.get(i).length() > 0) {
+                            checkpoint.pending.add(rootDir.resolve(lines.get(i)));
+                        }
+                    }
+                    return checkpoint;
+                }
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error("Unable to read repository journal checkpoint, the repository will be scanned", e);
+                try {
+                    createMarker(REBUILD_MARKER);
+                } catch (final IOException e2) {
+                    LOGGER.error(e2.getMessage(), e2);
+                }
+            }
+        }
+        return new Checkpoint(0, 0);
+    }
+
+    void writeCheckpoint(final Checkpoint checkpoint) {
+        try {
+            final Path checkpointFile = journalDir.resolve(CHECKPOINT_FILE);
+            final Path tempFile = journalDir.resolve(CHECKPOINT_FILE + ".tmp");
+            try (final Writer writer = Files.newBufferedWriter(tempFile, StreamUtil.DEFAULT_CHARSET)) {
+                writer.write(checkpoint.segment + " " + checkpoint.offset);
+                writer.write(NEW_LINE);
+                for (final Path path : checkpoint.pending) {
+                    writer.write(rootDir.relativize(path).toString().replace('\\', '/'));
+                    writer.write(NEW_LINE);
+                }
+            }
+            Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Delete any segments that have been completely read.
+            for (final long seg : getSegments()) {
+                if (seg < checkpoint.segment) {
+                    Files.deleteIfExists(getSegmentFile(seg));
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read files added to the journal since the checkpoint, moving the checkpoint on past them.
+     * Only complete entries are read so entries that are still being written are left for the
+     * next read.
+     *
+     * @param maxEntries The maximum number of entries to read.
+     */
+    List<Path> read(final Checkpoint checkpoint, final int maxEntries) {
+        final List<Path> files = new ArrayList<>();
+        final List<Long> segments = getSegments();
+        segments.removeIf(seg -> seg < checkpoint.segment);
+        segments.sort(Long::compare);
+
+        for (int i = 0; i < segments.size() && files.size() < maxEntries; i++) {
+            final long seg = segments.get(i);
+            final boolean lastSegment = i == segments.size() - 1;
+            if (seg != checkpoint.segment) {
+                checkpoint.segment = seg;
+                checkpoint.offset = 0;
+            }
+
+            try (final FileChannel channel = FileChannel.open(getSegmentFile(seg), StandardOpenOption.READ)) {
+                channel.position(checkpoint.offset);
+                final InputStream inputStream = Channels.newInputStream(channel);
+                final byte[] buffer = new byte[8192];
+                final ByteArrayOutputStream line = new ByteArrayOutputStream();
+                long position = checkpoint.offset;
+                int len;
+                while (files.size() < maxEntries && (len = inputStream.read(buffer)) != -1) {
+                    for (int j = 0; j < len && files.size() < maxEntries; j++) {
+                        position++;
+                        if (buffer[j] == NEW_LINE) {
+                            final String relativePath = new String(line.toByteArray(), StreamUtil.DEFAULT_CHARSET);
+                            if (relativePath.length() > 0) {
+                                files.add(rootDir.resolve(relativePath));
+                            }
+                            line.reset();
+                            checkpoint.offset = position;
+                        } else {
+                            line.write(buffer[j]);
+                        }
+                    }
+                }
+            } catch (final IOException e) {
+                LOGGER.error(e.getMessage(), e);
+                return files;
+            }
+
+            if (lastSegment) {
+                break;
+            }
+        }
+
+        return files;
+    }
+
+    private List<Long> getSegments() {
+        final List<Long> segments = new ArrayList<>();
+        if (Files.isDirectory(journalDir)) {
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(journalDir, "*" + SEGMENT_EXTENSION)) {
+                stream.forEach(file -> {
+                    final String fileName = file.getFileName().toString();
+                    try {
+                        segments.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_EXTENSION.length())));
+                    } catch (final NumberFormatException e) {
+                        LOGGER.debug("Ignoring " + fileName);
+                    }
+                });
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments;
+    }
+
+    private Path getSegmentFile(final long segment) {
+        return journalDir.resolve(String.format("%019d", segment) + SEGMENT_EXTENSION);
+    }
+
+    private void createMarker(final String name) throws IOException {
+        Files.createDirectories(journalDir);
+        final Path marker = journalDir.resolve(name);
+        if (!Files.exists(marker)) {
+            Files.createFile(marker);
+        }
+    }
+
+    /**
+     * How far the journal has been read along with the files that still need processing.
+     */
+    static class Checkpoint {
+        private long segment;
+        private long offset;
+        private final Set<Path> pending = new LinkedHashSet<>();
+
+        Checkpoint(final long segment, final long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        Set<Path> getPending() {
+            return pending;
+        }
+
+        void setPending(final Collection<Path> files) {
+            pending.clear();
+            pending.addAll(files);
+        }
+    }
+}
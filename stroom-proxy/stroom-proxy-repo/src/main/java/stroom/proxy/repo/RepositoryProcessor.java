@@ -30,15 +30,18 @@ import stroom.util.shared.ModelStringUtil;
 
 import javax.inject.Provider;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -111,18 +114,35 @@ public final class RepositoryProcessor {
                 final ErrorReceiver errorReceiver = (path, message) ->
                         addErrorMessage(path, message, true);
 
-                // Keep processing until we no longer reach the maximum file scan limit.
-                boolean reachedFileScanLimit;
-                do {
-                    // Break down the zip repository so that all zip files only contain a single stream.
-                    // We do this so that we can form new aggregates that contain less files than the
-                    // maximum number or are smaller than the maximum size
-                    reachedFileScanLimit = fragmentZipFiles(taskContext, executorProvider, threadCount, errorReceiver);
+                // Repositories written with a journal can be processed without scanning them.
+                final RepositoryJournal journal = RepositoryJournal.exists(repoPath) ? new RepositoryJournal(repoPath) : null;
 
-                    // Aggregate the zip files.
-                    aggregateZipFiles(taskContext, executorProvider, threadCount, errorReceiver);
+                if (journal == null || journal.isRebuildRequired()) {
+                    // Keep processing until we no longer reach the maximum file scan limit.
+                    boolean reachedFileScanLimit;
+                    do {
+                        // Break down the zip repository so that all zip files only contain a single stream.
+                        // We do this so that we can form new aggregates that contain less files than the
+                        // maximum number or are smaller than the maximum size
+                        reachedFileScanLimit = fragmentZipFiles(taskContext, executorProvider, threadCount, errorReceiver);
 
-                } while (reachedFileScanLimit);
+                        // Aggregate the zip files.
+                        aggregateZipFiles(taskContext, executorProvider, threadCount, errorReceiver);
+
+                    } while (reachedFileScanLimit);
+
+                    if (journal != null && !Thread.currentThread().isInterrupted()) {
+                        journal.rebuildComplete();
+                    }
+                }
+
+                if (journal != null) {
+                    // Keep processing until we have read all of the journal.
+                    boolean moreEntries;
+                    do {
+                        moreEntries = processJournal(journal, errorReceiver);
+                    } while (moreEntries && !Thread.currentThread().isInterrupted());
+                }
 
                 LOGGER.debug("Completed");
 
@@ -150,7 +170,7 @@ public final class RepositoryProcessor {
             Files.walkFileTree(repoPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new AbstractFileVisitor() {
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-                    if (PartsPathUtil.isPartsDir(dir)) {
+                    if (PartsPathUtil.isPartsDir(dir) || RepositoryJournal.isJournalDir(dir)) {
                         return FileVisitResult.SKIP_SUBTREE;
                     }
                     return super.preVisitDirectory(dir, attrs);
@@ -186,31 +206,98 @@ public final class RepositoryProcessor {
         return fileCount.get() >= maxFileScan;
     }
 
+    /**
+     * Process the files that have been added to the repository journal since it was last read
+     * along with any files that could not be processed last time.
+     *
+     * @return True if there are more entries in the journal to read.
+     */
+    private boolean processJournal(final RepositoryJournal journal, final ErrorReceiver errorReceiver) {
+        final RepositoryJournal.Checkpoint checkpoint = journal.readCheckpoint();
+        final List<Path> newFiles = journal.read(checkpoint, maxFileScan);
+        final Set<Path> candidates = new LinkedHashSet<>(checkpoint.getPending());
+        candidates.addAll(newFiles);
+        if (candidates.isEmpty()) {
+            return false;
+        }
+
+        LOGGER.debug("Processing {} files from journal", candidates.size());
+
+        // Fragment any original zip files, collecting the parts to aggregate.
+        taskContext.setName("Fragmenting Repository - " + repoDir);
+        final Set<Path> parts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final ZipFragmenterFileProcessor zipFragmenter = new ZipFragmenterFileProcessor(
+                taskContext, executorProvider, threadCount, errorReceiver);
+        for (final Path file : candidates) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            if (PartsPathUtil.isPart(file)) {
+                if (Files.isRegularFile(file)) {
+                    parts.add(file);
+                }
+            } else if (Files.isRegularFile(file)) {
+                zipFragmenter.process(file, parts::addAll);
+            } else {
+                // The file may have been fragmented by an earlier run that did not get to aggregate the parts.
+                addExistingParts(file, parts);
+            }
+        }
+        zipFragmenter.await();
+
+        // Aggregate the parts.
+        taskContext.setName("Aggregating Repository - " + repoDir);
+        final Aggregator aggregator = new Aggregator(errorReceiver);
+        for (final Path part : parts) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            taskContext.info(FileUtil.getCanonicalPath(part));
+            aggregator.fileProcessor.process(part);
+        }
+        aggregator.complete();
+
+        // Anything that still exists could not be processed so try it again next time.
+        final List<Path> pending = new ArrayList<>();
+        candidates.stream().filter(Files::exists).forEach(pending::add);
+        parts.stream().filter(Files::exists).forEach(pending::add);
+        checkpoint.setPending(pending);
+        journal.writeCheckpoint(checkpoint);
+
+        return newFiles.size() >= maxFileScan;
+    }
+
+    private void addExistingParts(final Path file, final Set<Path> parts) {
+        final Path partsDir = PartsPathUtil.createPartsDir(file);
+        if (partsDir != null && Files.isDirectory(partsDir)) {
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(partsDir)) {
+                stream.forEach(part -> {
+                    if (PartsPathUtil.isPart(part)) {
+                        parts.add(part);
+                    }
+                });
+            } catch (final IOException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
+    }
+
     private void aggregateZipFiles(final TaskContext taskContext,
                                    final ExecutorProvider executorProvider,
                                    final int threadCount,
                                    final ErrorReceiver errorReceiver) {
         taskContext.setName("Aggregating Repository - " + repoDir);
-        final ZipInfoConsumer zipInfoConsumer = new ZipInfoConsumer(
-                maxFilesPerAggregate,
-                maxConcurrentMappedFiles,
-                maxUncompressedFileSize,
-                errorReceiver,
-                fileSetProcessorProvider,
-                executorProvider,
-                threadCount);
-        final ZipInfoExtractor zipInfoExtractor = new ZipInfoExtractor(errorReceiver);
-        final ZipInfoExtractorFileProcessor fileProcessor = new ZipInfoExtractorFileProcessor(
-                zipInfoExtractor,
-                zipInfoConsumer,
-                taskContext,
-                executorProvider,
-                threadCount);
+        final Aggregator aggregator = new Aggregator(errorReceiver);
+        final ZipInfoExtractorFileProcessor fileProcessor = aggregator.fileProcessor;
 
         try {
             Files.walkFileTree(repoPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new AbstractFileVisitor() {
                 @Override
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (RepositoryJournal.isJournalDir(dir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
                     if (PartsPathUtil.isPartsDir(dir)) {
                         final Path originalZipFile = PartsPathUtil.createParentPartsZipFile(dir);
 
@@ -242,17 +329,47 @@ public final class RepositoryProcessor {
             LOGGER.error(e.getMessage(), e);
         }
 
-        // Wait for the file processor to complete.
-        fileProcessor.await();
-
-        // Complete processing remaining file sets.
-        zipInfoConsumer.complete();
+        aggregator.complete();
     }
 
     private void addErrorMessage(final Path path, final String msg, final boolean bad) {
         ErrorFileUtil.addErrorMessage(path, msg, bad);
     }
 
+    /**
+     * Extracts zip info from part files and groups the parts into file sets for processing.
+     */
+    private class Aggregator {
+        private final ZipInfoConsumer zipInfoConsumer;
+        private final ZipInfoExtractorFileProcessor fileProcessor;
+
+        Aggregator(final ErrorReceiver errorReceiver) {
+            zipInfoConsumer = new ZipInfoConsumer(
+                    maxFilesPerAggregate,
+                    maxConcurrentMappedFiles,
+                    maxUncompressedFileSize,
+                    errorReceiver,
+                    fileSetProcessorProvider,
+                    executorProvider,
+                    threadCount);
+            final ZipInfoExtractor zipInfoExtractor = new ZipInfoExtractor(errorReceiver);
+            fileProcessor = new ZipInfoExtractorFileProcessor(
+                    zipInfoExtractor,
+                    zipInfoConsumer,
+                    taskContext,
+                    executorProvider,
+                    threadCount);
+        }
+
+        void complete() {
+            // Wait for the file processor to complete.
+            fileProcessor.await();
+
+            // Complete processing remaining file sets.
+            zipInfoConsumer.complete();
+        }
+    }
+
     private static class ZipInfoConsumer implements Consumer<ZipInfo> {
         private final int maxFilesPerAggregate;
         private final int maxConcurrentMappedFiles;
@@ -399,6 +516,14 @@ public final class RepositoryProcessor {
         }
 
         public void process(final Path file) {
+            process(file, parts -> {
+            });
+        }
+
+        /**
+         * @param partsConsumer Receives the part files that the file is fragmented into.
+         */
+        public void process(final Path file, final Consumer<List<Path>> partsConsumer) {
             try {
                 final Runnable runnable = () -> {
                     // Process the file to extract ZipInfo
@@ -406,7 +531,7 @@ public final class RepositoryProcessor {
                     taskContext.info(FileUtil.getCanonicalPath(file));
 
                     if (!Thread.currentThread().isInterrupted()) {
-                        zipFragmenter.fragment(file);
+                        partsConsumer.accept(zipFragmenter.fragment(file));
                     }
                 };
                 final CompletableFuture<Void> completableFuture = CompletableFuture.runAsync(runnable, executor);
@@ -447,6 +572,15 @@ public final class RepositoryProcessor {
             executor = executorProvider.getExecutor(fileInspectorThreadPool);
         }
 
+        public void process(final Path file) {
+            try {
+                process(file, Files.readAttributes(file, BasicFileAttributes.class));
+            } catch (final IOException e) {
+                // The file may have been removed.
+                LOGGER.debug(e.getMessage(), e);
+            }
+        }
+
         public void process(final Path file, final BasicFileAttributes attrs) {
             try {
                 final Runnable runnable = () -> {
@@ -28,6 +28,7 @@ import stroom.util.io.FileUtil;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -85,6 +86,7 @@ public class StroomZipRepository {
 
     private final boolean readOnly;
     private final String executionUuid;
+    private final RepositoryJournal journal;
 
     private final LinkedBlockingDeque<StroomZipRepository> rolledRepositoryQueue;
     private int openStreamCount;
@@ -191,6 +193,14 @@ public class StroomZipRepository {
             }
         }
 
+        // Keep a journal of completed files so that the repository can be processed without scanning it.
+        journal = new RepositoryJournal(currentDir);
+        if (readOnly) {
+            journal.recover();
+        } else {
+            journal.open();
+        }
+
         // We may be an existing repository so check for the last ID.
         if (!readOnly) {
             // If we have a unique repository then there is no need to calculate the current max id as it will be unique
@@ -365,8 +375,16 @@ public class StroomZipRepository {
             public void close() throws IOException {
                 if (!closed) {
                     closed = true;
-                    closeStream();
-                    super.close();
+                    try {
+                        super.close();
+
+                        // Empty zips are deleted rather than completed.
+                        if (Files.isRegularFile(getFile())) {
+                            journal.add(getFile());
+                        }
+                    } finally {
+                        closeStream();
+                    }
                 }
             }
 
@@ -403,6 +421,9 @@ public class StroomZipRepository {
     private synchronized void finish() {
         if (rolled && openStreamCount == 0 && !finished) {
             finished = true;
+            if (!readOnly) {
+                journal.close();
+            }
             removeLock();
 
             if (rolledRepositoryQueue != null) {
@@ -460,6 +481,9 @@ public class StroomZipRepository {
                     if (getRootDir().equals(dir) && !deleteRootDirectory) {
                         LOGGER.debug("Won't attempt to delete directory {} as it is the root", dir);
                     } else {
+                        if (getRootDir().equals(dir)) {
+                            deleteJournalIfEmpty(dir);
+                        }
                         attemptDirDeletion(dir, oldestDirMs);
                     }
                     return super.postVisitDirectory(dir, exc);
@@ -546,6 +570,7 @@ public class StroomZipRepository {
                 });
 
                 // Remove the directory.
+                deleteJournalIfEmpty(path);
                 Files.delete(path);
             }
         } catch (final IOException e) {
@@ -560,6 +585,26 @@ public class StroomZipRepository {
         return success;
     }
 
+    /**
+     * Remove the journal from a repository directory if it is the only thing left in it.
+     */
+    private void deleteJournalIfEmpty(final Path dir) {
+        // Synchronize so that files are not written to the repository while the journal is removed.
+        synchronized (this) {
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (final Path path : stream) {
+                    if (!RepositoryJournal.isJournalDir(path)) {
+                        return;
+                    }
+                }
+            } catch (final IOException e) {
+                LOGGER.debug(e.getMessage(), e);
+                return;
+            }
+            new RepositoryJournal(dir).delete();
+        }
+    }
+
     private void deleteDir(final Path path) throws IOException {
         try {
             if (LOGGER.isTraceEnabled()) {
@@ -36,6 +36,9 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 class ZipFragmenter {
@@ -47,7 +50,14 @@ class ZipFragmenter {
         this.errorReceiver = errorReceiver;
     }
 
-    public void fragment(final Path path) {
+    /**
+     * Break a zip file down into part files that each contain a single stream.
+     *
+     * @return The part files that were created, or an empty list if the file could not be fragmented.
+     */
+    public List<Path> fragment(final Path path) {
+        final List<Path> parts = new ArrayList<>();
+
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Getting zip info for  '" + FileUtil.getCanonicalPath(path) + "'");
         }
@@ -101,6 +111,7 @@ class ZipFragmenter {
                                 transferEntry(stroomZipFile, stroomZipOutputStream, baseName, StroomZipFileType.Context);
                                 transferEntry(stroomZipFile, stroomZipOutputStream, baseName, StroomZipFileType.Data);
                             }
+                            parts.add(outputFile);
                             i++;
                         }
 
@@ -121,6 +132,7 @@ class ZipFragmenter {
                                 outputFile,
                                 StandardCopyOption.REPLACE_EXISTING,
                                 StandardCopyOption.ATOMIC_MOVE);
+                        parts.add(outputFile);
                     } catch (final IOException | RuntimeException e) {
                         // Unable to move file ... must be bad.
                         errorReceiver.onError(path, e.getMessage());
@@ -132,6 +144,12 @@ class ZipFragmenter {
                 }
             }
         }
+
+        // If the original file is still there then the parts are incomplete and it will be fragmented again.
+        if (Files.exists(path)) {
+            return Collections.emptyList();
+        }
+        return parts;
     }
 
     private void transferEntry(
@@ -0,0 +1,115 @@
+package stroom.proxy.repo;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.junit.jupiter.api.Test;
+import stroom.data.zip.StreamProgressMonitor;
+import stroom.data.zip.StroomZipEntry;
+import stroom.data.zip.StroomZipFileType;
+import stroom.data.zip.StroomZipOutputStreamImpl;
+import stroom.receive.common.StroomStreamHandler;
+import stroom.util.io.StreamUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestProxyFileHandler {
+    private static final String DATA = "SOME_DATA SOME_DATA SOME_DATA SOME_DATA";
+    private static final String META = "Feed:TEST_FEED";
+
+    @Test
+    void testRawEntriesAreCopied() throws IOException {
+        final Path file = createZip();
+
+        final RecordingHandler rawHandler = new RecordingHandler();
+        final ProxyFileHandler proxyFileHandler = new ProxyFileHandler(() -> new byte[1024]);
+        final StreamProgressMonitor streamProgress = new StreamProgressMonitor("test");
+        proxyFileHandler.processFeedFile(Collections.singletonList(rawHandler), file, streamProgress, 1);
+
+        // Every entry should be passed on still compressed along with the source entry that describes it.
+        assertThat(rawHandler.entries).isEmpty();
+        assertThat(rawHandler.rawEntries).containsOnlyKeys("001.dat", "001.meta");
+        final ZipArchiveEntry dataEntry = rawHandler.sourceEntries.get("001.dat");
+        assertThat(dataEntry.getSize()).isEqualTo(DATA.length());
+        assertThat((long) rawHandler.rawEntries.get("001.dat").length).isEqualTo(dataEntry.getCompressedSize());
+
+        // Progress is the uncompressed size, the same as when entries are inflated.
+        assertThat(streamProgress.getTotalBytes()).isEqualTo(DATA.length() + META.length());
+    }
+
+    @Test
+    void testInflateWhenNotAllHandlersAcceptRawEntries() throws IOException {
+        final Path file = createZip();
+
+        final RecordingHandler rawHandler = new RecordingHandler();
+        final StroomStreamHandler orderCheck = StroomStreamHandlerUtil.createStroomStreamOrderCheck();
+        final List<StroomStreamHandler> handlers = new ArrayList<>();
+        handlers.add(rawHandler);
+        handlers.add(orderCheck);
+
+        final ProxyFileHandler proxyFileHandler = new ProxyFileHandler(() -> new byte[1024]);
+        final StreamProgressMonitor streamProgress = new StreamProgressMonitor("test");
+        proxyFileHandler.processFeedFile(handlers, file, streamProgress, 1);
+
+        assertThat(rawHandler.rawEntries).isEmpty();
+        assertThat(rawHandler.entries).containsOnlyKeys("001.dat", "001.meta");
+        assertThat(rawHandler.entries.get("001.dat")).isEqualTo(DATA);
+        assertThat(rawHandler.entries.get("001.meta")).isEqualTo(META);
+        assertThat(streamProgress.getTotalBytes()).isEqualTo(DATA.length() + META.length());
+    }
+
+    private Path createZip() throws IOException {
+        final Path file = Files.createTempDirectory("stroom").resolve("test.zip");
+        try (final StroomZipOutputStreamImpl out = new StroomZipOutputStreamImpl(file)) {
+            StroomZipOutputStreamUtil.addSimpleEntry(out, new StroomZipEntry(null, "file", StroomZipFileType.Meta),
+                    META.getBytes(StreamUtil.DEFAULT_CHARSET));
+            StroomZipOutputStreamUtil.addSimpleEntry(out, new StroomZipEntry(null, "file", StroomZipFileType.Data),
+                    DATA.getBytes(StreamUtil.DEFAULT_CHARSET));
+        }
+        return file;
+    }
+
+    /**
+     * Records what it is passed. Writing the entries out is tested with the forwarding handler itself.
+     */
+    private static class RecordingHandler implements StroomStreamHandler, RawEntryStreamHandler {
+        private final Map<String, byte[]> rawEntries = new HashMap<>();
+        private final Map<String, ZipArchiveEntry> sourceEntries = new HashMap<>();
+        private final Map<String, String> entries = new HashMap<>();
+        private String entryName;
+        private ByteArrayOutputStream entryData;
+
+        @Override
+        public void handleRawEntry(final StroomZipEntry stroomZipEntry,
+                                   final ZipArchiveEntry sourceEntry,
+                                   final InputStream rawInputStream) throws IOException {
+            rawEntries.put(stroomZipEntry.getFullName(), StreamUtil.streamToBytes(rawInputStream));
+            sourceEntries.put(stroomZipEntry.getFullName(), sourceEntry);
+        }
+
+        @Override
+        public void handleEntryStart(final StroomZipEntry stroomZipEntry) {
+            entryName = stroomZipEntry.getFullName();
+            entryData = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void handleEntryData(final byte[] data, final int off, final int len) {
+            entryData.write(data, off, len);
+        }
+
+        @Override
+        public void handleEntryEnd() {
+            entries.put(entryName, new String(entryData.toByteArray(), StreamUtil.DEFAULT_CHARSET));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package stroom.proxy.repo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestRepositoryJournal {
+    @Test
+    void testReadFromCheckpoint() throws IOException {
+        final Path repoDir = Files.createTempDirectory("stroom").resolve("repo");
+        final RepositoryJournal journal = new RepositoryJournal(repoDir);
+        journal.open();
+        journal.add(repoDir.resolve("001.zip"));
+        journal.add(repoDir.resolve("002.zip"));
+        journal.add(repoDir.resolve("003.zip"));
+
+        RepositoryJournal.Checkpoint checkpoint = journal.readCheckpoint();
+        assertThat(journal.read(checkpoint, 2)).containsExactly(repoDir.resolve("001.zip"), repoDir.resolve("002.zip"));
+        checkpoint.setPending(Collections.singletonList(repoDir.resolve("002.zip")));
+        journal.writeCheckpoint(checkpoint);
+
+        // Only entries after the checkpoint should be read along with the pending file.
+        journal.add(repoDir.resolve("004.zip"));
+        checkpoint = journal.readCheckpoint();
+        assertThat(checkpoint.getPending()).containsExactly(repoDir.resolve("002.zip"));
+        assertThat(journal.read(checkpoint, 100)).containsExactly(repoDir.resolve("003.zip"), repoDir.resolve("004.zip"));
+        journal.writeCheckpoint(checkpoint);
+
+        checkpoint = journal.readCheckpoint();
+        assertThat(journal.read(checkpoint, 100)).isEmpty();
+    }
+
+    @Test
+    void testReadAcrossReopen() throws IOException {
+        final Path repoDir = Files.createTempDirectory("stroom").resolve("repo");
+        RepositoryJournal journal = new RepositoryJournal(repoDir);
+        journal.open();
+        journal.add(repoDir.resolve("001.zip"));
+        journal.close();
+
+        // A new writer starts a new segment.
+        journal = new RepositoryJournal(repoDir);
+        journal.open();
+        journal.add(repoDir.resolve("002.zip"));
+        journal.close();
+
+        final RepositoryJournal.Checkpoint checkpoint = journal.readCheckpoint();
+        final List<Path> files = journal.read(checkpoint, 100);
+        assertThat(files).containsExactly(repoDir.resolve("001.zip"), repoDir.resolve("002.zip"));
+    }
+
+    @Test
+    void testRebuild() throws IOException {
+        final Path repoDir = Files.createTempDirectory("stroom").resolve("repo");
+        assertThat(RepositoryJournal.exists(repoDir)).isFalse();
+
+        // A new journal may not know about existing files.
+        RepositoryJournal journal = new RepositoryJournal(repoDir);
+        journal.open();
+        assertThat(RepositoryJournal.exists(repoDir)).isTrue();
+        assertThat(journal.isRebuildRequired()).isTrue();
+        journal.rebuildComplete();
+        journal.close();
+
+        journal = new RepositoryJournal(repoDir);
+        journal.open();
+        assertThat(journal.isRebuildRequired()).isFalse();
+
+        // The journal was not closed so files may be missing from it.
+        journal = new RepositoryJournal(repoDir);
+        journal.recover();
+        assertThat(journal.isRebuildRequired()).isTrue();
+
+        journal.delete();
+        assertThat(RepositoryJournal.exists(repoDir)).isFalse();
+    }
+}
@@ -0,0 +1,26 @@
+package stroom.search.api;
+
+import stroom.query.api.v2.QueryKey;
+
+import java.util.Map;
+
+/**
+ * Lets callers on the same node wait for the results of running searches to change rather than
+ * repeatedly fetching results that are the same as last time.
+ */
+public interface SearchResultChanges {
+    /**
+     * @return A count that changes whenever new results for the query are received or the search
+     * completes, or null if no search on this node reports changes for the query.
+     */
+    Long getChangeCount(QueryKey queryKey);
+
+    /**
+     * Wait until the change count of any of the supplied queries differs from the count given for
+     * it or until the timeout has passed.
+     *
+     * @param changeCounts The last change count seen for each query.
+     * @return True if any of the queries have changed.
+     */
+    boolean awaitChange(Map<QueryKey, Long> changeCounts, long timeoutMs) throws InterruptedException;
+}
@@ -1,7 +1,9 @@
 package stroom.search.extraction;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import stroom.util.shared.IsConfig;
+import stroom.util.shared.ModelStringUtil;
 
 import javax.inject.Singleton;
 
@@ -9,9 +11,16 @@ import javax.inject.Singleton;
 public class ExtractionConfig implements IsConfig {
     private static final int DEFAULT_MAX_THREADS = 4;
     private static final int DEFAULT_MAX_THREADS_PER_TASK = 2;
+    private static final int DEFAULT_STREAM_BATCH_SIZE = 1000;
+    private static final int DEFAULT_STREAM_LOOKUP_BATCH_SIZE = 500;
+    private static final int DEFAULT_MAX_CACHED_STREAM_PERMISSIONS = 100000;
 
     private int maxThreads = DEFAULT_MAX_THREADS;
     private int maxThreadsPerTask = DEFAULT_MAX_THREADS_PER_TASK;
+    private int streamBatchSize = DEFAULT_STREAM_BATCH_SIZE;
+    private String streamBatchMaxAge = "200ms";
+    private int streamLookupBatchSize = DEFAULT_STREAM_LOOKUP_BATCH_SIZE;
+    private int maxCachedStreamPermissions = DEFAULT_MAX_CACHED_STREAM_PERMISSIONS;
 
     @JsonPropertyDescription("The absolute maximum number of threads per node, used to extract search results from streams using a pipeline")
     public int getMaxThreads() {
@@ -31,11 +40,56 @@ public class ExtractionConfig implements IsConfig {
         this.maxThreadsPerTask = maxThreadsPerTask;
     }
 
+    @JsonPropertyDescription("The number of events found for a stream that will cause extraction to start for that stream while the index search is still running")
+    public int getStreamBatchSize() {
+        return streamBatchSize;
+    }
+
+    public void setStreamBatchSize(final int streamBatchSize) {
+        this.streamBatchSize = streamBatchSize;
+    }
+
+    @JsonPropertyDescription("How long events found for a stream can wait for more events from the same stream before extraction starts for that stream while the index search is still running. All waiting streams are extracted if no new events are found for this long. In ms (but can be specified as 10s, 1m)")
+    public String getStreamBatchMaxAge() {
+        return streamBatchMaxAge;
+    }
+
+    public void setStreamBatchMaxAge(final String streamBatchMaxAge) {
+        this.streamBatchMaxAge = streamBatchMaxAge;
+    }
+
+    @JsonIgnore
+    public long getStreamBatchMaxAgeMs() {
+        return ModelStringUtil.parseDurationString(streamBatchMaxAge);
+    }
+
+    @JsonPropertyDescription("The maximum number of streams that will have their read permission checked at once when search results are mapped to streams")
+    public int getStreamLookupBatchSize() {
+        return streamLookupBatchSize;
+    }
+
+    public void setStreamLookupBatchSize(final int streamLookupBatchSize) {
+        this.streamLookupBatchSize = streamLookupBatchSize;
+    }
+
+    @JsonPropertyDescription("The maximum number of stream read permission checks that are cached per search")
+    public int getMaxCachedStreamPermissions() {
+        return maxCachedStreamPermissions;
+    }
+
+    public void setMaxCachedStreamPermissions(final int maxCachedStreamPermissions) {
+        this.maxCachedStreamPermissions = maxCachedStreamPermissions;
+    }
+
     @Override
     public String toString() {
         return "ExtractionConfig{" +
                 "maxThreads=" + maxThreads +
                 ", maxThreadsPerTask=" + maxThreadsPerTask +
+                ", streamBatchSize=" + streamBatchSize +
+                ", streamBatchMaxAge='" + streamBatchMaxAge + '\'' +
+                ", streamLookupBatchSize=" + streamLookupBatchSize +
+                ", maxCachedStreamPermissions=" + maxCachedStreamPermissions +
                 '}';
     }
 }
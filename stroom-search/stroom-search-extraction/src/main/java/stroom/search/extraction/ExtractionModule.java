@@ -18,11 +18,15 @@ package stroom.search.extraction;
 
 import com.google.inject.AbstractModule;
 import stroom.pipeline.factory.PipelineElementModule;
+import stroom.util.guice.HealthCheckBinder;
 
 public class ExtractionModule extends AbstractModule {
     @Override
     protected void configure() {
         install(new ExtractionElementModule());
         install(new ExtractionLifecycleModule());
+
+        HealthCheckBinder.create(binder())
+                .bind(StreamPermissionMetrics.class);
     }
 }
\ No newline at end of file
@@ -38,11 +38,11 @@ import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -71,7 +71,8 @@ public class ExtractionTaskProducer extends AbstractTaskProducer implements Task
     private final Queue<ExtractionRunnable> taskQueue = new ConcurrentLinkedQueue<>();
 
     private final AtomicBoolean completedEventMapping = new AtomicBoolean();
-    private final Map<Long, List<Event>> streamEventMap = new ConcurrentHashMap<>();
+    private final StreamBatches streamBatches;
+    private final Map<Long, StreamEvents> streamEventMap;
 
     private volatile boolean finishedAddingTasks;
 
@@ -81,14 +82,19 @@ public class ExtractionTaskProducer extends AbstractTaskProducer implements Task
                                   final FieldIndexMap extractionFieldIndexMap,
                                   final Map<DocRef, Set<Coprocessor>> extractionCoprocessorsMap,
                                   final ErrorReceiver errorReceiver,
-                                  final int maxThreadsPerTask,
+                                  final ExtractionConfig extractionConfig,
                                   final Executor executor,
                                   final Provider<ExtractionTaskHandler> handlerProvider) {
         super(taskExecutor, executor);
         this.extractionFieldIndexMap = extractionFieldIndexMap;
         this.extractionCoprocessorsMap = extractionCoprocessorsMap;
         this.errorReceiver = errorReceiver;
-        this.maxThreadsPerTask = maxThreadsPerTask;
+        this.maxThreadsPerTask = extractionConfig.getMaxThreadsPerTask();
+        this.streamBatches = new StreamBatches(
+                extractionConfig.getStreamBatchSize(),
+                extractionConfig.getStreamBatchMaxAgeMs(),
+                this::signalAvailable);
+        this.streamEventMap = streamBatches.getStreamEventMap();
         this.handlerProvider = handlerProvider;
 
         // Start mapping streams.
@@ -98,18 +104,41 @@ public class ExtractionTaskProducer extends AbstractTaskProducer implements Task
                 while (!completedEventMapping.get()) {
                     try {
                         // Poll for the next set of values.
-                        final Values values = storedData.take();
-                        if (values.complete()) {
+                        Values values = storedData.poll();
+                        if (values == null) {
+                            // Nothing is waiting so check the streams we haven't seen before for any events we are
+                            // holding.
+                            streamMapCreator.flush(streamEventMap, streamBatches::onEventAdded);
+
+                            // We don't wait for longer than the max batch age so that streams with old batches of
+                            // events are extracted even if no new values arrive.
+                            values = storedData.poll(streamBatches.getMaxAgeMs(), TimeUnit.MILLISECONDS);
+                        }
+
+                        if (values == null) {
+                            // No values have arrived for a while so there is no point holding back the events we
+                            // have. Extract them now and carry on waiting.
+                            streamBatches.readyAll();
+
+                        } else if (values.complete()) {
+                            // Add any events we are still holding.
+                            streamMapCreator.flush(streamEventMap, streamBatches::onEventAdded);
+
                             // If we did not get any values then there are no more to get if the search task producer is complete.
                             completedEventMapping.set(true);
 
+                            // Tell the supplied executor that we are ready to deliver tasks.
+                            signalAvailable();
+
+                            LOGGER.debug("Completed event mapping. {}", streamMapCreator);
+
                         } else {
                             // If we have some values then map them.
-                            streamMapCreator.addEvent(streamEventMap, values.getValues());
+                            streamMapCreator.addEvent(streamEventMap, values.getValues(), streamBatches::onEventAdded);
                         }
 
-                        // Tell the supplied executor that we are ready to deliver tasks.
-                        signalAvailable();
+                        // Find streams whose events have been waiting too long for more to arrive.
+                        streamBatches.checkAge(System.currentTimeMillis());
 
                     } catch (final InterruptedException e) {
                         LOGGER.debug(e.getMessage(), e);
@@ -233,7 +262,7 @@ public class ExtractionTaskProducer extends AbstractTaskProducer implements Task
 
     private void terminate() {
         finishedAddingTasks = true;
-        streamEventMap.clear();
+        streamBatches.clear();
 
         // Drain the queue and increment the complete task count.
         while (taskQueue.poll() != null) {
@@ -245,13 +274,30 @@ public class ExtractionTaskProducer extends AbstractTaskProducer implements Task
 
     private boolean addTasks() {
         final boolean completedEventMapping = this.completedEventMapping.get();
-        for (final Entry<Long, List<Event>> entry : streamEventMap.entrySet()) {
-            if (streamEventMap.remove(entry.getKey(), entry.getValue())) {
-                final int tasksCreated = createTasks(entry.getKey(), entry.getValue());
+
+        // Extract streams that are ready while the search is still running.
+        Long streamId = streamBatches.pollReady();
+        while (streamId != null) {
+            final StreamEvents streamEvents = streamEventMap.remove(streamId);
+            if (streamEvents != null) {
+                final int tasksCreated = createTasks(streamId, streamEvents.getEvents());
                 if (tasksCreated > 0) {
                     return false;
                 }
             }
+            streamId = streamBatches.pollReady();
+        }
+
+        // Once all events have been mapped, extract all remaining streams regardless of how many events they have.
+        if (completedEventMapping) {
+            for (final Entry<Long, StreamEvents> entry : streamEventMap.entrySet()) {
+                if (streamEventMap.remove(entry.getKey(), entry.getValue())) {
+                    final int tasksCreated = createTasks(entry.getKey(), entry.getValue().getEvents());
+                    if (tasksCreated > 0) {
+                        return false;
+                    }
+                }
+            }
         }
         return completedEventMapping;
     }
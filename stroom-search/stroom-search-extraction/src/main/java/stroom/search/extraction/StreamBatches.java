@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.extraction;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Holds the events found for each stream and decides when a stream is ready to be extracted while the index search
+ * is still running. A stream is ready once it has enough events, once its first event has waited too long for more
+ * to arrive, or once no more events are arriving for the time being.
+ */
+class StreamBatches {
+    private final Map<Long, StreamEvents> streamEventMap = new ConcurrentHashMap<>();
+    private final Queue<Long> readyStreams = new ConcurrentLinkedQueue<>();
+    private final int batchSize;
+    private final long maxAgeMs;
+    private final Runnable readyListener;
+    private long lastAgeCheckMs;
+
+    /**
+     * @param readyListener Called each time a stream becomes ready.
+     */
+    StreamBatches(final int batchSize, final long maxAgeMs, final Runnable readyListener) {
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAgeMs = Math.max(1, maxAgeMs);
+        this.readyListener = readyListener;
+        this.lastAgeCheckMs = System.currentTimeMillis();
+    }
+
+    Map<Long, StreamEvents> getStreamEventMap() {
+        return streamEventMap;
+    }
+
+    long getMaxAgeMs() {
+        return maxAgeMs;
+    }
+
+    /**
+     * Called after an event has been added for a stream.
+     */
+    void onEventAdded(final long streamId) {
+        final StreamEvents streamEvents = streamEventMap.get(streamId);
+        if (streamEvents != null && streamEvents.size() >= batchSize) {
+            makeReady(streamId, streamEvents);
+        }
+    }
+
+    /**
+     * Make streams whose first event has waited for longer than the max age ready. Streams are only checked once per
+     * max age period as this has to look at every stream.
+     */
+    void checkAge(final long nowMs) {
+        if (nowMs - lastAgeCheckMs >= maxAgeMs) {
+            lastAgeCheckMs = nowMs;
+            streamEventMap.forEach((streamId, streamEvents) -> {
+                if (nowMs - streamEvents.getCreateTimeMs() >= maxAgeMs) {
+                    makeReady(streamId, streamEvents);
+                }
+            });
+        }
+    }
+
+    /**
+     * Make all streams ready. Called when no new events are arriving so there is nothing to gain from waiting.
+     */
+    void readyAll() {
+        streamEventMap.forEach(this::makeReady);
+    }
+
+    /**
+     * @return The id of the next stream that is ready for extraction or null if there are none.
+     */
+    Long pollReady() {
+        return readyStreams.poll();
+    }
+
+    void clear() {
+        streamEventMap.clear();
+        readyStreams.clear();
+    }
+
+    /**
+     * New events for the stream that are found after it has been extracted will be extracted in a later batch.
+     */
+    private void makeReady(final long streamId, final StreamEvents streamEvents) {
+        if (!streamEvents.isReady()) {
+            streamEvents.setReady();
+            readyStreams.offer(streamId);
+            readyListener.run();
+        }
+    }
+}
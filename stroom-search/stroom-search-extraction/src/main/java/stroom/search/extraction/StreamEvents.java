@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.extraction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The events found for a single stream that have not yet been passed on for extraction.
+ */
+class StreamEvents {
+    private final long createTimeMs = System.currentTimeMillis();
+    private final List<Event> events = new ArrayList<>();
+    private volatile boolean ready;
+
+    void add(final Event event) {
+        events.add(event);
+    }
+
+    List<Event> getEvents() {
+        return events;
+    }
+
+    int size() {
+        return events.size();
+    }
+
+    long getCreateTimeMs() {
+        return createTimeMs;
+    }
+
+    /**
+     * @return True if this batch of events has been marked as ready for extraction.
+     */
+    boolean isReady() {
+        return ready;
+    }
+
+    void setReady() {
+        this.ready = true;
+    }
+}
@@ -16,23 +16,31 @@
 
 package stroom.search.extraction;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import stroom.dashboard.expression.v1.Val;
 import stroom.index.shared.IndexConstants;
+import stroom.meta.shared.FindMetaCriteria;
+import stroom.meta.shared.Meta;
+import stroom.meta.shared.MetaFields;
 import stroom.meta.shared.MetaService;
+import stroom.meta.shared.Status;
 import stroom.pipeline.errorhandler.ErrorReceiver;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionOperator.Op;
+import stroom.query.api.v2.ExpressionTerm;
 import stroom.security.api.SecurityContext;
+import stroom.util.shared.PageRequest;
 import stroom.util.shared.Severity;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
 
 public class StreamMapCreator {
-    private static final Logger LOGGER = LoggerFactory.getLogger(StreamMapCreator.class);
-
     private final ErrorReceiver errorReceiver;
     private final MetaService metaService;
 
@@ -40,15 +48,39 @@ public class StreamMapCreator {
     private final int eventIdIndex;
 
     private final SecurityContext securityContext;
-    private Map<Long, Boolean> fiteredStreamCache;
+    private final StreamPermissionMetrics streamPermissionMetrics;
+    private final int lookupBatchSize;
+    private final Map<Long, Boolean> readableStreamCache;
+
+    // Events for streams that we haven't yet checked the current user can read.
+    private final List<Val[]> pendingEvents = new ArrayList<>();
+    private final Set<Long> pendingStreamIds = new HashSet<>();
+
+    private long lookupCount;
+    private long lookupStreamCount;
+    private long lookupTimeMs;
 
     public StreamMapCreator(final String[] storedFields,
                             final ErrorReceiver errorReceiver,
                             final MetaService metaService,
-                            final SecurityContext securityContext) {
+                            final SecurityContext securityContext,
+                            final ExtractionConfig extractionConfig,
+                            final StreamPermissionMetrics streamPermissionMetrics) {
         this.errorReceiver = errorReceiver;
         this.metaService = metaService;
         this.securityContext = securityContext;
+        this.streamPermissionMetrics = streamPermissionMetrics;
+        this.lookupBatchSize = Math.max(1, extractionConfig.getStreamLookupBatchSize());
+
+        // Keep a bounded LRU cache of streams we have checked so that streams that are hit repeatedly by the search
+        // only need to be checked once.
+        final int maxCachedStreams = Math.max(1, extractionConfig.getMaxCachedStreamPermissions());
+        this.readableStreamCache = new LinkedHashMap<Long, Boolean>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Boolean> eldest) {
+                return size() > maxCachedStreams;
+            }
+        };
 
         // First get the index in the stored data of the stream and event id fields.
         streamIdIndex = getFieldIndex(storedFields, IndexConstants.STREAM_ID, true);
@@ -72,36 +104,102 @@ public class StreamMapCreator {
         return index;
     }
 
-    void addEvent(final Map<Long, List<Event>> storedDataMap, final Val[] storedData) {
-        securityContext.useAsRead(() -> {
-            final Long longStreamId = getLong(storedData, streamIdIndex);
-            final Long longEventId = getLong(storedData, eventIdIndex);
-
-            if (longStreamId != null && longEventId != null) {
-                // Filter the streams by ones that should be visible to the current user.
-                if (canRead(longStreamId)) {
-                    storedDataMap.compute(longStreamId, (k, v) -> {
-                        if (v == null) {
-                            v = new ArrayList<>();
-                        }
-                        v.add(new Event(longEventId, storedData));
-                        return v;
-                    });
+    /**
+     * Add an event to the map of events for the stream it belongs to if the current user can read the stream. If we
+     * have not seen the stream before then the event is held until the read permission of a batch of streams has been
+     * checked, either because the batch is full or {@link #flush(Map, LongConsumer)} has been called.
+     *
+     * @param addedStreamConsumer Told the id of the stream each time an event is added to the map.
+     */
+    void addEvent(final Map<Long, StreamEvents> storedDataMap,
+                  final Val[] storedData,
+                  final LongConsumer addedStreamConsumer) {
+        final Long longStreamId = getLong(storedData, streamIdIndex);
+        final Long longEventId = getLong(storedData, eventIdIndex);
+
+        if (longStreamId != null && longEventId != null) {
+            final Boolean canRead = readableStreamCache.get(longStreamId);
+            if (canRead == null) {
+                pendingEvents.add(storedData);
+                pendingStreamIds.add(longStreamId);
+                if (pendingStreamIds.size() >= lookupBatchSize) {
+                    flush(storedDataMap, addedStreamConsumer);
+                }
+            } else {
+                streamPermissionMetrics.recordCacheHit();
+                if (canRead) {
+                    // Filter the streams by ones that should be visible to the current user.
+                    add(storedDataMap, longStreamId, longEventId, storedData, addedStreamConsumer);
                 }
             }
-        });
+        }
     }
 
-    private Boolean canRead(final long streamId) {
-        // Create a map to cache stream lookups. If we have cached more than a million streams then discard the map and start again to avoid using too much memory.
-        if (fiteredStreamCache == null || fiteredStreamCache.size() > 1000000) {
-            fiteredStreamCache = new HashMap<>();
+    /**
+     * Check the read permission of all streams we have not seen before and add any events held for them.
+     */
+    void flush(final Map<Long, StreamEvents> storedDataMap, final LongConsumer addedStreamConsumer) {
+        if (pendingStreamIds.size() > 0) {
+            final Set<Long> readableStreamIds = findReadableStreamIds(pendingStreamIds);
+            for (final Long streamId : pendingStreamIds) {
+                readableStreamCache.put(streamId, readableStreamIds.contains(streamId));
+            }
+            pendingStreamIds.clear();
+
+            for (final Val[] storedData : pendingEvents) {
+                final Long longStreamId = getLong(storedData, streamIdIndex);
+                final Long longEventId = getLong(storedData, eventIdIndex);
+                if (readableStreamIds.contains(longStreamId)) {
+                    add(storedDataMap, longStreamId, longEventId, storedData, addedStreamConsumer);
+                }
+            }
+            pendingEvents.clear();
         }
+    }
 
-        return fiteredStreamCache.computeIfAbsent(streamId, k -> {
-            // See if we can read the stream.
-            return metaService.getMeta(streamId) != null;
+    private void add(final Map<Long, StreamEvents> storedDataMap,
+                     final long streamId,
+                     final long eventId,
+                     final Val[] storedData,
+                     final LongConsumer addedStreamConsumer) {
+        storedDataMap.compute(streamId, (k, v) -> {
+            if (v == null) {
+                v = new StreamEvents();
+            }
+            v.add(new Event(eventId, storedData));
+            return v;
         });
+        addedStreamConsumer.accept(streamId);
+    }
+
+    /**
+     * Find out which of the supplied streams the current user can read with a single meta service call.
+     */
+    private Set<Long> findReadableStreamIds(final Set<Long> streamIds) {
+        final long startTime = System.currentTimeMillis();
+
+        final String ids = streamIds.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+        final ExpressionOperator expression = new ExpressionOperator.Builder(Op.AND)
+                .addTerm(MetaFields.ID.getName(), ExpressionTerm.Condition.IN, ids)
+                .addTerm(MetaFields.STATUS, ExpressionTerm.Condition.EQUALS, Status.UNLOCKED.getDisplayValue())
+                .build();
+        final FindMetaCriteria criteria = new FindMetaCriteria(expression);
+        criteria.setPageRequest(new PageRequest(0L, streamIds.size()));
+
+        final List<Meta> list = securityContext.useAsReadResult(() -> metaService.find(criteria));
+        final Set<Long> readableStreamIds = list.stream()
+                .map(Meta::getId)
+                .collect(Collectors.toSet());
+
+        final long elapsedMs = System.currentTimeMillis() - startTime;
+        lookupCount++;
+        lookupStreamCount += streamIds.size();
+        lookupTimeMs += elapsedMs;
+        streamPermissionMetrics.recordLookup(streamIds.size(), elapsedMs);
+
+        return readableStreamIds;
     }
 
     private Long getLong(final Val[] storedData, final int index) {
@@ -120,4 +218,15 @@ public class StreamMapCreator {
     private void warn(final String message, final Throwable t) {
         errorReceiver.log(Severity.WARNING, null, null, message, t);
     }
+
+    @Override
+    public String toString() {
+        return "Checked read permission for " +
+                lookupStreamCount +
+                " streams in " +
+                lookupCount +
+                " lookups taking " +
+                lookupTimeMs +
+                "ms";
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.extraction;
+
+import com.codahale.metrics.health.HealthCheck;
+import stroom.util.HasHealthCheck;
+
+import javax.inject.Singleton;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals for the stream read permission checks made by all searches on this node, exposed through a health check.
+ */
+@Singleton
+public class StreamPermissionMetrics implements HasHealthCheck {
+    private final AtomicLong lookupCount = new AtomicLong();
+    private final AtomicLong lookupStreamCount = new AtomicLong();
+    private final AtomicLong lookupTimeMs = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+
+    void recordLookup(final int streamCount, final long timeMs) {
+        lookupCount.incrementAndGet();
+        lookupStreamCount.addAndGet(streamCount);
+        lookupTimeMs.addAndGet(timeMs);
+    }
+
+    void recordCacheHit() {
+        cacheHitCount.incrementAndGet();
+    }
+
+    long getLookupCount() {
+        return lookupCount.get();
+    }
+
+    long getLookupStreamCount() {
+        return lookupStreamCount.get();
+    }
+
+    long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    @Override
+    public HealthCheck.Result getHealth() {
+        return HealthCheck.Result.builder()
+                .healthy()
+                .withDetail("lookups", lookupCount.get())
+                .withDetail("streamsLookedUp", lookupStreamCount.get())
+                .withDetail("lookupTimeMs", lookupTimeMs.get())
+                .withDetail("cacheHits", cacheHitCount.get())
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.extraction;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestStreamBatches {
+    private static final int BATCH_SIZE = 3;
+    private static final long MAX_AGE_MS = 10000;
+
+    private final AtomicInteger readyCount = new AtomicInteger();
+    private final StreamBatches streamBatches = new StreamBatches(BATCH_SIZE, MAX_AGE_MS, readyCount::incrementAndGet);
+
+    @Test
+    void testReadyWhenFull() {
+        addEvents(1L, BATCH_SIZE - 1);
+        addEvents(2L, 1);
+        assertThat(streamBatches.pollReady()).isNull();
+
+        // Filling the batch makes the stream ready once, even if more events arrive before it is extracted.
+        addEvents(1L, 2);
+        assertThat(readyCount.get()).isEqualTo(1);
+        assertThat(pollAll()).containsExactly(1L);
+        assertThat(streamBatches.getStreamEventMap().get(1L).size()).isEqualTo(BATCH_SIZE + 1);
+    }
+
+    @Test
+    void testReadyWhenOld() {
+        addEvents(1L, 1);
+        final long nowMs = System.currentTimeMillis();
+
+        // Not old enough yet.
+        streamBatches.checkAge(nowMs);
+        assertThat(streamBatches.pollReady()).isNull();
+
+        streamBatches.checkAge(nowMs + MAX_AGE_MS);
+        assertThat(pollAll()).containsExactly(1L);
+
+        // Streams are only checked once per max age.
+        addEvents(2L, 1);
+        streamBatches.checkAge(nowMs + MAX_AGE_MS + 1);
+        assertThat(streamBatches.pollReady()).isNull();
+        streamBatches.checkAge(nowMs + MAX_AGE_MS * 3);
+        assertThat(pollAll()).containsExactly(2L);
+    }
+
+    @Test
+    void testReadyAllWhenIdle() {
+        addEvents(1L, 1);
+        addEvents(2L, 1);
+
+        // Nothing else is arriving so the small batches are extracted straight away rather than waiting.
+        streamBatches.readyAll();
+        assertThat(pollAll()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(readyCount.get()).isEqualTo(2);
+
+        // Streams already waiting to be extracted aren't queued again.
+        streamBatches.readyAll();
+        assertThat(streamBatches.pollReady()).isNull();
+    }
+
+    @Test
+    void testNewBatchAfterExtraction() {
+        addEvents(1L, BATCH_SIZE);
+        assertThat(pollAll()).containsExactly(1L);
+
+        // Once the events have been taken for extraction any new events form a new batch.
+        streamBatches.getStreamEventMap().remove(1L);
+        addEvents(1L, 1);
+        assertThat(streamBatches.pollReady()).isNull();
+        addEvents(1L, BATCH_SIZE - 1);
+        assertThat(pollAll()).containsExactly(1L);
+    }
+
+    private void addEvents(final long streamId, final int count) {
+        for (int i = 0; i < count; i++) {
+            streamBatches.getStreamEventMap()
+                    .computeIfAbsent(streamId, k -> new StreamEvents())
+                    .add(new Event(i, null));
+            streamBatches.onEventAdded(streamId);
+        }
+    }
+
+    private List<Long> pollAll() {
+        final List<Long> list = new ArrayList<>();
+        Long streamId;
+        while ((streamId = streamBatches.pollReady()) != null) {
+            list.add(streamId);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.extraction;
+
+import com.codahale.metrics.health.HealthCheck;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import stroom.dashboard.expression.v1.Val;
+import stroom.dashboard.expression.v1.ValLong;
+import stroom.index.shared.IndexConstants;
+import stroom.meta.shared.FindMetaCriteria;
+import stroom.meta.shared.Meta;
+import stroom.meta.shared.MetaService;
+import stroom.pipeline.errorhandler.ErrorReceiver;
+import stroom.security.api.SecurityContext;
+import stroom.util.shared.BaseResultList;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestStreamMapCreator {
+    private static final String[] STORED_FIELDS = {IndexConstants.STREAM_ID, IndexConstants.EVENT_ID};
+    // Stream 3 can't be read by the current user.
+    private static final List<Long> READABLE_STREAM_IDS = Arrays.asList(1L, 2L, 4L);
+
+    private final MetaService metaService = mock(MetaService.class);
+    private final SecurityContext securityContext = mock(SecurityContext.class);
+    private final ExtractionConfig extractionConfig = new ExtractionConfig();
+    private final StreamPermissionMetrics streamPermissionMetrics = new StreamPermissionMetrics();
+    private final Map<Long, StreamEvents> storedDataMap = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        when(securityContext.useAsReadResult(any())).thenAnswer(invocation ->
+                ((Supplier<Object>) invocation.getArgument(0)).get());
+        when(metaService.find(any(FindMetaCriteria.class))).thenAnswer(invocation -> {
+            final List<Meta> list = READABLE_STREAM_IDS.stream()
+                    .map(id -> new Meta.Builder().id(id).build())
+                    .collect(Collectors.toList());
+            return new BaseResultList<>(list, 0L, (long) list.size(), true);
+        });
+    }
+
+    @Test
+    void testOneLookupPerBatch() {
+        extractionConfig.setStreamLookupBatchSize(2);
+        final StreamMapCreator streamMapCreator = createStreamMapCreator();
+
+        // The second stream fills the batch and triggers a lookup.
+        addEvent(streamMapCreator, 1L, 1L);
+        addEvent(streamMapCreator, 2L, 1L);
+        assertThat(streamPermissionMetrics.getLookupCount()).isEqualTo(1);
+
+        // The rest are held until the search flushes them.
+        addEvent(streamMapCreator, 3L, 1L);
+        streamMapCreator.flush(storedDataMap, streamId -> {
+        });
+
+        verify(metaService, times(2)).find(any(FindMetaCriteria.class));
+        assertThat(streamPermissionMetrics.getLookupCount()).isEqualTo(2);
+        assertThat(streamPermissionMetrics.getLookupStreamCount()).isEqualTo(3);
+        assertThat(storedDataMap.keySet()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void testCachedStreamsNotLookedUpAgain() {
+        extractionConfig.setStreamLookupBatchSize(1);
+        final StreamMapCreator streamMapCreator = createStreamMapCreator();
+
+        addEvent(streamMapCreator, 1L, 1L);
+        addEvent(streamMapCreator, 3L, 1L);
+        addEvent(streamMapCreator, 1L, 2L);
+        addEvent(streamMapCreator, 3L, 2L);
+
+        verify(metaService, times(2)).find(any(FindMetaCriteria.class));
+        assertThat(streamPermissionMetrics.getCacheHitCount()).isEqualTo(2);
+        assertThat(storedDataMap.keySet()).containsExactly(1L);
+        assertThat(storedDataMap.get(1L).size()).isEqualTo(2);
+    }
+
+    @Test
+    void testHealthCheck() {
+        extractionConfig.setStreamLookupBatchSize(1);
+        final StreamMapCreator streamMapCreator = createStreamMapCreator();
+
+        addEvent(streamMapCreator, 1L, 1L);
+        addEvent(streamMapCreator, 1L, 2L);
+
+        final HealthCheck.Result result = streamPermissionMetrics.getHealth();
+        assertThat(result.isHealthy()).isTrue();
+        assertThat(result.getDetails())
+                .containsEntry("lookups", 1L)
+                .containsEntry("streamsLookedUp", 1L)
+                .containsEntry("cacheHits", 1L)
+                .containsKey("lookupTimeMs");
+    }
+
+    private StreamMapCreator createStreamMapCreator() {
+        return new StreamMapCreator(
+                STORED_FIELDS,
+                mock(ErrorReceiver.class),
+                metaService,
+                securityContext,
+                extractionConfig,
+                streamPermissionMetrics);
+    }
+
+    private void addEvent(final StreamMapCreator streamMapCreator, final long streamId, final long eventId) {
+        final Val[] storedData = {ValLong.create(streamId), ValLong.create(eventId)};
+        streamMapCreator.addEvent(storedDataMap, storedData, id -> {
+        });
+    }
+}
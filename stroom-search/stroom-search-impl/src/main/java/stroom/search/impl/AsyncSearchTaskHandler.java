@@ -26,14 +26,20 @@ import stroom.cluster.task.api.NullClusterStateException;
 import stroom.cluster.task.api.TargetNodeSetFactory;
 import stroom.cluster.task.api.TargetType;
 import stroom.cluster.task.api.TerminateTaskClusterTask;
+import stroom.dashboard.expression.v1.FieldIndexMap;
 import stroom.index.impl.IndexShardService;
 import stroom.index.impl.IndexStore;
 import stroom.index.shared.FindIndexShardCriteria;
+import stroom.index.shared.IndexConstants;
 import stroom.index.shared.IndexDoc;
 import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexFieldType;
 import stroom.index.shared.IndexShard;
 import stroom.index.shared.IndexShard.IndexShardStatus;
+import stroom.query.api.v2.Param;
 import stroom.query.api.v2.Query;
+import stroom.query.common.v2.CoprocessorSettings;
+import stroom.query.common.v2.CoprocessorSettingsMap.CoprocessorKey;
 import stroom.security.api.SecurityContext;
 import stroom.task.api.AbstractTaskHandler;
 import stroom.task.api.GenericServerTask;
@@ -46,6 +52,7 @@ import stroom.util.shared.VoidResult;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -66,6 +73,8 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
     private final IndexShardService indexShardService;
     private final TaskManager taskManager;
     private final SecurityContext securityContext;
+    private final SearchConfig searchConfig;
+    private final CoprocessorFactory coprocessorFactory;
 
     @Inject
     AsyncSearchTaskHandler(final TaskContext taskContext,
@@ -75,7 +84,9 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                            final IndexStore indexStore,
                            final IndexShardService indexShardService,
                            final TaskManager taskManager,
-                           final SecurityContext securityContext) {
+                           final SecurityContext securityContext,
+                           final SearchConfig searchConfig,
+                           final CoprocessorFactory coprocessorFactory) {
         this.taskContext = taskContext;
         this.targetNodeSetFactory = targetNodeSetFactory;
         this.dispatchAsyncProvider = dispatchAsyncProvider;
@@ -84,6 +95,8 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
         this.indexShardService = indexShardService;
         this.taskManager = taskManager;
         this.securityContext = securityContext;
+        this.searchConfig = searchConfig;
+        this.coprocessorFactory = coprocessorFactory;
     }
 
     @Override
@@ -105,11 +118,10 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                     final IndexDoc index = indexStore.readDocument(query.getDataSource());
 
                     // Get an array of stored index fields that will be used for
-                    // getting stored data.
-                    // TODO : Specify stored fields based on the fields that all
-                    // coprocessors will require. Also
-                    // batch search only needs stream and event id stored fields.
-                    final String[] storedFields = getStoredFields(index);
+                    // getting stored data. Only the fields that the coprocessors
+                    // will require are loaded from each hit.
+                    final String[] storedFields = getStoredFields(index, query, task.getCoprocessorMap());
+                    LOGGER.debug("Projected stored fields for {} are {}", task.getSearchName(), Arrays.toString(storedFields));
 
                     // Get a list of search index shards to look through.
                     final FindIndexShardCriteria findIndexShardCriteria = new FindIndexShardCriteria();
@@ -121,10 +133,20 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                     findIndexShardCriteria.addSort(FindIndexShardCriteria.FIELD_ID, Direction.DESCENDING, false);
                     final List<IndexShard> indexShards = indexShardService.find(findIndexShardCriteria);
 
+                    // Work out which shards can't contain matching events from their time partition.
+                    final ShardPartitionPruner shardPartitionPruner = new ShardPartitionPruner(
+                            query.getExpression(),
+                            getShardPruningTimeField(index),
+                            task.getDateTimeLocale(),
+                            task.getNow());
+
                     // Build a map of nodes that will deal with each set of shards.
                     final Map<String, List<Long>> shardMap = new HashMap<>();
+                    int prunedShardCount = 0;
                     for (final IndexShard indexShard : indexShards) {
-                        if (IndexShardStatus.CORRUPT.equals(indexShard.getStatus())) {
+                        if (shardPartitionPruner.canPrune(indexShard)) {
+                            prunedShardCount++;
+                        } else if (IndexShardStatus.CORRUPT.equals(indexShard.getStatus())) {
                             resultCollector.getErrorSet(indexShard.getNodeName()).add(
                                     "Attempt to search an index shard marked as corrupt: id=" + indexShard.getId() + ".");
                         } else {
@@ -133,6 +155,16 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                         }
                     }
 
+                    if (prunedShardCount > 0) {
+                        LOGGER.debug("Pruned {} of {} shards for {} as their partitions end before {}",
+                                prunedShardCount,
+                                indexShards.size(),
+                                task.getSearchName(),
+                                shardPartitionPruner.getEarliestEventTime().orElse(null));
+                        taskContext.info(task.getSearchName() + " - skipping " + prunedShardCount +
+                                " shards outside the query time range");
+                    }
+
                     // Start remote cluster search execution.
                     final Map<String, List<Long>> filteredShardNodes = shardMap.entrySet().stream()
                             .filter(entry -> {
@@ -219,11 +251,70 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
         taskManager.execAsync(outerTask);
     }
 
-    private String[] getStoredFields(final IndexDoc index) {
+    private String getShardPruningTimeField(final IndexDoc index) {
+        // Only prune if the index actually has the configured event time field as a date field.
+        final String timeField = searchConfig.getShardPruningTimeField();
+        if (timeField == null || timeField.isEmpty() || index.getFields() == null) {
+            return null;
+        }
         return index.getFields()
+                .stream()
+                .filter(field -> timeField.equals(field.getFieldName()))
+                .filter(field -> IndexFieldType.DATE_FIELD.equals(field.getFieldType()))
+                .findAny()
+                .map(IndexField::getFieldName)
+                .orElse(null);
+    }
+
+    /**
+     * Get the stored index fields that need to be loaded for each hit. These are the stored fields referenced by
+     * coprocessors that receive stored data directly plus the stream and event id fields that are always needed to
+     * check stream permissions and extract events. If the required fields can't be determined then all stored fields
+     * are returned.
+     */
+    private String[] getStoredFields(final IndexDoc index,
+                                     final Query query,
+                                     final Map<CoprocessorKey, CoprocessorSettings> coprocessorMap) {
+        final String[] allStoredFields = index.getFields()
                 .stream()
                 .filter(IndexField::isStored)
                 .map(IndexField::getFieldName)
                 .toArray(String[]::new);
+        if (coprocessorMap == null) {
+            return allStoredFields;
+        }
+
+        // Create the coprocessors that will use stored data against a map that records every field they ask for.
+        final FieldIndexMap fieldIndexMap = new FieldIndexMap(true);
+        try {
+            final Map<String, String> paramMap;
+            if (query.getParams() != null) {
+                paramMap = query.getParams().stream()
+                        .collect(Collectors.toMap(Param::getKey, Param::getValue));
+            } else {
+                paramMap = Collections.emptyMap();
+            }
+
+            for (final CoprocessorSettings coprocessorSettings : coprocessorMap.values()) {
+                if (!coprocessorSettings.extractValues() || coprocessorSettings.getExtractionPipeline() == null
+                        || coprocessorSettings.getExtractionPipeline().getUuid() == null) {
+                    coprocessorFactory.create(coprocessorSettings, fieldIndexMap, paramMap, taskContext);
+                }
+            }
+        } catch (final RuntimeException e) {
+            // The cluster search will report the problem so just load everything.
+            LOGGER.debug("Unable to determine required stored fields", e);
+            return allStoredFields;
+        }
+
+        final String[] storedFields = Arrays.stream(allStoredFields)
+                .filter(fieldName -> IndexConstants.STREAM_ID.equals(fieldName)
+                        || IndexConstants.EVENT_ID.equals(fieldName)
+                        || fieldIndexMap.get(fieldName) != -1)
+                .toArray(String[]::new);
+        if (storedFields.length == 0) {
+            return allStoredFields;
+        }
+        return storedFields;
     }
 }
@@ -72,6 +72,8 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
     private final Sizes defaultMaxResultsSizes;
     private final Sizes storeSize;
     private final CompletionState completionState;
+    private final SearchResultChangesImpl searchResultChanges;
+    private final AtomicLong changeCount = new AtomicLong();
 
     ClusterSearchResultCollector(final TaskManager taskManager,
                                  final TaskContext taskContext,
@@ -83,7 +85,8 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
                                  final ResultHandler resultHandler,
                                  final Sizes defaultMaxResultsSizes,
                                  final Sizes storeSize,
-                                 final CompletionState completionState) {
+                                 final CompletionState completionState,
+                                 final SearchResultChangesImpl searchResultChanges) {
         this.taskManager = taskManager;
         this.taskContext = taskContext;
         this.task = task;
@@ -95,6 +98,7 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
         this.defaultMaxResultsSizes = defaultMaxResultsSizes;
         this.storeSize = storeSize;
         this.completionState = completionState;
+        this.searchResultChanges = searchResultChanges;
 
         id = CollectorIdFactory.create();
 
@@ -117,10 +121,12 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
                     LOGGER.error(t.getMessage(), t);
                     getErrorSet(nodeName).add(t.getMessage());
                     completionState.complete();
+                    changed();
                     throw new RuntimeException(t.getMessage(), t);
                 }
 
                 completionState.complete();
+                changed();
             }
         });
     }
@@ -133,6 +139,7 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
 
     public void complete() {
         completionState.complete();
+        changed();
 
         // We have to wrap the cluster termination task in another task or
         // ClusterDispatchAsyncImpl
@@ -210,6 +217,7 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
                 waitForPendingWork();
                 completionState.complete();
             }
+            changed();
         }
     }
 
@@ -236,6 +244,7 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
             if (remainingNodeCount.compareAndSet(0, 0)) {
                 completionState.complete();
             }
+            changed();
         }
     }
 
@@ -318,6 +327,18 @@ public class ClusterSearchResultCollector implements Store, ClusterResultCollect
                 '}';
     }
 
+    /**
+     * @return A count that is incremented whenever results are received from a node or the search completes.
+     */
+    long getChangeCount() {
+        return changeCount.get();
+    }
+
+    private void changed() {
+        changeCount.incrementAndGet();
+        searchResultChanges.signal();
+    }
+
     void setExpectedNodes(final Set<String> expectedNodes) {
         expectedNodes.forEach(node -> remainingNodes.put(node, new AtomicLong()));
         remainingNodeCount.set(expectedNodes.size());
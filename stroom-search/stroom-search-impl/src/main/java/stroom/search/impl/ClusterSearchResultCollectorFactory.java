@@ -32,16 +32,19 @@ public class ClusterSearchResultCollectorFactory {
     private final TaskContext taskContext;
     private final ClusterDispatchAsyncHelper dispatchHelper;
     private final ClusterResultCollectorCache clusterResultCollectorCache;
+    private final SearchResultChangesImpl searchResultChanges;
 
     @Inject
     private ClusterSearchResultCollectorFactory(final TaskManager taskManager,
                                                 final TaskContext taskContext,
                                                 final ClusterDispatchAsyncHelper dispatchHelper,
-                                                final ClusterResultCollectorCache clusterResultCollectorCache) {
+                                                final ClusterResultCollectorCache clusterResultCollectorCache,
+                                                final SearchResultChangesImpl searchResultChanges) {
         this.taskManager = taskManager;
         this.taskContext = taskContext;
         this.dispatchHelper = dispatchHelper;
         this.clusterResultCollectorCache = clusterResultCollectorCache;
+        this.searchResultChanges = searchResultChanges;
     }
 
     public ClusterSearchResultCollector create(final AsyncSearchTask task,
@@ -61,6 +64,7 @@ public class ClusterSearchResultCollectorFactory {
                 resultHandler,
                 defaultMaxResultsSizes,
                 storeSize,
-                completionState);
+                completionState,
+                searchResultChanges);
     }
 }
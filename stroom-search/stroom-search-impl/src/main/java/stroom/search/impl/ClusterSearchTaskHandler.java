@@ -39,6 +39,7 @@ import stroom.search.extraction.ExtractionTaskExecutor;
 import stroom.search.extraction.ExtractionTaskHandler;
 import stroom.search.extraction.ExtractionTaskProducer;
 import stroom.search.extraction.StreamMapCreator;
+import stroom.search.extraction.StreamPermissionMetrics;
 import stroom.search.extraction.Values;
 import stroom.search.impl.SearchExpressionQueryBuilder.SearchExpressionQuery;
 import stroom.search.impl.shard.IndexShardSearchConfig;
@@ -91,6 +92,7 @@ class ClusterSearchTaskHandler implements TaskHandler<ClusterSearchTask, NodeRes
     private final ExtractionConfig extractionConfig;
     private final MetaService metaService;
     private final SecurityContext securityContext;
+    private final StreamPermissionMetrics streamPermissionMetrics;
     private final int maxBooleanClauseCount;
     private final int maxStoredDataQueueSize;
     private final LinkedBlockingQueue<String> errors = new LinkedBlockingQueue<>();
@@ -117,7 +119,8 @@ class ClusterSearchTaskHandler implements TaskHandler<ClusterSearchTask, NodeRes
                              final SearchConfig searchConfig,
                              final Provider<IndexShardSearchTaskHandler> indexShardSearchTaskHandlerProvider,
                              final Provider<ExtractionTaskHandler> extractionTaskHandlerProvider,
-                             final ExecutorProvider executorProvider) {
+                             final ExecutorProvider executorProvider,
+                             final StreamPermissionMetrics streamPermissionMetrics) {
         this.indexStore = indexStore;
         this.wordListProvider = wordListProvider;
         this.taskContext = taskContext;
@@ -128,6 +131,7 @@ class ClusterSearchTaskHandler implements TaskHandler<ClusterSearchTask, NodeRes
         this.extractionConfig = extractionConfig;
         this.metaService = metaService;
         this.securityContext = securityContext;
+        this.streamPermissionMetrics = streamPermissionMetrics;
         this.maxBooleanClauseCount = searchConfig.getMaxBooleanClauseCount();
         this.maxStoredDataQueueSize = searchConfig.getMaxStoredDataQueueSize();
         this.indexShardSearchTaskHandlerProvider = indexShardSearchTaskHandlerProvider;
@@ -333,7 +337,7 @@ class ClusterSearchTaskHandler implements TaskHandler<ClusterSearchTask, NodeRes
 
                     // Create an object to make event lists from raw index data.
                     final StreamMapCreator streamMapCreator = new StreamMapCreator(task.getStoredFields(), this,
-                            metaService, securityContext);
+                            metaService, securityContext, extractionConfig, streamPermissionMetrics);
 
                     // Make a task producer that will create event data extraction tasks when requested by the executor.
                     final Executor extractionExecutor = executorProvider.getExecutor(ExtractionTaskProducer.THREAD_POOL);
@@ -344,7 +348,7 @@ class ClusterSearchTaskHandler implements TaskHandler<ClusterSearchTask, NodeRes
                             extractionFieldIndexMap,
                             extractionCoprocessorsMap,
                             this,
-                            extractionConfig.getMaxThreadsPerTask(),
+                            extractionConfig,
                             extractionExecutor,
                             extractionTaskHandlerProvider);
 
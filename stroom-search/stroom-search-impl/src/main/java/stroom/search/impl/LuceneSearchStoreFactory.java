@@ -20,15 +20,18 @@ package stroom.search.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.dictionary.api.WordListProvider;
+import stroom.docref.DocRef;
 import stroom.index.impl.IndexStore;
 import stroom.index.impl.LuceneVersionUtil;
 import stroom.index.shared.IndexDoc;
 import stroom.index.shared.IndexFieldsMap;
+import stroom.meta.shared.MetaSecurityFilter;
 import stroom.node.api.NodeInfo;
 import stroom.query.api.v2.ExpressionOperator;
 import stroom.query.api.v2.Query;
 import stroom.query.api.v2.SearchRequest;
 import stroom.query.common.v2.CompletionState;
+import stroom.query.common.v2.CoprocessorSettings;
 import stroom.query.common.v2.CoprocessorSettingsMap;
 import stroom.query.common.v2.SearchResultHandler;
 import stroom.query.common.v2.Sizes;
@@ -37,8 +40,10 @@ import stroom.query.common.v2.StoreFactory;
 import stroom.search.impl.SearchExpressionQueryBuilder.SearchExpressionQuery;
 import stroom.security.api.SecurityContext;
 import stroom.security.api.UserTokenUtil;
+import stroom.security.shared.DocumentPermissionNames;
 import stroom.security.shared.UserToken;
 import stroom.ui.config.shared.UiConfig;
+import stroom.util.shared.PermissionException;
 
 import javax.inject.Inject;
 import java.util.Arrays;
@@ -59,6 +64,8 @@ public class LuceneSearchStoreFactory implements StoreFactory {
     private final int maxBooleanClauseCount;
     private final SecurityContext securityContext;
     private final ClusterSearchResultCollectorFactory clusterSearchResultCollectorFactory;
+    private final SharedSearchStores sharedSearchStores;
+    private final MetaSecurityFilter metaSecurityFilter;
 
     @Inject
     public LuceneSearchStoreFactory(final IndexStore indexStore,
@@ -67,7 +74,9 @@ public class LuceneSearchStoreFactory implements StoreFactory {
                                     final UiConfig clientConfig,
                                     final NodeInfo nodeInfo,
                                     final SecurityContext securityContext,
-                                    final ClusterSearchResultCollectorFactory clusterSearchResultCollectorFactory) {
+                                    final ClusterSearchResultCollectorFactory clusterSearchResultCollectorFactory,
+                                    final SharedSearchStores sharedSearchStores,
+                                    final MetaSecurityFilter metaSecurityFilter) {
         this.indexStore = indexStore;
         this.wordListProvider = wordListProvider;
         this.searchConfig = searchConfig;
@@ -76,27 +85,56 @@ public class LuceneSearchStoreFactory implements StoreFactory {
         this.maxBooleanClauseCount = searchConfig.getMaxBooleanClauseCount();
         this.securityContext = securityContext;
         this.clusterSearchResultCollectorFactory = clusterSearchResultCollectorFactory;
+        this.sharedSearchStores = sharedSearchStores;
+        this.metaSecurityFilter = metaSecurityFilter;
     }
 
     public Store create(final SearchRequest searchRequest) {
+        // Get the search.
+        final Query query = searchRequest.getQuery();
+
+        // Load the index. This also checks the current user can use it as they may be given results from a search
+        // started by another user.
+        final IndexDoc index = securityContext.useAsReadResult(() -> indexStore.readDocument(query.getDataSource()));
+
+        // Create a coprocessor settings map.
+        final CoprocessorSettingsMap coprocessorSettingsMap = CoprocessorSettingsMap.create(searchRequest);
+        checkExtractionPipelines(coprocessorSettingsMap);
+
+        // Attach to an identical search from a user with the same stream permissions if there is one, otherwise start
+        // a new one.
+        final ExpressionOperator streamPermissionFilter = metaSecurityFilter
+                .getExpression(DocumentPermissionNames.READ)
+                .orElse(null);
+        return sharedSearchStores.subscribe(streamPermissionFilter, searchRequest, () ->
+                createCollector(searchRequest, index, coprocessorSettingsMap));
+    }
+
+    private void checkExtractionPipelines(final CoprocessorSettingsMap coprocessorSettingsMap) {
+        for (final CoprocessorSettings coprocessorSettings : coprocessorSettingsMap.getMap().values()) {
+            final DocRef pipelineRef = coprocessorSettings.getExtractionPipeline();
+            if (coprocessorSettings.extractValues() && pipelineRef != null && pipelineRef.getUuid() != null
+                    && !securityContext.hasDocumentPermission(pipelineRef.getType(), pipelineRef.getUuid(), DocumentPermissionNames.USE)) {
+                throw new PermissionException(securityContext.getUserId(), "You are not authorised to use the extraction pipeline " + pipelineRef);
+            }
+        }
+    }
+
+    private ClusterSearchResultCollector createCollector(final SearchRequest searchRequest,
+                                                         final IndexDoc index,
+                                                         final CoprocessorSettingsMap coprocessorSettingsMap) {
         // Get the current time in millis since epoch.
         final long nowEpochMilli = System.currentTimeMillis();
 
         // Get the search.
         final Query query = searchRequest.getQuery();
 
-        // Load the index.
-        final IndexDoc index = securityContext.useAsReadResult(() -> indexStore.readDocument(query.getDataSource()));
-
         // Extract highlights.
         final Set<String> highlights = getHighlights(index, query.getExpression(), searchRequest.getDateTimeLocale(), nowEpochMilli);
 
         // This is a new search so begin a new asynchronous search.
         final String nodeName = nodeInfo.getThisNodeName();
 
-        // Create a coprocessor settings map.
-        final CoprocessorSettingsMap coprocessorSettingsMap = CoprocessorSettingsMap.create(searchRequest);
-
         // Create an asynchronous search task.
         final UserToken userToken = UserTokenUtil.create(securityContext.getUserId());
         final String searchName = "Search '" + searchRequest.getKey().toString() + "'";
@@ -134,9 +172,6 @@ public class LuceneSearchStoreFactory implements StoreFactory {
         // Tell the task where results will be collected.
         asyncSearchTask.setResultCollector(searchResultCollector);
 
-        // Start asynchronous search execution.
-        searchResultCollector.start();
-
         return searchResultCollector;
     }
 
@@ -1,10 +1,12 @@
 package stroom.search.impl;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import stroom.search.extraction.ExtractionConfig;
 import stroom.search.impl.shard.IndexShardSearchConfig;
 import stroom.util.shared.IsConfig;
+import stroom.util.shared.ModelStringUtil;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -22,6 +24,8 @@ public class SearchConfig implements IsConfig {
     private int maxStoredDataQueueSize = DEFAULT_MAX_STORED_DATA_QUEUE_SIZE;
     private int maxBooleanClauseCount = DEFAULT_MAX_BOOLEAN_CLAUSE_COUNT;
     private String storeSize = "1000000,100,10,1";
+    private String shardPruningTimeField;
+    private String sharedSearchMaxAge = "1m";
     private ExtractionConfig extractionConfig;
     private IndexShardSearchConfig shardConfig;
 
@@ -64,6 +68,34 @@ public class SearchConfig implements IsConfig {
         this.storeSize = storeSize;
     }
 
+    @JsonPropertyDescription("The name of the date field that holds the event time in indexes. Index shards with a " +
+            "time partition that ended before the earliest event time a query can match are not searched. " +
+            "Only set this if events are always indexed from streams created after the event occurred, e.g. " +
+            "EventTime. Leave empty to search all shards.")
+    public String getShardPruningTimeField() {
+        return shardPruningTimeField;
+    }
+
+    public void setShardPruningTimeField(final String shardPruningTimeField) {
+        this.shardPruningTimeField = shardPruningTimeField;
+    }
+
+    @JsonPropertyDescription("How long after it started a complete search will be shared with identical searches " +
+            "before a new search is run. Relative dates in the query are resolved when a search starts so results " +
+            "may be up to this old. In ms (but can be specified as 10s, 1m)")
+    public String getSharedSearchMaxAge() {
+        return sharedSearchMaxAge;
+    }
+
+    public void setSharedSearchMaxAge(final String sharedSearchMaxAge) {
+        this.sharedSearchMaxAge = sharedSearchMaxAge;
+    }
+
+    @JsonIgnore
+    public long getSharedSearchMaxAgeMs() {
+        return ModelStringUtil.parseDurationString(sharedSearchMaxAge);
+    }
+
     @JsonProperty("extraction")
     public ExtractionConfig getExtractionConfig() {
         return extractionConfig;
@@ -88,6 +120,8 @@ public class SearchConfig implements IsConfig {
                 "maxStoredDataQueueSize=" + maxStoredDataQueueSize +
                 ", maxBooleanClauseCount=" + maxBooleanClauseCount +
                 ", storeSize='" + storeSize + '\'' +
+                ", shardPruningTimeField='" + shardPruningTimeField + '\'' +
+                ", sharedSearchMaxAge='" + sharedSearchMaxAge + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -20,8 +20,12 @@ public class SearchJobsModule extends ScheduledJobsModule {
 
     private static class EvictExpiredElements extends TaskConsumer {
         @Inject
-        EvictExpiredElements(final LuceneSearchResponseCreatorManager luceneSearchResponseCreatorManager) {
-            super(task -> luceneSearchResponseCreatorManager.evictExpiredElements());
+        EvictExpiredElements(final LuceneSearchResponseCreatorManager luceneSearchResponseCreatorManager,
+                             final SharedSearchStores sharedSearchStores) {
+            super(task -> {
+                luceneSearchResponseCreatorManager.evictExpiredElements();
+                sharedSearchStores.evictExpiredSearches();
+            });
         }
     }
 }
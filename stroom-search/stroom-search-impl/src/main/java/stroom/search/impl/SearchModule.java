@@ -18,10 +18,12 @@ package stroom.search.impl;
 
 import com.google.inject.AbstractModule;
 import stroom.search.api.EventSearch;
+import stroom.search.api.SearchResultChanges;
 import stroom.search.extraction.ExtractionModule;
 import stroom.task.api.TaskHandlerBinder;
 import stroom.util.RestResource;
 import stroom.util.guice.GuiceUtil;
+import stroom.util.guice.HealthCheckBinder;
 import stroom.util.shared.Clearable;
 
 public class SearchModule extends AbstractModule {
@@ -30,12 +32,16 @@ public class SearchModule extends AbstractModule {
         install(new ExtractionModule());
 
         bind(EventSearch.class).to(EventSearchImpl.class);
+        bind(SearchResultChanges.class).to(SearchResultChangesImpl.class);
 
         GuiceUtil.buildMultiBinder(binder(), Clearable.class).addBinding(LuceneSearchResponseCreatorManager.class);
 
         GuiceUtil.buildMultiBinder(binder(), RestResource.class)
                 .addBinding(StroomIndexQueryResourceImpl.class);
 
+        HealthCheckBinder.create(binder())
+                .bind(SharedSearchStores.class);
+
         TaskHandlerBinder.create(binder())
                 .bind(AsyncSearchTask.class, AsyncSearchTaskHandler.class)
                 .bind(ClusterSearchTask.class, ClusterSearchTaskHandler.class)
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search.impl;
+
+import stroom.query.api.v2.QueryKey;
+import stroom.search.api.SearchResultChanges;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the search result collector used by each query on this node so that callers can wait for
+ * the collector to receive new results. Every collector signals the same lock so a waiter is woken
+ * by any change and then checks whether one of the queries it is interested in has changed.
+ */
+@Singleton
+class SearchResultChangesImpl implements SearchResultChanges {
+    private final Map<QueryKey, ClusterSearchResultCollector> collectors = new ConcurrentHashMap<>();
+    private final Object changeLock = new Object();
+
+    void register(final QueryKey queryKey, final ClusterSearchResultCollector collector) {
+        collectors.put(queryKey, collector);
+    }
+
+    void unregister(final QueryKey queryKey, final ClusterSearchResultCollector collector) {
+        collectors.remove(queryKey, collector);
+        signal();
+    }
+
+    /**
+     * Wake anything waiting for a change. Called by a collector after its change count has been incremented.
+     */
+    void signal() {
+        synchronized (changeLock) {
+            changeLock.notifyAll();
+        }
+    }
+
+    @Override
+    public Long getChangeCount(final QueryKey queryKey) {
+        final ClusterSearchResultCollector collector = collectors.get(queryKey);
+        if (collector == null) {
+            return null;
+        }
+        return collector.getChangeCount();
+    }
+
+    @Override
+    public boolean awaitChange(final Map<QueryKey, Long> changeCounts, final long timeoutMs) throws InterruptedException {
+        final long waitUntil = System.currentTimeMillis() + timeoutMs;
+        synchronized (changeLock) {
+            while (!hasChanged(changeCounts)) {
+                final long remaining = waitUntil - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                changeLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    private boolean hasChanged(final Map<QueryKey, Long> changeCounts) {
+        for (final Entry<QueryKey, Long> entry : changeCounts.entrySet()) {
+            if (!Objects.equals(getChangeCount(entry.getKey()), entry.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.index.shared.IndexShard;
+import stroom.query.api.v2.ExpressionItem;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionTerm;
+import stroom.query.common.v2.DateExpressionParser;
+
+import java.util.Optional;
+
+/**
+ * Works out the earliest event time that a query expression can match so that
+ * index shards with a time partition that ended before then are not searched.
+ * <p>
+ * Shards are partitioned by the time the stream they were indexed from was
+ * created. Events always occur at or before that time so a shard can't contain
+ * events after the end of its partition. The reverse is not true, events can
+ * arrive long after they occurred, so only the lower bound of the query is used.
+ */
+class ShardPartitionPruner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardPartitionPruner.class);
+
+    private static final String DELIMITER = ",";
+
+    private final Long earliestEventTime;
+
+    ShardPartitionPruner(final ExpressionOperator expression,
+                         final String timeField,
+                         final String timeZoneId,
+                         final long nowEpochMilli) {
+        if (expression == null || timeField == null || timeField.isEmpty()) {
+            earliestEventTime = null;
+        } else {
+            earliestEventTime = new Visitor(timeField, timeZoneId, nowEpochMilli)
+                    .getLowerBound(expression)
+                    .orElse(null);
+        }
+        LOGGER.debug("Earliest event time for query on field {} is {}", timeField, earliestEventTime);
+    }
+
+    /**
+     * @return True if the shard's partition ended before the earliest event time that the query can match.
+     */
+    boolean canPrune(final IndexShard indexShard) {
+        return earliestEventTime != null
+                && indexShard.getPartitionToTime() != null
+                && indexShard.getPartitionToTime() <= earliestEventTime;
+    }
+
+    Optional<Long> getEarliestEventTime() {
+        return Optional.ofNullable(earliestEventTime);
+    }
+
+    private static class Visitor {
+        private final String timeField;
+        private final String timeZoneId;
+        private final long nowEpochMilli;
+
+        Visitor(final String timeField, final String timeZoneId, final long nowEpochMilli) {
+            this.timeField = timeField;
+            this.timeZoneId = timeZoneId;
+            this.nowEpochMilli = nowEpochMilli;
+        }
+
+        Optional<Long> getLowerBound(final ExpressionItem item) {
+            if (item instanceof ExpressionTerm) {
+                return getLowerBound((ExpressionTerm) item);
+            } else if (item instanceof ExpressionOperator) {
+                return getLowerBound((ExpressionOperator) item);
+            }
+            return Optional.empty();
+        }
+
+        private Optional<Long> getLowerBound(final ExpressionOperator operator) {
+            if (operator.getOp() == null || operator.getChildren() == null) {
+                return Optional.empty();
+            }
+
+            switch (operator.getOp()) {
+                case AND: {
+                    // Every child must match so the latest bound of any child applies.
+                    Long bound = null;
+                    for (final ExpressionItem child : operator.getChildren()) {
+                        if (child.enabled()) {
+                            final Optional<Long> childBound = getLowerBound(child);
+                            if (childBound.isPresent() && (bound == null || childBound.get() > bound)) {
+                                bound = childBound.get();
+                            }
+                        }
+                    }
+                    return Optional.ofNullable(bound);
+                }
+                case OR: {
+                    // Any child can match so every child must be bounded and the earliest applies.
+                    Long bound = null;
+                    for (final ExpressionItem child : operator.getChildren()) {
+                        if (child.enabled()) {
+                            final Optional<Long> childBound = getLowerBound(child);
+                            if (!childBound.isPresent()) {
+                                return Optional.empty();
+                            }
+                            if (bound == null || childBound.get() < bound) {
+                                bound = childBound.get();
+                            }
+                        }
+                    }
+                    return Optional.ofNullable(bound);
+                }
+                default:
+                    // We can't infer anything from a negation.
+                    return Optional.empty();
+            }
+        }
+
+        private Optional<Long> getLowerBound(final ExpressionTerm term) {
+            if (!timeField.equals(term.getField()) || term.getCondition() == null || term.getValue() == null) {
+                return Optional.empty();
+            }
+
+            final String value = term.getValue().trim();
+            switch (term.getCondition()) {
+                case EQUALS:
+                case GREATER_THAN:
+                case GREATER_THAN_OR_EQUAL_TO:
+                    return getDate(value);
+                case BETWEEN: {
+                    final String[] values = value.split(DELIMITER);
+                    if (values.length == 2) {
+                        return getDate(values[0].trim());
+                    }
+                    return Optional.empty();
+                }
+                case IN: {
+                    Long bound = null;
+                    for (final String val : value.split(DELIMITER)) {
+                        final Optional<Long> date = getDate(val.trim());
+                        if (!date.isPresent()) {
+                            return Optional.empty();
+                        }
+                        if (bound == null || date.get() < bound) {
+                            bound = date.get();
+                        }
+                    }
+                    return Optional.ofNullable(bound);
+                }
+                default:
+                    return Optional.empty();
+            }
+        }
+
+        private Optional<Long> getDate(final String value) {
+            try {
+                return DateExpressionParser.parse(value, timeZoneId, nowEpochMilli)
+                        .map(dateTime -> dateTime.toInstant().toEpochMilli());
+            } catch (final RuntimeException e) {
+                // The query builder will report the bad value so just don't prune.
+                LOGGER.debug("Unable to parse date '{}'", value, e);
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search.impl;
+
+import com.codahale.metrics.health.HealthCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.docref.DocRef;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.Param;
+import stroom.query.api.v2.Query;
+import stroom.query.api.v2.QueryKey;
+import stroom.query.api.v2.ResultRequest;
+import stroom.query.api.v2.SearchRequest;
+import stroom.query.api.v2.TableSettings;
+import stroom.query.common.v2.Data;
+import stroom.query.common.v2.Sizes;
+import stroom.query.common.v2.Store;
+import stroom.util.HasHealthCheck;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Lets identical searches share a single cluster search, e.g. when many users open the same
+ * dashboard. Each subscriber gets its own {@link Store} so paging of results is still done
+ * separately for each one.
+ * <p>
+ * Stream read permissions are applied as events are extracted, before results are aggregated, so
+ * a search is only shared between subscribers whose stream permission filter is the same. This
+ * means the results each subscriber sees are filtered by their own stream permissions.
+ * <p>
+ * A running search is destroyed when the last subscriber has finished with it. A complete search
+ * is kept and shared until it is older than the configured max age, as relative dates in the
+ * query were resolved when the search started.
+ */
+@Singleton
+class SharedSearchStores implements HasHealthCheck {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedSearchStores.class);
+
+    private final SearchConfig searchConfig;
+    private final SearchResultChangesImpl searchResultChanges;
+    private final ConcurrentHashMap<Key, SharedSearch> searches = new ConcurrentHashMap<>();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    @Inject
+    SharedSearchStores(final SearchConfig searchConfig,
+                       final SearchResultChangesImpl searchResultChanges) {
+        this.searchConfig = searchConfig;
+        this.searchResultChanges = searchResultChanges;
+    }
+
+    /**
+     * Get a store for the search, either by attaching to an identical search that is running or
+     * has not yet expired, or by starting a new one. The caller must have checked that the current
+     * user can use the data source and any extraction pipelines.
+     *
+     * @param streamPermissionFilter The filter that is applied to the streams the current user can
+     *                               read, or null if they can read all streams.
+     * @param collectorSupplier Creates the result collector for a new search. The collector will
+     *                          be started by this method. It may be called when another request
+     *                          starts the same search at the same time, in which case the unused
+     *                          collector is destroyed.
+     */
+    Store subscribe(final ExpressionOperator streamPermissionFilter,
+                    final SearchRequest searchRequest,
+                    final Supplier<ClusterSearchResultCollector> collectorSupplier) {
+        final Key key = new Key(streamPermissionFilter, searchRequest);
+        final long maxAgeMs = searchConfig.getSharedSearchMaxAgeMs();
+        while (true) {
+            final SharedSearch existing = searches.get(key);
+            if (existing != null && existing.addSubscriber(System.currentTimeMillis(), maxAgeMs)) {
+                sharedCount.incrementAndGet();
+                LOGGER.debug("Sharing search {} for {}", existing.collector, searchRequest.getKey());
+                return new SharedStore(searchRequest.getKey(), key, existing);
+            }
+
+            // Create the collector outside of the map so that slow work is not done while holding a map lock.
+            final SharedSearch created = new SharedSearch(collectorSupplier.get(), System.currentTimeMillis());
+            final boolean installed = existing == null
+                    ? searches.putIfAbsent(key, created) == null
+                    : searches.replace(key, existing, created);
+            if (installed) {
+                startedCount.incrementAndGet();
+                created.collector.start();
+                if (existing != null && existing.destroyIfUnused()) {
+                    // The search we replaced has expired and nobody is using it.
+                    existing.collector.destroy();
+                }
+                return new SharedStore(searchRequest.getKey(), key, created);
+            }
+
+            // Another request installed a search for the same key first so discard ours and try to share theirs.
+            LOGGER.debug("Discarding unused search {} for {}", created.collector, searchRequest.getKey());
+            created.collector.destroy();
+        }
+    }
+
+    private void unsubscribe(final Key key, final SharedSearch sharedSearch) {
+        if (sharedSearch.removeSubscriber(System.currentTimeMillis(), searchConfig.getSharedSearchMaxAgeMs())) {
+            searches.remove(key, sharedSearch);
+            sharedSearch.collector.destroy();
+        }
+    }
+
+    /**
+     * Destroy complete searches that nobody is using once they are older than the max age.
+     */
+    void evictExpiredSearches() {
+        final long nowMs = System.currentTimeMillis();
+        final long maxAgeMs = searchConfig.getSharedSearchMaxAgeMs();
+        searches.forEach((key, sharedSearch) -> {
+            if (sharedSearch.isExpired(nowMs, maxAgeMs) && sharedSearch.destroyIfUnused()) {
+                LOGGER.debug("Evicting expired search {}", sharedSearch.collector);
+                searches.remove(key, sharedSearch);
+                sharedSearch.collector.destroy();
+            }
+        });
+    }
+
+    long getStartedCount() {
+        return startedCount.get();
+    }
+
+    long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    @Override
+    public HealthCheck.Result getHealth() {
+        return HealthCheck.Result.builder()
+                .healthy()
+                .withDetail("startedSearches", startedCount.get())
+                .withDetail("sharedSearches", sharedCount.get())
+                .withDetail("currentSearches", searches.size())
+                .build();
+    }
+
+    private static class SharedSearch {
+        private final ClusterSearchResultCollector collector;
+        private final long startTimeMs;
+        private int subscribers = 1;
+        private boolean destroyed;
+
+        SharedSearch(final ClusterSearchResultCollector collector, final long startTimeMs) {
+            this.collector = collector;
+            this.startTimeMs = startTimeMs;
+        }
+
+        boolean isExpired(final long nowMs, final long maxAgeMs) {
+            return collector.isComplete() && nowMs - startTimeMs >= maxAgeMs;
+        }
+
+        /**
+         * @return True if the search can still be shared.
+         */
+        synchronized boolean addSubscriber(final long nowMs, final long maxAgeMs) {
+            if (destroyed || isExpired(nowMs, maxAgeMs)) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        /**
+         * @return True if this was the last subscriber and the search should now be destroyed. A
+         * complete search that has not expired is kept so that it can be shared with later requests.
+         */
+        synchronized boolean removeSubscriber(final long nowMs, final long maxAgeMs) {
+            subscribers--;
+            if (subscribers == 0 && (!collector.isComplete() || isExpired(nowMs, maxAgeMs))) {
+                destroyed = true;
+            }
+            return destroyed;
+        }
+
+        /**
+         * @return True if nobody is using the search so it has now been marked as destroyed.
+         */
+        synchronized boolean destroyIfUnused() {
+            if (destroyed || subscribers > 0) {
+                return false;
+            }
+            destroyed = true;
+            return true;
+        }
+    }
+
+    /**
+     * The parts of a search request that affect the results a search produces, along with the
+     * stream permission filter of the user. The query key and the paging of each result request
+     * are ignored as they are specific to each subscriber.
+     */
+    private static class Key {
+        private final ExpressionOperator streamPermissionFilter;
+        private final DocRef dataSource;
+        private final ExpressionOperator expression;
+        private final List<Param> params;
+        private final String dateTimeLocale;
+        private final List<List<Object>> resultRequests;
+        private final int hashCode;
+
+        Key(final ExpressionOperator streamPermissionFilter, final SearchRequest searchRequest) {
+            final Query query = searchRequest.getQuery();
+            this.streamPermissionFilter = streamPermissionFilter;
+            this.dataSource = query.getDataSource();
+            this.expression = query.getExpression();
+            this.params = query.getParams();
+            this.dateTimeLocale = searchRequest.getDateTimeLocale();
+            if (searchRequest.getResultRequests() == null) {
+                this.resultRequests = Collections.emptyList();
+            } else {
+                this.resultRequests = searchRequest.getResultRequests()
+                        .stream()
+                        .map(Key::getResultKey)
+                        .collect(Collectors.toList());
+            }
+            this.hashCode = Objects.hash(streamPermissionFilter, dataSource, expression, params, dateTimeLocale, resultRequests);
+        }
+
+        private static List<Object> getResultKey(final ResultRequest resultRequest) {
+            final List<TableSettings> mappings = resultRequest.getMappings();
+            return List.of(
+                    Objects.toString(resultRequest.getComponentId(), ""),
+                    Objects.toString(resultRequest.getResultStyle(), ""),
+                    mappings == null ? Collections.emptyList() : mappings);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return Objects.equals(streamPermissionFilter, key.streamPermissionFilter) &&
+                    Objects.equals(dataSource, key.dataSource) &&
+                    Objects.equals(expression, key.expression) &&
+                    Objects.equals(params, key.params) &&
+                    Objects.equals(dateTimeLocale, key.dateTimeLocale) &&
+                    Objects.equals(resultRequests, key.resultRequests);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A subscriber's view of a shared search.
+     */
+    private class SharedStore implements Store {
+        private final QueryKey queryKey;
+        private final Key key;
+        private final SharedSearch sharedSearch;
+        private final AtomicBoolean destroyed = new AtomicBoolean();
+
+        SharedStore(final QueryKey queryKey, final Key key, final SharedSearch sharedSearch) {
+            this.queryKey = queryKey;
+            this.key = key;
+            this.sharedSearch = sharedSearch;
+            searchResultChanges.register(queryKey, sharedSearch.collector);
+        }
+
+        @Override
+        public void destroy() {
+            if (destroyed.compareAndSet(false, true)) {
+                searchResultChanges.unregister(queryKey, sharedSearch.collector);
+                unsubscribe(key, sharedSearch);
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return sharedSearch.collector.isComplete();
+        }
+
+        @Override
+        public void awaitCompletion() throws InterruptedException {
+            sharedSearch.collector.awaitCompletion();
+        }
+
+        @Override
+        public boolean awaitCompletion(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return sharedSearch.collector.awaitCompletion(timeout, unit);
+        }
+
+        @Override
+        public Data getData(final String componentId) {
+            return sharedSearch.collector.getData(componentId);
+        }
+
+        @Override
+        public List<String> getErrors() {
+            return sharedSearch.collector.getErrors();
+        }
+
+        @Override
+        public List<String> getHighlights() {
+            return sharedSearch.collector.getHighlights();
+        }
+
+        @Override
+        public Sizes getDefaultMaxResultsSizes() {
+            return sharedSearch.collector.getDefaultMaxResultsSizes();
+        }
+
+        @Override
+        public Sizes getStoreSize() {
+            return sharedSearch.collector.getStoreSize();
+        }
+
+        @Override
+        public String toString() {
+            return "SharedStore{" +
+                    "collector=" + sharedSearch.collector +
+                    '}';
+        }
+    }
+}
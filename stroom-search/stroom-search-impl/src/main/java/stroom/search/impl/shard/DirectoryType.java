@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.impl.shard;
+
+/**
+ * Describes how an index shard searcher reads the shard.
+ */
+public enum DirectoryType {
+    /**
+     * Read the shard from disk using {@link org.apache.lucene.store.NIOFSDirectory}.
+     */
+    NIO,
+    /**
+     * Read the shard from disk using {@link org.apache.lucene.store.MMapDirectory}.
+     */
+    MMAP,
+    /**
+     * Read the shard through the index writer that is currently adding documents to it.
+     */
+    WRITER
+}
@@ -20,20 +20,33 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.SimpleCollector;
 
 import java.io.IOException;
-import java.util.OptionalInt;
+import java.util.Arrays;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Collects matching doc ids into primitive blocks so that they can be handed to the stored data
+ * retrieval thread a block at a time. The bounded queue of blocks provides back pressure on the
+ * search if stored data retrieval can't keep up.
+ */
 class IndexShardHitCollector extends SimpleCollector {
-    //an empty optional is used as a marker to indicate no more items will be added
-    private final LinkedBlockingQueue<OptionalInt> docIdStore;
+    // An empty block is used as a marker to indicate no more items will be added.
+    static final int[] COMPLETE = new int[0];
+
+    private final LinkedBlockingQueue<int[]> docIdStore;
     private final AtomicLong hitCount;
+    private final int blockSize;
+    private int[] block;
+    private int blockPos;
     private int docBase;
 
-    IndexShardHitCollector(final LinkedBlockingQueue<OptionalInt> docIdStore,
-                           final AtomicLong hitCount) {
+    IndexShardHitCollector(final LinkedBlockingQueue<int[]> docIdStore,
+                           final AtomicLong hitCount,
+                           final int blockSize) {
         this.docIdStore = docIdStore;
         this.hitCount = hitCount;
+        this.blockSize = Math.max(1, blockSize);
+        this.block = new int[this.blockSize];
     }
 
     @Override
@@ -44,14 +57,40 @@ class IndexShardHitCollector extends SimpleCollector {
 
     @Override
     public void collect(final int doc) {
+        // Lucene collects doc ids in ascending order within each leaf and visits leaves in order so blocks are
+        // always sorted, which lets stored fields be read sequentially.
+        block[blockPos++] = docBase + doc;
+        if (blockPos == blockSize) {
+            // Pause the current search if the queue is full.
+            put(block);
+            block = new int[blockSize];
+            blockPos = 0;
+        }
+    }
+
+    /**
+     * Pass on any partially filled block and then mark the doc id store as complete. This must be called once the
+     * search has finished, even if it failed, so that the consumer of the doc id store knows to stop.
+     */
+    void complete() {
         try {
-            // Pause the current search if the deque is full.
-            final int docId = docBase + doc;
+            if (blockPos > 0) {
+                put(Arrays.copyOf(block, blockPos));
+                blockPos = 0;
+            }
+        } finally {
+            put(COMPLETE);
+        }
+    }
 
-            docIdStore.put(OptionalInt.of(docId));
+    private void put(final int[] docIds) {
+        try {
+            docIdStore.put(docIds);
 
             // Add to the hit count.
-            hitCount.incrementAndGet();
+            if (docIds.length > 0) {
+                hitCount.addAndGet(docIds.length);
+            }
         } catch (final InterruptedException e) {
             // Continue to interrupt this thread.
             Thread.currentThread().interrupt();
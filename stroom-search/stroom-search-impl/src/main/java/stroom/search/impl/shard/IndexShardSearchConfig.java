@@ -1,7 +1,9 @@
 package stroom.search.impl.shard;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import stroom.util.shared.IsConfig;
+import stroom.util.shared.ModelStringUtil;
 
 import javax.inject.Singleton;
 
@@ -10,10 +12,16 @@ public class IndexShardSearchConfig implements IsConfig {
 
     private static final int DEFAULT_MAX_THREADS = 4;
     private static final int DEFAULT_MAX_THREADS_PER_TASK = 2;
+    private static final long DEFAULT_MAX_OPEN_SHARDS = 20;
 
     private int maxDocIdQueueSize = 1000000;
+    private int docIdBlockSize = 1000;
     private int maxThreads = DEFAULT_MAX_THREADS;
     private int maxThreadsPerTask = DEFAULT_MAX_THREADS_PER_TASK;
+    private long maxOpenShards = DEFAULT_MAX_OPEN_SHARDS;
+    private String searcherTimeToIdle = "1m";
+    private String directoryType = "NIO";
+    private String mmapMinShardSize = "100MiB";
 
     @JsonPropertyDescription("The maximum number of doc ids that will be queued ready for stored data to be retrieved from the index shard")
     public int getMaxDocIdQueueSize() {
@@ -24,6 +32,15 @@ public class IndexShardSearchConfig implements IsConfig {
         this.maxDocIdQueueSize = maxDocIdQueueSize;
     }
 
+    @JsonPropertyDescription("The number of doc ids that are collected into a block before being passed on for stored data retrieval")
+    public int getDocIdBlockSize() {
+        return docIdBlockSize;
+    }
+
+    public void setDocIdBlockSize(final int docIdBlockSize) {
+        this.docIdBlockSize = docIdBlockSize;
+    }
+
     @JsonPropertyDescription("The absolute maximum number of threads per node, used to search Lucene index shards across all searches")
     public int getMaxThreads() {
         return maxThreads;
@@ -42,12 +59,67 @@ public class IndexShardSearchConfig implements IsConfig {
         this.maxThreadsPerTask = maxThreadsPerTask;
     }
 
+    @JsonPropertyDescription("The maximum number of index shard searchers that will be kept open and shared between searches on this node. " +
+            "Each open searcher holds file handles for the segment files of its shard and memory for the shard's term index and caches, " +
+            "so raise this to avoid reopening shards that are searched often and lower it if the node is short of file handles or heap")
+    public long getMaxOpenShards() {
+        return maxOpenShards;
+    }
+
+    public void setMaxOpenShards(final long maxOpenShards) {
+        this.maxOpenShards = maxOpenShards;
+    }
+
+    @JsonPropertyDescription("How long an unused index shard searcher is kept open before it is closed. In ms (but can be specified as 10s, 1m)")
+    public String getSearcherTimeToIdle() {
+        return searcherTimeToIdle;
+    }
+
+    public void setSearcherTimeToIdle(final String searcherTimeToIdle) {
+        this.searcherTimeToIdle = searcherTimeToIdle;
+    }
+
+    @JsonIgnore
+    public long getSearcherTimeToIdleMs() {
+        return ModelStringUtil.parseDurationString(searcherTimeToIdle);
+    }
+
+    @JsonPropertyDescription("How closed index shards are read from disk when searching. One of NIO, MMAP or AUTO. " +
+            "AUTO uses memory mapping on 64 bit JVMs for shards that are at least as big as mmapMinShardSize and NIO otherwise")
+    public String getDirectoryType() {
+        return directoryType;
+    }
+
+    public void setDirectoryType(final String directoryType) {
+        this.directoryType = directoryType;
+    }
+
+    @JsonPropertyDescription("The minimum size of an index shard before it will be memory mapped when directoryType is AUTO, e.g. 512MiB")
+    public String getMmapMinShardSize() {
+        return mmapMinShardSize;
+    }
+
+    public void setMmapMinShardSize(final String mmapMinShardSize) {
+        this.mmapMinShardSize = mmapMinShardSize;
+    }
+
+    @JsonIgnore
+    public long getMmapMinShardSizeBytes() {
+        final Long bytes = ModelStringUtil.parseIECByteSizeString(mmapMinShardSize);
+        return bytes == null ? 0 : bytes;
+    }
+
     @Override
     public String toString() {
         return "IndexShardSearchConfig{" +
                 "maxDocIdQueueSize=" + maxDocIdQueueSize +
+                ", docIdBlockSize=" + docIdBlockSize +
                 ", maxThreads=" + maxThreads +
                 ", maxThreadsPerTask=" + maxThreadsPerTask +
+                ", maxOpenShards=" + maxOpenShards +
+                ", searcherTimeToIdle='" + searcherTimeToIdle + '\'' +
+                ", directoryType='" + directoryType + '\'' +
+                ", mmapMinShardSize='" + mmapMinShardSize + '\'' +
                 '}';
     }
 }
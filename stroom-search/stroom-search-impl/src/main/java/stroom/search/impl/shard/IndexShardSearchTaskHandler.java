@@ -16,22 +16,14 @@
 
 package stroom.search.impl.shard;
 
-import org.apache.lucene.document.Document;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.util.Version;
 import stroom.dashboard.expression.v1.Val;
-import stroom.dashboard.expression.v1.ValString;
-import stroom.index.impl.IndexShardService;
-import stroom.index.impl.IndexShardWriter;
-import stroom.index.impl.IndexShardWriterCache;
 import stroom.index.impl.LuceneVersionUtil;
 import stroom.index.shared.IndexShard;
 import stroom.search.extraction.Values;
-import stroom.search.impl.SearchException;
 import stroom.task.api.ExecutorProvider;
 import stroom.task.api.TaskContext;
 import stroom.util.logging.LambdaLogUtil;
@@ -42,7 +34,6 @@ import stroom.util.shared.VoidResult;
 
 import javax.inject.Inject;
 import java.io.IOException;
-import java.util.OptionalInt;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -50,20 +41,17 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class IndexShardSearchTaskHandler {
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(IndexShardSearchTaskHandler.class);
 
-    private final IndexShardWriterCache indexShardWriterCache;
-    private final IndexShardService indexShardService;
+    private final IndexShardSearcherCache indexShardSearcherCache;
     private final IndexShardSearchConfig shardConfig;
     private final ExecutorProvider executorProvider;
     private final TaskContext taskContext;
 
     @Inject
-    IndexShardSearchTaskHandler(final IndexShardWriterCache indexShardWriterCache,
-                                final IndexShardService indexShardService,
+    IndexShardSearchTaskHandler(final IndexShardSearcherCache indexShardSearcherCache,
                                 final IndexShardSearchConfig shardConfig,
                                 final ExecutorProvider executorProvider,
                                 final TaskContext taskContext) {
-        this.indexShardWriterCache = indexShardWriterCache;
-        this.indexShardService = indexShardService;
+        this.indexShardSearcherCache = indexShardSearcherCache;
         this.shardConfig = shardConfig;
         this.executorProvider = executorProvider;
         this.taskContext = taskContext;
@@ -81,28 +69,30 @@ public class IndexShardSearchTaskHandler {
                             taskContext.info("Searching shard " + task.getShardNumber() + " of " + task.getShardTotal() + " (id="
                                     + task.getIndexShardId() + ")");
 
+                            // Get a shared searcher for the shard. This will reuse an open searcher if another search
+                            // has recently used this shard.
+                            indexShardSearcher = indexShardSearcherCache.acquire(indexShardId);
+                            final IndexShardSearcher searcher = indexShardSearcher;
 
-                            final IndexWriter indexWriter = getWriter(indexShardId);
-
-                            final IndexShard indexShard = indexShardService.loadById(indexShardId);
-                            if (indexShard == null) {
-                                throw new SearchException("Unable to find index shard with id = " + indexShardId);
-                            }
-
-                            indexShardSearcher = new IndexShardSearcherImpl(indexShard, indexWriter);
+                            // Report how the shard is being read so that the performance of each directory type can
+                            // be compared.
+                            taskContext.info("Searching shard " + task.getShardNumber() + " of " + task.getShardTotal() + " (id="
+                                    + task.getIndexShardId() + ", directory=" + searcher.getDirectoryType() + ")");
 
                             // Start searching.
-                            searchShard(task, indexShardSearcher);
+                            LOGGER.logDurationIfDebugEnabled(
+                                    () -> searchShard(task, searcher),
+                                    () -> "searchShard() for shard " + indexShardId +
+                                            " on volume " + getVolumePath(searcher.getIndexShard()) +
+                                            " using " + searcher.getDirectoryType());
                         }
                     } catch (final RuntimeException e) {
                         LOGGER.debug(e::getMessage, e);
                         error(task, e.getMessage(), e);
 
                     } finally {
-                        taskContext.setName("Closing searcher");
-                        taskContext.info("Closing searcher for index shard " + indexShardId);
                         if (indexShardSearcher != null) {
-                            indexShardSearcher.destroy();
+                            indexShardSearcherCache.release(indexShardSearcher);
                         }
                     }
                 },
@@ -111,16 +101,11 @@ public class IndexShardSearchTaskHandler {
         return VoidResult.INSTANCE;
     }
 
-    private IndexWriter getWriter(final Long indexShardId) {
-        IndexWriter indexWriter = null;
-
-        // Load the current index shard.
-        final IndexShardWriter indexShardWriter = indexShardWriterCache.getWriterByShardId(indexShardId);
-        if (indexShardWriter != null) {
-            indexWriter = indexShardWriter.getWriter();
+    private String getVolumePath(final IndexShard indexShard) {
+        if (indexShard.getVolume() == null) {
+            return null;
         }
-
-        return indexWriter;
+        return indexShard.getVolume().getPath();
     }
 
     private void searchShard(final IndexShardSearchTask task, final IndexShardSearcher indexShardSearcher) {
@@ -133,12 +118,13 @@ public class IndexShardSearchTaskHandler {
 
         // If there is an error building the query then it will be null here.
         if (query != null) {
-            final int maxDocIdQueueSize = shardConfig.getMaxDocIdQueueSize();
-            LOGGER.debug(() -> "Creating docIdStore with size " + maxDocIdQueueSize);
-            final LinkedBlockingQueue<OptionalInt> docIdStore = new LinkedBlockingQueue<>(maxDocIdQueueSize);
+            final int docIdBlockSize = Math.max(1, shardConfig.getDocIdBlockSize());
+            final int maxDocIdBlocks = Math.max(1, shardConfig.getMaxDocIdQueueSize() / docIdBlockSize);
+            LOGGER.debug(() -> "Creating docIdStore with " + maxDocIdBlocks + " blocks of size " + docIdBlockSize);
+            final LinkedBlockingQueue<int[]> docIdStore = new LinkedBlockingQueue<>(maxDocIdBlocks);
 
             // Create a collector.
-            final IndexShardHitCollector collector = new IndexShardHitCollector(docIdStore, task.getHitCount());
+            final IndexShardHitCollector collector = new IndexShardHitCollector(docIdStore, task.getHitCount(), docIdBlockSize);
 
             try {
                 final SearcherManager searcherManager = indexShardSearcher.getSearcherManager();
@@ -151,30 +137,30 @@ public class IndexShardSearchTaskHandler {
                                 () -> {
                                     try {
                                         searcher.search(query, collector);
-                                    } catch (final IOException e) {
+                                    } catch (final IOException | RuntimeException e) {
                                         error(task, e.getMessage(), e);
                                     }
 
                                     try {
-                                        docIdStore.put(OptionalInt.empty());
-                                    } catch (final InterruptedException e) {
+                                        collector.complete();
+                                    } catch (final RuntimeException e) {
                                         error(task, e.getMessage(), e);
-
-                                        // Continue to interrupt this thread.
-                                        Thread.currentThread().interrupt();
                                     }
                                 },
                                 () -> "searcher.search()");
                     }, executor);
 
                     // Start converting found docIds into stored data values
+                    final StoredFieldLoader storedFieldLoader = new StoredFieldLoader(task.getFieldNames());
                     boolean complete = false;
                     while (!complete) {
-                        // Take the next item
-                        final OptionalInt optDocId = docIdStore.take();
-                        if (optDocId.isPresent()) {
-                            // If we have a doc id then retrieve the stored data for it.
-                            getStoredData(task, searcher, optDocId.getAsInt());
+                        // Take the next block of doc ids.
+                        final int[] docIds = docIdStore.take();
+                        if (docIds.length > 0) {
+                            // If we have doc ids then retrieve the stored data for them.
+                            for (final int docId : docIds) {
+                                getStoredData(task, searcher, storedFieldLoader, docId);
+                            }
                         } else {
                             complete = true;
                         }
@@ -196,36 +182,21 @@ public class IndexShardSearchTaskHandler {
     }
 
     /**
-     * This method takes a list of document id's and extracts the stored fields
-     * that are required for data display. In some cases such as batch search we
-     * only want to get stream and event ids, in these cases no values are
-     * retrieved, only stream and event ids.
+     * This method takes a document id and extracts the stored fields that are
+     * required for data display. In some cases such as batch search we only
+     * want to get stream and event ids, in these cases no values are
+     * retrieved, only stream and event ids. Only the requested fields are
+     * decoded by the supplied stored field loader.
      */
-    private void getStoredData(final IndexShardSearchTask task, final IndexSearcher searcher, final int docId) {
-        final String[] fieldNames = task.getFieldNames();
+    private void getStoredData(final IndexShardSearchTask task,
+                               final IndexSearcher searcher,
+                               final StoredFieldLoader storedFieldLoader,
+                               final int docId) {
         try {
-            final Document document = searcher.doc(docId);
-            Val[] values = null;
-
-            for (int i = 0; i < fieldNames.length; i++) {
-                final String storedField = fieldNames[i];
-                final IndexableField indexableField = document.getField(storedField);
-
-                // If the field is not in fact stored then it will be null here.
-                if (indexableField != null) {
-                    final String value = indexableField.stringValue();
-                    if (value != null) {
-                        final String trimmed = value.trim();
-                        if (trimmed.length() > 0) {
-                            if (values == null) {
-                                values = new Val[fieldNames.length];
-                            }
-                            values[i] = ValString.create(trimmed);
-                        }
-                    }
-                }
-            }
+            storedFieldLoader.reset();
+            searcher.doc(docId, storedFieldLoader);
 
+            final Val[] values = storedFieldLoader.getValues();
             if (values != null) {
                 task.getResultReceiver().receive(task.getIndexShardId(), new Values(values));
             }
@@ -24,5 +24,7 @@ public interface IndexShardSearcher {
 
     IndexShard getIndexShard();
 
+    DirectoryType getDirectoryType();
+
     void destroy();
 }
@@ -22,6 +22,19 @@ import stroom.util.shared.Clearable;
 public interface IndexShardSearcherCache extends Clearable {
     IndexShardSearcher get(Long indexShardId);
 
+    /**
+     * Get a shared searcher for the specified index shard and take a reference to it so that it will not be closed
+     * while in use, even if it is evicted from the cache. Searchers for shards that are currently being written to are
+     * refreshed so that recently added documents are visible. Every call must be matched by a call to
+     * {@link #release(IndexShardSearcher)}.
+     */
+    IndexShardSearcher acquire(Long indexShardId);
+
+    /**
+     * Release a searcher reference obtained from {@link #acquire(Long)}.
+     */
+    void release(IndexShardSearcher indexShardSearcher);
+
     boolean isCached(Long indexShardId);
 
     long getMaxOpenShards();
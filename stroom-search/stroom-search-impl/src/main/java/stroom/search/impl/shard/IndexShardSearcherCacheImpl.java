@@ -21,6 +21,8 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.Constants;
 import stroom.cache.api.CacheManager;
 import stroom.cache.api.CacheUtil;
 import stroom.index.impl.IndexShardService;
@@ -50,7 +52,7 @@ import java.util.concurrent.atomic.AtomicLong;
 @Singleton
 public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Clearable {
     private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(IndexShardSearcherCacheImpl.class);
-    private static final int MAX_CACHE_ENTRIES = 2;
+    private static final int MAX_ACQUIRE_ATTEMPTS = 10;
 
     private final CacheManager cacheManager;
     private final IndexShardService indexShardService;
@@ -58,16 +60,18 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
     private final Executor executor;
     private final AtomicLong closing = new AtomicLong();
     private final TaskContext taskContext;
+    private final IndexShardSearchConfig shardConfig;
 
-    private volatile long maxOpenShards = MAX_CACHE_ENTRIES;
-    private volatile LoadingCache<Key, IndexShardSearcher> cache;
+    private volatile long maxOpenShards;
+    private volatile LoadingCache<Key, IndexShardSearcherImpl> cache;
 
     @Inject
     IndexShardSearcherCacheImpl(final CacheManager cacheManager,
                                 final IndexShardService indexShardService,
                                 final IndexShardWriterCache indexShardWriterCache,
                                 final ExecutorProvider executorProvider,
-                                final TaskContext taskContext) {
+                                final TaskContext taskContext,
+                                final IndexShardSearchConfig shardConfig) {
         this.cacheManager = cacheManager;
         this.indexShardService = indexShardService;
         this.indexShardWriterCache = indexShardWriterCache;
@@ -76,18 +80,20 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
         executor = executorProvider.getExecutor(threadPool);
 
         this.taskContext = taskContext;
+        this.shardConfig = shardConfig;
+        this.maxOpenShards = shardConfig.getMaxOpenShards();
     }
 
     @SuppressWarnings("unchecked")
-    private LoadingCache<Key, IndexShardSearcher> getCache() {
-        LoadingCache<Key, IndexShardSearcher> result = cache;
+    private LoadingCache<Key, IndexShardSearcherImpl> getCache() {
+        LoadingCache<Key, IndexShardSearcherImpl> result = cache;
         if (result == null) {
             synchronized (this) {
                 result = cache;
                 if (result == null) {
-                    final RemovalListener<Key, IndexShardSearcher> removalListener = notification -> destroy(notification.getKey(), notification.getValue());
+                    final RemovalListener<Key, IndexShardSearcherImpl> removalListener = notification -> destroy(notification.getKey(), notification.getValue());
 
-                    final CacheLoader<Key, IndexShardSearcher> cacheLoader = CacheLoader.from(k -> {
+                    final CacheLoader<Key, IndexShardSearcherImpl> cacheLoader = CacheLoader.from(k -> {
                         if (k == null) {
                             throw new NullPointerException("Null key supplied");
                         }
@@ -98,7 +104,7 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
                                 throw new SearchException("Unable to find index shard with id = " + k.indexShardId);
                             }
 
-                            return new IndexShardSearcherImpl(indexShard, k.indexWriter);
+                            return new IndexShardSearcherImpl(indexShard, k.indexWriter, getDirectoryType(indexShard));
                         } catch (final RuntimeException e) {
                             LOGGER.error(e::getMessage, e);
                             throw e;
@@ -107,7 +113,7 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
 
                     final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
                             .maximumSize(maxOpenShards)
-                            .expireAfterAccess(1, TimeUnit.MINUTES)
+                            .expireAfterAccess(shardConfig.getSearcherTimeToIdleMs(), TimeUnit.MILLISECONDS)
                             .removalListener(removalListener);
                     result = cacheBuilder.build(cacheLoader);
                     cacheManager.replaceCache("Index Shard Searcher Cache", cacheBuilder, result);
@@ -119,6 +125,31 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
         return result;
     }
 
+    /**
+     * Choose how a shard will be read from disk. The choice is made each time a searcher is opened so config changes
+     * apply to newly opened searchers.
+     */
+    private DirectoryType getDirectoryType(final IndexShard indexShard) {
+        final String type = shardConfig.getDirectoryType();
+        if (type == null || type.trim().isEmpty() || "NIO".equalsIgnoreCase(type.trim())) {
+            return DirectoryType.NIO;
+        } else if ("MMAP".equalsIgnoreCase(type.trim())) {
+            return DirectoryType.MMAP;
+        } else if ("AUTO".equalsIgnoreCase(type.trim())) {
+            // Only memory map when we have the address space to do so and can unmap files when searchers close.
+            if (Constants.JRE_IS_64BIT &&
+                    MMapDirectory.UNMAP_SUPPORTED &&
+                    indexShard.getFileSize() != null &&
+                    indexShard.getFileSize() >= shardConfig.getMmapMinShardSizeBytes()) {
+                return DirectoryType.MMAP;
+            }
+            return DirectoryType.NIO;
+        }
+
+        LOGGER.warn(() -> "Unknown index shard directory type '" + type + "', using NIO");
+        return DirectoryType.NIO;
+    }
+
     @Override
     public IndexShardSearcher get(final Long indexShardId) {
         final IndexWriter indexWriter = getWriter(indexShardId);
@@ -126,6 +157,40 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
         return getCache().getUnchecked(key);
     }
 
+    @Override
+    public IndexShardSearcher acquire(final Long indexShardId) {
+        final IndexWriter indexWriter = getWriter(indexShardId);
+        final Key key = new Key(indexShardId, indexWriter);
+
+        for (int i = 0; i < MAX_ACQUIRE_ATTEMPTS; i++) {
+            final IndexShardSearcherImpl indexShardSearcher = getCache().getUnchecked(key);
+
+            // If the searcher was evicted and destroyed after we got it from the cache then it will already have been
+            // removed so try again and we will get a new one.
+            if (indexShardSearcher.incrementRefCount()) {
+                if (indexWriter != null) {
+                    // Make sure recently added documents are visible to this search.
+                    try {
+                        indexShardSearcher.getSearcherManager().maybeRefresh();
+                    } catch (final IOException | RuntimeException e) {
+                        indexShardSearcher.decrementRefCount();
+                        throw SearchException.wrap(e);
+                    }
+                }
+                return indexShardSearcher;
+            }
+        }
+
+        throw new SearchException("Unable to acquire searcher for index shard " + indexShardId);
+    }
+
+    @Override
+    public void release(final IndexShardSearcher indexShardSearcher) {
+        if (indexShardSearcher instanceof IndexShardSearcherImpl) {
+            ((IndexShardSearcherImpl) indexShardSearcher).decrementRefCount();
+        }
+    }
+
     @Override
     public boolean isCached(final Long indexShardId) {
         final IndexWriter indexWriter = getWriter(indexShardId);
@@ -133,10 +198,8 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
         return getCache().getIfPresent(key) != null;
     }
 
-    private void destroy(final Key key, final Object value) {
-        if (value instanceof IndexShardSearcherImpl) {
-            final IndexShardSearcherImpl indexShardSearcher = (IndexShardSearcherImpl) value;
-
+    private void destroy(final Key key, final IndexShardSearcherImpl indexShardSearcher) {
+        if (indexShardSearcher != null) {
             closing.incrementAndGet();
             executor.execute(() -> {
                 try {
@@ -209,7 +272,7 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
     public void setMaxOpenShards(final long maxOpenShards) {
         if (this.maxOpenShards != maxOpenShards) {
             synchronized (this) {
-                final LoadingCache<Key, IndexShardSearcher> result = cache;
+                final LoadingCache<Key, IndexShardSearcherImpl> result = cache;
                 this.maxOpenShards = maxOpenShards;
                 cache = null;
 
@@ -228,12 +291,18 @@ public class IndexShardSearcherCacheImpl implements IndexShardSearcherCache, Cle
     public void refresh() {
         final LogExecutionTime logExecutionTime = new LogExecutionTime();
 
+        // Evict searchers that have been idle for too long as the cache only does this when it is accessed.
+        getCache().cleanUp();
+
         getCache().asMap().values().forEach(v -> {
-            if (v != null) {
+            // Don't refresh searchers that have already been closed.
+            if (v != null && v.incrementRefCount()) {
                 try {
                     v.getSearcherManager().maybeRefresh();
                 } catch (final IOException e) {
                     LOGGER.error(e::getMessage, e);
+                } finally {
+                    v.decrementRefCount();
                 }
             }
         });
@@ -21,6 +21,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.NIOFSDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +35,8 @@ import stroom.util.io.FileUtil;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class IndexShardSearcherImpl implements IndexShardSearcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(IndexShardSearcherImpl.class);
@@ -46,17 +49,31 @@ public class IndexShardSearcherImpl implements IndexShardSearcher {
     private final Directory directory;
     private final IndexWriter indexWriter;
     private final SearcherManager searcherManager;
+    private final DirectoryType directoryType;
+
+    /**
+     * The owner of this searcher holds the initial reference which is released by calling destroy(). Any searches
+     * that share this searcher take their own reference so that Lucene resources are only closed when the last user
+     * has finished with them.
+     */
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private final AtomicBoolean destroyed = new AtomicBoolean();
 
     public IndexShardSearcherImpl(final IndexShard indexShard) {
-        this(indexShard, null);
+        this(indexShard, null, DirectoryType.NIO);
     }
 
-    IndexShardSearcherImpl(final IndexShard indexShard, final IndexWriter indexWriter) {
+    /**
+     * @param directoryType The type of directory to use to read the shard from disk if it can't be read through the
+     *                      supplied index writer.
+     */
+    IndexShardSearcherImpl(final IndexShard indexShard, final IndexWriter indexWriter, final DirectoryType directoryType) {
         this.indexShard = indexShard;
         this.indexWriter = indexWriter;
 
         Directory directory = null;
         SearcherManager searcherManager = null;
+        DirectoryType usedDirectoryType = DirectoryType.WRITER;
 
         try {
             // First try and open the reader with the current writer if one is in
@@ -79,7 +96,13 @@ public class IndexShardSearcherImpl implements IndexShardSearcher {
                     throw new SearchException("Index directory not found for searching: " + FileUtil.getCanonicalPath(dir));
                 }
 
-                directory = new NIOFSDirectory(dir, LockFactoryFactory.get());
+                if (DirectoryType.MMAP.equals(directoryType)) {
+                    directory = new MMapDirectory(dir, LockFactoryFactory.get());
+                    usedDirectoryType = DirectoryType.MMAP;
+                } else {
+                    directory = new NIOFSDirectory(dir, LockFactoryFactory.get());
+                    usedDirectoryType = DirectoryType.NIO;
+                }
 //                indexReader = DirectoryReader.open(directory);
                 searcherManager = new SearcherManager(directory, new SearcherFactory());
 
@@ -110,6 +133,7 @@ public class IndexShardSearcherImpl implements IndexShardSearcher {
 
         this.directory = directory;
         this.searcherManager = searcherManager;
+        this.directoryType = usedDirectoryType;
     }
 
     @Override
@@ -138,8 +162,43 @@ public class IndexShardSearcherImpl implements IndexShardSearcher {
         return searcherManager;
     }
 
+    /**
+     * Try to take a reference to this searcher.
+     *
+     * @return False if the searcher has already been closed and can't be used.
+     */
+    boolean incrementRefCount() {
+        int count;
+        do {
+            count = refCount.get();
+            if (count <= 0) {
+                return false;
+            }
+        } while (!refCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Release a reference to this searcher, closing it if this was the last one.
+     */
+    void decrementRefCount() {
+        if (refCount.decrementAndGet() == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Release the owners reference to this searcher. The searcher is closed once any searches still using it have
+     * released their references.
+     */
     @Override
-    public synchronized void destroy() {
+    public void destroy() {
+        if (destroyed.compareAndSet(false, true)) {
+            decrementRefCount();
+        }
+    }
+
+    private synchronized void close() {
         try {
             try {
                 searcherManager.close();
@@ -159,7 +218,9 @@ public class IndexShardSearcherImpl implements IndexShardSearcher {
         return "indexShard=" +
                 indexShard +
                 ", documentCount=" +
-                indexShard.getDocumentCount();
+                indexShard.getDocumentCount() +
+                ", directoryType=" +
+                directoryType;
     }
 
     @Override
@@ -167,6 +228,11 @@ public class IndexShardSearcherImpl implements IndexShardSearcher {
         return indexShard;
     }
 
+    @Override
+    public DirectoryType getDirectoryType() {
+        return directoryType;
+    }
+
     public IndexWriter getWriter() {
         return indexWriter;
     }
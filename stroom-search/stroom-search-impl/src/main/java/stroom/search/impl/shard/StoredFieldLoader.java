@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.impl.shard;
+
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.StoredFieldVisitor;
+import stroom.dashboard.expression.v1.Val;
+import stroom.dashboard.expression.v1.ValString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A stored field visitor that only decodes the fields that have been requested by the search and stops reading a
+ * document as soon as all of them have been seen. A single instance is reused for every document that a shard search
+ * retrieves stored data for, so it is not thread safe.
+ */
+class StoredFieldLoader extends StoredFieldVisitor {
+    private final int fieldCount;
+    private final Map<String, Integer> fieldIndexes;
+    private final boolean[] seen;
+    private int remaining;
+    private Val[] values;
+
+    StoredFieldLoader(final String[] fieldNames) {
+        this.fieldCount = fieldNames.length;
+        this.fieldIndexes = new HashMap<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldIndexes.putIfAbsent(fieldNames[i], i);
+        }
+        this.seen = new boolean[fieldNames.length];
+    }
+
+    /**
+     * Prepare to visit the next document.
+     */
+    void reset() {
+        Arrays.fill(seen, false);
+        remaining = fieldIndexes.size();
+        values = null;
+    }
+
+    /**
+     * @return The values found for the requested fields in the order they were requested or null if the last document
+     * visited contained no non blank values for any of them.
+     */
+    Val[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Status needsField(final FieldInfo fieldInfo) {
+        if (remaining <= 0) {
+            return Status.STOP;
+        }
+
+        final Integer index = fieldIndexes.get(fieldInfo.name);
+        // Only the first stored value of a field is used.
+        if (index == null || seen[index]) {
+            return Status.NO;
+        }
+        return Status.YES;
+    }
+
+    @Override
+    public void stringField(final FieldInfo fieldInfo, final byte[] value) {
+        add(fieldInfo, new String(value, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void intField(final FieldInfo fieldInfo, final int value) {
+        add(fieldInfo, String.valueOf(value));
+    }
+
+    @Override
+    public void longField(final FieldInfo fieldInfo, final long value) {
+        add(fieldInfo, String.valueOf(value));
+    }
+
+    @Override
+    public void floatField(final FieldInfo fieldInfo, final float value) {
+        add(fieldInfo, String.valueOf(value));
+    }
+
+    @Override
+    public void doubleField(final FieldInfo fieldInfo, final double value) {
+        add(fieldInfo, String.valueOf(value));
+    }
+
+    private void add(final FieldInfo fieldInfo, final String value) {
+        final Integer index = fieldIndexes.get(fieldInfo.name);
+        if (index != null && !seen[index]) {
+            seen[index] = true;
+            remaining--;
+
+            final String trimmed = value.trim();
+            if (trimmed.length() > 0) {
+                if (values == null) {
+                    values = new Val[fieldCount];
+                }
+                values[index] = ValString.create(trimmed);
+            }
+        }
+    }
+}
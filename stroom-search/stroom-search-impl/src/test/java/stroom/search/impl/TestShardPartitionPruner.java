@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search.impl;
+
+import org.junit.jupiter.api.Test;
+import stroom.index.shared.IndexShard;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionOperator.Op;
+import stroom.query.api.v2.ExpressionTerm.Condition;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestShardPartitionPruner {
+    private static final String TIME_FIELD = "EventTime";
+    private static final String JAN = "2019-01-01T00:00:00.000Z";
+    private static final String FEB = "2019-02-01T00:00:00.000Z";
+    private static final String MAR = "2019-03-01T00:00:00.000Z";
+
+    @Test
+    void testTerm() {
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN_OR_EQUAL_TO, FEB)
+                .build())).isEqualTo(toMillis(FEB));
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.BETWEEN, FEB + "," + MAR)
+                .build())).isEqualTo(toMillis(FEB));
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.IN, MAR + "," + JAN)
+                .build())).isEqualTo(toMillis(JAN));
+
+        // Upper bounds and other fields tell us nothing about the earliest event.
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.LESS_THAN, FEB)
+                .build())).isNull();
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm("OtherTime", Condition.GREATER_THAN, FEB)
+                .build())).isNull();
+    }
+
+    @Test
+    void testAnd() {
+        // Every term must match so the latest lower bound applies.
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, JAN)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, MAR)
+                .addTerm("UserId", Condition.EQUALS, "user1")
+                .build())).isEqualTo(toMillis(MAR));
+    }
+
+    @Test
+    void testOr() {
+        // Any term can match so the earliest lower bound applies.
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.OR)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, MAR)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, JAN)
+                .build())).isEqualTo(toMillis(JAN));
+
+        // An unbounded branch could match events of any age.
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.OR)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, MAR)
+                .addTerm("UserId", Condition.EQUALS, "user1")
+                .build())).isNull();
+    }
+
+    @Test
+    void testNot() {
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.NOT)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, FEB)
+                .build())).isNull();
+
+        // A negated branch doesn't bound an AND but doesn't stop the other terms from doing so.
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN, FEB)
+                .addOperator(new ExpressionOperator.Builder(Op.NOT)
+                        .addTerm(TIME_FIELD, Condition.GREATER_THAN, MAR)
+                        .build())
+                .build())).isEqualTo(toMillis(FEB));
+    }
+
+    @Test
+    void testNested() {
+        assertThat(getEarliestEventTime(new ExpressionOperator.Builder(Op.OR)
+                .addOperator(new ExpressionOperator.Builder(Op.AND)
+                        .addTerm(TIME_FIELD, Condition.GREATER_THAN, MAR)
+                        .addTerm("UserId", Condition.EQUALS, "user1")
+                        .build())
+                .addTerm(TIME_FIELD, Condition.BETWEEN, FEB + "," + MAR)
+                .build())).isEqualTo(toMillis(FEB));
+    }
+
+    @Test
+    void testCanPrune() {
+        final ShardPartitionPruner pruner = new ShardPartitionPruner(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN_OR_EQUAL_TO, FEB)
+                .build(), TIME_FIELD, "UTC", System.currentTimeMillis());
+
+        assertThat(pruner.canPrune(createShard(JAN, FEB))).isTrue();
+        assertThat(pruner.canPrune(createShard(FEB, MAR))).isFalse();
+        assertThat(pruner.canPrune(new IndexShard())).isFalse();
+    }
+
+    @Test
+    void testNoTimeField() {
+        final ShardPartitionPruner pruner = new ShardPartitionPruner(new ExpressionOperator.Builder(Op.AND)
+                .addTerm(TIME_FIELD, Condition.GREATER_THAN_OR_EQUAL_TO, FEB)
+                .build(), null, "UTC", System.currentTimeMillis());
+
+        assertThat(pruner.getEarliestEventTime()).isEmpty();
+        assertThat(pruner.canPrune(createShard(JAN, FEB))).isFalse();
+    }
+
+    private Long getEarliestEventTime(final ExpressionOperator expression) {
+        return new ShardPartitionPruner(expression, TIME_FIELD, "UTC", System.currentTimeMillis())
+                .getEarliestEventTime()
+                .orElse(null);
+    }
+
+    private IndexShard createShard(final String from, final String to) {
+        final IndexShard indexShard = new IndexShard();
+        indexShard.setPartitionFromTime(toMillis(from));
+        indexShard.setPartitionToTime(toMillis(to));
+        return indexShard;
+    }
+
+    private long toMillis(final String time) {
+        return Instant.parse(time).toEpochMilli();
+    }
+}
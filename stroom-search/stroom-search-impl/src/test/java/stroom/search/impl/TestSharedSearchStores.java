@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search.impl;
+
+import org.junit.jupiter.api.Test;
+import stroom.docref.DocRef;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionOperator.Op;
+import stroom.query.api.v2.ExpressionTerm.Condition;
+import stroom.query.api.v2.Param;
+import stroom.query.api.v2.Query;
+import stroom.query.api.v2.QueryKey;
+import stroom.query.api.v2.SearchRequest;
+import stroom.query.common.v2.Store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestSharedSearchStores {
+    private static final DocRef DATA_SOURCE = new DocRef("Index", "index-uuid", "Test Index");
+
+    private final SearchConfig searchConfig = new SearchConfig();
+    private final List<ClusterSearchResultCollector> collectors = new ArrayList<>();
+
+    @Test
+    void testSameQuerySharesStore() {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+
+        // E.g. two users with the same stream permissions opening the same dashboard.
+        final Store store1 = sharedSearchStores.subscribe(null, createRequest("key1", "a", null, "UTC"), this::createCollector);
+        final Store store2 = sharedSearchStores.subscribe(null, createRequest("key2", "a", null, "UTC"), this::createCollector);
+
+        // The query key differs but the search is the same so only one search is started.
+        assertThat(collectors).hasSize(1);
+        verify(collectors.get(0)).start();
+        assertThat(sharedSearchStores.getStartedCount()).isEqualTo(1);
+        assertThat(sharedSearchStores.getSharedCount()).isEqualTo(1);
+
+        when(collectors.get(0).getErrors()).thenReturn(Collections.singletonList("error"));
+        assertThat(store1.getErrors()).containsExactly("error");
+        assertThat(store2.getErrors()).containsExactly("error");
+    }
+
+    @Test
+    void testDifferentQueriesDoNotShare() {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+
+        sharedSearchStores.subscribe(null, createRequest("key", "a", null, "UTC"), this::createCollector);
+        sharedSearchStores.subscribe(null, createRequest("key", "b", null, "UTC"), this::createCollector);
+        sharedSearchStores.subscribe(null, createRequest("key", "a", "param", "UTC"), this::createCollector);
+        sharedSearchStores.subscribe(null, createRequest("key", "a", null, "Europe/London"), this::createCollector);
+
+        // Users who can read different streams would get different results so they can't share.
+        sharedSearchStores.subscribe(createPermissionFilter("feed1"), createRequest("key", "a", null, "UTC"), this::createCollector);
+        sharedSearchStores.subscribe(createPermissionFilter("feed2"), createRequest("key", "a", null, "UTC"), this::createCollector);
+
+        assertThat(collectors).hasSize(6);
+        assertThat(sharedSearchStores.getStartedCount()).isEqualTo(6);
+        assertThat(sharedSearchStores.getSharedCount()).isZero();
+    }
+
+    @Test
+    void testReferencesReleased() {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+        final SearchRequest searchRequest = createRequest("key", "a", null, "UTC");
+
+        final Store store1 = sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        final Store store2 = sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        final ClusterSearchResultCollector collector = collectors.get(0);
+
+        // Destroying a store more than once must only release one reference.
+        store1.destroy();
+        store1.destroy();
+        verify(collector, never()).destroy();
+
+        store2.destroy();
+        verify(collector).destroy();
+
+        // The search is no longer running so the next request starts a new one.
+        sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        assertThat(collectors).hasSize(2);
+    }
+
+    @Test
+    void testSamePermissionFilterShares() {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+
+        sharedSearchStores.subscribe(createPermissionFilter("feed1"), createRequest("key1", "a", null, "UTC"), this::createCollector);
+        sharedSearchStores.subscribe(createPermissionFilter("feed1"), createRequest("key2", "a", null, "UTC"), this::createCollector);
+
+        assertThat(collectors).hasSize(1);
+        assertThat(sharedSearchStores.getSharedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testCompleteSearchSharedUntilExpired() {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+        final SearchRequest searchRequest = createRequest("key", "a", null, "UTC");
+
+        final Store store1 = sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        final ClusterSearchResultCollector collector1 = collectors.get(0);
+        when(collector1.isComplete()).thenReturn(true);
+
+        // A complete search is shared until it expires.
+        final Store store2 = sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        assertThat(collectors).hasSize(1);
+        assertThat(sharedSearchStores.getSharedCount()).isEqualTo(1);
+
+        // It is kept when nobody is using it so that later requests can still share it.
+        store1.destroy();
+        store2.destroy();
+        sharedSearchStores.evictExpiredSearches();
+        verify(collector1, never()).destroy();
+        final Store store3 = sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        assertThat(collectors).hasSize(1);
+        assertThat(sharedSearchStores.getSharedCount()).isEqualTo(2);
+
+        // Once it has expired a new search is started and the old one is destroyed when the last subscriber leaves.
+        searchConfig.setSharedSearchMaxAge("0ms");
+        sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        assertThat(collectors).hasSize(2);
+        verify(collector1, never()).destroy();
+        store3.destroy();
+        verify(collector1).destroy();
+
+        // Releasing the old search must not remove the new one that replaced it.
+        sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        assertThat(collectors).hasSize(2);
+        assertThat(sharedSearchStores.getSharedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testExpiredSearchesEvicted() {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+        final SearchRequest searchRequest = createRequest("key", "a", null, "UTC");
+
+        final Store store = sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        final ClusterSearchResultCollector collector = collectors.get(0);
+        when(collector.isComplete()).thenReturn(true);
+        store.destroy();
+        verify(collector, never()).destroy();
+
+        searchConfig.setSharedSearchMaxAge("0ms");
+        sharedSearchStores.evictExpiredSearches();
+        verify(collector).destroy();
+
+        sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        assertThat(collectors).hasSize(2);
+    }
+
+    @Test
+    void testConcurrentStartDiscardsLoser() throws Exception {
+        final SharedSearchStores sharedSearchStores = new SharedSearchStores(searchConfig, new SearchResultChangesImpl());
+        final SearchRequest searchRequest = createRequest("key", "a", null, "UTC");
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch winnerInstalled = new CountDownLatch(1);
+        final ClusterSearchResultCollector loser = mock(ClusterSearchResultCollector.class);
+
+        // The first request is slow to create its collector so the second request starts the search first.
+        final CompletableFuture<Store> slow = CompletableFuture.supplyAsync(() ->
+                sharedSearchStores.subscribe(null, searchRequest, () -> {
+                    creating.countDown();
+                    try {
+                        winnerInstalled.await(10, TimeUnit.SECONDS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return loser;
+                }));
+        assertThat(creating.await(10, TimeUnit.SECONDS)).isTrue();
+        sharedSearchStores.subscribe(null, searchRequest, this::createCollector);
+        winnerInstalled.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+
+        verify(loser, never()).start();
+        verify(loser).destroy();
+        verify(collectors.get(0), times(1)).start();
+        assertThat(sharedSearchStores.getStartedCount()).isEqualTo(1);
+        assertThat(sharedSearchStores.getSharedCount()).isEqualTo(1);
+    }
+
+    private ClusterSearchResultCollector createCollector() {
+        final ClusterSearchResultCollector collector = mock(ClusterSearchResultCollector.class);
+        collectors.add(collector);
+        return collector;
+    }
+
+    private ExpressionOperator createPermissionFilter(final String feedName) {
+        return new ExpressionOperator.Builder(Op.AND)
+                .addTerm("Feed", Condition.EQUALS, feedName)
+                .build();
+    }
+
+    private SearchRequest createRequest(final String key,
+                                        final String value,
+                                        final String paramValue,
+                                        final String dateTimeLocale) {
+        final ExpressionOperator expression = new ExpressionOperator.Builder(Op.AND)
+                .addTerm("field", Condition.EQUALS, value)
+                .build();
+        final List<Param> params = paramValue == null
+                ? null
+                : Collections.singletonList(new Param("param", paramValue));
+        final Query query = new Query(DATA_SOURCE, expression, params);
+        return new SearchRequest(new QueryKey(key), query, null, dateTimeLocale, true);
+    }
+}
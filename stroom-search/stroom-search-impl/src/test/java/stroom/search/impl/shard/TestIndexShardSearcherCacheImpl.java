@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search.impl.shard;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import stroom.cache.api.CacheManager;
+import stroom.index.impl.IndexShardService;
+import stroom.index.impl.IndexShardWriter;
+import stroom.index.impl.IndexShardWriterCache;
+import stroom.index.shared.IndexShard;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.api.TaskContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestIndexShardSearcherCacheImpl {
+    private final IndexShardService indexShardService = mock(IndexShardService.class);
+    private final IndexShardWriterCache indexShardWriterCache = mock(IndexShardWriterCache.class);
+    private final ExecutorProvider executorProvider = mock(ExecutorProvider.class);
+    private final IndexShardSearchConfig shardConfig = new IndexShardSearchConfig();
+    private final List<IndexWriter> indexWriters = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        // Close evicted searchers on the calling thread so the tests can see the result straight away.
+        when(executorProvider.getExecutor(any())).thenReturn(Runnable::run);
+        when(indexShardService.loadById(anyLong())).thenAnswer(invocation -> {
+            final IndexShard indexShard = new IndexShard();
+            indexShard.setId(invocation.getArgument(0));
+            return indexShard;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (final IndexWriter indexWriter : indexWriters) {
+            indexWriter.close();
+        }
+    }
+
+    @Test
+    void testSharedBetweenSearches() throws IOException {
+        final IndexShardSearcherCacheImpl cache = createCache();
+        addWriter(1L);
+
+        final IndexShardSearcher searcher1 = cache.acquire(1L);
+        final IndexShardSearcher searcher2 = cache.acquire(1L);
+        assertThat(searcher2).isSameAs(searcher1);
+
+        cache.release(searcher1);
+        cache.release(searcher2);
+
+        // Releasing all references doesn't close a searcher that is still cached.
+        assertOpen(searcher1);
+        assertThat(cache.isCached(1L)).isTrue();
+    }
+
+    @Test
+    void testEvictedWhileInUse() throws IOException {
+        shardConfig.setMaxOpenShards(1);
+        final IndexShardSearcherCacheImpl cache = createCache();
+        addWriter(1L);
+        addWriter(2L);
+
+        final IndexShardSearcher searcher1 = cache.acquire(1L);
+
+        // Opening a second shard evicts the first but a search is still using it so it must stay open.
+        final IndexShardSearcher searcher2 = cache.acquire(2L);
+        assertThat(cache.isCached(1L)).isFalse();
+        assertOpen(searcher1);
+
+        // The last reference closes it.
+        cache.release(searcher1);
+        assertClosed(searcher1);
+
+        // The next search opens a new searcher for the shard.
+        final IndexShardSearcher searcher3 = cache.acquire(1L);
+        assertThat(searcher3).isNotSameAs(searcher1);
+        assertOpen(searcher3);
+
+        cache.release(searcher2);
+        cache.release(searcher3);
+    }
+
+    @Test
+    void testTimeToIdle() throws Exception {
+        shardConfig.setSearcherTimeToIdle("100ms");
+        final IndexShardSearcherCacheImpl cache = createCache();
+        addWriter(1L);
+
+        final IndexShardSearcher searcher = cache.acquire(1L);
+        cache.release(searcher);
+        assertOpen(searcher);
+
+        Thread.sleep(300);
+        cache.refresh();
+
+        assertClosed(searcher);
+        assertThat(cache.isCached(1L)).isFalse();
+    }
+
+    private IndexShardSearcherCacheImpl createCache() {
+        return new IndexShardSearcherCacheImpl(
+                mock(CacheManager.class),
+                indexShardService,
+                indexShardWriterCache,
+                executorProvider,
+                mock(TaskContext.class),
+                shardConfig);
+    }
+
+    private void addWriter(final long indexShardId) throws IOException {
+        final IndexWriter indexWriter = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        indexWriters.add(indexWriter);
+        final IndexShardWriter indexShardWriter = mock(IndexShardWriter.class);
+        when(indexShardWriter.getWriter()).thenReturn(indexWriter);
+        when(indexShardWriterCache.getWriterByShardId(indexShardId)).thenReturn(indexShardWriter);
+    }
+
+    private void assertOpen(final IndexShardSearcher indexShardSearcher) throws IOException {
+        final SearcherManager searcherManager = indexShardSearcher.getSearcherManager();
+        final IndexSearcher indexSearcher = searcherManager.acquire();
+        searcherManager.release(indexSearcher);
+    }
+
+    private void assertClosed(final IndexShardSearcher indexShardSearcher) {
+        assertThatThrownBy(() -> indexShardSearcher.getSearcherManager().acquire())
+                .isInstanceOf(AlreadyClosedException.class);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.solr.indexing;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import stroom.search.solr.SolrIndexClientCache;
+import stroom.search.solr.shared.SolrConnectionConfig;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.shared.ThreadPool;
+import stroom.task.shared.ThreadPoolImpl;
+import stroom.util.logging.LambdaLogger;
+import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.shared.Location;
+import stroom.util.shared.Severity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends batches of documents to a Solr collection on background threads so that the pipeline does
+ * not have to wait for each batch to be added. Only a limited number of batches can be in flight at
+ * once so a pipeline that produces documents faster than Solr can index them will block until a
+ * batch has been sent.
+ * <p>
+ * Failed batches are retried. Errors are held until the pipeline thread collects them so that they
+ * can be reported through the pipeline error receiver. As the pipeline has moved on by the time a
+ * batch fails, errors carry the location of the records in the batch rather than relying on the
+ * current location of the pipeline.
+ */
+class SolrDocumentSender {
+    private static final LambdaLogger LOGGER = LambdaLoggerFactory.getLogger(SolrDocumentSender.class);
+
+    private static final ThreadPool THREAD_POOL = new ThreadPoolImpl(
+            "Solr Indexing",
+            5,
+            0,
+            Integer.MAX_VALUE);
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final SolrIndexClientCache solrIndexClientCache;
+    private final SolrConnectionConfig connectionConfig;
+    private final String collection;
+    private final int commitWithinMs;
+    private final boolean softCommit;
+    private final int maxRetries;
+    private final int maxConcurrentBatches;
+    private final Executor executor;
+    private final Semaphore inFlight;
+    private final Queue<SendError> errors = new ConcurrentLinkedQueue<>();
+
+    SolrDocumentSender(final SolrIndexClientCache solrIndexClientCache,
+                       final ExecutorProvider executorProvider,
+                       final SolrConnectionConfig connectionConfig,
+                       final String collection,
+                       final int commitWithinMs,
+                       final boolean softCommit,
+                       final int maxRetries,
+                       final int maxConcurrentBatches) {
+        this.solrIndexClientCache = solrIndexClientCache;
+        this.connectionConfig = connectionConfig;
+        this.collection = collection;
+        this.commitWithinMs = commitWithinMs;
+        this.softCommit = softCommit;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.maxConcurrentBatches = Math.max(1, maxConcurrentBatches);
+        this.executor = executorProvider.getExecutor(THREAD_POOL);
+        this.inFlight = new Semaphore(this.maxConcurrentBatches);
+    }
+
+    /**
+     * Send a batch of documents in the background, waiting if the maximum number of batches are
+     * already being sent.
+     *
+     * @param from The location of the first record in the batch.
+     * @param to   The location of the last record in the batch.
+     */
+    void send(final Collection<SolrInputDocument> documents,
+              final Location from,
+              final Location to) throws InterruptedException {
+        if (documents.size() == 0) {
+            return;
+        }
+
+        final String action = from == null
+                ? "add " + documents.size() + " documents to"
+                : "add " + documents.size() + " documents from records " + from + " to " + to + " to";
+        inFlight.acquire();
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    withRetry(action, from, () -> {
+                        solrIndexClientCache.context(connectionConfig, solrClient -> {
+                            try {
+                                solrClient.add(collection, documents, commitWithinMs);
+                                if (softCommit) {
+                                    solrClient.commit(collection, false, false, true);
+                                }
+                            } catch (final SolrServerException | IOException e) {
+                                throw new SendException(e);
+                            }
+                        });
+                    });
+                } finally {
+                    inFlight.release();
+                }
+            }, executor);
+        } catch (final RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for all of the batches that are in flight to be sent.
+     */
+    void flush() throws InterruptedException {
+        inFlight.acquire(maxConcurrentBatches);
+        inFlight.release(maxConcurrentBatches);
+    }
+
+    /**
+     * Wait for all batches to be sent and then perform a hard commit on the pipeline thread.
+     */
+    void commit() throws InterruptedException {
+        flush();
+        withRetry("commit", null, () ->
+                solrIndexClientCache.context(connectionConfig, solrClient -> {
+                    try {
+                        solrClient.commit(collection);
+                    } catch (final SolrServerException | IOException e) {
+                        throw new SendException(e);
+                    }
+                }));
+    }
+
+    /**
+     * @return Any errors that have occurred since the last call.
+     */
+    List<SendError> getErrors() {
+        final List<SendError> list = new ArrayList<>();
+        SendError error;
+        while ((error = errors.poll()) != null) {
+            list.add(error);
+        }
+        return list;
+    }
+
+    private void withRetry(final String action, final Location location, final Runnable runnable) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                runnable.run();
+                return;
+            } catch (final RuntimeException e) {
+                final Exception cause = e instanceof SendException ? (Exception) e.getCause() : e;
+                final String message = "Unable to " + action + " Solr collection '" + collection + "' - " + cause.getMessage();
+                if (attempt == maxRetries) {
+                    errors.add(new SendError(Severity.FATAL_ERROR, location, message, cause));
+                    return;
+                }
+
+                LOGGER.debug(() -> message, cause);
+                errors.add(new SendError(Severity.WARNING, location, message + " (retry " + (attempt + 1) + " of " + maxRetries + ")", null));
+                try {
+                    Thread.sleep(RETRY_DELAY_MS * (attempt + 1));
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    errors.add(new SendError(Severity.FATAL_ERROR, location, message, cause));
+                    return;
+                }
+            }
+        }
+    }
+
+    static class SendError {
+        private final Severity severity;
+        private final Location location;
+        private final String message;
+        private final Exception exception;
+
+        SendError(final Severity severity, final Location location, final String message, final Exception exception) {
+            this.severity = severity;
+            this.location = location;
+            this.message = message;
+            this.exception = exception;
+        }
+
+        Severity getSeverity() {
+            return severity;
+        }
+
+        /**
+         * @return The location of the first record in the failed batch or null if the error is
+         * not for a batch.
+         */
+        Location getLocation() {
+            return location;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        Exception getException() {
+            return exception;
+        }
+    }
+
+    private static class SendException extends RuntimeException {
+        SendException(final Exception cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
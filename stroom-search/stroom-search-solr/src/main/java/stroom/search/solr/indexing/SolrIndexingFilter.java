@@ -40,9 +40,11 @@ import stroom.search.solr.SolrIndexClientCache;
 import stroom.search.solr.shared.SolrIndexDoc;
 import stroom.search.solr.shared.SolrIndexField;
 import stroom.search.solr.shared.SolrIndexFieldType;
+import stroom.task.api.ExecutorProvider;
 import stroom.util.date.DateUtil;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
+import stroom.util.shared.Location;
 import stroom.util.shared.Severity;
 
 import javax.inject.Inject;
@@ -68,6 +70,8 @@ class SolrIndexingFilter extends AbstractXMLFilter {
     private final ErrorReceiverProxy errorReceiverProxy;
     private final SolrIndexCache solrIndexCache;
     private final SolrIndexClientCache solrIndexClientCache;
+    private final ExecutorProvider executorProvider;
+    private SolrDocumentSender sender;
     private Map<String, SolrIndexField> fieldsMap;
     private CachedSolrIndex indexConfig;
     private DocRef indexRef;
@@ -77,6 +81,11 @@ class SolrIndexingFilter extends AbstractXMLFilter {
     private int batchSize = 1000;
     private int commitWithinMs = -1;
     private boolean softCommit = true;
+    private int flushIntervalMs = 10000;
+    private int maxConcurrentBatches = 2;
+    private int maxRetries = 3;
+    private long batchStartTime;
+    private Location batchStartLocation;
     private int fieldsIndexed;
     private long docsIndexed;
 
@@ -86,11 +95,13 @@ class SolrIndexingFilter extends AbstractXMLFilter {
     SolrIndexingFilter(final LocationFactoryProxy locationFactory,
                        final ErrorReceiverProxy errorReceiverProxy,
                        final SolrIndexCache solrIndexCache,
-                       final SolrIndexClientCache solrIndexClientCache) {
+                       final SolrIndexClientCache solrIndexClientCache,
+                       final ExecutorProvider executorProvider) {
         this.locationFactory = locationFactory;
         this.errorReceiverProxy = errorReceiverProxy;
         this.solrIndexCache = solrIndexCache;
         this.solrIndexClientCache = solrIndexClientCache;
+        this.executorProvider = executorProvider;
     }
 
     /**
@@ -125,6 +136,17 @@ class SolrIndexingFilter extends AbstractXMLFilter {
                 }
             });
 
+            // Send documents to Solr in the background.
+            sender = new SolrDocumentSender(
+                    solrIndexClientCache,
+                    executorProvider,
+                    indexConfig.getIndex().getSolrConnectionConfig(),
+                    indexConfig.getIndex().getCollection(),
+                    commitWithinMs,
+                    softCommit,
+                    maxRetries,
+                    maxConcurrentBatches);
+
         } finally {
             super.startProcessing();
         }
@@ -133,9 +155,23 @@ class SolrIndexingFilter extends AbstractXMLFilter {
     @Override
     public void endProcessing() {
         try {
-            // Send last docs.
-            addDocuments(currentDocuments, true);
-            currentDocuments = null;
+            // Send last docs and wait for all batches to be sent.
+            if (sender != null) {
+                addDocuments(currentDocuments);
+                currentDocuments = null;
+                try {
+                    if (docsIndexed > 0) {
+                        sender.commit();
+                    } else {
+                        sender.flush();
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log(Severity.FATAL_ERROR, e.getMessage(), e);
+                    throw new LoggedException(e.getMessage(), e);
+                }
+                logSendErrors();
+            }
         } finally {
             super.endProcessing();
         }
@@ -208,36 +244,52 @@ class SolrIndexingFilter extends AbstractXMLFilter {
         // have indexed some fields.
         if (fieldsIndexed > 0) {
             docsIndexed++;
+            if (currentDocuments.size() == 0) {
+                batchStartTime = System.currentTimeMillis();
+                batchStartLocation = locationFactory.create(locator);
+            }
             currentDocuments.add(document);
             document = new SolrInputDocument();
 
-            if (currentDocuments.size() > batchSize) {
-                addDocuments(currentDocuments, false);
+            // Send the batch once it is full or has been waiting too long.
+            if (currentDocuments.size() >= batchSize ||
+                    (flushIntervalMs >= 0 && System.currentTimeMillis() - batchStartTime >= flushIntervalMs)) {
+                addDocuments(currentDocuments);
                 currentDocuments = new ArrayList<>();
             }
         }
+
+        logSendErrors();
     }
 
-    private void addDocuments(final Collection<SolrInputDocument> documents, final boolean commit) {
-        if (docsIndexed > 0) {
-            final String collection = indexConfig.getIndex().getCollection();
-            solrIndexClientCache.context(indexConfig.getIndex().getSolrConnectionConfig(), solrClient -> {
-                try {
-                    if (documents.size() > 0) {
-                        solrClient.add(collection, documents, commitWithinMs);
-                    }
+    private void addDocuments(final Collection<SolrInputDocument> documents) {
+        try {
+            sender.send(documents, batchStartLocation, locationFactory.create(locator));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log(Severity.FATAL_ERROR, e.getMessage(), e);
+            throw new LoggedException(e.getMessage(), e);
+        }
+    }
 
-                    if (commit) {
-                        solrClient.commit(collection);
-                    } else if (softCommit) {
-                        solrClient.commit(collection, false, false, true);
-                    }
-                } catch (final RuntimeException | SolrServerException | IOException e) {
-                    log(Severity.FATAL_ERROR, e.getMessage(), e);
-                    // Terminate processing as this is a fatal error.
-                    throw new LoggedException(e.getMessage(), e);
-                }
-            });
+    /**
+     * Report errors from sending documents in the background. If a batch could not be sent then
+     * processing is terminated as this is a fatal error.
+     */
+    private void logSendErrors() {
+        LoggedException fatal = null;
+        for (final SolrDocumentSender.SendError error : sender.getErrors()) {
+            // Batch errors are reported against the records in the batch rather than where the pipeline is now.
+            final Location location = error.getLocation() != null
+                    ? error.getLocation()
+                    : locationFactory.create(locator);
+            errorReceiverProxy.log(error.getSeverity(), location, getElementId(), error.getMessage(), error.getException());
+            if (Severity.FATAL_ERROR.equals(error.getSeverity()) && fatal == null) {
+                fatal = new LoggedException(error.getMessage(), error.getException());
+            }
+        }
+        if (fatal != null) {
+            throw fatal;
         }
     }
 
@@ -312,6 +364,34 @@ class SolrIndexingFilter extends AbstractXMLFilter {
         this.softCommit = softCommit;
     }
 
+    @PipelineProperty(
+            description = "Send a partly filled batch if its first document was added more than this number of milliseconds ago. Set to -1 to only send full batches.",
+            defaultValue = "10000",
+            displayPriority = 5)
+    public void setFlushIntervalMs(final int flushIntervalMs) {
+        if (flushIntervalMs < 0) {
+            this.flushIntervalMs = -1;
+        } else {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+    }
+
+    @PipelineProperty(
+            description = "How many batches can be sent to the index at the same time. Processing waits for a batch to finish when this many are being sent.",
+            defaultValue = "2",
+            displayPriority = 6)
+    public void setMaxConcurrentBatches(final int maxConcurrentBatches) {
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    @PipelineProperty(
+            description = "How many times to retry sending a batch to the index before failing.",
+            defaultValue = "3",
+            displayPriority = 7)
+    public void setMaxRetries(final int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
     private void log(final Severity severity, final String message, final Exception e) {
         errorReceiverProxy.log(severity, locationFactory.create(locator), getElementId(), message, e);
     }
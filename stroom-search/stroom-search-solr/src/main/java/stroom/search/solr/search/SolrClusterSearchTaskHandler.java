@@ -35,6 +35,7 @@ import stroom.search.extraction.ExtractionTaskExecutor;
 import stroom.search.extraction.ExtractionTaskHandler;
 import stroom.search.extraction.ExtractionTaskProducer;
 import stroom.search.extraction.StreamMapCreator;
+import stroom.search.extraction.StreamPermissionMetrics;
 import stroom.search.extraction.Values;
 import stroom.search.solr.CachedSolrIndex;
 import stroom.search.solr.SolrIndexCache;
@@ -81,6 +82,7 @@ public class SolrClusterSearchTaskHandler implements ErrorReceiver {
     private final ExtractionConfig extractionConfig;
     private final MetaService metaService;
     private final SecurityContext securityContext;
+    private final StreamPermissionMetrics streamPermissionMetrics;
     private final int maxBooleanClauseCount;
     private final int maxStoredDataQueueSize;
     private final LinkedBlockingQueue<String> errors = new LinkedBlockingQueue<>();
@@ -105,7 +107,8 @@ public class SolrClusterSearchTaskHandler implements ErrorReceiver {
                                  final SolrSearchConfig searchConfig,
                                  final Provider<ExtractionTaskHandler> extractionTaskHandlerProvider,
                                  final ExecutorProvider executorProvider,
-                                 final SolrSearchTaskHandler solrSearchTaskHandler) {
+                                 final SolrSearchTaskHandler solrSearchTaskHandler,
+                                 final StreamPermissionMetrics streamPermissionMetrics) {
         this.solrIndexCache = solrIndexCache;
         this.wordListProvider = wordListProvider;
         this.taskContext = taskContext;
@@ -114,6 +117,7 @@ public class SolrClusterSearchTaskHandler implements ErrorReceiver {
         this.extractionConfig = extractionConfig;
         this.metaService = metaService;
         this.securityContext = securityContext;
+        this.streamPermissionMetrics = streamPermissionMetrics;
         this.maxBooleanClauseCount = searchConfig.getMaxBooleanClauseCount();
         this.maxStoredDataQueueSize = searchConfig.getMaxStoredDataQueueSize();
         this.extractionTaskHandlerProvider = extractionTaskHandlerProvider;
@@ -318,7 +322,7 @@ public class SolrClusterSearchTaskHandler implements ErrorReceiver {
 
                     // Create an object to make event lists from raw index data.
                     final StreamMapCreator streamMapCreator = new StreamMapCreator(task.getStoredFields(), this,
-                            metaService, securityContext);
+                            metaService, securityContext, extractionConfig, streamPermissionMetrics);
 
                     // Make a task producer that will create event data extraction tasks when requested by the executor.
                     final Executor extractionExecutor = executorProvider.getExecutor(ExtractionTaskProducer.THREAD_POOL);
@@ -329,7 +333,7 @@ public class SolrClusterSearchTaskHandler implements ErrorReceiver {
                             extractionFieldIndexMap,
                             extractionCoprocessorsMap,
                             this,
-                            extractionConfig.getMaxThreadsPerTask(),
+                            extractionConfig,
                             extractionExecutor,
                             extractionTaskHandlerProvider);
 
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.solr.indexing;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import stroom.search.solr.SolrIndexClientCache;
+import stroom.search.solr.indexing.SolrDocumentSender.SendError;
+import stroom.search.solr.shared.SolrConnectionConfig;
+import stroom.task.api.ExecutorProvider;
+import stroom.task.shared.ThreadPool;
+import stroom.util.shared.DefaultLocation;
+import stroom.util.shared.Location;
+import stroom.util.shared.Severity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestSolrDocumentSender {
+    private static final String COLLECTION = "test";
+    private static final Location FROM = new DefaultLocation(1, 1);
+    private static final Location TO = new DefaultLocation(5, 1);
+
+    private final SolrClient solrClient = mock(SolrClient.class);
+    private final ExecutorService executorService = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void testRetryThenSuccess() throws Exception {
+        when(solrClient.add(eq(COLLECTION), anyCollection(), anyInt()))
+                .thenThrow(new SolrServerException("Unavailable"))
+                .thenReturn(new UpdateResponse());
+        final SolrDocumentSender sender = createSender(3, 2);
+
+        sender.send(createBatch(), FROM, TO);
+        sender.flush();
+
+        verify(solrClient, times(2)).add(eq(COLLECTION), anyCollection(), anyInt());
+        final List<SendError> errors = sender.getErrors();
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0).getSeverity()).isEqualTo(Severity.WARNING);
+        assertThat(errors.get(0).getMessage()).contains("retry 1 of 3");
+        assertThat(sender.getErrors()).isEmpty();
+    }
+
+    @Test
+    void testRetriesExhausted() throws Exception {
+        when(solrClient.add(eq(COLLECTION), anyCollection(), anyInt()))
+                .thenThrow(new SolrServerException("Unavailable"));
+        final SolrDocumentSender sender = createSender(1, 2);
+
+        sender.send(createBatch(), FROM, TO);
+        sender.flush();
+
+        verify(solrClient, times(2)).add(eq(COLLECTION), anyCollection(), anyInt());
+        final List<SendError> errors = sender.getErrors();
+        assertThat(errors).extracting(SendError::getSeverity).containsExactly(Severity.WARNING, Severity.FATAL_ERROR);
+
+        // The error is reported against the records in the batch rather than where the pipeline has got to.
+        final SendError fatal = errors.get(1);
+        assertThat(fatal.getLocation()).isEqualTo(FROM);
+        assertThat(fatal.getMessage()).contains("from records 1:1 to 5:1");
+        assertThat(fatal.getMessage()).contains("Unavailable");
+        assertThat(fatal.getException()).isInstanceOf(SolrServerException.class);
+    }
+
+    @Test
+    void testConcurrencyBound() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        when(solrClient.add(eq(COLLECTION), anyCollection(), anyInt())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } finally {
+                running.decrementAndGet();
+            }
+            return new UpdateResponse();
+        });
+        final SolrDocumentSender sender = createSender(0, 2);
+
+        // Two batches can be in flight without blocking the pipeline.
+        sender.send(createBatch(), FROM, TO);
+        sender.send(createBatch(), FROM, TO);
+
+        // The third has to wait for one of them to finish.
+        final CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                sender.send(createBatch(), FROM, TO);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(200);
+        assertThat(third.isDone()).isFalse();
+
+        release.countDown();
+        third.get(10, TimeUnit.SECONDS);
+        sender.flush();
+
+        verify(solrClient, times(3)).add(eq(COLLECTION), anyCollection(), anyInt());
+        assertThat(maxRunning.get()).isEqualTo(2);
+        assertThat(sender.getErrors()).isEmpty();
+    }
+
+    private SolrDocumentSender createSender(final int maxRetries, final int maxConcurrentBatches) {
+        return new SolrDocumentSender(
+                new StubSolrIndexClientCache(),
+                new StubExecutorProvider(),
+                new SolrConnectionConfig(),
+                COLLECTION,
+                -1,
+                false,
+                maxRetries,
+                maxConcurrentBatches);
+    }
+
+    private Collection<SolrInputDocument> createBatch() {
+        final SolrInputDocument document = new SolrInputDocument();
+        document.addField("field", "value");
+        return Collections.singletonList(document);
+    }
+
+    private class StubSolrIndexClientCache implements SolrIndexClientCache {
+        @Override
+        public void context(final SolrConnectionConfig key, final Consumer<SolrClient> consumer) {
+            consumer.accept(solrClient);
+        }
+
+        @Override
+        public <R> R contextResult(final SolrConnectionConfig key, final Function<SolrClient, R> function) {
+            return function.apply(solrClient);
+        }
+    }
+
+    private class StubExecutorProvider implements ExecutorProvider {
+        @Override
+        public Executor getExecutor() {
+            return executorService;
+        }
+
+        @Override
+        public Executor getExecutor(final ThreadPool threadPool) {
+            return executorService;
+        }
+    }
+}
@@ -10,6 +10,7 @@ public enum InternalStatisticKey {
     METADATA_STREAMS_RECEIVED("metaDataStreamsReceived"),
     METADATA_STREAM_SIZE("metaDataStreamSize"),
     PIPELINE_STREAM_PROCESSOR("PipelineStreamProcessor"),
+    STREAM_TASK_ASSIGNMENT("Stream Task Assignment"),
     STREAM_TASK_QUEUE_SIZE("Stream Task Queue Size"),
     VOLUMES("Volumes");
 
@@ -18,23 +18,54 @@ package stroom.statistics.impl.sql;
 
 import stroom.statistics.impl.sql.rollup.RollUpBitMask;
 import stroom.statistics.impl.sql.rollup.RollUpBitMaskUtil;
-import stroom.util.shared.EqualsBuilder;
 
+import java.util.Collections;
 import java.util.List;
-
+import java.util.Objects;
+
+/**
+ * Key for a statistic value in an aggregate map. Keys are compared using the statistic name and tag list
+ * rather than the compound key string so that the string, which requires cleaning each tag, only needs to be
+ * built once per distinct key rather than for every event.
+ * <p>
+ * An aggregate map reuses a single lookup key that is pointed at each tag permutation in turn with
+ * {@link #set(long, String, List)}, and only stores a {@link #copy()} of it when the key is new. A key must not be
+ * changed once it is in a map.
+ */
 public class SQLStatKey {
-    private final long ms;
-    private final String name;
-    private final int hashCode;
+    private long ms;
+    private String statName;
+    private List<StatisticTag> tags;
+    private int hashCode;
+
+    private String name;
 
     public SQLStatKey(final long ms, final String statName, final List<StatisticTag> tags) {
+        set(ms, statName, tags);
+    }
+
+    /**
+     * Point this key at a different statistic.
+     */
+    SQLStatKey set(final long ms, final String statName, final List<StatisticTag> tags) {
         this.ms = ms;
-        this.name = buildKeyString(statName, tags);
+        this.statName = statName;
+        this.tags = tags == null ? Collections.emptyList() : tags;
+        this.name = null;
 
         int code = 31;
-        code = code * 31 + (int) ms;
-        code = code * 31 + name.hashCode();
+        code = code * 31 + Long.hashCode(ms);
+        code = code * 31 + Objects.hashCode(statName);
+        code = code * 31 + this.tags.hashCode();
         hashCode = code;
+        return this;
+    }
+
+    /**
+     * @return A new key for the same statistic that can be stored in a map.
+     */
+    SQLStatKey copy() {
+        return new SQLStatKey(ms, statName, tags);
     }
 
     /**
@@ -100,6 +131,9 @@ public class SQLStatKey {
      * mask in hex form and any tag/value pairs
      */
     public String getName() {
+        if (name == null) {
+            name = buildKeyString(statName, tags);
+        }
         return name;
     }
 
@@ -117,14 +151,13 @@ public class SQLStatKey {
         }
 
         final SQLStatKey statKey = (SQLStatKey) o;
-        final EqualsBuilder builder = new EqualsBuilder();
-        builder.append(this.ms, statKey.ms);
-        builder.append(this.name, statKey.name);
-        return builder.isEquals();
+        return ms == statKey.ms &&
+                Objects.equals(statName, statKey.statName) &&
+                tags.equals(statKey.tags);
     }
 
     @Override
     public String toString() {
-        return name;
+        return getName();
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.statistics.impl.sql;
+
+/**
+ * The aggregate of all VALUE statistic events seen for a single key and time bucket. Only the count and sum are
+ * kept as they are all the value table stores.
+ */
+public class SQLStatValue {
+    private long count;
+    private double sum;
+
+    public SQLStatValue(final double value) {
+        this.count = 1;
+        this.sum = value;
+    }
+
+    public void add(final double value) {
+        count++;
+        sum += value;
+    }
+
+    public void add(final SQLStatValue value) {
+        count += value.count;
+        sum += value.sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getAverage() {
+        return sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return "SQLStatValue{" +
+                "count=" + count +
+                ", sum=" + sum +
+                '}';
+    }
+}
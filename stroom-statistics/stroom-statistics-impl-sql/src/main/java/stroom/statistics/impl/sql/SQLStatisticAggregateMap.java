@@ -22,13 +22,16 @@ import stroom.statistics.impl.sql.rollup.RolledUpStatisticEvent;
 import stroom.statistics.impl.sql.shared.StatisticType;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 public class SQLStatisticAggregateMap {
     private final Map<SQLStatKey, MutableLong> countMap = new HashMap<>();
-    private final Map<SQLStatKey, Double> valueMap = new HashMap<>();
+    private final Map<SQLStatKey, SQLStatValue> valueMap = new HashMap<>();
+    // Reused to look up every tag permutation so a key is only created for each new entry.
+    private final SQLStatKey lookupKey = new SQLStatKey(0, null, null);
 
     public void addRolledUpEvent(final RolledUpStatisticEvent rolledUpStatisticEvent, long precisionMs)
             throws StatisticsEventValidationException {
@@ -39,34 +42,45 @@ public class SQLStatisticAggregateMap {
             roundedMs = multiple * precisionMs;
         }
 
-        for (TimeAgnosticStatisticEvent timeAgnosticStatisticEvent : rolledUpStatisticEvent) {
-            // Create a key using the rounded time
-            final SQLStatKey key = new SQLStatKey(roundedMs, rolledUpStatisticEvent.getName(),
-                    timeAgnosticStatisticEvent.getTagList());
-
-            if (SQLStatisticsEventValidator.isKeyToLong(key.getName())) {
-                throw new StatisticsEventValidationException(
-                        String.format("Statistic event key [%s] is too long to store. Length is [%s]", key.getName(),
-                                key.getName().length()));
+        final String statName = rolledUpStatisticEvent.getName();
+        if (StatisticType.COUNT == rolledUpStatisticEvent.getType()) {
+            final long count = rolledUpStatisticEvent.getCount();
+            for (final List<StatisticTag> tags : rolledUpStatisticEvent.getTagListPermutations()) {
+                // Look up the value using the rounded time
+                final MutableLong v = countMap.get(lookupKey.set(roundedMs, statName, tags));
+                if (v == null) {
+                    final SQLStatKey key = lookupKey.copy();
+                    validate(key);
+                    countMap.put(key, new MutableLong(count));
+                } else {
+                    v.add(count);
+                }
             }
-
-            if (StatisticType.COUNT == rolledUpStatisticEvent.getType()) {
-                // Try and get the value
-                final MutableLong v = countMap.get(key);
+        } else {
+            final double value = rolledUpStatisticEvent.getValue();
+            for (final List<StatisticTag> tags : rolledUpStatisticEvent.getTagListPermutations()) {
+                // Look up the value using the rounded time
+                final SQLStatValue v = valueMap.get(lookupKey.set(roundedMs, statName, tags));
                 if (v == null) {
-                    countMap.put(key, new MutableLong(rolledUpStatisticEvent.getCount()));
+                    final SQLStatKey key = lookupKey.copy();
+                    validate(key);
+                    valueMap.put(key, new SQLStatValue(value));
                 } else {
-                    v.add(rolledUpStatisticEvent.getCount());
+                    v.add(value);
                 }
-            } else {
-                //TODO this is flawed. If we get multiple stats with the same key at the same time
-                //(a certainty with rollups) only the last one will be included.
-                //see https://github.com/gchq/stroom/issues/473
-                valueMap.put(key, rolledUpStatisticEvent.getValue());
             }
         }
     }
 
+    private void validate(final SQLStatKey key) throws StatisticsEventValidationException {
+        // Only new keys need checking as existing keys have already been validated.
+        if (SQLStatisticsEventValidator.isKeyToLong(key.getName())) {
+            throw new StatisticsEventValidationException(
+                    String.format("Statistic event key [%s] is too long to store. Length is [%s]", key.getName(),
+                            key.getName().length()));
+        }
+    }
+
     /**
      * Adds entries from another aggregate map into this one.
      *
@@ -81,17 +95,23 @@ public class SQLStatisticAggregateMap {
                 v.add(entry.getValue());
             }
         }
-        valueMap.putAll(aggregateMap.valueMap);
+        for (final Entry<SQLStatKey, SQLStatValue> entry : aggregateMap.valueEntrySet()) {
+            final SQLStatValue v = valueMap.get(entry.getKey());
+            if (v == null) {
+                valueMap.put(entry.getKey(), entry.getValue());
+            } else {
+                v.add(entry.getValue());
+            }
+        }
     }
 
     public Set<Entry<SQLStatKey, MutableLong>> countEntrySet() {
         return countMap.entrySet();
     }
 
-    public Set<Entry<SQLStatKey, Double>> valueEntrySet() {
+    public Set<Entry<SQLStatKey, SQLStatValue>> valueEntrySet() {
         return valueMap.entrySet();
     }
-
     public int size() {
         return countMap.size() + valueMap.size();
     }
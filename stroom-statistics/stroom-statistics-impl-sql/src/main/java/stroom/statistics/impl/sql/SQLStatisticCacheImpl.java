@@ -76,6 +76,10 @@ public class SQLStatisticCacheImpl implements SQLStatisticCache {
 
                 // Try a non-blocking flush
                 doFlush(false, flushMap);
+            } else if (aggregateMap.size() > this.map.size()) {
+                // The added map is no longer used by the caller so merge the smaller map into the larger one.
+                aggregateMap.add(this.map);
+                this.map = aggregateMap;
             } else {
                 this.map.add(aggregateMap);
             }
@@ -102,17 +102,20 @@ public class SQLStatisticFlushTaskHandler extends AbstractTaskHandler<SQLStatist
                     }
                 }
             }
-            for (final Entry<SQLStatKey, Double> entry : map.valueEntrySet()) {
+            for (final Entry<SQLStatKey, SQLStatValue> entry : map.valueEntrySet()) {
                 if (!Thread.currentThread().isInterrupted()) {
                     final long ms = entry.getKey().getMs();
                     final String name = entry.getKey().getName();
-                    final long value = entry.getValue().longValue();
+                    final SQLStatValue value = entry.getValue();
 
+                    // Store the sum and count of the aggregated values so that averages are correct.
                     final SQLStatisticValueSourceDO insert = new SQLStatisticValueSourceDO();
                     insert.setCreateMs(ms);
                     insert.setName(name);
                     insert.setType(StatisticType.VALUE);
-                    insert.setValue(value);
+                    // The value column is a whole number so round the sum rather than truncating it.
+                    insert.setValue(Math.round(value.getSum()));
+                    insert.setCount(value.getCount());
 
                     batchInsert.add(insert);
 
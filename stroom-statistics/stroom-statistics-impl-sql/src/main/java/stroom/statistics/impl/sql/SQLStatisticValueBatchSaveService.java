@@ -48,7 +48,9 @@ class SQLStatisticValueBatchSaveService {
         sql.append(SQLStatisticNames.VALUE_TYPE);
         sql.append(",");
         sql.append(SQLStatisticNames.VALUE);
-        sql.append(") VALUES ( ?, ?, ?, ?) ");
+        sql.append(",");
+        sql.append(SQLStatisticNames.COUNT);
+        sql.append(") VALUES ( ?, ?, ?, ?, ?) ");
         SAVE_CALL = sql.toString();
     }
 
@@ -75,6 +77,8 @@ class SQLStatisticValueBatchSaveService {
             sql.append(SQLStatisticNames.VALUE_TYPE);
             sql.append(",");
             sql.append(SQLStatisticNames.VALUE);
+            sql.append(",");
+            sql.append(SQLStatisticNames.COUNT);
             sql.append(") VALUES ");
             boolean doneOne = false;
             for (final SQLStatisticValueSourceDO item : batch) {
@@ -90,6 +94,8 @@ class SQLStatisticValueBatchSaveService {
                 sql.append(item.getType().getPrimitiveValue());
                 sql.append(",");
                 sql.append(item.getValue());
+                sql.append(",");
+                sql.append(item.getCount());
                 sql.append(")");
                 doneOne = true;
             }
@@ -116,6 +122,7 @@ class SQLStatisticValueBatchSaveService {
                     preparedStatement.setString(2, item.getName());
                     preparedStatement.setByte(3, item.getType().getPrimitiveValue());
                     preparedStatement.setLong(4, item.getValue());
+                    preparedStatement.setLong(5, item.getCount());
                     preparedStatement.addBatch();
                     preparedStatement.clearParameters();
                 }
@@ -146,6 +153,7 @@ class SQLStatisticValueBatchSaveService {
                     preparedStatement.setString(2, item.getName());
                     preparedStatement.setByte(3, item.getType().getPrimitiveValue());
                     preparedStatement.setLong(4, item.getValue());
+                    preparedStatement.setLong(5, item.getCount());
 
                     try {
                         preparedStatement.execute();
@@ -26,6 +26,7 @@ public class SQLStatisticValueSourceDO implements Serializable {
     private long createMs;
     private String name;
     private long value;
+    private long count = 1;
     private StatisticType type;
 
     public long getCreateMs() {
@@ -52,6 +53,17 @@ public class SQLStatisticValueSourceDO implements Serializable {
         this.value = value;
     }
 
+    /**
+     * @return The number of values that have been summed to give the value. Only used for VALUE statistics.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(final long count) {
+        this.count = count;
+    }
+
     public StatisticType getType() {
         return type;
     }
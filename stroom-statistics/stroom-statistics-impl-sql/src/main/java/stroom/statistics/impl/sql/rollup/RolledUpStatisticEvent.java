@@ -22,6 +22,7 @@ import stroom.statistics.impl.sql.TimeAgnosticStatisticEvent;
 import stroom.statistics.impl.sql.shared.StatisticType;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -77,6 +78,17 @@ public class RolledUpStatisticEvent implements Iterable<TimeAgnosticStatisticEve
         return tagListPermutations.size();
     }
 
+    /**
+     * @return The tag list of each roll up permutation. Unlike iterating over this event this does not create
+     * a new {@link TimeAgnosticStatisticEvent} for each permutation.
+     */
+    public List<List<StatisticTag>> getTagListPermutations() {
+        if (tagListPermutations == null) {
+            return Collections.emptyList();
+        }
+        return tagListPermutations;
+    }
+
     @Override
     public Iterator<TimeAgnosticStatisticEvent> iterator() {
         return new Iterator<TimeAgnosticStatisticEvent>() {
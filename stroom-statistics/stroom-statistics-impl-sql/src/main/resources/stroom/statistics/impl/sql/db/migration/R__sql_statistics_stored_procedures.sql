@@ -18,7 +18,7 @@ BEGIN
                 p_precision as PRES,
                 p_valueType as VAL_TP,
                 SUM(SSVS.VAL) as VAL,
-                SUM(CASE SSVS.VAL_TP WHEN 1 THEN SSVS.VAL ELSE 1 END) as CT,
+                SUM(CASE SSVS.VAL_TP WHEN 1 THEN SSVS.VAL ELSE SSVS.CT END) as CT,
                 SSK.ID as FK_SQL_STAT_KEY_ID
             FROM SQL_STAT_VAL_SRC SSVS
             JOIN SQL_STAT_KEY SSK ON (SSK.NAME = SSVS.NAME)
@@ -0,0 +1,5 @@
+--
+-- Add a count to the source table so that VALUE statistics can be aggregated in memory before they are written.
+-- Existing rows and COUNT statistics each represent a single value so default to 1.
+--
+ALTER TABLE SQL_STAT_VAL_SRC ADD COLUMN CT bigint(20) NOT NULL DEFAULT 1;
@@ -178,6 +178,21 @@ class TestSQLStatKey extends StroomUnitTest {
         assertThat(sqlStatKey2.hashCode()).isNotEqualTo(sqlStatKey1.hashCode());
     }
 
+    @Test
+    void testSetAndCopy() {
+        final SQLStatKey lookupKey = new SQLStatKey(0, null, null);
+        final SQLStatKey copy = lookupKey.set(time, statName, tags).copy();
+
+        assertThat(copy).isEqualTo(new SQLStatKey(time, statName, tags));
+        assertThat(copy.hashCode()).isEqualTo(new SQLStatKey(time, statName, tags).hashCode());
+        assertThat(copy.getName()).isEqualTo(lookupKey.getName());
+
+        // Changing the lookup key doesn't change the copy.
+        lookupKey.set(time + 1, statName, tags);
+        assertThat(copy.getMs()).isEqualTo(time);
+        assertThat(copy).isNotEqualTo(lookupKey);
+    }
+
     private String buildTagsPart(final List<StatisticTag> tags) {
         final StringBuilder sb = new StringBuilder();
 
@@ -82,9 +82,9 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
         // time gets rounded to 100_000L
         final long expectedKeyTime = (timeMs / precision) * precision;
 
-        for (final Entry<SQLStatKey, MutableLong> entry : aggregateMap.countEntrySet()) {
+        for (final Entry<SQLStatKey, SQLStatValue> entry : aggregateMap.valueEntrySet()) {
             assertThat(entry.getKey().getMs()).isEqualTo(expectedKeyTime);
-            assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL, within(JUNIT_DOUBLE_DELTA));
+            assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL, within(JUNIT_DOUBLE_DELTA));
         }
     }
 
@@ -124,11 +124,13 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
         // time gets rounded to 100_000L
         final long expectedKeyTime = (timeMs / precision) * precision;
 
-        for (final Entry<SQLStatKey, MutableLong> entry : aggregateMap.countEntrySet()) {
+        for (final Entry<SQLStatKey, SQLStatValue> entry : aggregateMap.valueEntrySet()) {
             assertThat(entry.getKey().getMs()).isEqualTo(expectedKeyTime);
 
-            // three events each with a count of 1 so value in map should be 3
-            assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL * 3, within(JUNIT_DOUBLE_DELTA));
+            // three events each with a value of 1.5 so the sum should be 4.5 from a count of 3
+            assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL * 3, within(JUNIT_DOUBLE_DELTA));
+            assertThat(entry.getValue().getCount()).isEqualTo(3);
+            assertThat(entry.getValue().getAverage()).isCloseTo(VALUE_VAL, within(JUNIT_DOUBLE_DELTA));
         }
     }
 
@@ -187,11 +189,11 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
         // time gets rounded to 100_000L
         final long expectedKeyTime = (timeMs / precision) * precision;
 
-        for (final Entry<SQLStatKey, MutableLong> entry : aggregateMap.countEntrySet()) {
+        for (final Entry<SQLStatKey, SQLStatValue> entry : aggregateMap.valueEntrySet()) {
             final int markerCount = countStringInString(entry.getKey().getName(), RollUpBitMask.ROLL_UP_TAG_VALUE);
 
             System.out.println(
-                    entry.getKey() + "  val: " + entry.getValue().longValue() + " markerCount: " + markerCount);
+                    entry.getKey() + "  val: " + entry.getValue() + " markerCount: " + markerCount);
             assertThat(entry.getKey().getMs()).isEqualTo(expectedKeyTime);
 
             // all event perms are put into different keys so value should be 1
@@ -200,9 +202,9 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
             // Use split as a bit of a hack to count the number of roll up
             // marker chars in the name
             if (markerCount == 3) {
-                assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL * 3, within(JUNIT_DOUBLE_DELTA));
+                assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL * 3, within(JUNIT_DOUBLE_DELTA));
             } else {
-                assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL, within(JUNIT_DOUBLE_DELTA));
+                assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL, within(JUNIT_DOUBLE_DELTA));
             }
 
         }
@@ -266,11 +268,11 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
         // time gets rounded to 100_000L
         final long expectedKeyTime = (timeMs / precision) * precision;
 
-        for (final Entry<SQLStatKey, MutableLong> entry : aggregateMap1.countEntrySet()) {
+        for (final Entry<SQLStatKey, SQLStatValue> entry : aggregateMap1.valueEntrySet()) {
             assertThat(entry.getKey().getMs()).isEqualTo(expectedKeyTime);
 
             // three events each with a count of 1 so value in map should be 3
-            assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL * 6, within(JUNIT_DOUBLE_DELTA));
+            assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL * 6, within(JUNIT_DOUBLE_DELTA));
         }
     }
 
@@ -353,11 +355,11 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
         // time gets rounded to 100_000L
         final long expectedKeyTime = (timeMs / precision) * precision;
 
-        for (final Entry<SQLStatKey, MutableLong> entry : aggregateMap1.countEntrySet()) {
+        for (final Entry<SQLStatKey, SQLStatValue> entry : aggregateMap1.valueEntrySet()) {
             final int markerCount = countStringInString(entry.getKey().getName(), RollUpBitMask.ROLL_UP_TAG_VALUE);
 
             System.out.println(
-                    entry.getKey() + "  val: " + entry.getValue().longValue() + " markerCount: " + markerCount);
+                    entry.getKey() + "  val: " + entry.getValue() + " markerCount: " + markerCount);
             assertThat(entry.getKey().getMs()).isEqualTo(expectedKeyTime);
 
             // all event perms are put into different keys so value should be 1
@@ -366,9 +368,9 @@ class TestSQLStatisticAggregateMap extends StroomUnitTest {
             // Use split as a bit of a hack to count the number of roll up
             // marker chars in the name
             if (markerCount == 3) {
-                assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL * 3 * 2, within(JUNIT_DOUBLE_DELTA));
+                assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL * 3 * 2, within(JUNIT_DOUBLE_DELTA));
             } else {
-                assertThat(entry.getValue().doubleValue()).isCloseTo(VALUE_VAL * 2, within(JUNIT_DOUBLE_DELTA));
+                assertThat(entry.getValue().getSum()).isCloseTo(VALUE_VAL * 2, within(JUNIT_DOUBLE_DELTA));
             }
         }
     }
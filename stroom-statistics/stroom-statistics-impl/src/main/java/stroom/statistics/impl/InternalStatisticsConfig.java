@@ -45,6 +45,8 @@ public class InternalStatisticsConfig implements IsConfig {
                 InternalStatisticKey.METADATA_STREAMS_RECEIVED, InternalStatisticsConfig::getMetaDataStreamsReceivedDocRefs);
         KEY_TO_DOC_REFS_GETTER_MAP.put(
                 InternalStatisticKey.PIPELINE_STREAM_PROCESSOR, InternalStatisticsConfig::getPipelineStreamProcessorDocRefs);
+        KEY_TO_DOC_REFS_GETTER_MAP.put(
+                InternalStatisticKey.STREAM_TASK_ASSIGNMENT, InternalStatisticsConfig::getStreamTaskAssignmentDocRefs);
         KEY_TO_DOC_REFS_GETTER_MAP.put(
                 InternalStatisticKey.STREAM_TASK_QUEUE_SIZE, InternalStatisticsConfig::getStreamTaskQueueSizeDocRefs);
         KEY_TO_DOC_REFS_GETTER_MAP.put(
@@ -60,6 +62,7 @@ public class InternalStatisticsConfig implements IsConfig {
     private List<DocRef> metaDataStreamSizeDocRefs = Collections.emptyList();
     private List<DocRef> metaDataStreamsReceivedDocRefs = Collections.emptyList();
     private List<DocRef> pipelineStreamProcessorDocRefs = Collections.emptyList();
+    private List<DocRef> streamTaskAssignmentDocRefs = Collections.emptyList();
     private List<DocRef> streamTaskQueueSizeDocRefs = Collections.emptyList();
     private List<DocRef> volumesDocRefs = Collections.emptyList();
 
@@ -151,6 +154,15 @@ public class InternalStatisticsConfig implements IsConfig {
         this.pipelineStreamProcessorDocRefs = pipelineStreamProcessorDocRefs;
     }
 
+    @JsonProperty("streamTaskAssignment")
+    public List<DocRef> getStreamTaskAssignmentDocRefs() {
+        return streamTaskAssignmentDocRefs;
+    }
+
+    public void setStreamTaskAssignmentDocRefs(final List<DocRef> streamTaskAssignmentDocRefs) {
+        this.streamTaskAssignmentDocRefs = streamTaskAssignmentDocRefs;
+    }
+
     @JsonProperty("streamTaskQueueSize")
     public List<DocRef> getStreamTaskQueueSizeDocRefs() {
         return streamTaskQueueSizeDocRefs;
@@ -181,6 +193,7 @@ public class InternalStatisticsConfig implements IsConfig {
                 ", metaDataStreamSizeDocRefs=" + metaDataStreamSizeDocRefs +
                 ", metaDataStreamsReceivedDocRefs=" + metaDataStreamsReceivedDocRefs +
                 ", pipelineStreamProcessorDocRefs=" + pipelineStreamProcessorDocRefs +
+                ", streamTaskAssignmentDocRefs=" + streamTaskAssignmentDocRefs +
                 ", streamTaskQueueSizeDocRefs=" + streamTaskQueueSizeDocRefs +
                 ", volumesDocRefs=" + volumesDocRefs +
                 '}';
@@ -0,0 +1,52 @@
+package stroom.test.common.util.test.data;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The input and XSLT used to measure XSLT filter throughput. Shared by the manual performance test in
+ * stroom-pipeline and the JMH benchmark in stroom-jmh so that their results can be compared.
+ */
+public final class XsltPerformanceData {
+    /**
+     * Copies each event, upper casing the user.
+     */
+    public static final String XSLT = "" +
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n" +
+            "  <xsl:template match=\"/Events\">\n" +
+            "    <Events>\n" +
+            "      <xsl:apply-templates/>\n" +
+            "    </Events>\n" +
+            "  </xsl:template>\n" +
+            "  <xsl:template match=\"Event\">\n" +
+            "    <Event>\n" +
+            "      <Id><xsl:value-of select=\"Id\"/></Id>\n" +
+            "      <User><xsl:value-of select=\"upper-case(User)\"/></User>\n" +
+            "      <Action><xsl:value-of select=\"Action\"/></Action>\n" +
+            "    </Event>\n" +
+            "  </xsl:template>\n" +
+            "</xsl:stylesheet>";
+
+    private XsltPerformanceData() {
+        // Utility class.
+    }
+
+    /**
+     * @return A single XML document containing the requested number of simple event records.
+     */
+    public static byte[] createEvents(final int recordCount) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.1\" encoding=\"UTF-8\"?>\n");
+        sb.append("<Events>\n");
+        for (int i = 0; i < recordCount; i++) {
+            sb.append("<Event><Id>");
+            sb.append(i);
+            sb.append("</Id><User>user");
+            sb.append(i % 100);
+            sb.append("</User><Action>action");
+            sb.append(i % 10);
+            sb.append("</Action></Event>\n");
+        }
+        sb.append("</Events>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}